@@ -20,7 +20,7 @@ import androidx.annotation.RequiresApi
 import com.spamcalldetector.utils.CallStateManager
 import com.spamcalldetector.activities.call.OutgoingCallActivity
 import com.spamcalldetector.utils.PermissionManager
-import com.facebook.react.modules.core.DeviceEventManagerModule
+import com.spamcalldetector.utils.ReactEventBus
 
 class MainActivity : ReactActivity() {
 
@@ -93,22 +93,15 @@ class MainActivity : ReactActivity() {
         try {
             val reactInstanceManager = reactNativeHost.reactInstanceManager
             val reactContext = reactInstanceManager.currentReactContext
+            val eventBus = ReactEventBus.getInstance()
             if (reactContext != null) {
-                // Try DeviceEventEmitter first
-                try {
-                    reactContext
-                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
-                        .emit("NAVIGATE_TO_RECENT_CALLS", null)
-                    Log.d("MainActivity", "Successfully sent navigation event via DeviceEventEmitter")
-                } catch (e: Exception) {
-                    Log.w("MainActivity", "DeviceEventEmitter failed, trying alternative method: ${e.message}")
-                }
-                
-                // Log that we attempted navigation
-                Log.d("MainActivity", "Navigation event sent via DeviceEventEmitter")
+                eventBus.attach(reactContext)
             } else {
-                Log.w("MainActivity", "React context not available for navigation")
+                Log.w("MainActivity", "React context not available, navigation event queued")
             }
+            // Repeated navigation intents collapse into one event per frame
+            eventBus.post("NAVIGATE_TO_RECENT_CALLS", "navigate", null)
+            Log.d("MainActivity", "Navigation event posted")
         } catch (e: Exception) {
             Log.e("MainActivity", "Error sending navigation event: ${e.message}")
         }
@@ -171,9 +164,9 @@ class MainActivity : ReactActivity() {
             val reactInstanceManager = reactNativeHost.reactInstanceManager
             val reactContext = reactInstanceManager.currentReactContext
             if (reactContext != null) {
-                reactContext
-                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
-                    .emit("PERMISSION_RESULT", null)
+                val eventBus = ReactEventBus.getInstance()
+                eventBus.attach(reactContext)
+                eventBus.post("PERMISSION_RESULT", "result", null)
             }
         } catch (e: Exception) {
             Log.e("MainActivity", "Error sending permission result event: ${e.message}")
@@ -21,6 +21,8 @@ import com.spamcalldetector.activities.role.DialerRoleManagerPackage
 import com.spamcalldetector.activities.dialer.DialerPackage
 import com.spamcalldetector.activities.permission.ManageExternalStoragePackage
 import com.spamcalldetector.activities.contacts.ContactsPackage
+import com.spamcalldetector.helpers.DefaultCountry
+import com.spamcalldetector.utils.DeviceInteractionTracker
 import com.spamcalldetector.utils.PermissionManagerPackage
 import com.zmxv.RNSound.RNSoundPackage;
 
@@ -56,6 +58,10 @@ class MainApplication : Application(), ReactApplication {
   override fun onCreate() {
     super.onCreate()
     SoLoader.init(this, OpenSourceMergedSoMapping)
+    // National numbers are read as numbers of the SIM's country before any are normalized
+    DefaultCountry.init(this)
+    // Track screen, keyguard and foreground state so incoming call routing needs no binder calls
+    DeviceInteractionTracker.getInstance(this).registerActivityCallbacks(this)
     if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
       // If you opted-in for the New Architecture, we load the native entry point for this app.
       load()
@@ -4,19 +4,32 @@ import android.telecom.Call;
 import android.util.Log;
 import com.facebook.react.bridge.*;
 import com.spamcalldetector.helpers.CallManager;
+import com.spamcalldetector.helpers.CallRegistry;
+import com.spamcalldetector.helpers.CallScreeningPolicy;
+import com.spamcalldetector.helpers.Constants;
+import com.spamcalldetector.helpers.ConferenceOrchestrator;
 import com.spamcalldetector.helpers.ContactsHelper;
+import com.spamcalldetector.helpers.FraudAlertClient;
+import com.spamcalldetector.helpers.NumberRangeRules;
+import com.spamcalldetector.helpers.NumberReputationStore;
+import com.spamcalldetector.helpers.RobocallBurstDetector;
+import com.spamcalldetector.helpers.ScamBlocklist;
+import com.spamcalldetector.helpers.TranscriptFraudClassifier;
 import com.spamcalldetector.activities.dialer.DialerModule;
 import com.spamcalldetector.services.CallService;
+import com.spamcalldetector.services.CallSession;
+import com.spamcalldetector.utils.CallSetupTracer;
+import com.spamcalldetector.utils.DeviceInteractionTracker;
+import com.spamcalldetector.utils.ReactEventBus;
 import android.app.Activity;
 import android.net.Uri;
 import java.util.List;
 import java.util.ArrayList;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
+import java.util.Map;
 
 public class CallActivityModule extends ReactContextBaseJavaModule {
 
     public static boolean isMuted, isSpeakerOn, isCallOnHold, isRecordingCall;
-    private static final String TWILIO_NUMBER = "+18452998019"; // Your Twilio number
 
     private static boolean conferenceCreated = false; // Flag to prevent multiple conference creations
     DialerModule dialer;
@@ -27,6 +40,7 @@ public class CallActivityModule extends ReactContextBaseJavaModule {
         super(context);
         reactContext = context;
         dialer = new DialerModule(reactContext);
+        ReactEventBus.getInstance().attach(context);
     }
 
     @Override
@@ -43,14 +57,6 @@ public class CallActivityModule extends ReactContextBaseJavaModule {
         // No-op
     }
 
-    // Helper method to get caller ID from a call
-    private String getCallerIdFromCall(Call call) {
-        if (call == null || call.getDetails() == null)
-            return null;
-        Uri handle = call.getDetails().getHandle();
-        return (handle != null) ? handle.getSchemeSpecificPart() : null;
-    }
-
     @ReactMethod
     public void answerCall(Promise promise) {
         try {
@@ -71,26 +77,17 @@ public class CallActivityModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void toggleRecording(Promise promise) {
         try {
-            Call twilioCall = CallManager.findCallByCallerId(TWILIO_NUMBER);
+            Call twilioCall = CallManager.findMonitoringCall();
             if (twilioCall != null) {
+                ConferenceOrchestrator.getInstance().cancel();
                 boolean hungUp = false;
                 // Check if Twilio is in a conference
-                for (Call conference : CallManager.getActiveCalls()) {
-                    if (!conference.getChildren().isEmpty()) {
-                        List<Call> children = conference.getChildren();
-                        for (Call child : children) {
-                            if (getCallerIdFromCall(child).equals(TWILIO_NUMBER)) {
-                                // Twilio is in the conference, remove it
-                                Log.d("Dialer", "Twilio is in the conference, disconnecting.");
-                                CallManager.hangUpCall(child); // Disconnect the Twilio call
-                                hungUp = true;
-                                break;
-                            }
-                        }
-                    }
-                    if (hungUp) {
-                        break; // Exit the outer loop if the child call was hung up
-                    }
+                CallRegistry.CallRecord twilioRecord = CallManager.getCallRecord(twilioCall);
+                if (twilioRecord != null && twilioRecord.getParent() != null) {
+                    // Twilio is in the conference, remove it
+                    Log.d("Dialer", "Twilio is in the conference, disconnecting.");
+                    CallManager.hangUpCall(twilioCall); // Disconnect the Twilio call
+                    hungUp = true;
                 }
 
                 if (!hungUp) {
@@ -99,7 +96,8 @@ public class CallActivityModule extends ReactContextBaseJavaModule {
                 }
                 promise.resolve("Recording stopped");
             } else {
-                dialer.dialNumber(TWILIO_NUMBER);
+                ConferenceOrchestrator.getInstance().onMonitoringRequested();
+                dialer.dialNumber(Constants.TWILIO_NUMBER);
                 promise.resolve("Recording started");
             }
         } catch (Exception e) {
@@ -114,21 +112,19 @@ public class CallActivityModule extends ReactContextBaseJavaModule {
             boolean isTwilioOnly = false;
 
             // Check if the call is part of a conference
-            for (Call call : CallManager.getActiveCalls()) {
-                if (!call.getChildren().isEmpty()) {
-                    isConference = true;
-                    List<Call> remainingCalls = call.getChildren();
-                    // Check if only the Twilio call and user are left in the conference
-                    List<Call> otherParticipants = new ArrayList<>();
-                    for (Call c : remainingCalls) {
-                        String id = getCallerIdFromCall(c);
-                        if (id != null && !id.equals(TWILIO_NUMBER)) {
-                            otherParticipants.add(c);
-                        }
+            CallRegistry registry = CallManager.getRegistry();
+            CallRegistry.CallRecord conference = registry.findConference();
+            if (conference != null) {
+                isConference = true;
+                // Check if only the Twilio call and user are left in the conference
+                List<Call> otherParticipants = new ArrayList<>();
+                for (CallRegistry.CallRecord child : registry.getChildren(conference.getCall())) {
+                    if (child.getNumber() != null && !child.isMonitoringLeg()) {
+                        otherParticipants.add(child.getCall());
                     }
-                    // If there are no other participants, Twilio is the only one left
-                    isTwilioOnly = (otherParticipants.size() == 0);
                 }
+                // If there are no other participants, Twilio is the only one left
+                isTwilioOnly = (otherParticipants.size() == 0);
             }
 
             if (isConference && isTwilioOnly) {
@@ -261,57 +257,403 @@ public class CallActivityModule extends ReactContextBaseJavaModule {
         }
     }
 
-    public static void disconnectCall(Call call) {
-        CallManager.hangUpCall(call);
+    @ReactMethod
+    public void getMonitoringSetupStats(Promise promise) {
+        try {
+            ConferenceOrchestrator orchestrator = ConferenceOrchestrator.getInstance();
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : orchestrator.getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            result.putString("step", orchestrator.getStep());
+            result.putString("lastFailureReason", orchestrator.getLastFailureReason());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
     }
 
-    public static void emitCallTiming() {
+    // The React incoming call screen rendered its first frame; drop the native one
+    @ReactMethod
+    public void onIncomingCallUiReady() {
+        IncomingCallActivity.onReactUiReady();
+    }
+
+    @ReactMethod
+    public void getIncomingCallUiStats(Promise promise) {
         try {
-            Call call = CallManager.getLatestActiveOrRingingCall();
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : IncomingCallActivity.getUiStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
 
-            if (call != null && CallManager.inCallService instanceof CallService) {
-                CallService callService = (CallService) CallManager.inCallService;
-                String callStatus = callService.getCallStatus();
+    @ReactMethod
+    public void getCallSetupTraces(int count, Promise promise) {
+        try {
+            CallSetupTracer tracer = CallSetupTracer.getInstance();
+            WritableArray traces = Arguments.createArray();
+            for (Map<String, Long> trace : tracer.getRecentTraces(count)) {
+                WritableMap traceMap = Arguments.createMap();
+                for (Map.Entry<String, Long> entry : trace.entrySet()) {
+                    traceMap.putDouble(entry.getKey(), entry.getValue());
+                }
+                traces.pushMap(traceMap);
+            }
 
-                WritableMap params = Arguments.createMap();
+            WritableMap percentiles = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : tracer.getStagePercentiles().entrySet()) {
+                percentiles.putDouble(entry.getKey(), entry.getValue());
+            }
 
-                if ("Calling...".equals(callStatus) || "Connecting...".equals(callStatus)) {
-                    params.putString("callTime", callStatus);
-                } else {
-                    long seconds = callService.getCallDuration();
-                    long min = seconds / 60;
-                    long sec = seconds % 60;
-                    String formattedTime = String.format("%02d:%02d", min, sec);
-                    params.putString("callTime", formattedTime);
-                }
+            WritableMap result = Arguments.createMap();
+            result.putArray("traces", traces);
+            result.putMap("percentiles", percentiles);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
 
-                if (reactContext != null) {
-                    reactContext
-                            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                            .emit("CallTimingUpdate", params);
-                }
+    @ReactMethod
+    public void getNumberReputation(String phoneNumber, Promise promise) {
+        try {
+            NumberReputationStore store = NumberReputationStore.getInstance(getReactApplicationContext());
+            NumberReputationStore.Reputation reputation = store.get(phoneNumber);
+            if (reputation == null) {
+                promise.resolve(null);
+                return;
+            }
 
-            } else {
-                // No active call or service, send null or fallback
-                WritableMap params = Arguments.createMap();
-                params.putString("callTime", null);
-
-                if (reactContext != null) {
-                    reactContext
-                            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                            .emit("CallTimingUpdate", params);
-                }
+            WritableMap result = Arguments.createMap();
+            result.putInt("totalCalls", reputation.getTotalCalls());
+            result.putInt("incomingCalls", reputation.getIncomingCalls());
+            result.putInt("outgoingCalls", reputation.getOutgoingCalls());
+            result.putInt("answeredCalls", reputation.getAnsweredCalls());
+            result.putInt("missedCalls", reputation.getMissedCalls());
+            result.putInt("rejectedCalls", reputation.getRejectedCalls());
+            result.putInt("blockedCalls", reputation.getBlockedCalls());
+            result.putInt("shortCalls", reputation.getShortCalls());
+            result.putInt("fraudFlags", reputation.getFraudFlags());
+            result.putDouble("totalDurationSeconds", reputation.getTotalDurationSeconds());
+            result.putDouble("firstSeen", reputation.getFirstSeen());
+            result.putDouble("lastSeen", reputation.getLastSeen());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getCallScreeningStats(Promise promise) {
+        try {
+            CallScreeningPolicy policy = CallScreeningPolicy.getInstance(getReactApplicationContext());
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : policy.getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, Long> entry : RobocallBurstDetector.getInstance().getStats().entrySet()) {
+                result.putDouble("burst." + entry.getKey(), entry.getValue());
+            }
+
+            WritableArray recent = Arguments.createArray();
+            for (CallScreeningPolicy.Decision decision : policy.getRecentDecisions()) {
+                WritableMap item = Arguments.createMap();
+                item.putString("action", CallScreeningPolicy.actionName(decision.getAction()));
+                item.putString("reason", decision.getReason());
+                item.putDouble("latencyNanos", decision.getLatencyNanos());
+                item.putDouble("decidedAt", decision.getDecidedAt());
+                recent.pushMap(item);
+            }
+            result.putArray("recentDecisions", recent);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void reloadScamBlocklist() {
+        ScamBlocklist.getInstance(getReactApplicationContext()).reload();
+    }
+
+    @ReactMethod
+    public void getScamBlocklistStats(Promise promise) {
+        try {
+            ScamBlocklist blocklist = ScamBlocklist.getInstance(getReactApplicationContext());
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : blocklist.getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
             }
+            result.putBoolean("loaded", blocklist.isLoaded());
+            promise.resolve(result);
         } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the local number rules, which override the bundled ones, and apply them
+     *
+     * @param rules Lines such as "deny +1 900" or "allow +1 555-0100 to +1 555-0199"
+     */
+    @ReactMethod
+    public void setNumberRules(String rules, Promise promise) {
+        try {
+            NumberRangeRules.getInstance(getReactApplicationContext()).saveRules(rules != null ? rules : "");
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void reloadNumberRules() {
+        NumberRangeRules.getInstance(getReactApplicationContext()).reload();
+    }
+
+    @ReactMethod
+    public void getNumberRangeRuleStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : NumberRangeRules.getInstance(getReactApplicationContext())
+                    .getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void classifyTranscriptFragment(String fragment, Promise promise) {
+        try {
+            TranscriptFraudClassifier classifier = TranscriptFraudClassifier.getInstance(getReactApplicationContext());
+            TranscriptFraudClassifier.Result classification = classifier.classifyFragment(CallManager.getCurrentCallerKey(), fragment);
+
+            WritableMap result = Arguments.createMap();
+            result.putDouble("score", classification.getScore());
+            result.putString("category", classification.getCategory());
+            result.putBoolean("isFraud", classification.isFraud());
+            result.putDouble("latencyNanos", classification.getLatencyNanos());
+            WritableArray phrases = Arguments.createArray();
+            for (String phrase : classification.getNewPhrases()) {
+                phrases.pushString(phrase);
+            }
+            result.putArray("newPhrases", phrases);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void reloadScamPhrases() {
+        TranscriptFraudClassifier.getInstance(getReactApplicationContext()).reload();
+    }
+
+    @ReactMethod
+    public void getTranscriptClassifierStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : TranscriptFraudClassifier.getInstance(getReactApplicationContext())
+                    .getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void configureFraudAlerts(String url, String userId, String phoneNumber) {
+        FraudAlertClient.getInstance(getReactApplicationContext()).configure(url, userId, phoneNumber);
+    }
+
+    @ReactMethod
+    public void setFraudAlertCallSid(String callSid) {
+        FraudAlertClient.getInstance(getReactApplicationContext()).setCallSid(callSid);
+    }
+
+    @ReactMethod
+    public void getCallSid(Promise promise) {
+        try {
+            CallSession session = null;
+            CallRegistry.CallRecord record = CallManager.getRegistry().findByNumberKey(CallManager.getCurrentCallerKey());
+            if (record != null && CallManager.inCallService instanceof CallService) {
+                session = ((CallService) CallManager.inCallService).getSession(record.getCall());
+            }
+            promise.resolve(session != null ? session.getCallSid() : null);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void sendFraudAlertMessage(String message, Promise promise) {
+        try {
+            promise.resolve(FraudAlertClient.getInstance(getReactApplicationContext()).send(message));
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getFraudAlertStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : FraudAlertClient.getInstance(getReactApplicationContext())
+                    .getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Called by the JS event dispatcher once it listens for NativeEventBatch
+    @ReactMethod
+    public void enableEventBatching() {
+        ReactEventBus bus = ReactEventBus.getInstance();
+        bus.attach(getReactApplicationContext());
+        bus.enableBatching();
+    }
+
+    @ReactMethod
+    public void getEventBusStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : ReactEventBus.getInstance().getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getDeviceStateStats(Promise promise) {
+        try {
+            DeviceInteractionTracker tracker = DeviceInteractionTracker.getInstance(getReactApplicationContext());
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : tracker.getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            result.putBoolean("screenOn", tracker.isScreenOn());
+            result.putBoolean("keyguardLocked", tracker.isKeyguardLocked());
+            result.putBoolean("appInForeground", tracker.isAppInForeground());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Notify JS about monitoring conference progress ("conferenced" or "failed")
+    public static void emitMonitoringStatus(String status, String reason, long setupMs) {
+        try {
             WritableMap params = Arguments.createMap();
-            params.putString("callTime", null);
+            params.putString("status", status);
+            params.putString("reason", reason);
+            params.putDouble("setupMs", setupMs);
+            ReactEventBus.getInstance().post("MonitoringStatus", "status", params);
+        } catch (Exception e) {
+            Log.e("Dialer", "Error emitting monitoring status: " + e.getMessage());
+        }
+    }
 
-            if (reactContext != null) {
-                reactContext
-                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                        .emit("CallTimingUpdate", params);
+    // Forward a fraud alert to JS; returns false if JS is not running
+    public static boolean emitFraudAlert(String callSid, String fraudType, String source) {
+        ReactEventBus bus = ReactEventBus.getInstance();
+        if (!bus.isJsListening()) {
+            return false;
+        }
+        try {
+            WritableMap params = Arguments.createMap();
+            params.putString("callSid", callSid);
+            params.putBoolean("isFraud", true);
+            params.putString("fraudType", fraudType);
+            params.putString("source", source);
+            bus.post("FraudAlert", params);
+            return true;
+        } catch (Exception e) {
+            Log.e("Dialer", "Error emitting fraud alert: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Notify JS when the native fraud alert connection opens or closes
+    public static void emitFraudAlertConnection(boolean connected) {
+        try {
+            WritableMap params = Arguments.createMap();
+            params.putBoolean("connected", connected);
+            // Only the latest state matters; a flapping connection sends one event per frame
+            ReactEventBus.getInstance().post("FraudAlertConnection", "connection", params);
+        } catch (Exception e) {
+            Log.e("Dialer", "Error emitting fraud alert connection: " + e.getMessage());
+        }
+    }
+
+    public static void disconnectCall(Call call) {
+        CallManager.hangUpCall(call);
+    }
+
+    /**
+     * Publish the timing state of the call shown to the user. Only sent on state transitions
+     * (dialing, ringing, answered, hold, ended); the call screen ticks the duration locally from
+     * durationMs and asks getCallTiming for the authoritative value when it resumes.
+     */
+    public static void emitCallTiming() {
+        ReactEventBus.getInstance().post("CallTimingUpdate", "timing", buildCallTiming());
+    }
+
+    // Authoritative timing of the call shown to the user
+    @ReactMethod
+    public void getCallTiming(Promise promise) {
+        try {
+            promise.resolve(buildCallTiming());
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    private static WritableMap buildCallTiming() {
+        WritableMap params = Arguments.createMap();
+        try {
+            Call call = CallManager.getLatestActiveOrRingingCall();
+
+            CallSession session = null;
+            if (call != null && CallManager.inCallService instanceof CallService) {
+                session = ((CallService) CallManager.inCallService).getSession(call);
+            }
+
+            if (session != null) {
+                params.putString("callSid", session.getCallSid());
+                params.putBoolean("connected", session.isConnected());
+                params.putBoolean("onHold", call.getState() == Call.STATE_HOLDING);
+                params.putDouble("durationMs", session.getCallDurationMs());
+                // "Calling...", "Connecting..." or the formatted duration at the time of the event
+                params.putString("callTime", session.getCallStatus());
+                return params;
             }
+        } catch (Exception e) {
+            Log.e("Dialer", "Error reading call timing: " + e.getMessage());
         }
+
+        // No active call or service
+        params.putString("callSid", null);
+        params.putBoolean("connected", false);
+        params.putBoolean("onHold", false);
+        params.putDouble("durationMs", 0);
+        params.putString("callTime", null);
+        return params;
     }
 
 }
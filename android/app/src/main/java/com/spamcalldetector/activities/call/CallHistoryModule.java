@@ -1,6 +1,7 @@
 package com.spamcalldetector.activities.call;
 
 import android.content.Context;
+import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -13,18 +14,34 @@ import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.spamcalldetector.helpers.CallHistoryDatabase;
 import com.spamcalldetector.helpers.CallLogHelper;
+import com.spamcalldetector.helpers.CallLogRowMapper;
+import com.spamcalldetector.helpers.CallLogSyncTracker;
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+import com.spamcalldetector.utils.ReactEventBus;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 public class CallHistoryModule extends ReactContextBaseJavaModule {
     private static final String TAG = "CallHistoryModule";
+    private static final String TOKEN_VERSION = "k1";
+    private static final int DEFAULT_PAGE_SIZE = 50;
     private final ReactApplicationContext reactContext;
+    // Tells JS to pull call log changes instead of polling; bursts coalesce into one event
+    private final CallLogSyncTracker.ChangeListener callLogListener = () ->
+            ReactEventBus.getInstance().post("CallLogChanged", "callLog", null);
 
     public CallHistoryModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        ReactEventBus.getInstance().attach(reactContext);
+
+        CallLogSyncTracker.getInstance(reactContext).addChangeListener(callLogListener);
+
+        // Start mirroring the call log before the first history query
+        CallHistoryDatabase.getInstance(reactContext);
         Log.d(TAG, "CallHistoryModule initialized");
     }
 
@@ -34,43 +51,287 @@ public class CallHistoryModule extends ReactContextBaseJavaModule {
         return "CallHistoryModule";
     }
 
+    /**
+     * Stop listening when the module is destroyed, e.g. on a reload
+     */
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        CallLogSyncTracker.getInstance(reactContext).removeChangeListener(callLogListener);
+    }
+
     @ReactMethod
     public void getRecentCalls(int limit, Promise promise) {
         try {
             Context context = getReactApplicationContext();
             Log.d(TAG, "Getting recent calls with limit: " + limit);
 
-            List<Map<String, Object>> callLogs = CallLogHelper.getRecentCalls(context, limit);
-            Log.d(TAG, "Retrieved " + callLogs.size() + " call logs");
+            // Rows are written straight from the cursor into the React Native array
+            CallArrayWriter writer = new CallArrayWriter();
+            int count = CallLogHelper.getRecentCalls(context, limit, writer);
+            Log.d(TAG, "Sending " + count + " call records to React Native");
+            promise.resolve(writer.calls);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting recent calls: " + e.getMessage());
+            promise.reject("GET_CALLS_ERROR", "Error retrieving call history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get one page of the call log, newest first. Resolves { calls, nextToken }, where nextToken
+     * is null after the last page.
+     *
+     * @param continuationToken nextToken of the previous page, or null for the first page
+     * @param typeFilter        "incoming", "outgoing", "missed" or "rejected"; null for all calls
+     */
+    @ReactMethod
+    public void getCallsPage(String continuationToken, int pageSize, String typeFilter, Promise promise) {
+        long beforeTimestamp = 0;
+        long beforeId = 0;
+        if (continuationToken != null && !continuationToken.isEmpty()) {
+            long[] keyset = decodeToken(continuationToken);
+            if (keyset == null) {
+                promise.reject("INVALID_TOKEN", "Invalid continuation token");
+                return;
+            }
+            beforeTimestamp = keyset[0];
+            beforeId = keyset[1];
+        }
+        if (pageSize <= 0) {
+            pageSize = DEFAULT_PAGE_SIZE;
+        }
+
+        try {
+            CallArrayWriter writer = new CallArrayWriter();
+            CallLogHelper.CallPage page = CallLogHelper.getCallsPage(getReactApplicationContext(),
+                    beforeTimestamp, beforeId, pageSize, typeFilter, writer);
+
+            WritableMap result = Arguments.createMap();
+            result.putArray("calls", writer.calls);
+            result.putString("nextToken", page.hasMore()
+                    ? encodeToken(page.getLastTimestamp(), page.getLastId())
+                    : null);
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting call page: " + e.getMessage());
+            promise.reject("GET_CALLS_ERROR", "Error retrieving call history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes each call log row into a React Native array as the cursor is read, with typed
+     * values and no intermediate map
+     */
+    private static class CallArrayWriter implements CallLogRowMapper.RowVisitor {
+        final WritableArray calls = Arguments.createArray();
 
-            // Convert to WritableArray for React Native
-            WritableArray result = Arguments.createArray();
-            for (Map<String, Object> callData : callLogs) {
+        @Override
+        public void onRow(CallLogRowMapper row) {
+            try {
                 WritableMap call = Arguments.createMap();
-                try {
-                    call.putString("id", (String) callData.get("id"));
-                    call.putString("phoneNumber", (String) callData.get("phoneNumber"));
-                    call.putString("contactName", (String) callData.get("contactName"));
-                    call.putDouble("timestamp", (Long) callData.get("timestamp"));
-                    call.putInt("duration", (Integer) callData.get("duration"));
-                    call.putString("type", (String) callData.get("type"));
-                    call.putBoolean("isNew", (Boolean) callData.get("isNew"));
-
-                    result.pushMap(call);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing call data: " + e.getMessage());
-                    // Continue with next record
-                }
+                call.putString("id", row.getIdString());
+                call.putString("phoneNumber", row.getNumber());
+                call.putString("contactName", row.getCachedName());
+                call.putDouble("timestamp", row.getDate());
+                call.putInt("duration", row.getDuration());
+                call.putString("type", row.getTypeName());
+                call.putBoolean("isNew", row.isNew());
+                calls.pushMap(call);
+            } catch (Exception e) {
+                Log.e(TAG, "Error processing call data: " + e.getMessage());
+                // Continue with next record
             }
+        }
+    }
+
+    // The keyset of the next page; JS treats it as opaque so its format can change
+    private static String encodeToken(long timestamp, long id) {
+        String keyset = TOKEN_VERSION + ":" + timestamp + ":" + id;
+        return Base64.encodeToString(keyset.getBytes(StandardCharsets.UTF_8),
+                Base64.NO_WRAP | Base64.URL_SAFE);
+    }
+
+    private static long[] decodeToken(String token) {
+        try {
+            String keyset = new String(Base64.decode(token, Base64.NO_WRAP | Base64.URL_SAFE),
+                    StandardCharsets.UTF_8);
+            String[] parts = keyset.split(":");
+            if (parts.length != 3 || !TOKEN_VERSION.equals(parts[0])) {
+                return null;
+            }
+            return new long[] { Long.parseLong(parts[1]), Long.parseLong(parts[2]) };
+        } catch (Exception e) {
+            Log.e(TAG, "Bad continuation token: " + e.getMessage());
+            return null;
+        }
+    }
 
-            Log.d(TAG, "Sending " + result.size() + " call records to React Native");
+    /**
+     * Get the calls inserted, updated or deleted among the newest calls since the previous sync.
+     * Resolves { reset, inserted, updated, deleted, nextToken }; on reset the token was unknown and
+     * inserted holds the whole window, which replaces what the caller has.
+     *
+     * @param syncToken nextToken of the previous sync, or null to start over
+     */
+    @ReactMethod
+    public void getCallLogChanges(String syncToken, Promise promise) {
+        try {
+            CallChangeWriter writer = new CallChangeWriter();
+            CallLogSyncTracker.SyncResult sync = CallLogSyncTracker.getInstance(getReactApplicationContext())
+                    .getChanges(syncToken, writer);
+
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("reset", sync.isReset());
+            result.putArray("inserted", writer.inserted.calls);
+            result.putArray("updated", writer.updated.calls);
+            result.putArray("deleted", writer.deleted);
+            result.putString("nextToken", sync.getToken());
             promise.resolve(result);
         } catch (Exception e) {
-            Log.e(TAG, "Error getting recent calls: " + e.getMessage());
+            Log.e(TAG, "Error getting call log changes: " + e.getMessage());
+            promise.reject("SYNC_HISTORY_ERROR", "Error syncing call history: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getCallLogSyncStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : CallLogSyncTracker.getInstance(getReactApplicationContext())
+                    .getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the rows of a call log sync into React Native arrays
+     */
+    private static class CallChangeWriter implements CallLogSyncTracker.ChangeVisitor {
+        final CallArrayWriter inserted = new CallArrayWriter();
+        final CallArrayWriter updated = new CallArrayWriter();
+        final WritableArray deleted = Arguments.createArray();
+
+        @Override
+        public void onInserted(CallLogRowMapper row) {
+            inserted.onRow(row);
+        }
+
+        @Override
+        public void onUpdated(CallLogRowMapper row) {
+            updated.onRow(row);
+        }
+
+        @Override
+        public void onDeleted(long id) {
+            deleted.pushString(String.valueOf(id));
+        }
+    }
+
+    /**
+     * Get the mirrored calls with a number, newest first, with their fraud verdicts
+     *
+     * @param beforeTimestamp Only calls before this time, or 0 for the newest
+     */
+    @ReactMethod
+    public void getNumberHistory(String phoneNumber, double beforeTimestamp, int limit, Promise promise) {
+        try {
+            HistoryArrayWriter writer = new HistoryArrayWriter();
+            CallHistoryDatabase.getInstance(getReactApplicationContext()).getNumberHistory(
+                    PhoneNumberNormalizer.normalize(phoneNumber), (long) beforeTimestamp,
+                    limit > 0 ? limit : DEFAULT_PAGE_SIZE, writer);
+            promise.resolve(writer.calls);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting number history: " + e.getMessage());
+            promise.reject("GET_CALLS_ERROR", "Error retrieving call history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the mirrored calls flagged as fraud, newest first
+     *
+     * @param beforeTimestamp Only calls before this time, or 0 for the newest
+     */
+    @ReactMethod
+    public void getFlaggedCalls(double beforeTimestamp, int limit, Promise promise) {
+        try {
+            HistoryArrayWriter writer = new HistoryArrayWriter();
+            CallHistoryDatabase.getInstance(getReactApplicationContext()).getFlaggedCalls(
+                    (long) beforeTimestamp, limit > 0 ? limit : DEFAULT_PAGE_SIZE, writer);
+            promise.resolve(writer.calls);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting flagged calls: " + e.getMessage());
             promise.reject("GET_CALLS_ERROR", "Error retrieving call history: " + e.getMessage());
         }
     }
 
+    /**
+     * Get the mirrored calls in [fromTimestamp, toTimestamp), newest first
+     *
+     * @param typeFilter "incoming", "outgoing", "missed" or "rejected"; null for all calls
+     */
+    @ReactMethod
+    public void getCallsBetween(double fromTimestamp, double toTimestamp, String typeFilter, int limit,
+            Promise promise) {
+        try {
+            HistoryArrayWriter writer = new HistoryArrayWriter();
+            CallHistoryDatabase.getInstance(getReactApplicationContext()).getCallsBetween(
+                    (long) fromTimestamp, (long) toTimestamp, typeFilter,
+                    limit > 0 ? limit : DEFAULT_PAGE_SIZE, writer);
+            promise.resolve(writer.calls);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting calls between dates: " + e.getMessage());
+            promise.reject("GET_CALLS_ERROR", "Error retrieving call history: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getCallHistoryDatabaseStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, Long> entry : CallHistoryDatabase.getInstance(getReactApplicationContext())
+                    .getStats().entrySet()) {
+                result.putDouble(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes mirrored call rows into a React Native array, in the shape of CallArrayWriter plus
+     * the call's verdict and monitoring
+     */
+    private static class HistoryArrayWriter implements CallHistoryDatabase.HistoryVisitor {
+        final WritableArray calls = Arguments.createArray();
+
+        @Override
+        public void onRow(CallHistoryDatabase.HistoryRow row) {
+            try {
+                WritableMap call = Arguments.createMap();
+                call.putString("id", String.valueOf(row.getCallLogId()));
+                call.putString("phoneNumber", row.getNumber());
+                call.putString("contactName", row.getName());
+                call.putDouble("timestamp", row.getDate());
+                call.putInt("duration", row.getDuration());
+                call.putString("type", row.getTypeName());
+                call.putBoolean("isNew", row.isNew());
+                call.putString("fraudType", row.getFraudType());
+                call.putDouble("riskScore", row.getRiskScore());
+                call.putString("fraudSource", row.getFraudSource());
+                call.putBoolean("monitored", row.isMonitored());
+                call.putString("callSid", row.getCallSid());
+                calls.pushMap(call);
+            } catch (Exception e) {
+                Log.e(TAG, "Error processing call data: " + e.getMessage());
+            }
+        }
+    }
+
     @ReactMethod
     public void markCallAsRead(String callId, Promise promise) {
         try {
@@ -89,24 +350,9 @@ public class CallHistoryModule extends ReactContextBaseJavaModule {
             Context context = getReactApplicationContext();
 
             // Get the 100 most recent calls
-            List<Map<String, Object>> callLogs = CallLogHelper.getRecentCalls(context, 100);
-
-            // Convert to WritableArray
-            WritableArray result = Arguments.createArray();
-            for (Map<String, Object> callData : callLogs) {
-                WritableMap call = Arguments.createMap();
-                call.putString("id", (String) callData.get("id"));
-                call.putString("phoneNumber", (String) callData.get("phoneNumber"));
-                call.putString("contactName", (String) callData.get("contactName"));
-                call.putDouble("timestamp", (Long) callData.get("timestamp"));
-                call.putInt("duration", (Integer) callData.get("duration"));
-                call.putString("type", (String) callData.get("type"));
-                call.putBoolean("isNew", (Boolean) callData.get("isNew"));
-
-                result.pushMap(call);
-            }
-
-            promise.resolve(result);
+            CallArrayWriter writer = new CallArrayWriter();
+            CallLogHelper.getRecentCalls(context, 100, writer);
+            promise.resolve(writer.calls);
         } catch (Exception e) {
             Log.e(TAG, "Error syncing call history: " + e.getMessage());
             promise.reject("SYNC_HISTORY_ERROR", "Error syncing call history: " + e.getMessage());
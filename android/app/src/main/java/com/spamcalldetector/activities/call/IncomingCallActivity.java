@@ -6,36 +6,76 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.telecom.Call;
 import android.util.Log;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import com.facebook.react.ReactActivity;
 import com.facebook.react.ReactActivityDelegate;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.defaults.DefaultNewArchitectureEntryPoint;
 import com.facebook.react.defaults.DefaultReactActivityDelegate;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.spamcalldetector.helpers.CallManager;
+import com.spamcalldetector.helpers.CallRegistry;
 import com.spamcalldetector.helpers.Constants;
+import com.spamcalldetector.helpers.ContactsIndex;
+import com.spamcalldetector.services.CallService;
+import com.spamcalldetector.services.CallSession;
+import com.spamcalldetector.utils.CallSetupTracer;
+import com.spamcalldetector.utils.ReactEventBus;
 
 import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
 
 public class IncomingCallActivity extends ReactActivity {
     private static final String TAG = "IncomingCallActivity";
     private static WeakReference<Activity> mCurrentActivity = new WeakReference<>(null);
+    private static final long OVERLAY_FADE_MS = 150;
+
+    // Time-to-first-frame statistics for the native and React screens (ms)
+    private static volatile long screensShown = 0;
+    private static volatile long lastNativeFrameMs = -1;
+    private static volatile long totalNativeFrameMs = 0;
+    private static volatile long maxNativeFrameMs = -1;
+    private static volatile long lastReactFrameMs = -1;
+    private static volatile long totalReactFrameMs = 0;
+    private static volatile long maxReactFrameMs = -1;
+    private static volatile long reactFramesMeasured = 0;
+    private static volatile long answeredFromNativeScreen = 0;
+
     private BroadcastReceiver callStateReceiver;
+    private NativeIncomingCallView nativeCallView;
+    // elapsedRealtime the screen was requested, from the launch intent or onCreate
+    private long launchedAt;
+    private long traceId = CallSetupTracer.NO_TRACE;
+    // Fraud alert SID of the call this screen rings for, once its session is known
+    private String callSid;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long createdAt = SystemClock.elapsedRealtime();
         super.onCreate(savedInstanceState);
         mCurrentActivity = new WeakReference<>(this);
 
+        launchedAt = getIntent() != null
+                ? getIntent().getLongExtra(Constants.EXTRA_LAUNCHED_AT, createdAt)
+                : createdAt;
+        if (getIntent() != null) {
+            traceId = getIntent().getLongExtra(Constants.EXTRA_TRACE_ID, CallSetupTracer.NO_TRACE);
+        }
+        CallSetupTracer.getInstance().mark(traceId, CallSetupTracer.STAGE_ACTIVITY_CREATED);
+        showNativeCallView();
+
         getWindow().addFlags(
                 android.view.WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED |
                         android.view.WindowManager.LayoutParams.FLAG_TURN_SCREEN_ON |
                         android.view.WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 
         // Register broadcast receiver for call state changes
+        getRingingCallSid();
         registerCallStateBroadcastReceiver();
 
         // Check if this activity was started from notification
@@ -81,6 +121,11 @@ public class IncomingCallActivity extends ReactActivity {
                             if (!isFinishing()) {
                                 finish();
                             }
+                        } else if (Constants.ACTION_CALLER_IDENTIFIED.equals(action)) {
+                            onCallerIdentified(intent.getStringExtra("phoneNumber"),
+                                    intent.getStringExtra("callerName"));
+                        } else if (Constants.ACTION_FRAUD_ALERT.equals(action)) {
+                            onFraudAlert(intent.getStringExtra(Constants.EXTRA_CALL_SID));
                         }
                     } catch (Exception e) {
                         Log.e(TAG, "Error handling broadcast: " + e.getMessage());
@@ -92,13 +137,76 @@ public class IncomingCallActivity extends ReactActivity {
             IntentFilter filter = new IntentFilter();
             filter.addAction(Constants.ACTION_CALL_ENDED);
             filter.addAction(Constants.ACTION_CALL_ANSWERED);
-            registerReceiver(callStateReceiver, filter);
+            filter.addAction(Constants.ACTION_CALLER_IDENTIFIED);
+            filter.addAction(Constants.ACTION_FRAUD_ALERT);
+
+            // Use RECEIVER_NOT_EXPORTED for Android 13+ (TIRAMISU) compatibility
+            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
+                registerReceiver(callStateReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+            } else {
+                registerReceiver(callStateReceiver, filter);
+            }
             Log.d(TAG, "Successfully registered call state broadcast receiver");
         } catch (Exception e) {
             Log.e(TAG, "Error registering broadcast receiver: " + e.getMessage());
         }
     }
 
+    /**
+     * Raise the risk shown for this call; alerts for other calls, e.g. one on hold, are ignored
+     */
+    private void onFraudAlert(String alertCallSid) {
+        String sid = getRingingCallSid();
+        if (alertCallSid == null || !alertCallSid.equals(sid)) {
+            Log.d(TAG, "Ignoring fraud alert for " + alertCallSid + ", ringing call is " + sid);
+            return;
+        }
+        if (nativeCallView != null) {
+            nativeCallView.setRisk(NativeIncomingCallView.RISK_HIGH);
+        }
+    }
+
+    private String getRingingCallSid() {
+        if (callSid != null || !(CallManager.inCallService instanceof CallService)) {
+            return callSid;
+        }
+        // The latest live call may be an active one while this one rings
+        CallRegistry.CallRecord ringing = null;
+        for (CallRegistry.CallRecord record : CallManager.getRegistry().getRecords()) {
+            if (record.getState() == Call.STATE_RINGING && !record.isMonitoringLeg()
+                    && (ringing == null || record.getStartTime() > ringing.getStartTime())) {
+                ringing = record;
+            }
+        }
+        CallSession session = ringing != null
+                ? ((CallService) CallManager.inCallService).getSession(ringing.getCall()) : null;
+        if (session != null) {
+            callSid = session.getCallSid();
+        }
+        return callSid;
+    }
+
+    /**
+     * Called when the caller name has been resolved after the screen was shown
+     */
+    private void onCallerIdentified(String phoneNumber, String callerName) {
+        if (phoneNumber == null || callerName == null) {
+            return;
+        }
+        Log.d(TAG, "Caller identified: " + callerName + " (" + phoneNumber + ")");
+
+        // Keep the launch intent current in case the React view reads it later
+        getIntent().putExtra("caller_name", callerName);
+        if (nativeCallView != null) {
+            nativeCallView.setCaller(phoneNumber, callerName);
+        }
+
+        WritableMap params = Arguments.createMap();
+        params.putString("phoneNumber", phoneNumber);
+        params.putString("callerName", callerName);
+        sendEventToJS("CallerIdentified", params);
+    }
+
     @Override
     public void onNewIntent(Intent intent) {
         super.onNewIntent(intent);
@@ -172,6 +280,145 @@ public class IncomingCallActivity extends ReactActivity {
         }
     }
 
+    /**
+     * Show the native call screen on top of the React root view. It draws on the first frame,
+     * while the React bundle may still be loading, and is removed in onReactUiReady.
+     */
+    private void showNativeCallView() {
+        try {
+            Intent intent = getIntent();
+            String callerNumber = intent != null ? intent.getStringExtra("caller_number") : null;
+            String callerName = intent != null ? intent.getStringExtra("caller_name") : null;
+
+            nativeCallView = new NativeIncomingCallView(this);
+            nativeCallView.setCaller(callerNumber, callerName);
+            nativeCallView.setRisk(getRisk(callerNumber));
+            nativeCallView.setOnAnswerListener(v -> answerFromNativeView());
+            nativeCallView.setOnDeclineListener(v -> declineFromNativeView());
+
+            nativeCallView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    if (nativeCallView != null) {
+                        nativeCallView.getViewTreeObserver().removeOnPreDrawListener(this);
+                    }
+                    CallSetupTracer.getInstance().mark(traceId, CallSetupTracer.STAGE_NATIVE_FRAME);
+                    recordNativeFrame(SystemClock.elapsedRealtime() - launchedAt);
+                    return true;
+                }
+            });
+
+            addContentView(nativeCallView, new ViewGroup.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing native call screen: " + e.getMessage(), e);
+            nativeCallView = null;
+        }
+    }
+
+    /**
+     * Badge for the native screen, from the in-memory contacts index only so it never blocks
+     */
+    private int getRisk(String callerNumber) {
+        if (callerNumber == null || callerNumber.isEmpty()) {
+            return NativeIncomingCallView.RISK_UNKNOWN;
+        }
+        String contactName = ContactsIndex.getInstance(this).lookup(callerNumber);
+        if (contactName != null && !contactName.isEmpty()) {
+            return NativeIncomingCallView.RISK_SAFE;
+        }
+        return NativeIncomingCallView.RISK_UNKNOWN;
+    }
+
+    private void answerFromNativeView() {
+        Call call = CallManager.getLatestActiveOrRingingCall();
+        if (call != null) {
+            Log.d(TAG, "Answering call from native call screen");
+            answeredFromNativeScreen++;
+            CallManager.answerCall(call);
+        } else {
+            Log.w(TAG, "No active or ringing call found to answer");
+        }
+    }
+
+    private void declineFromNativeView() {
+        Call call = CallManager.getLatestActiveOrRingingCall();
+        if (call != null) {
+            Log.d(TAG, "Declining call from native call screen");
+            CallManager.hangUpCall(call);
+        } else {
+            Log.w(TAG, "No active or ringing call found to decline");
+            finish();
+        }
+    }
+
+    /**
+     * Called by CallActivityModule once the React screen has rendered its first frame.
+     * May be called from any thread.
+     */
+    public static void onReactUiReady() {
+        Activity activity = mCurrentActivity.get();
+        if (!(activity instanceof IncomingCallActivity)) {
+            return;
+        }
+        IncomingCallActivity incomingCallActivity = (IncomingCallActivity) activity;
+        incomingCallActivity.runOnUiThread(incomingCallActivity::hideNativeCallView);
+    }
+
+    private void hideNativeCallView() {
+        final NativeIncomingCallView view = nativeCallView;
+        if (view == null) {
+            return;
+        }
+        nativeCallView = null;
+        CallSetupTracer.getInstance().mark(traceId, CallSetupTracer.STAGE_REACT_FRAME);
+        recordReactFrame(SystemClock.elapsedRealtime() - launchedAt);
+
+        view.setClickable(false);
+        view.animate()
+                .alpha(0f)
+                .setDuration(OVERLAY_FADE_MS)
+                .withEndAction(() -> {
+                    if (view.getParent() instanceof ViewGroup) {
+                        ((ViewGroup) view.getParent()).removeView(view);
+                    }
+                })
+                .start();
+    }
+
+    private static synchronized void recordNativeFrame(long ms) {
+        screensShown++;
+        lastNativeFrameMs = ms;
+        totalNativeFrameMs += ms;
+        maxNativeFrameMs = Math.max(maxNativeFrameMs, ms);
+        Log.d(TAG, "Native call screen drawn " + ms + "ms after launch");
+    }
+
+    private static synchronized void recordReactFrame(long ms) {
+        reactFramesMeasured++;
+        lastReactFrameMs = ms;
+        totalReactFrameMs += ms;
+        maxReactFrameMs = Math.max(maxReactFrameMs, ms);
+        Log.d(TAG, "React call screen ready " + ms + "ms after launch");
+    }
+
+    /**
+     * Time-to-first-frame of the native and React incoming call screens
+     */
+    public static synchronized Map<String, Long> getUiStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("screensShown", screensShown);
+        stats.put("lastNativeFrameMs", lastNativeFrameMs);
+        stats.put("averageNativeFrameMs", screensShown > 0 ? totalNativeFrameMs / screensShown : -1);
+        stats.put("maxNativeFrameMs", maxNativeFrameMs);
+        stats.put("reactFramesMeasured", reactFramesMeasured);
+        stats.put("lastReactFrameMs", lastReactFrameMs);
+        stats.put("averageReactFrameMs", reactFramesMeasured > 0 ? totalReactFrameMs / reactFramesMeasured : -1);
+        stats.put("maxReactFrameMs", maxReactFrameMs);
+        stats.put("answeredFromNativeScreen", answeredFromNativeScreen);
+        return stats;
+    }
+
     public static Activity getActivity() {
         return mCurrentActivity.get();
     }
@@ -214,22 +461,15 @@ public class IncomingCallActivity extends ReactActivity {
      */
     private void sendEventToJS(String eventName, WritableMap params) {
         try {
+            ReactEventBus bus = ReactEventBus.getInstance();
             if (getReactInstanceManager() != null &&
                     getReactInstanceManager().getCurrentReactContext() != null) {
-
-                if (params == null) {
-                    params = Arguments.createMap();
-                }
-
-                getReactInstanceManager()
-                        .getCurrentReactContext()
-                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                        .emit(eventName, params);
-
-                Log.d(TAG, "Event sent to JS: " + eventName);
+                bus.attach(getReactInstanceManager().getCurrentReactContext());
             } else {
-                Log.w(TAG, "Could not send event to JS - React context not ready");
+                Log.w(TAG, "React context not ready, event queued: " + eventName);
             }
+            bus.post(eventName, params);
+            Log.d(TAG, "Event posted to JS: " + eventName);
         } catch (Exception e) {
             Log.e(TAG, "Error sending event to JS: " + e.getMessage());
         }
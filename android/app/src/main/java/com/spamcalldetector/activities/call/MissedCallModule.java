@@ -6,10 +6,10 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.util.Log;
 import com.facebook.react.bridge.*;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.spamcalldetector.helpers.Constants;
 import com.spamcalldetector.helpers.MissedCallManager;
 import com.spamcalldetector.services.MissedCallNotificationService;
+import com.spamcalldetector.utils.ReactEventBus;
 
 /**
  * React Native module for handling missed call notifications
@@ -24,6 +24,7 @@ public class MissedCallModule extends ReactContextBaseJavaModule {
         super(context);
         this.reactContext = context;
         this.missedCallManager = MissedCallManager.getInstance(context);
+        ReactEventBus.getInstance().attach(context);
         
         // Register broadcast receiver for missed calls
         registerMissedCallReceiver();
@@ -212,14 +213,9 @@ public class MissedCallModule extends ReactContextBaseJavaModule {
      */
     private void sendEvent(String eventName, WritableMap params) {
         try {
-            if (reactContext != null && reactContext.hasActiveCatalystInstance()) {
-                reactContext
-                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                    .emit(eventName, params);
-                Log.d(TAG, "Sent event to React Native: " + eventName);
-            } else {
-                Log.w(TAG, "Cannot send event - React context not available");
-            }
+            // Queued by the bus until the React context is running
+            ReactEventBus.getInstance().post(eventName, params);
+            Log.d(TAG, "Posted event to React Native: " + eventName);
         } catch (Exception e) {
             Log.e(TAG, "Error sending event to React Native: " + e.getMessage(), e);
         }
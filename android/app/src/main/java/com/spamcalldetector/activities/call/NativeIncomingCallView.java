@@ -0,0 +1,168 @@
+package com.spamcalldetector.activities.call;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.graphics.drawable.GradientDrawable;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.spamcalldetector.R;
+
+/**
+ * Incoming call screen built from plain views so it can draw on the first frame of
+ * IncomingCallActivity, before the React bundle has loaded. Mirrors the layout of
+ * IncomingCall.tsx and is removed once the React UI reports it is ready.
+ */
+public class NativeIncomingCallView extends FrameLayout {
+
+    public static final int RISK_UNKNOWN = 0;
+    public static final int RISK_SAFE = 1;
+    public static final int RISK_SUSPICIOUS = 2;
+    public static final int RISK_HIGH = 3;
+
+    private final TextView numberView;
+    private final TextView nameView;
+    private final TextView riskBadge;
+    private final View answerButton;
+    private final View declineButton;
+
+    public NativeIncomingCallView(Context context) {
+        super(context);
+        setBackgroundColor(Color.parseColor("#fafaff"));
+        // Swallow touches so the React view loading underneath never receives them
+        setClickable(true);
+
+        LinearLayout content = new LinearLayout(context);
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.setGravity(Gravity.CENTER_HORIZONTAL);
+        content.setPadding(dp(30), dp(100), dp(30), dp(60));
+        addView(content, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+
+        ImageView avatar = new ImageView(context);
+        avatar.setImageResource(R.drawable.assets_images_placeholderimg);
+        avatar.setScaleType(ImageView.ScaleType.CENTER_CROP);
+        LinearLayout.LayoutParams avatarParams = new LinearLayout.LayoutParams(dp(120), dp(120));
+        avatarParams.bottomMargin = dp(20);
+        content.addView(avatar, avatarParams);
+
+        numberView = createText(context, 20, Typeface.BOLD);
+        content.addView(numberView, wrapContent(dp(5)));
+
+        nameView = createText(context, 14, Typeface.NORMAL);
+        content.addView(nameView, wrapContent(dp(12)));
+
+        riskBadge = createText(context, 12, Typeface.BOLD);
+        riskBadge.setPadding(dp(12), dp(4), dp(12), dp(4));
+        content.addView(riskBadge, wrapContent(0));
+        setRisk(RISK_UNKNOWN);
+
+        // Push the status and buttons to the bottom, as in the React layout
+        content.addView(new View(context), new LinearLayout.LayoutParams(0, 0, 1f));
+
+        TextView status = createText(context, 14, Typeface.NORMAL);
+        status.setTextColor(Color.parseColor("#292929"));
+        status.setText("Incoming Call...");
+        content.addView(status, wrapContent(0));
+
+        LinearLayout buttons = new LinearLayout(context);
+        buttons.setOrientation(LinearLayout.HORIZONTAL);
+        content.addView(buttons, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+
+        declineButton = createButton(context, R.drawable.assets_images_endcall, "Decline");
+        buttons.addView(declineButton, new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.WRAP_CONTENT, 1f));
+
+        answerButton = createButton(context, R.drawable.assets_images_callicon, "Accept");
+        buttons.addView(answerButton, new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.WRAP_CONTENT, 1f));
+    }
+
+    public void setCaller(String phoneNumber, String callerName) {
+        numberView.setText(phoneNumber != null ? phoneNumber : "");
+        boolean hasName = callerName != null && !callerName.isEmpty() && !callerName.equals(phoneNumber);
+        nameView.setText(hasName ? callerName : "");
+        nameView.setVisibility(hasName ? VISIBLE : GONE);
+    }
+
+    public void setRisk(int risk) {
+        String label;
+        int color;
+        switch (risk) {
+            case RISK_SAFE:
+                label = "Saved contact";
+                color = Color.parseColor("#2E7D32");
+                break;
+            case RISK_SUSPICIOUS:
+                label = "Suspicious caller";
+                color = Color.parseColor("#EF6C00");
+                break;
+            case RISK_HIGH:
+                label = "Likely scam";
+                color = Color.parseColor("#C62828");
+                break;
+            default:
+                label = "Unverified caller";
+                color = Color.parseColor("#616161");
+                break;
+        }
+
+        GradientDrawable background = new GradientDrawable();
+        background.setCornerRadius(dp(12));
+        background.setColor(color);
+        riskBadge.setBackground(background);
+        riskBadge.setTextColor(Color.WHITE);
+        riskBadge.setText(label);
+    }
+
+    public void setOnAnswerListener(OnClickListener listener) {
+        answerButton.setOnClickListener(listener);
+    }
+
+    public void setOnDeclineListener(OnClickListener listener) {
+        declineButton.setOnClickListener(listener);
+    }
+
+    private TextView createText(Context context, int sizeSp, int style) {
+        TextView text = new TextView(context);
+        text.setTextColor(Color.BLACK);
+        text.setTextSize(TypedValue.COMPLEX_UNIT_SP, sizeSp);
+        text.setTypeface(Typeface.DEFAULT, style);
+        text.setGravity(Gravity.CENTER);
+        return text;
+    }
+
+    private View createButton(Context context, int iconRes, String label) {
+        LinearLayout button = new LinearLayout(context);
+        button.setOrientation(LinearLayout.VERTICAL);
+        button.setGravity(Gravity.CENTER_HORIZONTAL);
+        button.setClickable(true);
+        button.setContentDescription(label);
+
+        ImageView icon = new ImageView(context);
+        icon.setImageResource(iconRes);
+        button.addView(icon, new LinearLayout.LayoutParams(dp(170), dp(170)));
+
+        TextView text = createText(context, 14, Typeface.NORMAL);
+        text.setText(label);
+        LinearLayout.LayoutParams textParams = wrapContent(0);
+        textParams.topMargin = -dp(30);
+        button.addView(text, textParams);
+        return button;
+    }
+
+    private static LinearLayout.LayoutParams wrapContent(int bottomMargin) {
+        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT);
+        params.bottomMargin = bottomMargin;
+        return params;
+    }
+
+    private int dp(int value) {
+        return Math.round(value * getResources().getDisplayMetrics().density);
+    }
+}
@@ -13,16 +13,15 @@ import android.util.Log;
 import android.view.WindowManager;
 import com.facebook.react.ReactActivity;
 import com.facebook.react.ReactActivityDelegate;
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.defaults.DefaultNewArchitectureEntryPoint;
 import com.facebook.react.defaults.DefaultReactActivityDelegate;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.spamcalldetector.utils.CallStateManager;
 import com.spamcalldetector.utils.ActivityStates;
 import com.spamcalldetector.MainActivity;
 import com.spamcalldetector.helpers.CallManager;
 import com.spamcalldetector.helpers.Constants;
+import com.spamcalldetector.utils.ReactEventBus;
 
 import java.lang.ref.WeakReference;
 
@@ -184,22 +183,15 @@ public class OutgoingCallActivity extends ReactActivity {
      */
     private void sendEventToJS(String eventName, WritableMap params) {
         try {
+            ReactEventBus bus = ReactEventBus.getInstance();
             if (getReactInstanceManager() != null &&
                     getReactInstanceManager().getCurrentReactContext() != null) {
-
-                if (params == null) {
-                    params = Arguments.createMap();
-                }
-
-                getReactInstanceManager()
-                        .getCurrentReactContext()
-                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                        .emit(eventName, params);
-
-                Log.d(TAG, "Event sent to JS: " + eventName);
+                bus.attach(getReactInstanceManager().getCurrentReactContext());
             } else {
-                Log.w(TAG, "Could not send event to JS - React context not ready");
+                Log.w(TAG, "React context not ready, event queued: " + eventName);
             }
+            bus.post(eventName, params);
+            Log.d(TAG, "Event posted to JS: " + eventName);
         } catch (Exception e) {
             Log.e(TAG, "Error sending event to JS: " + e.getMessage());
         }
@@ -17,9 +17,11 @@ import android.content.Context;
 import android.net.Uri;
 import android.content.ContentUris;
 import java.util.ArrayList;
+import java.util.Map;
 import androidx.core.content.ContextCompat;
 import android.content.pm.PackageManager;
 import android.Manifest;
+import com.spamcalldetector.helpers.ContactsIndex;
 
 public class ContactsModule extends ReactContextBaseJavaModule {
 
@@ -259,4 +261,13 @@ public class ContactsModule extends ReactContextBaseJavaModule {
             errorCallback.invoke("Error deleting contact: " + e.getMessage());
         }
     }
+
+    @ReactMethod
+    public void getContactsIndexStats(Callback successCallback) {
+        WritableMap stats = Arguments.createMap();
+        for (Map.Entry<String, Long> entry : ContactsIndex.getInstance(reactContext).getStats().entrySet()) {
+            stats.putDouble(entry.getKey(), entry.getValue());
+        }
+        successCallback.invoke(stats);
+    }
 }
@@ -0,0 +1,639 @@
+package com.spamcalldetector.helpers;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-owned mirror of the call log, enriched with what the system call log cannot store: fraud
+ * verdicts and risk scores from the fraud alert channel and whether the call was monitored.
+ * Rows are copied incrementally from CallLogSyncTracker's change notifications: the rows added
+ * since the last mirrored _ID are inserted, and the newest WINDOW_SIZE rows are compared with
+ * their mirror so changes to the NEW flag, cached name or duration are copied too. Changes to
+ * older rows are not. Verdicts and monitoring are recorded per call SID while the
+ * call is live, before the system writes its call log row, and are linked to the row by number
+ * and time once it is mirrored. Rows later deleted from the call log are kept, so history
+ * outlives the system's call log limit.
+ * Indexed by normalized number, type and date, so per-number, flagged-only and date range queries
+ * read only the rows they return. All writes run on the call log pipeline's worker thread.
+ */
+public class CallHistoryDatabase {
+    private static final String TAG = "CallHistoryDatabase";
+    private static final String DATABASE_NAME = "call_history.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final int SYNC_BATCH_ROWS = 2000;
+    // How far a verdict may be from its call's log row and still be linked to it
+    private static final long LINK_SLACK_MS = 60 * 1000;
+    private static final long LINK_MAX_CALL_MS = 6 * 60 * 60 * 1000;
+    // Verdicts whose call never shows up in the call log stop being retried after this
+    private static final long LINK_GIVE_UP_MS = 24 * 60 * 60 * 1000;
+
+    private static CallHistoryDatabase instance;
+
+    private final Context context;
+    private final Handler workerHandler;
+    private final HistoryOpenHelper database;
+    private boolean loaded = false;
+    private boolean listening = false;
+
+    // Highest call log _ID already mirrored. Only touched on the worker thread.
+    private long lastCallLogId = 0;
+
+    // Counters
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong syncedRows = new AtomicLong();
+    private final AtomicLong refreshedRows = new AtomicLong();
+    private final AtomicLong annotations = new AtomicLong();
+    private final AtomicLong linkedAnnotations = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private volatile long lastSyncMs = 0;
+    private volatile long lastQueryMs = 0;
+
+    /**
+     * Receives the rows of a query. The row is only valid during the call.
+     */
+    public interface HistoryVisitor {
+        void onRow(HistoryRow row);
+    }
+
+    /**
+     * Typed view of the current row of a history query
+     */
+    public static class HistoryRow {
+        private final Cursor cursor;
+
+        HistoryRow(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        public long getCallLogId() {
+            return cursor.getLong(0);
+        }
+
+        public String getNumber() {
+            return cursor.getString(1);
+        }
+
+        /**
+         * Cached contact name, or "" if the call log had none
+         */
+        public String getName() {
+            String name = cursor.getString(2);
+            return name == null ? "" : name;
+        }
+
+        public long getDate() {
+            return cursor.getLong(3);
+        }
+
+        public int getDuration() {
+            return cursor.getInt(4);
+        }
+
+        public int getType() {
+            return cursor.getInt(5);
+        }
+
+        public String getTypeName() {
+            return CallLogRowMapper.typeName(getType());
+        }
+
+        public boolean isNew() {
+            return cursor.getInt(6) == 1;
+        }
+
+        /**
+         * Fraud type of the call's verdict, or null if it was not flagged
+         */
+        public String getFraudType() {
+            return cursor.getString(7);
+        }
+
+        /**
+         * Highest risk score seen during the call, or 0 without a verdict
+         */
+        public double getRiskScore() {
+            return cursor.isNull(8) ? 0 : cursor.getDouble(8);
+        }
+
+        /**
+         * "server" or "transcript", or null if the call was not flagged
+         */
+        public String getFraudSource() {
+            return cursor.getString(9);
+        }
+
+        public boolean isMonitored() {
+            return cursor.getInt(10) == 1;
+        }
+
+        /**
+         * SID the call had on the fraud alert channel, or null
+         */
+        public String getCallSid() {
+            return cursor.getString(11);
+        }
+    }
+
+    private CallHistoryDatabase(Context context) {
+        this.context = context.getApplicationContext();
+        this.database = new HistoryOpenHelper(this.context);
+        this.workerHandler = CallLogSyncTracker.getInstance(this.context).getWorkerHandler();
+    }
+
+    /**
+     * Get the shared mirror, starting the call log sync if it has not run yet
+     */
+    public static synchronized CallHistoryDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallHistoryDatabase(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    /**
+     * Record a fraud verdict for a live call. Keeps the first fraud type and the highest score.
+     *
+     * @param source "server" or "transcript"
+     */
+    public void recordVerdict(String callSid, long numberKey, String fraudType, double riskScore, String source) {
+        if (callSid == null) {
+            return;
+        }
+        long recordedAt = System.currentTimeMillis();
+        workerHandler.post(() -> {
+            try {
+                database.annotate(callSid, numberKey, recordedAt, fraudType, riskScore, source, false);
+                annotations.incrementAndGet();
+                linkAnnotations();
+            } catch (Exception e) {
+                Log.e(TAG, "Error recording verdict: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Record that a live call was conferenced with the monitoring line
+     */
+    public void recordMonitored(String callSid, long numberKey) {
+        if (callSid == null) {
+            return;
+        }
+        long recordedAt = System.currentTimeMillis();
+        workerHandler.post(() -> {
+            try {
+                database.annotate(callSid, numberKey, recordedAt, null, 0, null, true);
+                annotations.incrementAndGet();
+                linkAnnotations();
+            } catch (Exception e) {
+                Log.e(TAG, "Error recording monitoring: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Calls with a number, newest first
+     *
+     * @param beforeTimestamp Only calls before this time, or 0 for the newest
+     * @return Number of rows visited
+     */
+    public int getNumberHistory(long numberKey, long beforeTimestamp, int limit, HistoryVisitor visitor) {
+        if (numberKey == PhoneNumberNormalizer.INVALID) {
+            return 0;
+        }
+        return query("number_key = ? AND date < ?",
+                new String[] { String.valueOf(numberKey), String.valueOf(before(beforeTimestamp)) },
+                limit, visitor);
+    }
+
+    /**
+     * Calls with a fraud verdict, newest first
+     *
+     * @param beforeTimestamp Only calls before this time, or 0 for the newest
+     * @return Number of rows visited
+     */
+    public int getFlaggedCalls(long beforeTimestamp, int limit, HistoryVisitor visitor) {
+        // Matches the partial index on flagged calls
+        return query("fraud_type IS NOT NULL AND date < ?",
+                new String[] { String.valueOf(before(beforeTimestamp)) }, limit, visitor);
+    }
+
+    /**
+     * Calls in [fromTimestamp, toTimestamp), newest first
+     *
+     * @param typeFilter "incoming", "outgoing", "missed" or "rejected"; null for all calls
+     * @return Number of rows visited
+     */
+    public int getCallsBetween(long fromTimestamp, long toTimestamp, String typeFilter, int limit,
+            HistoryVisitor visitor) {
+        int typeCode = CallLogRowMapper.typeCode(typeFilter);
+        if (typeCode != 0) {
+            return query("type = ? AND date >= ? AND date < ?", new String[] {
+                    String.valueOf(typeCode), String.valueOf(fromTimestamp), String.valueOf(toTimestamp) },
+                    limit, visitor);
+        }
+        return query("date >= ? AND date < ?",
+                new String[] { String.valueOf(fromTimestamp), String.valueOf(toTimestamp) }, limit, visitor);
+    }
+
+    /**
+     * Counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("syncs", syncs.get());
+        stats.put("syncedRows", syncedRows.get());
+        stats.put("refreshedRows", refreshedRows.get());
+        stats.put("lastSyncMs", lastSyncMs);
+        stats.put("annotations", annotations.get());
+        stats.put("linkedAnnotations", linkedAnnotations.get());
+        stats.put("queries", queries.get());
+        stats.put("lastQueryMs", lastQueryMs);
+        try {
+            stats.put("rows", database.countRows());
+        } catch (Exception e) {
+            Log.e(TAG, "Error counting rows: " + e.getMessage());
+        }
+        return stats;
+    }
+
+    private static long before(long timestamp) {
+        return timestamp > 0 ? timestamp : Long.MAX_VALUE;
+    }
+
+    private int query(String selection, String[] args, int limit, HistoryVisitor visitor) {
+        long startedAt = SystemClock.elapsedRealtime();
+        int count = 0;
+        try (Cursor cursor = database.getReadableDatabase().query(HistoryOpenHelper.TABLE_CALLS,
+                HistoryOpenHelper.ROW_COLUMNS, selection, args, null, null, "date DESC",
+                String.valueOf(limit))) {
+            HistoryRow row = new HistoryRow(cursor);
+            while (cursor.moveToNext()) {
+                visitor.onRow(row);
+                count++;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error querying call history: " + e.getMessage(), e);
+        }
+        queries.incrementAndGet();
+        lastQueryMs = SystemClock.elapsedRealtime() - startedAt;
+        return count;
+    }
+
+    private synchronized void ensureStarted() {
+        if (!loaded) {
+            loaded = true;
+            workerHandler.post(() -> {
+                try {
+                    lastCallLogId = database.getLastCallLogId();
+                } catch (Exception e) {
+                    Log.e(TAG, "Error reading call history watermark: " + e.getMessage(), e);
+                }
+            });
+        }
+        if (listening || !hasCallLogPermission()) {
+            return;
+        }
+
+        listening = true;
+        CallLogSyncTracker.getInstance(context).addChangeListener(this::sync);
+        workerHandler.post(this::sync);
+    }
+
+    private boolean hasCallLogPermission() {
+        return ContextCompat.checkSelfPermission(context,
+                Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Mirror one batch of call log rows added since the last sync, then refresh the recent rows.
+     * Runs on the worker thread, which the whole call log pipeline shares: a full batch posts the
+     * next one, so the first sync on a device, which reads the whole call log, lets other work
+     * run between batches.
+     */
+    private void sync() {
+        if (!hasCallLogPermission()) {
+            return;
+        }
+
+        long startedAt = SystemClock.elapsedRealtime();
+        try {
+            HistoryOpenHelper.CallInserter batch = database.insertCallsAfter(context, lastCallLogId, SYNC_BATCH_ROWS);
+            lastCallLogId = batch.lastId;
+            if (batch.rows >= SYNC_BATCH_ROWS) {
+                workerHandler.post(this::sync);
+            } else {
+                refreshedRows.addAndGet(database.refreshCalls(context, CallLogSyncTracker.WINDOW_SIZE));
+            }
+
+            if (batch.rows > 0) {
+                linkAnnotations();
+            }
+            syncs.incrementAndGet();
+            syncedRows.addAndGet(batch.rows);
+            lastSyncMs = SystemClock.elapsedRealtime() - startedAt;
+            if (batch.rows > 0) {
+                Log.d(TAG, "Mirrored " + batch.rows + " call log rows in " + lastSyncMs + "ms");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error syncing call history: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copy verdicts and monitoring of recent calls onto their mirrored call log rows.
+     * Runs on the worker thread.
+     */
+    private void linkAnnotations() {
+        try {
+            linkedAnnotations.addAndGet(database.linkAnnotations(System.currentTimeMillis() - LINK_GIVE_UP_MS));
+        } catch (Exception e) {
+            Log.e(TAG, "Error linking call annotations: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * SQLite storage: mirrored call log rows, per-call annotations and the call log watermark
+     */
+    private static class HistoryOpenHelper extends SQLiteOpenHelper {
+        static final String TABLE_CALLS = "calls";
+        static final String TABLE_ANNOTATIONS = "annotations";
+        static final String TABLE_META = "meta";
+        static final String META_LAST_CALL_LOG_ID = "last_call_log_id";
+        // Column order read by HistoryRow
+        static final String[] ROW_COLUMNS = {
+                "call_log_id", "number", "name", "date", "duration", "type", "is_new",
+                "fraud_type", "risk_score", "fraud_source", "monitored", "call_sid"
+        };
+
+        HistoryOpenHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_CALLS + " ("
+                    + "call_log_id INTEGER PRIMARY KEY, "
+                    + "number TEXT, "
+                    + "number_key INTEGER NOT NULL, "
+                    + "name TEXT, "
+                    + "date INTEGER NOT NULL, "
+                    + "duration INTEGER NOT NULL, "
+                    + "type INTEGER NOT NULL, "
+                    + "is_new INTEGER NOT NULL, "
+                    + "fraud_type TEXT, "
+                    + "risk_score REAL, "
+                    + "fraud_source TEXT, "
+                    + "monitored INTEGER NOT NULL DEFAULT 0, "
+                    + "call_sid TEXT)");
+            db.execSQL("CREATE INDEX calls_number_date ON " + TABLE_CALLS + " (number_key, date)");
+            db.execSQL("CREATE INDEX calls_type_date ON " + TABLE_CALLS + " (type, date)");
+            db.execSQL("CREATE INDEX calls_date ON " + TABLE_CALLS + " (date)");
+            db.execSQL("CREATE INDEX calls_flagged_date ON " + TABLE_CALLS + " (date) WHERE fraud_type IS NOT NULL");
+
+            db.execSQL("CREATE TABLE " + TABLE_ANNOTATIONS + " ("
+                    + "call_sid TEXT PRIMARY KEY, "
+                    + "number_key INTEGER NOT NULL, "
+                    + "recorded_at INTEGER NOT NULL, "
+                    + "fraud_type TEXT, "
+                    + "risk_score REAL, "
+                    + "fraud_source TEXT, "
+                    + "monitored INTEGER NOT NULL DEFAULT 0, "
+                    + "call_log_id INTEGER)");
+            db.execSQL("CREATE INDEX annotations_unlinked ON " + TABLE_ANNOTATIONS
+                    + " (recorded_at) WHERE call_log_id IS NULL");
+
+            db.execSQL("CREATE TABLE " + TABLE_META + " (name TEXT PRIMARY KEY, value INTEGER NOT NULL)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_CALLS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_ANNOTATIONS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_META);
+            onCreate(db);
+        }
+
+        long getLastCallLogId() {
+            try (Cursor cursor = getReadableDatabase().rawQuery("SELECT value FROM " + TABLE_META
+                    + " WHERE name = ?", new String[] { META_LAST_CALL_LOG_ID })) {
+                return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+            }
+        }
+
+        long countRows() {
+            try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_CALLS, null)) {
+                return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+            }
+        }
+
+        /**
+         * Insert up to limit call log rows added after the watermark and advance it, in one
+         * transaction
+         */
+        CallInserter insertCallsAfter(Context context, long lastCallLogId, int limit) {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try (SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_CALLS
+                    + " (call_log_id, number, number_key, name, date, duration, type, is_new)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+                 SQLiteStatement watermark = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_META
+                    + " VALUES ('" + META_LAST_CALL_LOG_ID + "', ?)")) {
+                CallInserter inserter = new CallInserter(insert, lastCallLogId);
+                CallLogHelper.getCallsAfter(context, lastCallLogId, limit, inserter);
+                watermark.bindLong(1, inserter.lastId);
+                watermark.executeInsert();
+                db.setTransactionSuccessful();
+                return inserter;
+            } finally {
+                db.endTransaction();
+            }
+        }
+
+        /**
+         * Copy the mutable columns of the newest call log rows onto their mirrored rows in one
+         * transaction. Only rows that differ are written.
+         *
+         * @return Number of rows changed
+         */
+        int refreshCalls(Context context, int limit) {
+            SQLiteDatabase db = getWritableDatabase();
+            int[] changed = new int[1];
+            db.beginTransaction();
+            try (SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_CALLS
+                    + " SET name = ?1, duration = ?2, type = ?3, is_new = ?4 WHERE call_log_id = ?5"
+                    + " AND (name IS NOT ?1 OR duration != ?2 OR type != ?3 OR is_new != ?4)")) {
+                CallLogHelper.getRecentCalls(context, limit, row -> {
+                    update.bindString(1, row.getCachedName());
+                    update.bindLong(2, row.getDuration());
+                    update.bindLong(3, row.getType());
+                    update.bindLong(4, row.isNew() ? 1 : 0);
+                    update.bindLong(5, row.getId());
+                    changed[0] += update.executeUpdateDelete();
+                });
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return changed[0];
+        }
+
+        /**
+         * Merge an annotation into the call's row: the first fraud type, the highest score and
+         * the monitoring flag are kept
+         */
+        void annotate(String callSid, long numberKey, long recordedAt, String fraudType, double riskScore,
+                String source, boolean monitored) {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                try (SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_ANNOTATIONS
+                        + " (call_sid, number_key, recorded_at) VALUES (?, ?, ?)")) {
+                    insert.bindString(1, callSid);
+                    insert.bindLong(2, numberKey);
+                    insert.bindLong(3, recordedAt);
+                    insert.executeInsert();
+                }
+                try (SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_ANNOTATIONS + " SET "
+                        + "fraud_type = COALESCE(fraud_type, ?), "
+                        + "fraud_source = COALESCE(fraud_source, ?), "
+                        + "risk_score = MAX(COALESCE(risk_score, 0), ?), "
+                        + "monitored = MAX(monitored, ?) "
+                        + "WHERE call_sid = ?")) {
+                    bindStringOrNull(update, 1, fraudType);
+                    bindStringOrNull(update, 2, source);
+                    update.bindDouble(3, riskScore);
+                    update.bindLong(4, monitored ? 1 : 0);
+                    update.bindString(5, callSid);
+                    update.executeUpdateDelete();
+                }
+                // An annotation already linked is copied again so the call row stays current
+                db.execSQL("UPDATE " + TABLE_ANNOTATIONS + " SET call_log_id = NULL WHERE call_sid = ?",
+                        new Object[] { callSid });
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+
+        /**
+         * Link unlinked annotations recorded after notBefore to the mirrored call of the same
+         * number whose time span covers them, and copy them onto that call
+         *
+         * @return Number of annotations linked
+         */
+        int linkAnnotations(long notBefore) {
+            SQLiteDatabase db = getWritableDatabase();
+            int linked = 0;
+            db.beginTransaction();
+            try (Cursor pending = db.rawQuery("SELECT call_sid, number_key, recorded_at, fraud_type, risk_score,"
+                    + " fraud_source, monitored FROM " + TABLE_ANNOTATIONS
+                    + " WHERE call_log_id IS NULL AND recorded_at >= ?",
+                    new String[] { String.valueOf(notBefore) });
+                 SQLiteStatement findCall = db.compileStatement("SELECT call_log_id FROM " + TABLE_CALLS
+                    + " WHERE number_key = ? AND date BETWEEN ? AND ?"
+                    + " AND date + duration * 1000 + " + LINK_SLACK_MS + " >= ?"
+                    + " ORDER BY date DESC LIMIT 1");
+                 SQLiteStatement updateCall = db.compileStatement("UPDATE " + TABLE_CALLS + " SET "
+                    + "fraud_type = ?, risk_score = ?, fraud_source = ?, monitored = ?, call_sid = ?"
+                    + " WHERE call_log_id = ?");
+                 SQLiteStatement markLinked = db.compileStatement("UPDATE " + TABLE_ANNOTATIONS
+                    + " SET call_log_id = ? WHERE call_sid = ?")) {
+                while (pending.moveToNext()) {
+                    long numberKey = pending.getLong(1);
+                    long recordedAt = pending.getLong(2);
+                    if (numberKey == PhoneNumberNormalizer.INVALID) {
+                        continue;
+                    }
+
+                    long callLogId;
+                    findCall.bindLong(1, numberKey);
+                    findCall.bindLong(2, recordedAt - LINK_MAX_CALL_MS);
+                    findCall.bindLong(3, recordedAt + LINK_SLACK_MS);
+                    findCall.bindLong(4, recordedAt);
+                    try {
+                        callLogId = findCall.simpleQueryForLong();
+                    } catch (android.database.sqlite.SQLiteDoneException e) {
+                        // The call has not reached the call log yet
+                        continue;
+                    }
+
+                    String callSid = pending.getString(0);
+                    bindStringOrNull(updateCall, 1, pending.getString(3));
+                    if (pending.isNull(4)) {
+                        updateCall.bindNull(2);
+                    } else {
+                        updateCall.bindDouble(2, pending.getDouble(4));
+                    }
+                    bindStringOrNull(updateCall, 3, pending.getString(5));
+                    updateCall.bindLong(4, pending.getLong(6));
+                    updateCall.bindString(5, callSid);
+                    updateCall.bindLong(6, callLogId);
+                    updateCall.executeUpdateDelete();
+
+                    markLinked.bindLong(1, callLogId);
+                    markLinked.bindString(2, callSid);
+                    markLinked.executeUpdateDelete();
+                    linked++;
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return linked;
+        }
+
+        /**
+         * Inserts the call log rows it visits and tracks the last _ID inserted
+         */
+        static class CallInserter implements CallLogRowMapper.RowVisitor {
+            private final SQLiteStatement insert;
+            long lastId;
+            int rows = 0;
+
+            CallInserter(SQLiteStatement insert, long lastCallLogId) {
+                this.insert = insert;
+                this.lastId = lastCallLogId;
+            }
+
+            @Override
+            public void onRow(CallLogRowMapper row) {
+                String number = row.getNumber();
+                insert.bindLong(1, row.getId());
+                bindStringOrNull(insert, 2, number);
+                insert.bindLong(3, number != null ? PhoneNumberNormalizer.normalize(number)
+                        : PhoneNumberNormalizer.INVALID);
+                insert.bindString(4, row.getCachedName());
+                insert.bindLong(5, row.getDate());
+                insert.bindLong(6, row.getDuration());
+                insert.bindLong(7, row.getType());
+                insert.bindLong(8, row.isNew() ? 1 : 0);
+                insert.executeInsert();
+                lastId = row.getId();
+                rows++;
+            }
+        }
+
+        private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+            if (value != null) {
+                statement.bindString(index, value);
+            } else {
+                statement.bindNull(index);
+            }
+        }
+    }
+}
@@ -2,14 +2,10 @@ package com.spamcalldetector.helpers;
 
 import android.content.Context;
 import android.database.Cursor;
-import android.net.Uri;
 import android.provider.CallLog;
 import android.util.Log;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Helper class to access and process call logs
@@ -17,109 +13,234 @@ import java.util.Map;
 public class CallLogHelper {
     private static final String TAG = "CallLogHelper";
 
+    // Only the columns the call list shows
+    private static final String[] PROJECTION = new String[] {
+            CallLog.Calls._ID,
+            CallLog.Calls.NUMBER,
+            CallLog.Calls.CACHED_NAME,
+            CallLog.Calls.DATE,
+            CallLog.Calls.DURATION,
+            CallLog.Calls.TYPE,
+            CallLog.Calls.NEW // Add this to check if call was seen
+    };
+
+    // Newest first; _ID breaks ties between calls logged in the same millisecond
+    private static final String PAGE_ORDER = CallLog.Calls.DATE + " DESC, " + CallLog.Calls._ID + " DESC";
+
+    // Rows strictly older than the (date, _id) of the last row of the previous page
+    private static final String PAGE_SELECTION = "(" + CallLog.Calls.DATE + " < ? OR ("
+            + CallLog.Calls.DATE + " = ? AND " + CallLog.Calls._ID + " < ?))";
+
     /**
-     * Get recent call logs from the device
+     * Position of a query's last row, where the next page continues
+     */
+    public static class CallPage {
+        private final int count;
+        private final boolean hasMore;
+        private final long lastTimestamp;
+        private final long lastId;
+
+        CallPage(int count, boolean hasMore, long lastTimestamp, long lastId) {
+            this.count = count;
+            this.hasMore = hasMore;
+            this.lastTimestamp = lastTimestamp;
+            this.lastId = lastId;
+        }
+
+        /**
+         * Number of calls passed to the visitor
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Whether older calls exist after this page
+         */
+        public boolean hasMore() {
+            return hasMore;
+        }
+
+        /**
+         * DATE of the last call on the page, the keyset of the next page
+         */
+        public long getLastTimestamp() {
+            return lastTimestamp;
+        }
+
+        /**
+         * _ID of the last call on the page, the keyset of the next page
+         */
+        public long getLastId() {
+            return lastId;
+        }
+    }
+
+    private static final CallPage EMPTY_PAGE = new CallPage(0, false, 0, 0);
+
+    /**
+     * Stream the most recent calls to a visitor, newest first
      * 
      * @param context The application context
-     * @param limit   Maximum number of entries to return
-     * @return List of maps containing call data
+     * @param limit   Maximum number of entries to visit
+     * @return Number of calls visited
      */
-    public static List<Map<String, Object>> getRecentCalls(Context context, int limit) {
-        List<Map<String, Object>> callLogs = new ArrayList<>();
-
+    public static int getRecentCalls(Context context, int limit, CallLogRowMapper.RowVisitor visitor) {
         try {
             Log.d(TAG, "Starting call log retrieval with limit: " + limit);
 
-            // Check for READ_CALL_LOG permission
-            int permissionCheck = android.content.pm.PackageManager.PERMISSION_DENIED;
-            try {
-                permissionCheck = context.checkCallingOrSelfPermission(android.Manifest.permission.READ_CALL_LOG);
-            } catch (Exception e) {
-                Log.e(TAG, "Error checking READ_CALL_LOG permission: " + e.getMessage());
+            if (!hasReadPermission(context)) {
+                return 0;
             }
 
-            if (permissionCheck != android.content.pm.PackageManager.PERMISSION_GRANTED) {
-                Log.e(TAG, "READ_CALL_LOG permission not granted");
-                return callLogs; // Return empty list
-            }
-
-            Log.d(TAG, "Permission check passed, accessing call logs");
-            String[] projection = new String[] {
-                    CallLog.Calls._ID,
-                    CallLog.Calls.NUMBER,
-                    CallLog.Calls.CACHED_NAME,
-                    CallLog.Calls.DATE,
-                    CallLog.Calls.DURATION,
-                    CallLog.Calls.TYPE,
-                    CallLog.Calls.NEW // Add this to check if call was seen
-            };
-
-            Uri callLogUri = CallLog.Calls.CONTENT_URI;
             Log.d(TAG, "Querying content resolver for call logs");
             Cursor cursor = context.getContentResolver().query(
-                    callLogUri,
-                    projection,
+                    CallLog.Calls.CONTENT_URI,
+                    PROJECTION,
                     null,
                     null,
                     CallLog.Calls.DATE + " DESC LIMIT " + limit);
 
             if (cursor != null) {
-                int idColumn = cursor.getColumnIndex(CallLog.Calls._ID);
-                int numberColumn = cursor.getColumnIndex(CallLog.Calls.NUMBER);
-                int nameColumn = cursor.getColumnIndex(CallLog.Calls.CACHED_NAME);
-                int dateColumn = cursor.getColumnIndex(CallLog.Calls.DATE);
-                int durationColumn = cursor.getColumnIndex(CallLog.Calls.DURATION);
-                int typeColumn = cursor.getColumnIndex(CallLog.Calls.TYPE);
-                int newColumn = cursor.getColumnIndex(CallLog.Calls.NEW);
-
-                while (cursor.moveToNext()) {
-                    String id = cursor.getString(idColumn);
-                    String phoneNumber = cursor.getString(numberColumn);
-                    String contactName = cursor.getString(nameColumn);
-                    long timestamp = cursor.getLong(dateColumn);
-                    int duration = cursor.getInt(durationColumn);
-                    int type = cursor.getInt(typeColumn);
-                    int isNew = cursor.getInt(newColumn); // 1 = new/unseen call
-
-                    // Convert call type to string
-                    String callType;
-                    switch (type) {
-                        case CallLog.Calls.INCOMING_TYPE:
-                            callType = "incoming";
-                            break;
-                        case CallLog.Calls.OUTGOING_TYPE:
-                            callType = "outgoing";
-                            break;
-                        case CallLog.Calls.MISSED_TYPE:
-                            callType = "missed";
-                            break;
-                        case CallLog.Calls.REJECTED_TYPE:
-                            callType = "rejected";
-                            break;
-                        default:
-                            callType = "unknown";
-                            break;
-                    }
-
-                    // Create a map for each call record
-                    Map<String, Object> callData = new HashMap<>();
-                    callData.put("id", id);
-                    callData.put("phoneNumber", phoneNumber);
-                    callData.put("contactName", contactName == null ? "" : contactName);
-                    callData.put("timestamp", timestamp);
-                    callData.put("duration", duration);
-                    callData.put("type", callType);
-                    callData.put("isNew", isNew == 1);
-
-                    callLogs.add(callData);
+                try {
+                    return visitRows(cursor, limit, visitor).getCount();
+                } finally {
+                    cursor.close();
                 }
-                cursor.close();
             }
         } catch (Exception e) {
             Log.e(TAG, "Error getting call logs: " + e.getMessage());
         }
 
-        return callLogs;
+        return 0;
+    }
+
+    /**
+     * Stream the calls logged after a known _ID to a visitor, oldest first. Used to apply call
+     * log rows incrementally from a watermark.
+     *
+     * @param afterId Highest _ID already applied, or 0 for the whole call log
+     * @param limit   Maximum number of calls to visit
+     * @return Number of calls visited
+     */
+    public static int getCallsAfter(Context context, long afterId, int limit, CallLogRowMapper.RowVisitor visitor) {
+        try {
+            if (!hasReadPermission(context)) {
+                return 0;
+            }
+
+            Cursor cursor = context.getContentResolver().query(
+                    CallLog.Calls.CONTENT_URI,
+                    PROJECTION,
+                    CallLog.Calls._ID + " > ?",
+                    new String[] { String.valueOf(afterId) },
+                    CallLog.Calls._ID + " ASC LIMIT " + limit);
+
+            if (cursor != null) {
+                try {
+                    return visitRows(cursor, limit, visitor).getCount();
+                } finally {
+                    cursor.close();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting call logs after " + afterId + ": " + e.getMessage());
+        }
+
+        return 0;
+    }
+
+    /**
+     * Stream one page of the call log to a visitor using keyset pagination. Each page seeks past
+     * the last row of the previous one on (DATE, _ID) instead of re-reading all newer rows, so the
+     * cost of a page does not grow with how far back the user has scrolled.
+     *
+     * @param beforeTimestamp DATE of the last call of the previous page, or 0 for the first page
+     * @param beforeId        _ID of the last call of the previous page, or 0 for the first page
+     * @param pageSize        Maximum number of calls on the page
+     * @param typeFilter      "incoming", "outgoing", "missed" or "rejected"; null for all calls
+     */
+    public static CallPage getCallsPage(Context context, long beforeTimestamp, long beforeId, int pageSize,
+            String typeFilter, CallLogRowMapper.RowVisitor visitor) {
+        try {
+            if (!hasReadPermission(context)) {
+                return EMPTY_PAGE;
+            }
+
+            StringBuilder selection = new StringBuilder();
+            List<String> args = new ArrayList<>();
+            if (beforeTimestamp > 0) {
+                selection.append(PAGE_SELECTION);
+                args.add(String.valueOf(beforeTimestamp));
+                args.add(String.valueOf(beforeTimestamp));
+                args.add(String.valueOf(beforeId));
+            }
+            int typeCode = CallLogRowMapper.typeCode(typeFilter);
+            if (typeCode != 0) {
+                if (selection.length() > 0) {
+                    selection.append(" AND ");
+                }
+                selection.append(CallLog.Calls.TYPE).append(" = ?");
+                args.add(String.valueOf(typeCode));
+            }
+
+            // One extra row tells whether another page exists without a second query
+            Cursor cursor = context.getContentResolver().query(
+                    CallLog.Calls.CONTENT_URI,
+                    PROJECTION,
+                    selection.length() > 0 ? selection.toString() : null,
+                    args.isEmpty() ? null : args.toArray(new String[0]),
+                    PAGE_ORDER + " LIMIT " + (pageSize + 1));
+
+            if (cursor != null) {
+                try {
+                    return visitRows(cursor, pageSize, visitor);
+                } finally {
+                    cursor.close();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting call log page: " + e.getMessage());
+        }
+
+        return EMPTY_PAGE;
+    }
+
+    private static boolean hasReadPermission(Context context) {
+        // Check for READ_CALL_LOG permission
+        int permissionCheck = android.content.pm.PackageManager.PERMISSION_DENIED;
+        try {
+            permissionCheck = context.checkCallingOrSelfPermission(android.Manifest.permission.READ_CALL_LOG);
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking READ_CALL_LOG permission: " + e.getMessage());
+        }
+
+        if (permissionCheck != android.content.pm.PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "READ_CALL_LOG permission not granted");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Pass up to limit rows of a PROJECTION cursor to the visitor
+     */
+    private static CallPage visitRows(Cursor cursor, int limit, CallLogRowMapper.RowVisitor visitor) {
+        CallLogRowMapper row = new CallLogRowMapper(cursor);
+        int count = 0;
+        long lastTimestamp = 0;
+        long lastId = 0;
+
+        while (cursor.moveToNext()) {
+            if (count >= limit) {
+                return new CallPage(count, true, lastTimestamp, lastId);
+            }
+            visitor.onRow(row);
+            lastTimestamp = row.getDate();
+            lastId = row.getId();
+            count++;
+        }
+        return new CallPage(count, false, lastTimestamp, lastId);
     }
 
     /**
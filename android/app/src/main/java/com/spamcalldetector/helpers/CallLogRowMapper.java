@@ -0,0 +1,137 @@
+package com.spamcalldetector.helpers;
+
+import android.database.Cursor;
+import android.provider.CallLog;
+
+/**
+ * Typed view of the current row of a call log cursor queried with CallLogHelper's projection.
+ * Column indices are resolved once per cursor and values are read straight from it, so a row
+ * is mapped without an intermediate map or boxed values; only the strings a caller asks for
+ * are allocated. One mapper is reused for every row of the cursor.
+ */
+public class CallLogRowMapper {
+
+    /**
+     * Receives each row of a query. The mapper is only valid during the call.
+     */
+    public interface RowVisitor {
+        void onRow(CallLogRowMapper row);
+    }
+
+    private final Cursor cursor;
+    private final int idColumn;
+    private final int numberColumn;
+    private final int nameColumn;
+    private final int dateColumn;
+    private final int durationColumn;
+    private final int typeColumn;
+    private final int newColumn;
+
+    public CallLogRowMapper(Cursor cursor) {
+        this.cursor = cursor;
+        idColumn = cursor.getColumnIndex(CallLog.Calls._ID);
+        numberColumn = cursor.getColumnIndex(CallLog.Calls.NUMBER);
+        nameColumn = cursor.getColumnIndex(CallLog.Calls.CACHED_NAME);
+        dateColumn = cursor.getColumnIndex(CallLog.Calls.DATE);
+        durationColumn = cursor.getColumnIndex(CallLog.Calls.DURATION);
+        typeColumn = cursor.getColumnIndex(CallLog.Calls.TYPE);
+        newColumn = cursor.getColumnIndex(CallLog.Calls.NEW);
+    }
+
+    public long getId() {
+        return cursor.getLong(idColumn);
+    }
+
+    /**
+     * _ID as the string id the app uses for calls
+     */
+    public String getIdString() {
+        return cursor.getString(idColumn);
+    }
+
+    public String getNumber() {
+        return cursor.getString(numberColumn);
+    }
+
+    /**
+     * Cached contact name, or "" if the call log has none
+     */
+    public String getCachedName() {
+        String name = cursor.getString(nameColumn);
+        return name == null ? "" : name;
+    }
+
+    /**
+     * Time of the call in milliseconds since the epoch
+     */
+    public long getDate() {
+        return cursor.getLong(dateColumn);
+    }
+
+    /**
+     * Duration in seconds
+     */
+    public int getDuration() {
+        return cursor.getInt(durationColumn);
+    }
+
+    /**
+     * CallLog.Calls type of the call
+     */
+    public int getType() {
+        return cursor.getInt(typeColumn);
+    }
+
+    /**
+     * Type name used by the app, see typeName
+     */
+    public String getTypeName() {
+        return typeName(getType());
+    }
+
+    /**
+     * Whether the call has not been seen yet
+     */
+    public boolean isNew() {
+        return cursor.getInt(newColumn) == 1;
+    }
+
+    /**
+     * Convert a CallLog.Calls type to the name used by the app
+     */
+    public static String typeName(int type) {
+        switch (type) {
+            case CallLog.Calls.INCOMING_TYPE:
+                return "incoming";
+            case CallLog.Calls.OUTGOING_TYPE:
+                return "outgoing";
+            case CallLog.Calls.MISSED_TYPE:
+                return "missed";
+            case CallLog.Calls.REJECTED_TYPE:
+                return "rejected";
+            default:
+                return "unknown";
+        }
+    }
+
+    /**
+     * Convert an app call type name to its CallLog.Calls type, or 0 for no filter
+     */
+    public static int typeCode(String name) {
+        if (name == null) {
+            return 0;
+        }
+        switch (name) {
+            case "incoming":
+                return CallLog.Calls.INCOMING_TYPE;
+            case "outgoing":
+                return CallLog.Calls.OUTGOING_TYPE;
+            case "missed":
+                return CallLog.Calls.MISSED_TYPE;
+            case "rejected":
+                return CallLog.Calls.REJECTED_TYPE;
+            default:
+                return 0;
+        }
+    }
+}
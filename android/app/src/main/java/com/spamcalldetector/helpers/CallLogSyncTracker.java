@@ -0,0 +1,439 @@
+package com.spamcalldetector.helpers;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.provider.CallLog;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental sync of the call history shown by the app.
+ * Keeps a persisted snapshot of the newest WINDOW_SIZE calls (_ID, DATE and a fingerprint of the
+ * mutable columns) plus the (_ID, DATE) watermark of the newest call. getChanges compares the
+ * current window with the snapshot the caller's token refers to and reports only inserted,
+ * updated (e.g. the NEW flag cleared by markCallAsRead) and deleted calls. A token that does not
+ * match the last snapshot yields a reset with the whole window, and so does a window made only of
+ * calls past the token's watermark: more calls may have been logged than the window holds.
+ * This is the app's one call log change pipeline: a single ContentObserver on the call log
+ * notifies every change listener, debounced, on one worker thread. The UI pulls changes instead of
+ * polling, and the stores derived from the call log (CallHistoryDatabase, NumberReputationStore)
+ * run their syncs from the same notification on the same thread. Changes to calls older than the
+ * window are not reported.
+ */
+public class CallLogSyncTracker {
+    private static final String TAG = "CallLogSyncTracker";
+    private static final String PREFS_NAME = "call_log_sync";
+    private static final String KEY_SEQUENCE = "sequence";
+    private static final String KEY_WATERMARK_ID = "watermark_id";
+    private static final String KEY_WATERMARK_DATE = "watermark_date";
+    private static final String KEY_SNAPSHOT = "snapshot";
+    private static final String TOKEN_VERSION = "w1";
+
+    public static final int WINDOW_SIZE = 100;
+    private static final long CHANGE_DEBOUNCE_MS = 500;
+
+    private static CallLogSyncTracker instance;
+
+    /**
+     * Notified on the worker thread when the call log changed. Listeners share the thread, so
+     * long work should be split into separate messages on getWorkerHandler().
+     */
+    public interface ChangeListener {
+        void onCallLogChanged();
+    }
+
+    /**
+     * Receives the changes since the caller's token. Rows are only valid during the call.
+     */
+    public interface ChangeVisitor {
+        void onInserted(CallLogRowMapper row);
+
+        void onUpdated(CallLogRowMapper row);
+
+        void onDeleted(long id);
+    }
+
+    /**
+     * Outcome of getChanges
+     */
+    public static class SyncResult {
+        private final boolean reset;
+        private final String token;
+
+        SyncResult(boolean reset, String token) {
+            this.reset = reset;
+            this.token = token;
+        }
+
+        /**
+         * Whether the token was unknown or the window overflowed, and every call in the window was
+         * reported as inserted
+         */
+        public boolean isReset() {
+            return reset;
+        }
+
+        /**
+         * Token to pass to the next getChanges call, or null without call log permission
+         */
+        public String getToken() {
+            return token;
+        }
+    }
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Handler workerHandler;
+    private final Runnable notifyRunnable = this::notifyChanged;
+    private CallLogObserver callLogObserver;
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Snapshot of the window at the last sync, sorted by _ID. Guarded by this.
+    private boolean loaded = false;
+    private long sequence = 0;
+    private long watermarkId = 0;
+    private long watermarkDate = 0;
+    private long[] ids = new long[0];
+    private long[] dates = new long[0];
+    private int[] fingerprints = new int[0];
+
+    // Counters
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong insertedRows = new AtomicLong();
+    private final AtomicLong updatedRows = new AtomicLong();
+    private final AtomicLong deletedRows = new AtomicLong();
+    private final AtomicLong changeNotifications = new AtomicLong();
+
+    private CallLogSyncTracker(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        HandlerThread thread = new HandlerThread("call-log-sync");
+        thread.start();
+        this.workerHandler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Get the shared tracker, registering the call log observer if it is not registered yet
+     */
+    public static synchronized CallLogSyncTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallLogSyncTracker(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Worker thread of the call log pipeline; change listeners are called on it
+     */
+    public Handler getWorkerHandler() {
+        return workerHandler;
+    }
+
+    /**
+     * Report the calls inserted, updated or deleted in the window since the snapshot of the token
+     *
+     * @param token Token of the previous call, or null to start over
+     */
+    public synchronized SyncResult getChanges(String token, ChangeVisitor visitor) {
+        if (!hasCallLogPermission()) {
+            return new SyncResult(false, null);
+        }
+        ensureStarted();
+        loadSnapshot();
+        syncs.incrementAndGet();
+
+        boolean reset = !isCurrentToken(token);
+        if (reset) {
+            resets.incrementAndGet();
+        }
+
+        WindowReader window = new WindowReader(reset, visitor);
+        CallLogHelper.getRecentCalls(context, WINDOW_SIZE, window);
+        window.sortById();
+
+        if (!reset && window.newRows >= WINDOW_SIZE) {
+            // Every row was reported as inserted already; the caller has to drop what it has
+            Log.d(TAG, "At least " + WINDOW_SIZE + " calls since the last sync; resetting");
+            reset = true;
+            resets.incrementAndGet();
+        }
+
+        if (!reset) {
+            // Calls gone from the window were deleted, unless they only slid out past its end
+            boolean windowFull = window.count >= WINDOW_SIZE;
+            for (int i = 0; i < ids.length; i++) {
+                if (window.indexOf(ids[i]) >= 0) {
+                    continue;
+                }
+                if (!windowFull || dates[i] > window.oldestDate) {
+                    visitor.onDeleted(ids[i]);
+                    deletedRows.incrementAndGet();
+                }
+            }
+        }
+
+        ids = window.ids;
+        dates = window.dates;
+        fingerprints = window.fingerprints;
+        sequence++;
+        saveSnapshot();
+        return new SyncResult(reset, TOKEN_VERSION + ":" + sequence + ":" + watermarkId);
+    }
+
+    /**
+     * Counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("syncs", syncs.get());
+        stats.put("resets", resets.get());
+        stats.put("insertedRows", insertedRows.get());
+        stats.put("updatedRows", updatedRows.get());
+        stats.put("deletedRows", deletedRows.get());
+        stats.put("changeNotifications", changeNotifications.get());
+        synchronized (this) {
+            stats.put("watermarkId", watermarkId);
+            stats.put("watermarkDate", watermarkDate);
+            stats.put("windowRows", (long) ids.length);
+        }
+        return stats;
+    }
+
+    private synchronized void ensureStarted() {
+        if (callLogObserver != null || !hasCallLogPermission()) {
+            return;
+        }
+
+        callLogObserver = new CallLogObserver(workerHandler);
+        try {
+            context.getContentResolver().registerContentObserver(CallLog.Calls.CONTENT_URI, true, callLogObserver);
+        } catch (Exception e) {
+            Log.e(TAG, "Error registering call log observer: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean hasCallLogPermission() {
+        return ContextCompat.checkSelfPermission(context,
+                Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private boolean isCurrentToken(String token) {
+        if (token == null) {
+            return false;
+        }
+        String[] parts = token.split(":");
+        if (parts.length != 3 || !TOKEN_VERSION.equals(parts[0])) {
+            return false;
+        }
+        try {
+            return Long.parseLong(parts[1]) == sequence && Long.parseLong(parts[2]) == watermarkId;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static int fingerprint(CallLogRowMapper row) {
+        int fingerprint = row.getType();
+        fingerprint = 31 * fingerprint + row.getDuration();
+        fingerprint = 31 * fingerprint + (row.isNew() ? 1 : 0);
+        fingerprint = 31 * fingerprint + row.getCachedName().hashCode();
+        return fingerprint;
+    }
+
+    /**
+     * Read the persisted snapshot once. Stored as "id,date,fingerprint" entries joined by ';'.
+     */
+    private void loadSnapshot() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        sequence = prefs.getLong(KEY_SEQUENCE, 0);
+        watermarkId = prefs.getLong(KEY_WATERMARK_ID, 0);
+        watermarkDate = prefs.getLong(KEY_WATERMARK_DATE, 0);
+        String snapshot = prefs.getString(KEY_SNAPSHOT, "");
+        if (snapshot == null || snapshot.isEmpty()) {
+            return;
+        }
+
+        try {
+            String[] entries = snapshot.split(";");
+            long[] storedIds = new long[entries.length];
+            long[] storedDates = new long[entries.length];
+            int[] storedFingerprints = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                String[] fields = entries[i].split(",");
+                storedIds[i] = Long.parseLong(fields[0]);
+                storedDates[i] = Long.parseLong(fields[1]);
+                storedFingerprints[i] = Integer.parseInt(fields[2]);
+            }
+            ids = storedIds;
+            dates = storedDates;
+            fingerprints = storedFingerprints;
+        } catch (Exception e) {
+            // The next sync of any token starts over
+            Log.e(TAG, "Error reading call log snapshot: " + e.getMessage());
+            sequence++;
+        }
+    }
+
+    private void saveSnapshot() {
+        StringBuilder snapshot = new StringBuilder(ids.length * 32);
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                snapshot.append(';');
+            }
+            snapshot.append(ids[i]).append(',').append(dates[i]).append(',').append(fingerprints[i]);
+        }
+        prefs.edit()
+                .putLong(KEY_SEQUENCE, sequence)
+                .putLong(KEY_WATERMARK_ID, watermarkId)
+                .putLong(KEY_WATERMARK_DATE, watermarkDate)
+                .putString(KEY_SNAPSHOT, snapshot.toString())
+                .apply();
+    }
+
+    private void notifyChanged() {
+        changeNotifications.incrementAndGet();
+        for (ChangeListener listener : changeListeners) {
+            try {
+                listener.onCallLogChanged();
+            } catch (Exception e) {
+                Log.e(TAG, "Error notifying call log change: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Collects the current window and reports rows that are new or changed against the snapshot.
+     * Called with the tracker's lock held.
+     */
+    private class WindowReader implements CallLogRowMapper.RowVisitor {
+        private final boolean reset;
+        private final ChangeVisitor visitor;
+        long[] ids = new long[WINDOW_SIZE];
+        long[] dates = new long[WINDOW_SIZE];
+        int[] fingerprints = new int[WINDOW_SIZE];
+        int count = 0;
+        long oldestDate = Long.MAX_VALUE;
+        // Calls past the watermark of the previous sync
+        private final long previousWatermarkId;
+        int newRows = 0;
+
+        WindowReader(boolean reset, ChangeVisitor visitor) {
+            this.reset = reset;
+            this.visitor = visitor;
+            this.previousWatermarkId = watermarkId;
+        }
+
+        @Override
+        public void onRow(CallLogRowMapper row) {
+            if (count >= WINDOW_SIZE) {
+                return;
+            }
+            long id = row.getId();
+            long date = row.getDate();
+            int fingerprint = fingerprint(row);
+            ids[count] = id;
+            dates[count] = date;
+            fingerprints[count] = fingerprint;
+            count++;
+            oldestDate = Math.min(oldestDate, date);
+            if (id > previousWatermarkId) {
+                newRows++;
+            }
+            if (id > watermarkId) {
+                watermarkId = id;
+            }
+            if (date > watermarkDate) {
+                watermarkDate = date;
+            }
+
+            int previous = reset ? -1 : Arrays.binarySearch(CallLogSyncTracker.this.ids, id);
+            if (previous < 0) {
+                visitor.onInserted(row);
+                insertedRows.incrementAndGet();
+            } else if (CallLogSyncTracker.this.fingerprints[previous] != fingerprint) {
+                visitor.onUpdated(row);
+                updatedRows.incrementAndGet();
+            }
+        }
+
+        /**
+         * Trim to the rows read and sort them by _ID, the order of the snapshot
+         */
+        void sortById() {
+            long[] sortedIds = new long[count];
+            long[] sortedDates = new long[count];
+            int[] sortedFingerprints = new int[count];
+            for (int i = 0; i < count; i++) {
+                // Insertion sort; the window is small and mostly in descending _ID order
+                int j = i;
+                while (j > 0 && sortedIds[j - 1] > ids[i]) {
+                    sortedIds[j] = sortedIds[j - 1];
+                    sortedDates[j] = sortedDates[j - 1];
+                    sortedFingerprints[j] = sortedFingerprints[j - 1];
+                    j--;
+                }
+                sortedIds[j] = ids[i];
+                sortedDates[j] = dates[i];
+                sortedFingerprints[j] = fingerprints[i];
+            }
+            ids = sortedIds;
+            dates = sortedDates;
+            fingerprints = sortedFingerprints;
+        }
+
+        /**
+         * Position of a call in the window, negative if absent. Only valid after sortById.
+         */
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, id);
+        }
+    }
+
+    /**
+     * Debounces bursts of call log notifications into one change notification
+     */
+    private class CallLogObserver extends ContentObserver {
+
+        CallLogObserver(Handler handler) {
+            super(handler);
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            onChange(selfChange, null);
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            workerHandler.removeCallbacks(notifyRunnable);
+            workerHandler.postDelayed(notifyRunnable, CHANGE_DEBOUNCE_MS);
+        }
+    }
+}
@@ -4,10 +4,7 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
-import android.media.AudioManager;
 import android.net.Uri;
-import android.os.Handler;
-import android.os.Looper;
 import android.telecom.Call;
 import android.telecom.CallAudioState;
 import android.telecom.InCallService;
@@ -27,46 +24,69 @@ public class CallManager {
     @SuppressLint("StaticFieldLeak")
     public static InCallService inCallService;
 
-    private static final String TWILIO_NUMBER = "+18452998019"; // Your Twilio number
+    private static final CallRegistry registry = new CallRegistry();
 
-    private static final List<Call> activeCalls = new ArrayList<>();
-
-    public static int BIZ4_CALL_STATE = 0;
-
-    // Register a call into active calls list
-    public static synchronized void registerCall(Call call) {
-        if (!activeCalls.contains(call)) {
-            activeCalls.add(call);
+    // Register a call into the active call registry
+    public static void registerCall(Call call) {
+        if (registry.add(call) != null) {
             call.registerCallback(callback);
         }
     }
 
     // Unregister a call when it's removed
-    public static synchronized void unregisterCall(Call call) {
+    public static void unregisterCall(Call call) {
         call.unregisterCallback(callback);
-        activeCalls.remove(call);
+        registry.remove(call);
     }
 
-    // Get the list of active calls
-    public static synchronized List<Call> getActiveCalls() {
-        return new ArrayList<>(activeCalls);
+    // Get the list of active calls (read-only snapshot, not a copy)
+    public static List<Call> getActiveCalls() {
+        return registry.getCalls();
     }
 
-    // Find a call by caller ID
-    public static synchronized Call findCallByCallerId(String callerId) {
-        for (Call call : activeCalls) {
-            String id = getCallerIdFromCall(call);
-            if (id != null && id.equals(callerId))
-                return call;
-        }
-        return null;
+    // Get the registry with per-call metadata and indexes
+    public static CallRegistry getRegistry() {
+        return registry;
+    }
+
+    // Get the registry record of a call, or null if it is not registered
+    public static CallRegistry.CallRecord getCallRecord(Call call) {
+        return registry.get(call);
+    }
+
+    // Whether a call is still registered
+    public static boolean isCallActive(Call call) {
+        return registry.contains(call);
+    }
+
+    // Last known state of a call, or Call.STATE_DISCONNECTED if it is no longer registered
+    public static int getCallState(Call call) {
+        CallRegistry.CallRecord record = registry.get(call);
+        return record != null ? record.getState() : Call.STATE_DISCONNECTED;
+    }
+
+    // Find a call by caller ID, matching any spelling of the same number
+    public static Call findCallByCallerId(String callerId) {
+        return findCallByNumberKey(PhoneNumberNormalizer.normalize(callerId));
+    }
+
+    // Find a call by normalized number key
+    public static Call findCallByNumberKey(long numberKey) {
+        CallRegistry.CallRecord record = registry.findByNumberKey(numberKey);
+        return record != null ? record.getCall() : null;
+    }
+
+    // Find the Twilio monitoring leg, if it is active
+    public static Call findMonitoringCall() {
+        return findCallByNumberKey(Constants.TWILIO_NUMBER_KEY);
     }
 
     public static Call.Callback callback = new Call.Callback() {
         @Override
         public void onStateChanged(Call call, int newState) {
             Log.d("Dialer", "onStateChanged: " + newState);
-            BIZ4_CALL_STATE = newState;
+            registry.updateState(call, newState);
+            ConferenceOrchestrator.getInstance().onCallStateChanged(call, newState);
 
             // Handle call state changes
             if (newState == Call.STATE_ACTIVE) {
@@ -75,9 +95,8 @@ public class CallManager {
                 List<Call> activeCalls = CallManager.getActiveCalls(); // Get active calls
 
                 StringBuilder phoneNumbers = new StringBuilder("Phone Numbers: ");
-                for (Call c : activeCalls) {
-                    // Assuming 'getPhoneNumber()' method exists in the Call class
-                    phoneNumbers.append(getCallerIdFromCall(c)).append(", ");
+                for (CallRegistry.CallRecord record : registry.getRecords()) {
+                    phoneNumbers.append(record.getNumber()).append(", ");
                 }
 
                 // Trim the last comma and space if any
@@ -89,16 +108,6 @@ public class CallManager {
                 }
                 Log.d("Dialer", "all calls after active: " + activeCalls.size() + "\n" + phoneNumbers.toString());
 
-                Call twilioCall = findCallByCallerId(TWILIO_NUMBER);
-                if (twilioCall != null) {
-                    twilioCall.playDtmfTone('1');
-                    twilioCall.stopDtmfTone();
-
-                    new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                        createConferenceCall(inCallService);
-                    }, 2000);
-                }
-
                 inCallService.sendBroadcast(new Intent("call_answered"));
             }
 
@@ -164,12 +173,12 @@ public class CallManager {
                 Log.d("Dialer", "Call has children: " + (call.getChildren() != null && !call.getChildren().isEmpty()));
                 
                 // Check all active calls to see if any are conferences
-                for (Call activeCall : activeCalls) {
-                    if (activeCall.getChildren() != null && !activeCall.getChildren().isEmpty()) {
-                        Log.d("Dialer", "Found conference call with " + activeCall.getChildren().size() + " children");
-                        for (Call child : activeCall.getChildren()) {
-                            String childId = getCallerIdFromCall(child);
-                            Log.d("Dialer", "Conference child: " + childId);
+                for (CallRegistry.CallRecord record : registry.getRecords()) {
+                    List<CallRegistry.CallRecord> children = registry.getChildren(record.getCall());
+                    if (!children.isEmpty()) {
+                        Log.d("Dialer", "Found conference call with " + children.size() + " children");
+                        for (CallRegistry.CallRecord child : children) {
+                            Log.d("Dialer", "Conference child: " + child.getNumber());
                         }
                     }
                 }
@@ -182,12 +191,10 @@ public class CallManager {
                     Log.d("Dialer", "This call is NOT part of a conference.");
                     
                     // Additional check: see if this was a child of a conference
-                    for (Call activeCall : activeCalls) {
-                        if (activeCall.getChildren() != null && activeCall.getChildren().contains(call)) {
-                            Log.d("Dialer", "Disconnected call was a child of a conference");
-                            // The onChildrenChanged callback should handle this automatically
-                            break;
-                        }
+                    CallRegistry.CallRecord record = registry.get(call);
+                    if (record != null && record.getParent() != null) {
+                        Log.d("Dialer", "Disconnected call was a child of a conference");
+                        // The onChildrenChanged callback should handle this automatically
                     }
                 }
                 unregisterCall(call);
@@ -204,9 +211,8 @@ public class CallManager {
 
                 // Handle outgoing call screen and call disconnection logic
                 StringBuilder phoneNumbers = new StringBuilder("Phone Numbers: ");
-                for (Call c : activeCalls) {
-                    // Assuming 'getPhoneNumber()' method exists in the Call class
-                    phoneNumbers.append(getCallerIdFromCall(c)).append(", ");
+                for (CallRegistry.CallRecord record : registry.getRecords()) {
+                    phoneNumbers.append(record.getNumber()).append(", ");
                 }
 
                 // Trim the last comma and space if any
@@ -220,7 +226,7 @@ public class CallManager {
                 } else if (outgoing != null && activeCalls.size() == 1) {
                     // If there is only one call left, handle it (for example, hanging up Twilio
                     // call)
-                    Call twilioCall = findCallByCallerId(TWILIO_NUMBER);
+                    Call twilioCall = findMonitoringCall();
                     if (twilioCall != null) {
                         hangUpCall(twilioCall);
                     }
@@ -236,9 +242,22 @@ public class CallManager {
             }
         }
 
+        @Override
+        public void onParentChanged(Call call, Call parent) {
+            registry.updateParent(call, parent);
+            ConferenceOrchestrator.getInstance().onParentChanged(call, parent);
+        }
+
+        @Override
+        public void onConferenceableCallsChanged(Call call, List<Call> conferenceableCalls) {
+            ConferenceOrchestrator.getInstance().onConferenceableCallsChanged(call, conferenceableCalls);
+        }
+
         @Override
         public void onChildrenChanged(Call conference, List<Call> children) {
             Log.d("Dialer", "Conference children updated: " + children.size());
+            registry.updateChildren(conference, children);
+            ConferenceOrchestrator.getInstance().onChildrenChanged(conference, children);
             
             // Handle when conference participants change
             if (children != null && children.size() > 0) {
@@ -251,9 +270,9 @@ public class CallManager {
                     String id = getCallerIdFromCall(child);
                     participantLog.append(id).append(", ");
                     
-                    if (id != null && id.equals(TWILIO_NUMBER)) {
+                    if (isMonitoringCall(child)) {
                         twilioCall = child;
-                    } else if (id != null && !id.equals(TWILIO_NUMBER)) {
+                    } else if (id != null) {
                         others.add(child);
                     }
                 }
@@ -299,54 +318,51 @@ public class CallManager {
     private static void handleConferenceParticipantLeft(Call disconnectedCall) {
         Log.d("Dialer", "Called handleConferenceParticipantLeft");
 
-        for (Call conference : activeCalls) {
-            if (!conference.getChildren().isEmpty()) {
-                List<Call> remaining = conference.getChildren();
-                List<Call> others = new ArrayList<>();
-                Call twilioCall = null;
-
-                for (Call c : remaining) {
-                    String id = getCallerIdFromCall(c);
-                    if (id != null && id.equals(TWILIO_NUMBER)) {
-                        twilioCall = c;
-                    } else if (id != null && !id.equals(TWILIO_NUMBER)) {
-                        others.add(c);
-                    }
+        CallRegistry.CallRecord conferenceRecord = registry.findConference();
+        if (conferenceRecord != null) {
+            Call conference = conferenceRecord.getCall();
+            List<Call> others = new ArrayList<>();
+            Call twilioCall = null;
+
+            for (CallRegistry.CallRecord child : registry.getChildren(conference)) {
+                if (child.isMonitoringLeg()) {
+                    twilioCall = child.getCall();
+                } else if (child.getNumber() != null) {
+                    others.add(child.getCall());
                 }
-                Log.d("Dialer", "others.size(): " + others.size() + ", twilioCall present: " + (twilioCall != null));
-
-                // If only Twilio is left in the conference (no other participants except user)
-                if (others.size() == 0 && twilioCall != null) {
-                    Log.d("Dialer", "Only Twilio and self left — ending Twilio call and conference");
+            }
+            Log.d("Dialer", "others.size(): " + others.size() + ", twilioCall present: " + (twilioCall != null));
 
-                    // First hang up the Twilio call specifically
-                    try {
-                        hangUpCall(twilioCall);
-                        Log.d("Dialer", "Twilio call disconnected successfully");
-                    } catch (Exception e) {
-                        Log.e("Dialer", "Error disconnecting Twilio call: " + e.getMessage());
-                    }
+            // If only Twilio is left in the conference (no other participants except user)
+            if (others.size() == 0 && twilioCall != null) {
+                Log.d("Dialer", "Only Twilio and self left — ending Twilio call and conference");
 
-                    // Then disconnect the conference
-                    try {
-                        conference.disconnect();
-                        Log.d("Dialer", "Conference disconnected successfully");
-                    } catch (Exception e) {
-                        Log.e("Dialer", "Error disconnecting conference: " + e.getMessage());
-                    }
+                // First hang up the Twilio call specifically
+                try {
+                    hangUpCall(twilioCall);
+                    Log.d("Dialer", "Twilio call disconnected successfully");
+                } catch (Exception e) {
+                    Log.e("Dialer", "Error disconnecting Twilio call: " + e.getMessage());
+                }
 
-                    // Finish the outgoing call screen
-                    finishOutgoingCallScreen();
-                } else if (others.size() > 0) {
-                    // If there are still other participants, conference continues
-                    Log.d("Dialer", "Other participants still in conference, continuing");
-                } else {
-                    // If there's no Twilio and no others, something went wrong
-                    Log.d("Dialer", "No participants left in conference, ending call");
+                // Then disconnect the conference
+                try {
                     conference.disconnect();
-                    finishOutgoingCallScreen();
+                    Log.d("Dialer", "Conference disconnected successfully");
+                } catch (Exception e) {
+                    Log.e("Dialer", "Error disconnecting conference: " + e.getMessage());
                 }
-                break;
+
+                // Finish the outgoing call screen
+                finishOutgoingCallScreen();
+            } else if (others.size() > 0) {
+                // If there are still other participants, conference continues
+                Log.d("Dialer", "Other participants still in conference, continuing");
+            } else {
+                // If there's no Twilio and no others, something went wrong
+                Log.d("Dialer", "No participants left in conference, ending call");
+                conference.disconnect();
+                finishOutgoingCallScreen();
             }
         }
     }
@@ -373,42 +389,6 @@ public class CallManager {
         }
     }
 
-    // Create a conference call if there are at least two active calls
-    public static void createConferenceCall(Context context) {
-        if (activeCalls.size() < 2) {
-            Log.d("Dialer", "Need at least 2 calls for conference.");
-            return;
-        }
-
-        Call first = activeCalls.get(0);
-        Call second = activeCalls.get(1);
-
-        if (first.getState() != Call.STATE_HOLDING) {
-            first.hold();
-            Log.d("Dialer", "First call put on hold.");
-        }
-
-        if (second.getState() != Call.STATE_ACTIVE) {
-            Log.d("Dialer", "Answering the second call.");
-            answerCall(second);
-        }
-
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            try {
-                first.conference(second);
-                Log.d("Dialer", "Conference created successfully.");
-                // Optionally, enable speakerphone
-                AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
-                if (audioManager != null) {
-                    audioManager.setMode(AudioManager.MODE_IN_CALL);
-                    audioManager.setSpeakerphoneOn(true);
-                }
-            } catch (Exception e) {
-                Log.e("Dialer", "Error creating conference: " + e.getMessage());
-            }
-        }, 1500); // Delay to ensure the second call is properly answered before the conference
-    }
-
     // Answer the call
     public static void answerCall(Call call) {
         call.answer(VideoProfile.STATE_AUDIO_ONLY);
@@ -445,23 +425,48 @@ public class CallManager {
     }
 
     // Helper method to get caller ID from a call
-    private static String getCallerIdFromCall(Call call) {
+    public static String getCallerIdFromCall(Call call) {
         if (call == null || call.getDetails() == null)
             return null;
         Uri handle = call.getDetails().getHandle();
         return (handle != null) ? handle.getSchemeSpecificPart() : null;
     }
 
+    // Normalized number key of a call, or PhoneNumberNormalizer.INVALID if it has no number
+    public static long getCallerKey(Call call) {
+        CallRegistry.CallRecord record = registry.get(call);
+        if (record != null) {
+            return record.getNumberKey();
+        }
+        return PhoneNumberNormalizer.normalize(getCallerIdFromCall(call));
+    }
+
+    // Whether a call is the Twilio monitoring leg
+    public static boolean isMonitoringCall(Call call) {
+        CallRegistry.CallRecord record = registry.get(call);
+        if (record != null) {
+            return record.isMonitoringLeg();
+        }
+        long key = getCallerKey(call);
+        return key != PhoneNumberNormalizer.INVALID && key == Constants.TWILIO_NUMBER_KEY;
+    }
+
     // Get the latest active or ringing call
     public static Call getLatestActiveOrRingingCall() {
-        for (int i = activeCalls.size() - 1; i >= 0; i--) {
-            Call call = activeCalls.get(i);
-            int state = call.getState();
-            if (state == Call.STATE_RINGING || state == Call.STATE_DIALING ||
-                    state == Call.STATE_CONNECTING || state == Call.STATE_ACTIVE) {
-                return call;
+        CallRegistry.CallRecord record = registry.findLatestLive();
+        return record != null ? record.getCall() : null;
+    }
+
+    // Number key of the latest live call that is not the monitoring leg
+    public static long getCurrentCallerKey() {
+        CallRegistry.CallRecord latest = null;
+        for (CallRegistry.CallRecord record : registry.getRecords()) {
+            if (record.isLive() && !record.isMonitoringLeg()
+                    && record.getNumberKey() != PhoneNumberNormalizer.INVALID
+                    && (latest == null || record.getStartTime() > latest.getStartTime())) {
+                latest = record;
             }
         }
-        return null;
+        return latest != null ? latest.getNumberKey() : PhoneNumberNormalizer.INVALID;
     }
 }
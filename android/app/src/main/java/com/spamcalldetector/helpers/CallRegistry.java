@@ -0,0 +1,341 @@
+package com.spamcalldetector.helpers;
+
+import android.net.Uri;
+import android.os.Build;
+import android.telecom.Call;
+
+import com.spamcalldetector.utils.LongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the calls currently known to the InCallService.
+ * Reads go through an immutable snapshot published with a single volatile write, so state
+ * callbacks, timers and React methods can query it without taking a lock or copying.
+ * Writers (call added/removed, conference parent changes) rebuild the snapshot under a lock.
+ * Each call is wrapped in a CallRecord holding metadata captured once at registration.
+ */
+public class CallRegistry {
+
+    public static final int DIRECTION_UNKNOWN = 0;
+    public static final int DIRECTION_INCOMING = 1;
+    public static final int DIRECTION_OUTGOING = 2;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Per-call metadata. Immutable except for the state and conference parent,
+     * which are updated from Telecom callbacks.
+     */
+    public static class CallRecord {
+        private final Call call;
+        private final String number;
+        private final long numberKey;
+        private final int direction;
+        private final long startTime;
+        private final boolean isMonitoringLeg;
+        private volatile int state;
+        private volatile Call parent;
+
+        CallRecord(Call call) {
+            this.call = call;
+            this.number = extractNumber(call);
+            this.numberKey = PhoneNumberNormalizer.normalize(number);
+            this.state = call.getState();
+            this.direction = resolveDirection(call, state);
+            this.startTime = System.currentTimeMillis();
+            this.isMonitoringLeg = numberKey != PhoneNumberNormalizer.INVALID
+                    && numberKey == Constants.TWILIO_NUMBER_KEY;
+            this.parent = call.getParent();
+        }
+
+        public Call getCall() {
+            return call;
+        }
+
+        /**
+         * Raw number from the call handle, or null if the call has none
+         */
+        public String getNumber() {
+            return number;
+        }
+
+        public long getNumberKey() {
+            return numberKey;
+        }
+
+        public int getDirection() {
+            return direction;
+        }
+
+        public boolean isIncoming() {
+            return direction == DIRECTION_INCOMING;
+        }
+
+        /**
+         * Wall-clock time the call was registered
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public boolean isMonitoringLeg() {
+            return isMonitoringLeg;
+        }
+
+        public int getState() {
+            return state;
+        }
+
+        public Call getParent() {
+            return parent;
+        }
+
+        public boolean isLive() {
+            return state == Call.STATE_RINGING || state == Call.STATE_DIALING
+                    || state == Call.STATE_CONNECTING || state == Call.STATE_ACTIVE;
+        }
+
+        private static String extractNumber(Call call) {
+            if (call.getDetails() == null) {
+                return null;
+            }
+            Uri handle = call.getDetails().getHandle();
+            return handle != null ? handle.getSchemeSpecificPart() : null;
+        }
+
+        private static int resolveDirection(Call call, int state) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && call.getDetails() != null) {
+                int direction = call.getDetails().getCallDirection();
+                if (direction == Call.Details.DIRECTION_INCOMING) {
+                    return DIRECTION_INCOMING;
+                } else if (direction == Call.Details.DIRECTION_OUTGOING) {
+                    return DIRECTION_OUTGOING;
+                }
+            }
+            if (state == Call.STATE_RINGING) {
+                return DIRECTION_INCOMING;
+            } else if (state == Call.STATE_DIALING || state == Call.STATE_CONNECTING
+                    || state == Call.STATE_SELECT_PHONE_ACCOUNT) {
+                return DIRECTION_OUTGOING;
+            }
+            return DIRECTION_UNKNOWN;
+        }
+    }
+
+    /**
+     * Immutable view of the registry. Never modified after it is published.
+     */
+    private static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new CallRecord[0]);
+
+        final CallRecord[] records;
+        final List<Call> calls;
+        final List<CallRecord> recordList;
+        final Map<Call, CallRecord> byCall;
+        final LongObjectHashMap<CallRecord> byNumber;
+        final Map<Call, List<CallRecord>> byParent;
+
+        Snapshot(CallRecord[] records) {
+            this.records = records;
+
+            Call[] callArray = new Call[records.length];
+            byCall = new IdentityHashMap<>(records.length * 2);
+            byNumber = new LongObjectHashMap<>(records.length);
+            Map<Call, List<CallRecord>> parents = new IdentityHashMap<>();
+            for (int i = 0; i < records.length; i++) {
+                CallRecord record = records[i];
+                callArray[i] = record.call;
+                byCall.put(record.call, record);
+                // Keep the earliest call for a number, matching registration order
+                if (record.numberKey != PhoneNumberNormalizer.INVALID && !byNumber.containsKey(record.numberKey)) {
+                    byNumber.put(record.numberKey, record);
+                }
+                Call parent = record.parent;
+                if (parent != null) {
+                    List<CallRecord> children = parents.get(parent);
+                    if (children == null) {
+                        children = new ArrayList<>(2);
+                        parents.put(parent, children);
+                    }
+                    children.add(record);
+                }
+            }
+            for (Map.Entry<Call, List<CallRecord>> entry : parents.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+
+            this.calls = Collections.unmodifiableList(Arrays.asList(callArray));
+            this.recordList = Collections.unmodifiableList(Arrays.asList(records));
+            this.byParent = parents;
+        }
+    }
+
+    /**
+     * Register a call
+     *
+     * @return The new record, or null if the call was already registered
+     */
+    public CallRecord add(Call call) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (current.byCall.containsKey(call)) {
+                return null;
+            }
+            CallRecord[] records = Arrays.copyOf(current.records, current.records.length + 1);
+            CallRecord record = new CallRecord(call);
+            records[records.length - 1] = record;
+            snapshot = new Snapshot(records);
+            return record;
+        }
+    }
+
+    /**
+     * Unregister a call
+     *
+     * @return The removed record, or null if the call was not registered
+     */
+    public CallRecord remove(Call call) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            CallRecord record = current.byCall.get(call);
+            if (record == null) {
+                return null;
+            }
+            CallRecord[] records = new CallRecord[current.records.length - 1];
+            int index = 0;
+            for (CallRecord existing : current.records) {
+                if (existing != record) {
+                    records[index++] = existing;
+                }
+            }
+            snapshot = new Snapshot(records);
+            return record;
+        }
+    }
+
+    /**
+     * Record a state change. Does not republish the snapshot.
+     */
+    public void updateState(Call call, int state) {
+        CallRecord record = snapshot.byCall.get(call);
+        if (record != null) {
+            record.state = state;
+        }
+    }
+
+    /**
+     * Record a conference parent change and rebuild the parent index
+     */
+    public void updateParent(Call call, Call parent) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            CallRecord record = current.byCall.get(call);
+            if (record == null || record.parent == parent) {
+                return;
+            }
+            record.parent = parent;
+            snapshot = new Snapshot(current.records);
+        }
+    }
+
+    /**
+     * Reconcile the parent index with the children Telecom reports for a conference
+     */
+    public void updateChildren(Call conference, List<Call> children) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            boolean changed = false;
+            for (CallRecord record : current.records) {
+                boolean isChild = children != null && children.contains(record.call);
+                if (isChild && record.parent != conference) {
+                    record.parent = conference;
+                    changed = true;
+                } else if (!isChild && record.parent == conference) {
+                    record.parent = null;
+                    changed = true;
+                }
+            }
+            if (changed) {
+                snapshot = new Snapshot(current.records);
+            }
+        }
+    }
+
+    public CallRecord get(Call call) {
+        return call != null ? snapshot.byCall.get(call) : null;
+    }
+
+    public boolean contains(Call call) {
+        return call != null && snapshot.byCall.containsKey(call);
+    }
+
+    public CallRecord findByNumberKey(long numberKey) {
+        if (numberKey == PhoneNumberNormalizer.INVALID) {
+            return null;
+        }
+        return snapshot.byNumber.get(numberKey);
+    }
+
+    /**
+     * Read-only list of registered calls in registration order. Not a copy.
+     */
+    public List<Call> getCalls() {
+        return snapshot.calls;
+    }
+
+    /**
+     * Read-only list of call records in registration order. Not a copy.
+     */
+    public List<CallRecord> getRecords() {
+        return snapshot.recordList;
+    }
+
+    /**
+     * Registered children of a conference call
+     */
+    public List<CallRecord> getChildren(Call conference) {
+        List<CallRecord> children = snapshot.byParent.get(conference);
+        return children != null ? children : Collections.emptyList();
+    }
+
+    /**
+     * First registered call that has children, or null if there is no conference
+     */
+    public CallRecord findConference() {
+        Snapshot current = snapshot;
+        for (CallRecord record : current.records) {
+            if (current.byParent.containsKey(record.call)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Most recently registered call that is ringing, dialing, connecting or active
+     */
+    public CallRecord findLatestLive() {
+        CallRecord[] records = snapshot.records;
+        for (int i = records.length - 1; i >= 0; i--) {
+            if (records[i].isLive()) {
+                return records[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return snapshot.records.length;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.records.length == 0;
+    }
+}
@@ -0,0 +1,323 @@
+package com.spamcalldetector.helpers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.spamcalldetector.utils.NumberPrefixTrie;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether an incoming call may ring, using only signals that are already in memory:
+ * the contacts index, number range rules, the scam blocklist, the number's call history
+ * reputation, robocall bursts from its number block and the network's caller ID
+ * verification result. Used by SpamCallScreeningService before the call rings and by
+ * CallService as a second line when screening did not run.
+ * Every decision's latency and reason is recorded.
+ */
+public class CallScreeningPolicy {
+    private static final String TAG = "CallScreeningPolicy";
+    private static final int RECENT_DECISIONS = 20;
+    // Unengaged numbers rejected or blocked this many times are silenced
+    private static final int BAD_REPUTATION_REJECTIONS = 3;
+
+    public static final int ACTION_ALLOW = 0;
+    public static final int ACTION_SILENCE = 1;
+    public static final int ACTION_REJECT = 2;
+
+    // Caller ID verification results, as reported by Telecom (STIR/SHAKEN)
+    public static final int VERIFICATION_NOT_VERIFIED = 0;
+    public static final int VERIFICATION_PASSED = 1;
+    public static final int VERIFICATION_FAILED = 2;
+
+    // Decision reasons
+    public static final String REASON_NO_NUMBER = "no_number";
+    public static final String REASON_CONTACT = "contact";
+    public static final String REASON_ALLOWED_RANGE = "allowed_range";
+    public static final String REASON_DENIED_RANGE = "denied_range";
+    public static final String REASON_BLOCKLIST = "blocklist";
+    public static final String REASON_KNOWN_NUMBER = "known_number";
+    public static final String REASON_REPUTATION = "reputation";
+    public static final String REASON_PREFIX_BURST = "prefix_burst";
+    public static final String REASON_VERIFICATION_FAILED = "verification_failed";
+    public static final String REASON_NO_SIGNAL = "no_signal";
+    public static final String REASON_DEADLINE = "deadline_exceeded";
+    public static final String REASON_ERROR = "error";
+    public static final String REASON_CONTACTS_LOADING = "contacts_loading";
+
+    private static CallScreeningPolicy instance;
+
+    private final Context context;
+
+    // Counters
+    private final AtomicLong decisions = new AtomicLong();
+    private final AtomicLong totalDecisionNanos = new AtomicLong();
+    private final AtomicLong maxDecisionNanos = new AtomicLong();
+    private final Map<String, AtomicLong> reasonCounts = new HashMap<>();
+    private final ArrayDeque<Decision> recentDecisions = new ArrayDeque<>();
+
+    /**
+     * Outcome of screening one call
+     */
+    public static class Decision {
+        private final int action;
+        private final String reason;
+        private final long numberKey;
+        private final long latencyNanos;
+        private final long decidedAt;
+
+        Decision(int action, String reason, long numberKey, long latencyNanos) {
+            this.action = action;
+            this.reason = reason;
+            this.numberKey = numberKey;
+            this.latencyNanos = latencyNanos;
+            this.decidedAt = System.currentTimeMillis();
+        }
+
+        public int getAction() {
+            return action;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public long getNumberKey() {
+            return numberKey;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        public long getDecidedAt() {
+            return decidedAt;
+        }
+
+        /**
+         * The call was allowed without the rules running to completion, so the decision must not
+         * be reused for a later screening of the same call
+         */
+        public boolean isFallback() {
+            return REASON_DEADLINE.equals(reason) || REASON_ERROR.equals(reason)
+                    || REASON_CONTACTS_LOADING.equals(reason);
+        }
+    }
+
+    private CallScreeningPolicy(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Get the shared policy, warming up the lookup structures it depends on
+     */
+    public static synchronized CallScreeningPolicy getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallScreeningPolicy(context);
+            ContactsIndex.getInstance(context);
+            ScamBlocklist.getInstance(context);
+            NumberRangeRules.getInstance(context);
+            NumberReputationStore.getInstance(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Screen an incoming call. Does not block on disk, providers or the network.
+     *
+     * @param phoneNumber        Caller number as delivered by Telecom, may be null
+     * @param verificationStatus One of the VERIFICATION_ constants
+     */
+    public Decision decide(String phoneNumber, int verificationStatus) {
+        long startedAt = System.nanoTime();
+        long key = PhoneNumberNormalizer.normalize(phoneNumber);
+        int action;
+        String reason;
+
+        try {
+            // Every call counts towards burst detection, including ones allowed below
+            int burstRisk = RobocallBurstDetector.getInstance().recordIncomingCall(key, System.currentTimeMillis());
+
+            ContactsIndex contactsIndex = ContactsIndex.getInstance(context);
+            String contactName = contactsIndex.lookup(phoneNumber);
+
+            if (key == PhoneNumberNormalizer.INVALID) {
+                action = ACTION_ALLOW;
+                reason = REASON_NO_NUMBER;
+            } else if (contactName != null && !contactName.isEmpty()) {
+                action = ACTION_ALLOW;
+                reason = REASON_CONTACT;
+            } else {
+                byte rangeRule = NumberRangeRules.getInstance(context).match(key);
+                if (rangeRule == NumberPrefixTrie.RULE_ALLOW) {
+                    action = ACTION_ALLOW;
+                    reason = REASON_ALLOWED_RANGE;
+                } else if (rangeRule == NumberPrefixTrie.RULE_DENY) {
+                    action = ACTION_REJECT;
+                    reason = REASON_DENIED_RANGE;
+                } else if (ScamBlocklist.getInstance(context).isBlocked(key)) {
+                    action = ACTION_REJECT;
+                    reason = REASON_BLOCKLIST;
+                } else if (isKnownNumber(key)) {
+                    action = ACTION_ALLOW;
+                    reason = REASON_KNOWN_NUMBER;
+                } else if (hasBadReputation(key)) {
+                    action = ACTION_SILENCE;
+                    reason = REASON_REPUTATION;
+                } else if (burstRisk == RobocallBurstDetector.RISK_PREFIX_BURST) {
+                    action = ACTION_SILENCE;
+                    reason = REASON_PREFIX_BURST;
+                } else if (verificationStatus == VERIFICATION_FAILED) {
+                    // Likely spoofed, but not proven bad: let it through without ringing
+                    action = ACTION_SILENCE;
+                    reason = REASON_VERIFICATION_FAILED;
+                } else {
+                    action = ACTION_ALLOW;
+                    reason = REASON_NO_SIGNAL;
+                }
+            }
+
+            // Until the contacts index has loaded, a number it cannot answer for may be a saved
+            // contact: let it ring rather than turn a contact away
+            if (action != ACTION_ALLOW && contactName == null && !contactsIndex.isReady()) {
+                action = ACTION_ALLOW;
+                reason = REASON_CONTACTS_LOADING;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error screening call: " + e.getMessage(), e);
+            action = ACTION_ALLOW;
+            reason = REASON_ERROR;
+        }
+
+        Decision decision = new Decision(action, reason, key, System.nanoTime() - startedAt);
+        record(decision);
+        return decision;
+    }
+
+    /**
+     * Record a decision taken outside decide, e.g. allowing a call because the deadline passed
+     */
+    public Decision recordFallback(String phoneNumber, String reason, long latencyNanos) {
+        Decision decision = new Decision(ACTION_ALLOW, reason, PhoneNumberNormalizer.normalize(phoneNumber),
+                latencyNanos);
+        record(decision);
+        return decision;
+    }
+
+    /**
+     * Latency and outcome counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        long count = decisions.get();
+        stats.put("decisions", count);
+        stats.put("averageDecisionNanos", count > 0 ? totalDecisionNanos.get() / count : 0);
+        stats.put("maxDecisionNanos", maxDecisionNanos.get());
+        synchronized (reasonCounts) {
+            for (Map.Entry<String, AtomicLong> entry : reasonCounts.entrySet()) {
+                stats.put("reason." + entry.getKey(), entry.getValue().get());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * The most recent decisions, newest first
+     */
+    public List<Decision> getRecentDecisions() {
+        synchronized (recentDecisions) {
+            return new ArrayList<>(recentDecisions);
+        }
+    }
+
+    /**
+     * A decision taken for a number within the last maxAgeMs, so a call that was already
+     * screened is not screened again when it reaches the InCallService. Fallback decisions are
+     * skipped so the call gets screened for real.
+     *
+     * @return The decision, or null if there is none
+     */
+    public Decision findRecentDecision(long numberKey, long maxAgeMs) {
+        if (numberKey == PhoneNumberNormalizer.INVALID) {
+            return null;
+        }
+        long oldest = System.currentTimeMillis() - maxAgeMs;
+        synchronized (recentDecisions) {
+            for (Decision decision : recentDecisions) {
+                if (decision.getDecidedAt() < oldest) {
+                    break;
+                }
+                if (decision.getNumberKey() == numberKey && !decision.isFallback()) {
+                    return decision;
+                }
+            }
+        }
+        return null;
+    }
+
+    public static String actionName(int action) {
+        switch (action) {
+            case ACTION_SILENCE:
+                return "silence";
+            case ACTION_REJECT:
+                return "reject";
+            default:
+                return "allow";
+        }
+    }
+
+    /**
+     * The user has called this number or talked to it before
+     */
+    private boolean isKnownNumber(long key) {
+        NumberReputationStore.Reputation reputation = NumberReputationStore.getInstance(context).get(key);
+        return reputation != null && reputation.hasEngaged();
+    }
+
+    /**
+     * The number was flagged as fraud, or keeps calling and is turned away every time
+     */
+    private boolean hasBadReputation(long key) {
+        NumberReputationStore.Reputation reputation = NumberReputationStore.getInstance(context).get(key);
+        if (reputation == null || reputation.hasEngaged()) {
+            return false;
+        }
+        return reputation.getFraudFlags() > 0
+                || reputation.getRejectedCalls() + reputation.getBlockedCalls() >= BAD_REPUTATION_REJECTIONS;
+    }
+
+    private void record(Decision decision) {
+        long nanos = decision.getLatencyNanos();
+        decisions.incrementAndGet();
+        totalDecisionNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxDecisionNanos.get())) {
+            if (maxDecisionNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+
+        synchronized (reasonCounts) {
+            AtomicLong counter = reasonCounts.get(decision.getReason());
+            if (counter == null) {
+                counter = new AtomicLong();
+                reasonCounts.put(decision.getReason(), counter);
+            }
+            counter.incrementAndGet();
+        }
+        synchronized (recentDecisions) {
+            recentDecisions.addFirst(decision);
+            if (recentDecisions.size() > RECENT_DECISIONS) {
+                recentDecisions.removeLast();
+            }
+        }
+
+        Log.d(TAG, "Screening decision: " + actionName(decision.getAction()) + " (" + decision.getReason()
+                + ") in " + nanos / 1000 + "us");
+    }
+}
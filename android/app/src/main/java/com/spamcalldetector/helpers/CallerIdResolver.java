@@ -0,0 +1,120 @@
+package com.spamcalldetector.helpers;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves the display name of a caller off the main thread.
+ * The ringing UI never waits for this stage: results are delivered on the main thread
+ * only if they arrive within the configured deadline, otherwise the raw number is kept.
+ */
+public class CallerIdResolver {
+    private static final String TAG = "CallerIdResolver";
+    private static CallerIdResolver instance;
+
+    private final Context context;
+    private final Handler mainHandler;
+    private final ExecutorService executor;
+
+    /**
+     * Receives the outcome of a lookup on the main thread
+     */
+    public interface Callback {
+        /**
+         * @param callerName Contact name, or null if the number is not a contact
+         * @param lookupMs   Time spent in the contacts lookup
+         */
+        void onCallerIdentified(String phoneNumber, String callerName, long lookupMs);
+
+        /**
+         * Called instead of onCallerIdentified when the deadline expires first
+         */
+        void onDeadlineExceeded(String phoneNumber, long deadlineMs);
+    }
+
+    private CallerIdResolver(Context context) {
+        this.context = context.getApplicationContext();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "caller-id-lookup");
+            thread.setPriority(Thread.NORM_PRIORITY);
+            return thread;
+        });
+    }
+
+    public static synchronized CallerIdResolver getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallerIdResolver(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Start resolving the name for a phone number
+     *
+     * @param deadlineMs Maximum time the result is still useful for
+     */
+    public void resolve(String phoneNumber, long deadlineMs, Callback callback) {
+        if (phoneNumber == null || phoneNumber.isEmpty() || callback == null) {
+            return;
+        }
+
+        final long startedAt = SystemClock.elapsedRealtime();
+        final AtomicBoolean completed = new AtomicBoolean(false);
+
+        final Future<?> lookup = executor.submit(() -> {
+            String name = lookupName(phoneNumber);
+            long lookupMs = SystemClock.elapsedRealtime() - startedAt;
+
+            mainHandler.post(() -> {
+                if (completed.compareAndSet(false, true)) {
+                    callback.onCallerIdentified(phoneNumber, name, lookupMs);
+                } else {
+                    Log.d(TAG, "Discarding late lookup result for " + phoneNumber + " (" + lookupMs + "ms)");
+                }
+            });
+        });
+
+        mainHandler.postDelayed(() -> {
+            if (completed.compareAndSet(false, true)) {
+                lookup.cancel(true);
+                Log.w(TAG, "Caller lookup for " + phoneNumber + " exceeded deadline of " + deadlineMs + "ms");
+                callback.onDeadlineExceeded(phoneNumber, deadlineMs);
+            }
+        }, deadlineMs);
+    }
+
+    /**
+     * Runs on the lookup thread. Returns null when no contact matches.
+     */
+    private String lookupName(String phoneNumber) {
+        try {
+            // ContactsHelper shows a Toast when permission is missing, which is not allowed here
+            if (ContextCompat.checkSelfPermission(context,
+                    Manifest.permission.READ_CONTACTS) != PackageManager.PERMISSION_GRANTED) {
+                return null;
+            }
+
+            String name = ContactsHelper.getContactNameByPhoneNumber(phoneNumber, context);
+            if (name == null || name.isEmpty() || Constants.BIZ4_UNKNOWN_CALLER_NAME.equals(name)) {
+                return null;
+            }
+            return name;
+        } catch (Exception e) {
+            Log.e(TAG, "Error looking up caller name: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
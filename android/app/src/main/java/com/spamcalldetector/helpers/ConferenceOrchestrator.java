@@ -0,0 +1,369 @@
+package com.spamcalldetector.helpers;
+
+import android.content.Context;
+import android.content.Intent;
+import android.media.AudioManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.telecom.Call;
+import android.util.Log;
+
+import com.spamcalldetector.activities.call.CallActivityModule;
+import com.spamcalldetector.services.CallService;
+import com.spamcalldetector.services.CallSession;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the Twilio monitoring leg into a conference with the current call.
+ * Each step advances on the Telecom callback that confirms the previous one (monitoring leg
+ * ACTIVE, caller HOLDING, conferenceable calls available, conference parent set) instead of
+ * waiting fixed delays. Every step has a timeout; the hold and merge steps are retried before
+ * the attempt is abandoned and ACTION_MONITORING_FAILED is broadcast.
+ * All state is confined to the main thread, where Telecom delivers call callbacks.
+ */
+public class ConferenceOrchestrator {
+    private static final String TAG = "ConferenceOrchestrator";
+
+    private static final long DIAL_TIMEOUT_MS = 30000;
+    private static final long HOLD_TIMEOUT_MS = 1500;
+    private static final long MERGE_TIMEOUT_MS = 1500;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static ConferenceOrchestrator instance;
+
+    private enum Step {
+        IDLE,
+        DIALING_MONITOR,
+        HOLDING_CALLER,
+        MERGING,
+        CONFERENCED,
+        FAILED
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable timeoutRunnable = this::onStepTimeout;
+
+    private Step step = Step.IDLE;
+    private Call monitorCall;
+    private Call callerCall;
+    private int attempts;
+    private boolean mergeRequested;
+    private long requestedAt;
+    private String lastFailureReason;
+
+    // Setup time statistics, from the monitoring request to the conference forming
+    private volatile long lastSetupMs = -1;
+    private volatile long minSetupMs = -1;
+    private volatile long maxSetupMs = -1;
+    private volatile long totalSetupMs = 0;
+    private volatile long conferencesFormed = 0;
+    private volatile long failures = 0;
+
+    private ConferenceOrchestrator() {
+    }
+
+    public static synchronized ConferenceOrchestrator getInstance() {
+        if (instance == null) {
+            instance = new ConferenceOrchestrator();
+        }
+        return instance;
+    }
+
+    /**
+     * Called when the user starts monitoring, right before the monitoring leg is dialed.
+     * May be called from any thread.
+     */
+    public void onMonitoringRequested() {
+        final long now = SystemClock.elapsedRealtime();
+        mainHandler.post(() -> {
+            reset();
+            requestedAt = now;
+            step = Step.DIALING_MONITOR;
+            scheduleTimeout(DIAL_TIMEOUT_MS);
+            Log.d(TAG, "Monitoring requested, waiting for the monitoring leg to connect");
+        });
+    }
+
+    /**
+     * Called when the user stops monitoring. May be called from any thread.
+     */
+    public void cancel() {
+        mainHandler.post(() -> {
+            if (step != Step.IDLE) {
+                Log.d(TAG, "Monitoring cancelled in step " + step);
+            }
+            reset();
+        });
+    }
+
+    public void onCallStateChanged(Call call, int state) {
+        if (CallManager.isMonitoringCall(call)) {
+            onMonitorStateChanged(call, state);
+            return;
+        }
+
+        if (call != callerCall) {
+            return;
+        }
+
+        if (state == Call.STATE_HOLDING && step == Step.HOLDING_CALLER) {
+            startMerging();
+        } else if (state == Call.STATE_DISCONNECTED && isInProgress()) {
+            fail("caller_disconnected");
+        }
+    }
+
+    public void onParentChanged(Call call, Call parent) {
+        if (step == Step.MERGING && parent != null && (call == callerCall || call == monitorCall)) {
+            onConferenceFormed();
+        }
+    }
+
+    public void onChildrenChanged(Call conference, List<Call> children) {
+        if (step == Step.MERGING && children != null && children.contains(monitorCall)) {
+            onConferenceFormed();
+        }
+    }
+
+    public void onConferenceableCallsChanged(Call call, List<Call> conferenceableCalls) {
+        if (step == Step.MERGING && !mergeRequested && isConferenceable(callerCall, monitorCall)) {
+            Log.d(TAG, "Calls became conferenceable, merging");
+            requestMerge();
+        }
+    }
+
+    public String getStep() {
+        return step.name();
+    }
+
+    /**
+     * Setup timing and outcome counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        long formed = conferencesFormed;
+        stats.put("conferencesFormed", formed);
+        stats.put("failures", failures);
+        stats.put("lastSetupMs", lastSetupMs);
+        stats.put("minSetupMs", minSetupMs);
+        stats.put("maxSetupMs", maxSetupMs);
+        stats.put("averageSetupMs", formed > 0 ? totalSetupMs / formed : -1);
+        return stats;
+    }
+
+    public String getLastFailureReason() {
+        return lastFailureReason;
+    }
+
+    private void onMonitorStateChanged(Call call, int state) {
+        if (state == Call.STATE_ACTIVE && (step == Step.IDLE || step == Step.DIALING_MONITOR)) {
+            if (step == Step.IDLE) {
+                // Monitoring leg dialed without going through toggleRecording
+                requestedAt = SystemClock.elapsedRealtime();
+            }
+            monitorCall = call;
+            Log.d(TAG, "Monitoring leg active after " + elapsedSinceRequest() + "ms");
+
+            call.playDtmfTone('1');
+            call.stopDtmfTone();
+            holdCaller();
+        } else if (state == Call.STATE_DISCONNECTED && call == monitorCall) {
+            if (isInProgress()) {
+                fail("monitor_disconnected");
+            } else {
+                reset();
+            }
+        }
+    }
+
+    private void holdCaller() {
+        callerCall = findCallerCall();
+        if (callerCall == null) {
+            fail("no_caller_call");
+            return;
+        }
+
+        step = Step.HOLDING_CALLER;
+        attempts = 1;
+        if (callerCall.getState() == Call.STATE_HOLDING) {
+            startMerging();
+        } else {
+            callerCall.hold();
+            scheduleTimeout(HOLD_TIMEOUT_MS);
+        }
+    }
+
+    private void startMerging() {
+        Log.d(TAG, "Caller on hold after " + elapsedSinceRequest() + "ms");
+        step = Step.MERGING;
+        attempts = 1;
+        if (isConferenceable(callerCall, monitorCall)) {
+            requestMerge();
+        } else {
+            // Wait for onConferenceableCallsChanged, then retry unconditionally on timeout
+            mergeRequested = false;
+            scheduleTimeout(MERGE_TIMEOUT_MS);
+        }
+    }
+
+    private void requestMerge() {
+        mergeRequested = true;
+        try {
+            callerCall.conference(monitorCall);
+        } catch (Exception e) {
+            Log.e(TAG, "Error requesting conference: " + e.getMessage(), e);
+        }
+        scheduleTimeout(MERGE_TIMEOUT_MS);
+    }
+
+    private void onConferenceFormed() {
+        mainHandler.removeCallbacks(timeoutRunnable);
+        step = Step.CONFERENCED;
+
+        long setupMs = elapsedSinceRequest();
+        lastSetupMs = setupMs;
+        minSetupMs = minSetupMs < 0 ? setupMs : Math.min(minSetupMs, setupMs);
+        maxSetupMs = Math.max(maxSetupMs, setupMs);
+        totalSetupMs += setupMs;
+        conferencesFormed++;
+        Log.d(TAG, "Conference formed " + setupMs + "ms after monitoring was requested");
+
+        Context context = CallManager.inCallService;
+        if (context != null) {
+            AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+            if (audioManager != null) {
+                audioManager.setMode(AudioManager.MODE_IN_CALL);
+                audioManager.setSpeakerphoneOn(true);
+            }
+
+            Intent intent = new Intent(Constants.ACTION_MONITORING_CONFERENCED);
+            intent.setPackage(context.getPackageName());
+            intent.putExtra("setupMs", setupMs);
+            context.sendBroadcast(intent);
+
+            CallSession session = context instanceof CallService
+                    ? ((CallService) context).getSession(callerCall) : null;
+            if (session != null) {
+                CallHistoryDatabase.getInstance(context).recordMonitored(session.getCallSid(),
+                        CallManager.getCallerKey(callerCall));
+            }
+        }
+        CallActivityModule.emitMonitoringStatus("conferenced", null, setupMs);
+    }
+
+    private void onStepTimeout() {
+        switch (step) {
+            case DIALING_MONITOR:
+                fail("monitor_dial_timeout");
+                break;
+            case HOLDING_CALLER:
+                if (attempts < MAX_ATTEMPTS && callerCall != null) {
+                    attempts++;
+                    Log.w(TAG, "Caller not on hold yet, retrying (attempt " + attempts + ")");
+                    callerCall.hold();
+                    scheduleTimeout(HOLD_TIMEOUT_MS);
+                } else {
+                    fail("hold_timeout");
+                }
+                break;
+            case MERGING:
+                if (attempts < MAX_ATTEMPTS) {
+                    attempts++;
+                    Log.w(TAG, "Conference not formed yet, retrying (attempt " + attempts + ")");
+                    requestMerge();
+                } else {
+                    fail("merge_timeout");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Abandon the attempt: drop the monitoring leg and give the caller back
+     */
+    private void fail(String reason) {
+        mainHandler.removeCallbacks(timeoutRunnable);
+        Log.e(TAG, "Monitoring conference failed in step " + step + ": " + reason);
+
+        Call monitor = monitorCall != null ? monitorCall : CallManager.findMonitoringCall();
+        Call caller = callerCall;
+        step = Step.FAILED;
+        lastFailureReason = reason;
+        failures++;
+        monitorCall = null;
+        callerCall = null;
+
+        try {
+            if (monitor != null && CallManager.isCallActive(monitor)) {
+                CallManager.hangUpCall(monitor);
+            }
+            if (caller != null && CallManager.getCallState(caller) == Call.STATE_HOLDING) {
+                caller.unhold();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error cleaning up failed conference: " + e.getMessage(), e);
+        }
+
+        Context context = CallManager.inCallService;
+        if (context != null) {
+            Intent intent = new Intent(Constants.ACTION_MONITORING_FAILED);
+            intent.setPackage(context.getPackageName());
+            intent.putExtra("reason", reason);
+            context.sendBroadcast(intent);
+        }
+        CallActivityModule.emitMonitoringStatus("failed", reason, elapsedSinceRequest());
+    }
+
+    private void reset() {
+        mainHandler.removeCallbacks(timeoutRunnable);
+        step = Step.IDLE;
+        monitorCall = null;
+        callerCall = null;
+        attempts = 0;
+        mergeRequested = false;
+    }
+
+    private boolean isInProgress() {
+        return step == Step.DIALING_MONITOR || step == Step.HOLDING_CALLER || step == Step.MERGING;
+    }
+
+    private void scheduleTimeout(long delayMs) {
+        mainHandler.removeCallbacks(timeoutRunnable);
+        mainHandler.postDelayed(timeoutRunnable, delayMs);
+    }
+
+    private long elapsedSinceRequest() {
+        return requestedAt > 0 ? SystemClock.elapsedRealtime() - requestedAt : -1;
+    }
+
+    /**
+     * The call to merge the monitoring leg with: the earliest live or held call that is
+     * not the monitoring leg and not already in a conference
+     */
+    private static Call findCallerCall() {
+        for (CallRegistry.CallRecord record : CallManager.getRegistry().getRecords()) {
+            int state = record.getState();
+            if (!record.isMonitoringLeg() && record.getParent() == null
+                    && (state == Call.STATE_ACTIVE || state == Call.STATE_HOLDING)) {
+                return record.getCall();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isConferenceable(Call first, Call second) {
+        if (first == null || second == null) {
+            return false;
+        }
+        List<Call> firstConferenceable = first.getConferenceableCalls();
+        List<Call> secondConferenceable = second.getConferenceableCalls();
+        return (firstConferenceable != null && firstConferenceable.contains(second))
+                || (secondConferenceable != null && secondConferenceable.contains(first));
+    }
+}
@@ -15,12 +15,15 @@ public class Constants {
     // Notification IDs
     public static final int MISSED_CALL_NOTIFICATION_ID = 2001;
     public static final int INCOMING_CALL_NOTIFICATION_ID = 2002;
+    public static final int FRAUD_ALERT_NOTIFICATION_ID = 2003;
     public static final int FOREGROUND_SERVICE_ID = 3001;
     public static final int FOREGROUND_NOTIFICATION_ID = 3001; // Alias for FOREGROUND_SERVICE_ID
 
     // Notification Channels
     public static final String MISSED_CALL_CHANNEL_ID = "missed_call_channel";
     public static final String INCOMING_CALL_CHANNEL_ID = "incoming_call_channel";
+    public static final String FRAUD_ALERT_CHANNEL_ID = "fraud_alert_channel";
+    public static final String SILENCED_CALL_CHANNEL_ID = "silenced_call_channel";
     public static final String FOREGROUND_SERVICE_CHANNEL_ID = "foreground_service_channel";
 
     // Request Codes
@@ -34,6 +37,11 @@ public class Constants {
     public static final long CALL_WAITING_TIMEOUT = 45000; // 45 seconds
     public static final long CALL_LOG_CHECK_DELAY = 1000; // 1 second
     public static final long VOICEMAIL_AUTO_HANGUP_DELAY = 2 * 60 * 1000; // 2 minutes
+    public static final long CALLER_ID_LOOKUP_DEADLINE = 400; // Max time a contact lookup result is still shown
+    public static final long CALL_SCREENING_DEADLINE = 250; // Screening decision budget before a call is allowed
+    public static final long FRAUD_ALERT_RECONNECT_BASE = 1000; // First fraud alert reconnect backoff
+    public static final long FRAUD_ALERT_RECONNECT_MAX = 30000; // Cap of the fraud alert reconnect backoff
+    public static final int FRAUD_ALERT_PING_INTERVAL_SECONDS = 15; // Fraud alert socket ping interval and pong timeout
 
     // Broadcast Actions
     public static final String ACTION_RESET_MISSED_CALL_COUNT = "ACTION_RESET_MISSED_CALL_COUNT";
@@ -44,12 +52,22 @@ public class Constants {
     public static final String ACTION_MISSED_CALL = "ACTION_MISSED_CALL";
     public static final String ACTION_MISSED_CALL_DETECTED = "ACTION_MISSED_CALL_DETECTED";
     public static final String NOTIFY_JS_MISSED_CALL = "NOTIFY_JS_MISSED_CALL";
+    public static final String ACTION_CALLER_IDENTIFIED = "ACTION_CALLER_IDENTIFIED";
+    public static final String ACTION_MONITORING_CONFERENCED = "ACTION_MONITORING_CONFERENCED";
+    public static final String ACTION_MONITORING_FAILED = "ACTION_MONITORING_FAILED";
+    public static final String ACTION_FRAUD_ALERT = "ACTION_FRAUD_ALERT";
 
     // Call Actions
     public static final String CALL_ACTION_ANSWER = "ANSWER_CALL";
     public static final String CALL_ACTION_DECLINE = "DECLINE_CALL";
     public static final String CALL_ACTION_END = "END_CALL";
 
+    // Intent Extras
+    public static final String EXTRA_LAUNCHED_AT = "launched_at"; // elapsedRealtime the call screen was requested
+    public static final String EXTRA_TRACE_ID = "trace_id"; // CallSetupTracer trace of the call
+    public static final String EXTRA_FRAUD_TYPE = "fraud_type"; // Server-reported fraud category
+    public static final String EXTRA_CALL_SID = "call_sid"; // Call SID known to the fraud alert server
+
     // Missed Call Vibration Pattern (only)
     public static final long[] MISSED_CALL_VIBRATION_PATTERN = {0, 500, 200, 500};
 
@@ -60,6 +78,10 @@ public class Constants {
 
     // Special numbers
     public static final String TWILIO_NUMBER = "+18452998019";
+    public static final long TWILIO_NUMBER_KEY = PhoneNumberNormalizer.normalize(TWILIO_NUMBER);
+
+    // Country calling code assumed for numbers without an international prefix
+    public static final int DEFAULT_COUNTRY_CALLING_CODE = 1;
 
     // Private constructor to prevent instantiation
     private Constants() {
@@ -26,6 +26,13 @@ public class ContactsHelper {
         if (ContextCompat.checkSelfPermission(context,
                 Manifest.permission.READ_CONTACTS) == PackageManager.PERMISSION_GRANTED) {
 
+            // Answer from the in-memory index when possible to avoid a provider round-trip
+            ContactsIndex index = ContactsIndex.getInstance(context);
+            String indexedName = index.lookup(phone_number);
+            if (indexedName != null) {
+                return indexedName.isEmpty() ? Constants.BIZ4_UNKNOWN_CALLER_NAME : indexedName;
+            }
+
             Uri uri = Uri.withAppendedPath(ContactsContract.PhoneLookup.CONTENT_FILTER_URI, Uri.encode(phone_number));
 
             String[] projection = new String[] { ContactsContract.PhoneLookup.DISPLAY_NAME };
@@ -39,6 +46,8 @@ public class ContactsHelper {
                 cursor.close();
             }
 
+            index.recordLookupResult(phone_number, contactName);
+
             if (contactName.equals("")) {
                 contactName = Constants.BIZ4_UNKNOWN_CALLER_NAME;
             }
@@ -0,0 +1,349 @@
+package com.spamcalldetector.helpers;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.provider.ContactsContract;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.spamcalldetector.utils.LongObjectHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide in-memory index of contact phone numbers keyed by normalized number.
+ * Built once from ContactsContract.CommonDataKinds.Phone on a background thread and kept
+ * fresh incrementally by a ContentObserver on the contacts URI.
+ * Numbers that are confirmed not to belong to any contact are kept in a negative cache.
+ */
+public class ContactsIndex {
+    private static final String TAG = "ContactsIndex";
+    private static final long CHANGE_DEBOUNCE_MS = 500;
+    private static final int MAX_NEGATIVE_ENTRIES = 512;
+
+    /**
+     * Returned by lookup when the number is known not to belong to a contact
+     */
+    public static final String NOT_A_CONTACT = "";
+
+    private static ContactsIndex instance;
+
+    private final Context context;
+    private final Handler workerHandler;
+    private ContactsObserver contactsObserver;
+
+    // Guarded by this
+    private LongObjectHashMap<Entry> entries = new LongObjectHashMap<>();
+    private final LongObjectHashMap<Boolean> negativeCache = new LongObjectHashMap<>();
+    private long lastUpdatedWatermark = 0;
+    private volatile boolean isReady = false;
+
+    // Counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private volatile long lastRebuildMs = 0;
+
+    /**
+     * Contact data stored per normalized number
+     */
+    private static class Entry {
+        final long contactId;
+        final String displayName;
+
+        Entry(long contactId, String displayName) {
+            this.contactId = contactId;
+            this.displayName = displayName;
+        }
+    }
+
+    private ContactsIndex(Context context) {
+        this.context = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("contacts-index");
+        thread.start();
+        this.workerHandler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Get the shared index, starting the initial build if it has not run yet
+     */
+    public static synchronized ContactsIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new ContactsIndex(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    /**
+     * Look up the contact name for a phone number
+     *
+     * @return Display name, NOT_A_CONTACT if the number is known not to be a contact,
+     *         or null if the index cannot answer and the caller should query the provider
+     */
+    public String lookup(String phoneNumber) {
+        long key = PhoneNumberNormalizer.normalize(phoneNumber);
+        if (key == PhoneNumberNormalizer.INVALID) {
+            return null;
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.displayName;
+            }
+            if (negativeCache.containsKey(key)) {
+                negativeHits.incrementAndGet();
+                return NOT_A_CONTACT;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Record the result of a provider query that the index could not answer
+     *
+     * @param displayName Resolved name, or null if no contact matched
+     */
+    public void recordLookupResult(String phoneNumber, String displayName) {
+        long key = PhoneNumberNormalizer.normalize(phoneNumber);
+        if (key == PhoneNumberNormalizer.INVALID) {
+            return;
+        }
+
+        synchronized (this) {
+            if (displayName != null && !displayName.isEmpty()) {
+                // PhoneLookup matched a format the index did not; remember it as an alias until
+                // the next contact change
+                entries.put(key, new Entry(0, displayName));
+            } else {
+                if (negativeCache.size() >= MAX_NEGATIVE_ENTRIES) {
+                    negativeCache.clear();
+                }
+                negativeCache.put(key, Boolean.TRUE);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return isReady;
+    }
+
+    /**
+     * Counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("negativeHits", negativeHits.get());
+        stats.put("misses", misses.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("incrementalUpdates", incrementalUpdates.get());
+        stats.put("lastRebuildMs", lastRebuildMs);
+        synchronized (this) {
+            stats.put("entries", (long) entries.size());
+            stats.put("negativeEntries", (long) negativeCache.size());
+        }
+        return stats;
+    }
+
+    private synchronized void ensureStarted() {
+        if (contactsObserver != null || !hasContactsPermission()) {
+            return;
+        }
+
+        contactsObserver = new ContactsObserver(workerHandler);
+        try {
+            context.getContentResolver().registerContentObserver(
+                    ContactsContract.Contacts.CONTENT_URI, true, contactsObserver);
+        } catch (Exception e) {
+            Log.e(TAG, "Error registering contacts observer: " + e.getMessage(), e);
+        }
+        workerHandler.post(this::rebuild);
+    }
+
+    /**
+     * Build the whole index from scratch. Runs on the worker thread.
+     */
+    private void rebuild() {
+        if (!hasContactsPermission()) {
+            return;
+        }
+
+        long startedAt = SystemClock.elapsedRealtime();
+        String[] projection = new String[] {
+                ContactsContract.CommonDataKinds.Phone.CONTACT_ID,
+                ContactsContract.CommonDataKinds.Phone.DISPLAY_NAME,
+                ContactsContract.CommonDataKinds.Phone.NUMBER,
+                ContactsContract.CommonDataKinds.Phone.NORMALIZED_NUMBER,
+                ContactsContract.CommonDataKinds.Phone.CONTACT_LAST_UPDATED_TIMESTAMP
+        };
+
+        try (Cursor cursor = context.getContentResolver().query(
+                ContactsContract.CommonDataKinds.Phone.CONTENT_URI, projection, null, null, null)) {
+            if (cursor == null) {
+                return;
+            }
+
+            LongObjectHashMap<Entry> built = new LongObjectHashMap<>(cursor.getCount());
+            long watermark = 0;
+            while (cursor.moveToNext()) {
+                watermark = Math.max(watermark, addRow(built, cursor));
+            }
+
+            synchronized (this) {
+                entries = built;
+                negativeCache.clear();
+                lastUpdatedWatermark = watermark;
+            }
+            isReady = true;
+            rebuilds.incrementAndGet();
+            lastRebuildMs = SystemClock.elapsedRealtime() - startedAt;
+            Log.d(TAG, "Contacts index built with " + built.size() + " numbers in " + lastRebuildMs + "ms");
+        } catch (Exception e) {
+            Log.e(TAG, "Error building contacts index: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Apply contact changes since the last watermark. Runs on the worker thread.
+     */
+    private void applyChanges() {
+        if (!isReady) {
+            rebuild();
+            return;
+        }
+        if (!hasContactsPermission()) {
+            return;
+        }
+
+        long since;
+        synchronized (this) {
+            since = lastUpdatedWatermark;
+        }
+
+        String[] projection = new String[] {
+                ContactsContract.CommonDataKinds.Phone.CONTACT_ID,
+                ContactsContract.CommonDataKinds.Phone.DISPLAY_NAME,
+                ContactsContract.CommonDataKinds.Phone.NUMBER,
+                ContactsContract.CommonDataKinds.Phone.NORMALIZED_NUMBER,
+                ContactsContract.CommonDataKinds.Phone.CONTACT_LAST_UPDATED_TIMESTAMP
+        };
+        String[] args = new String[] { String.valueOf(since) };
+
+        try (Cursor updated = context.getContentResolver().query(
+                ContactsContract.CommonDataKinds.Phone.CONTENT_URI, projection,
+                ContactsContract.CommonDataKinds.Phone.CONTACT_LAST_UPDATED_TIMESTAMP + " > ?", args, null);
+             Cursor deleted = context.getContentResolver().query(
+                ContactsContract.DeletedContacts.CONTENT_URI,
+                new String[] {
+                        ContactsContract.DeletedContacts.CONTACT_ID,
+                        ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP
+                },
+                ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP + " > ?", args, null)) {
+
+            // Read both cursors before taking the lock, so lookups are only blocked for the merge
+            LongObjectHashMap<Boolean> changedContacts = new LongObjectHashMap<>();
+            LongObjectHashMap<Entry> added = new LongObjectHashMap<>();
+            long watermark = since;
+            int changedRows = 0;
+
+            if (deleted != null) {
+                while (deleted.moveToNext()) {
+                    changedContacts.put(deleted.getLong(0), Boolean.TRUE);
+                    watermark = Math.max(watermark, deleted.getLong(1));
+                    changedRows++;
+                }
+            }
+            if (updated != null) {
+                while (updated.moveToNext()) {
+                    changedContacts.put(updated.getLong(0), Boolean.TRUE);
+                    watermark = Math.max(watermark, addRow(added, updated));
+                    changedRows++;
+                }
+            }
+
+            synchronized (this) {
+                if (changedRows > 0) {
+                    // One pass drops the old numbers of every changed contact, and the aliases,
+                    // which cannot be traced to a contact and may name a deleted or renamed one
+                    entries.removeIf((key, entry) -> entry.contactId == 0
+                            || changedContacts.containsKey(entry.contactId));
+                    added.forEach(entries::put);
+
+                    // A new or edited contact may now match a number cached as unknown
+                    negativeCache.clear();
+                }
+                lastUpdatedWatermark = Math.max(lastUpdatedWatermark, watermark);
+            }
+
+            incrementalUpdates.incrementAndGet();
+            Log.d(TAG, "Applied " + changedRows + " contact changes incrementally");
+        } catch (Exception e) {
+            Log.e(TAG, "Incremental update failed, rebuilding: " + e.getMessage(), e);
+            rebuild();
+        }
+    }
+
+    /**
+     * Add one Phone row to the map
+     *
+     * @return The row's last-updated timestamp
+     */
+    private static long addRow(LongObjectHashMap<Entry> target, Cursor cursor) {
+        long contactId = cursor.getLong(0);
+        String name = cursor.getString(1);
+        String number = cursor.getString(3);
+        if (number == null || number.isEmpty()) {
+            number = cursor.getString(2);
+        }
+
+        long key = PhoneNumberNormalizer.normalize(number);
+        if (key != PhoneNumberNormalizer.INVALID && name != null && !name.isEmpty()) {
+            target.put(key, new Entry(contactId, name));
+        }
+        return cursor.getLong(4);
+    }
+
+    private boolean hasContactsPermission() {
+        return ContextCompat.checkSelfPermission(context,
+                Manifest.permission.READ_CONTACTS) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Debounces bursts of contact provider notifications into one incremental update
+     */
+    private class ContactsObserver extends ContentObserver {
+        private final Runnable applyChangesRunnable = ContactsIndex.this::applyChanges;
+
+        ContactsObserver(Handler handler) {
+            super(handler);
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            onChange(selfChange, null);
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            workerHandler.removeCallbacks(applyChangesRunnable);
+            workerHandler.postDelayed(applyChangesRunnable, CHANGE_DEBOUNCE_MS);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.spamcalldetector.helpers;
+
+import android.content.Context;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import java.util.Locale;
+
+/**
+ * Picks the country PhoneNumberNormalizer assumes for numbers dialed without an international
+ * prefix: the SIM's country, then the network's, then the device locale's. Without any of them
+ * Constants.DEFAULT_COUNTRY_CALLING_CODE stays in use.
+ */
+public final class DefaultCountry {
+    private static final String TAG = "DefaultCountry";
+
+    private DefaultCountry() {
+        throw new UnsupportedOperationException("DefaultCountry cannot be instantiated");
+    }
+
+    /**
+     * Set the default country calling code. Call once at startup, before numbers are normalized.
+     */
+    public static void init(Context context) {
+        String simRegion = null;
+        String networkRegion = null;
+        try {
+            TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+            if (telephonyManager != null) {
+                simRegion = telephonyManager.getSimCountryIso();
+                networkRegion = telephonyManager.getNetworkCountryIso();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading country from telephony: " + e.getMessage());
+        }
+
+        for (String region : new String[] { simRegion, networkRegion, Locale.getDefault().getCountry() }) {
+            int countryCode = PhoneNumberNormalizer.countryCodeForRegion(region);
+            if (countryCode != 0) {
+                PhoneNumberNormalizer.setDefaultCountryCode(countryCode);
+                Log.d(TAG, "Default country calling code " + countryCode + " from region " + region);
+                return;
+            }
+        }
+        Log.d(TAG, "No region known, keeping country calling code " + PhoneNumberNormalizer.getDefaultCountryCode());
+    }
+}
@@ -0,0 +1,699 @@
+package com.spamcalldetector.helpers;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.spamcalldetector.activities.call.CallActivityModule;
+import com.spamcalldetector.utils.AlertFrameCodec;
+import com.spamcalldetector.utils.DeviceInteractionTracker;
+import com.spamcalldetector.utils.NotificationHelper;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.protocols.IProtocol;
+import org.java_websocket.protocols.Protocol;
+import org.json.JSONObject;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The process-wide fraud alert channel, kept open by CallService while calls are live.
+ * Unlike a socket in the JS runtime it keeps working while the React app is backgrounded,
+ * paused or still loading, and there is only ever one connection however many screens or
+ * calls are up. Every live call is associated on the connection by its call SID as soon as it
+ * rings or is dialed, keeping DNS, TLS and the handshake off the path of the first alert, and
+ * messages are routed back to their call by SID.
+ * Verdicts are handled immediately and deduplicated per call and fraud type. Transcript
+ * fragments go through a bounded queue per call, drained round-robin, so a burst for one call
+ * cannot starve another. Alerts are shown natively (broadcast to the call screens and a
+ * notification when the app is not in front) and forwarded to JS as "FraudAlert" events.
+ * Messages are JSON, or AlertFrameCodec binary frames when the server accepts that
+ * subprotocol in the handshake; both feed the same routing.
+ * The server URL and user are configured from JS and persisted. Dropped connections are
+ * retried with jittered exponential backoff; the library's ping/pong closes connections that
+ * stop answering.
+ * All connection and call state is owned by the worker thread.
+ */
+public class FraudAlertClient {
+    private static final String TAG = "FraudAlertClient";
+    private static final String PREFS_NAME = "fraud_alerts";
+    private static final String KEY_URL = "url";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_PHONE_NUMBER = "phone_number";
+
+    public static final String SOURCE_SERVER = "server";
+    public static final String SOURCE_TRANSCRIPT = "transcript";
+
+    private static final int MAX_BACKOFF_SHIFT = 16;
+    // Transcript fragments queued per call before the oldest are dropped
+    private static final int MAX_QUEUED_TRANSCRIPTS = 32;
+    // Fragments classified per worker turn before yielding to other work
+    private static final int DRAIN_BATCH = 16;
+
+    private static FraudAlertClient instance;
+
+    private final Context context;
+    private final Handler workerHandler;
+    private final SharedPreferences prefs;
+    private final Random random = new Random();
+    private final Runnable reconnect = this::connect;
+    private final Runnable drain = this::drainTranscripts;
+
+    // Worker thread state
+    private String url;
+    private String userId;
+    private String phoneNumber;
+    private boolean wanted = false;
+    private int attempt = 0;
+    private boolean drainScheduled = false;
+    // Whether the current connection negotiated binary frames
+    private boolean binaryFrames = false;
+    private final AlertFrameCodec frameDecoder = new AlertFrameCodec();
+    private final AlertFrameCodec.FrameListener frameListener = new AlertFrameCodec.FrameListener() {
+        @Override
+        public void onVerdict(String callSid, boolean isFraud, String fraudType) {
+            handleVerdict(callSid, isFraud, fraudType);
+        }
+
+        @Override
+        public void onTranscript(String callSid, long sequence, CharSequence text) {
+            handleTranscript(callSid, text);
+        }
+    };
+    // Calls by SID, in association order; the last one receives messages without a SID
+    private final LinkedHashMap<String, CallChannel> channels = new LinkedHashMap<>();
+    private NotificationHelper notificationHelper;
+
+    // Also read by send() from other threads
+    private volatile AlertSocket socket;
+    private volatile boolean connected = false;
+
+    // Counters
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong reconnectsScheduled = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong pongs = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong binaryMessages = new AtomicLong();
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final AtomicLong decodeErrors = new AtomicLong();
+    private final AtomicLong alerts = new AtomicLong();
+    private final AtomicLong duplicateAlerts = new AtomicLong();
+    private final AtomicLong staleAlerts = new AtomicLong();
+    private final AtomicLong transcripts = new AtomicLong();
+    private final AtomicLong droppedTranscripts = new AtomicLong();
+    private final AtomicLong readyAtAnswer = new AtomicLong();
+    private final AtomicLong answerToReadyCount = new AtomicLong();
+    private final AtomicLong answerToReadyTotalMs = new AtomicLong();
+    private volatile long lastConnectMs = -1;
+    private volatile long lastAnswerToReadyMs = -1;
+
+    /**
+     * One call multiplexed on the connection
+     */
+    private static class CallChannel {
+        final String callSid;
+        final String callerNumber;
+        final long callerKey;
+        final ArrayDeque<String> transcripts = new ArrayDeque<>();
+        final Set<String> alertedTypes = new HashSet<>();
+        // Whether associate_call was sent on the current connection
+        boolean associated = false;
+        // elapsedRealtime the call was answered while not yet associated, 0 otherwise
+        long answeredAt = 0;
+
+        CallChannel(String callSid, String callerNumber, long callerKey) {
+            this.callSid = callSid;
+            this.callerNumber = callerNumber;
+            this.callerKey = callerKey;
+        }
+    }
+
+    /**
+     * One connection attempt; callbacks from replaced sockets are ignored
+     */
+    private class AlertSocket extends WebSocketClient {
+        private final long startedAt = SystemClock.elapsedRealtime();
+
+        AlertSocket(URI serverUri) {
+            // Offer binary frames, falling back to JSON when the server picks no subprotocol
+            super(serverUri, new Draft_6455(Collections.<IExtension>emptyList(),
+                    Arrays.<IProtocol>asList(new Protocol(AlertFrameCodec.PROTOCOL), new Protocol(""))));
+            setConnectionLostTimeout(Constants.FRAUD_ALERT_PING_INTERVAL_SECONDS);
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+            workerHandler.post(() -> onSocketOpen(this));
+        }
+
+        @Override
+        public void onMessage(String message) {
+            workerHandler.post(() -> onSocketMessage(this, message));
+        }
+
+        @Override
+        public void onMessage(ByteBuffer bytes) {
+            workerHandler.post(() -> onSocketFrames(this, bytes));
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+            workerHandler.post(() -> onSocketClosed(this, code, reason));
+        }
+
+        @Override
+        public void onError(Exception ex) {
+            errors.incrementAndGet();
+            Log.e(TAG, "Fraud alert socket error: " + ex.getMessage());
+        }
+
+        @Override
+        public void onWebsocketPong(WebSocket conn, Framedata f) {
+            super.onWebsocketPong(conn, f);
+            pongs.incrementAndGet();
+        }
+    }
+
+    FraudAlertClient(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.url = prefs.getString(KEY_URL, null);
+        this.userId = prefs.getString(KEY_USER_ID, null);
+        this.phoneNumber = prefs.getString(KEY_PHONE_NUMBER, null);
+        HandlerThread thread = new HandlerThread("fraud-alerts");
+        thread.start();
+        this.workerHandler = new Handler(thread.getLooper());
+    }
+
+    public static synchronized FraudAlertClient getInstance(Context context) {
+        if (instance == null) {
+            instance = new FraudAlertClient(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Set the server and user to connect as, reconnecting if a connection is wanted
+     */
+    public void configure(String url, String userId, String phoneNumber) {
+        prefs.edit()
+                .putString(KEY_URL, url)
+                .putString(KEY_USER_ID, userId)
+                .putString(KEY_PHONE_NUMBER, phoneNumber)
+                .apply();
+        workerHandler.post(() -> {
+            boolean changed = !equal(this.url, url) || !equal(this.userId, userId)
+                    || !equal(this.phoneNumber, phoneNumber);
+            this.url = url;
+            this.userId = userId;
+            this.phoneNumber = phoneNumber;
+            if (wanted && (changed || socket == null)) {
+                closeSocket();
+                attempt = 0;
+                connect();
+            }
+        });
+    }
+
+    /**
+     * Keep a connection open until stop(), e.g. while a call is live
+     */
+    public void start() {
+        workerHandler.post(() -> {
+            if (wanted) {
+                return;
+            }
+            wanted = true;
+            attempt = 0;
+            connect();
+        });
+    }
+
+    /**
+     * Close the connection and forget all calls
+     */
+    public void stop() {
+        workerHandler.post(() -> {
+            wanted = false;
+            workerHandler.removeCallbacks(reconnect);
+            closeSocket();
+            channels.clear();
+        });
+    }
+
+    /**
+     * Associate a call that is ringing or being dialed, so its alerts are routed to it
+     *
+     * @param number Caller number, or null for the latest live call
+     */
+    public void associateCall(String sid, String number) {
+        final long callerKey = number != null ? PhoneNumberNormalizer.normalize(number) : CallManager.getCurrentCallerKey();
+        workerHandler.post(() -> {
+            if (sid == null || channels.containsKey(sid)) {
+                return;
+            }
+            CallChannel channel = new CallChannel(sid, number, callerKey);
+            channels.put(sid, channel);
+            sendAssociation(channel);
+        });
+    }
+
+    /**
+     * Associate the latest live call under a SID reported by JS. A call CallService already
+     * associated keeps its channel, so its alerts are not deduplicated twice over two SIDs.
+     */
+    public void setCallSid(String sid) {
+        final long callerKey = CallManager.getCurrentCallerKey();
+        workerHandler.post(() -> {
+            if (sid == null || channels.containsKey(sid)) {
+                return;
+            }
+            for (CallChannel channel : channels.values()) {
+                if (callerKey != PhoneNumberNormalizer.INVALID && channel.callerKey == callerKey) {
+                    Log.d(TAG, "Call " + sid + " is already associated as " + channel.callSid);
+                    return;
+                }
+            }
+            CallChannel channel = new CallChannel(sid, null, callerKey);
+            channels.put(sid, channel);
+            sendAssociation(channel);
+        });
+    }
+
+    /**
+     * Stop routing alerts to a call, e.g. when it ends
+     */
+    public void releaseCall(String sid) {
+        workerHandler.post(() -> {
+            CallChannel channel = channels.remove(sid);
+            if (channel == null || !channel.associated || !isOpen()) {
+                return;
+            }
+            try {
+                JSONObject message = new JSONObject();
+                message.put("type", "release_call");
+                message.put("call_sid", sid);
+                message.put("user_id", userId);
+                socket.send(message.toString());
+            } catch (Exception e) {
+                Log.e(TAG, "Error releasing call from fraud alerts: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Start timing answer to "monitoring ready": connected and associated with the call
+     */
+    public void markAnswered(String sid) {
+        final long now = SystemClock.elapsedRealtime();
+        workerHandler.post(() -> {
+            CallChannel channel = channels.get(sid);
+            if (channel == null) {
+                return;
+            }
+            if (channel.associated) {
+                readyAtAnswer.incrementAndGet();
+                recordAnswerToReady(0);
+            } else {
+                channel.answeredAt = now;
+            }
+        });
+    }
+
+    /**
+     * Send a raw text message if connected
+     *
+     * @return false if there is no open connection
+     */
+    public boolean send(String message) {
+        AlertSocket current = socket;
+        if (current == null || !current.isOpen()) {
+            return false;
+        }
+        try {
+            current.send(message);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error sending fraud alert message: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Connection and alert counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("connected", connected ? 1L : 0L);
+        stats.put("connects", connects.get());
+        stats.put("disconnects", disconnects.get());
+        stats.put("reconnectsScheduled", reconnectsScheduled.get());
+        stats.put("errors", errors.get());
+        stats.put("pongs", pongs.get());
+        stats.put("messages", messages.get());
+        stats.put("binaryMessages", binaryMessages.get());
+        stats.put("receivedBytes", receivedBytes.get());
+        stats.put("decodeErrors", decodeErrors.get());
+        stats.put("binaryFrames", binaryFrames ? 1L : 0L);
+        stats.put("alerts", alerts.get());
+        stats.put("duplicateAlerts", duplicateAlerts.get());
+        stats.put("staleAlerts", staleAlerts.get());
+        stats.put("transcripts", transcripts.get());
+        stats.put("droppedTranscripts", droppedTranscripts.get());
+        stats.put("lastConnectMs", lastConnectMs);
+        stats.put("readyAtAnswer", readyAtAnswer.get());
+        stats.put("answerToReadyCount", answerToReadyCount.get());
+        stats.put("answerToReadyTotalMs", answerToReadyTotalMs.get());
+        stats.put("lastAnswerToReadyMs", lastAnswerToReadyMs);
+        return stats;
+    }
+
+    private void connect() {
+        if (!wanted || socket != null) {
+            return;
+        }
+        if (url == null || userId == null) {
+            Log.d(TAG, "Fraud alert server not configured yet");
+            return;
+        }
+        try {
+            String query = "user_id=" + URLEncoder.encode(userId, "UTF-8")
+                    + "&phone_number=" + URLEncoder.encode(phoneNumber != null ? phoneNumber : "", "UTF-8");
+            socket = new AlertSocket(new URI(url + (url.contains("?") ? "&" : "?") + query));
+            socket.connect();
+            Log.d(TAG, "Connecting to fraud alert server (attempt " + attempt + ")");
+        } catch (Exception e) {
+            Log.e(TAG, "Error connecting to fraud alert server: " + e.getMessage(), e);
+            socket = null;
+            scheduleReconnect();
+        }
+    }
+
+    private boolean isOpen() {
+        return socket != null && socket.isOpen();
+    }
+
+    private void onSocketOpen(AlertSocket source) {
+        if (source != socket) {
+            return;
+        }
+        connected = true;
+        attempt = 0;
+        connects.incrementAndGet();
+        lastConnectMs = SystemClock.elapsedRealtime() - source.startedAt;
+        binaryFrames = AlertFrameCodec.PROTOCOL.equals(getNegotiatedProtocol(source));
+        Log.d(TAG, "Connected to fraud alert server in " + lastConnectMs + "ms"
+                + (binaryFrames ? " (binary frames)" : " (JSON)"));
+        for (CallChannel channel : channels.values()) {
+            sendAssociation(channel);
+        }
+        CallActivityModule.emitFraudAlertConnection(true);
+    }
+
+    private void onSocketClosed(AlertSocket source, int code, String reason) {
+        if (source != socket) {
+            return;
+        }
+        socket = null;
+        markDissociated();
+        if (connected) {
+            connected = false;
+            disconnects.incrementAndGet();
+            CallActivityModule.emitFraudAlertConnection(false);
+        }
+        Log.w(TAG, "Fraud alert connection closed: " + code + " " + reason);
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        if (!wanted) {
+            return;
+        }
+        // Equal jitter: half the backoff plus a random share of the other half
+        long backoff = Math.min(Constants.FRAUD_ALERT_RECONNECT_MAX,
+                Constants.FRAUD_ALERT_RECONNECT_BASE << Math.min(attempt, MAX_BACKOFF_SHIFT));
+        long delay = backoff / 2 + (long) (random.nextDouble() * (backoff / 2));
+        attempt++;
+        reconnectsScheduled.incrementAndGet();
+        workerHandler.removeCallbacks(reconnect);
+        workerHandler.postDelayed(reconnect, delay);
+        Log.d(TAG, "Reconnecting to fraud alert server in " + delay + "ms");
+    }
+
+    private void closeSocket() {
+        AlertSocket current = socket;
+        socket = null;
+        markDissociated();
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception e) {
+                Log.e(TAG, "Error closing fraud alert socket: " + e.getMessage());
+            }
+        }
+        if (connected) {
+            connected = false;
+            CallActivityModule.emitFraudAlertConnection(false);
+        }
+    }
+
+    private void markDissociated() {
+        for (CallChannel channel : channels.values()) {
+            channel.associated = false;
+        }
+    }
+
+    private void sendAssociation(CallChannel channel) {
+        if (channel.associated || !isOpen()) {
+            return;
+        }
+        try {
+            JSONObject message = new JSONObject();
+            message.put("type", "associate_call");
+            message.put("call_sid", channel.callSid);
+            message.put("user_id", userId);
+            if (channel.callerNumber != null) {
+                message.put("caller_number", channel.callerNumber);
+            }
+            socket.send(message.toString());
+            channel.associated = true;
+            Log.d(TAG, "Associated fraud alerts with call " + channel.callSid);
+        } catch (Exception e) {
+            Log.e(TAG, "Error associating call with fraud alerts: " + e.getMessage());
+            return;
+        }
+
+        if (channel.answeredAt != 0) {
+            recordAnswerToReady(SystemClock.elapsedRealtime() - channel.answeredAt);
+            channel.answeredAt = 0;
+        }
+    }
+
+    private void recordAnswerToReady(long elapsedMs) {
+        lastAnswerToReadyMs = elapsedMs;
+        answerToReadyCount.incrementAndGet();
+        answerToReadyTotalMs.addAndGet(elapsedMs);
+        Log.d(TAG, "Monitoring ready " + elapsedMs + "ms after answer");
+    }
+
+    private static String getNegotiatedProtocol(AlertSocket source) {
+        Draft draft = source.getDraft();
+        if (draft instanceof Draft_6455) {
+            IProtocol protocol = ((Draft_6455) draft).getProtocol();
+            return protocol != null ? protocol.getProvidedProtocol() : null;
+        }
+        return null;
+    }
+
+    private void onSocketMessage(AlertSocket source, String text) {
+        if (source != socket) {
+            return;
+        }
+        messages.incrementAndGet();
+        receivedBytes.addAndGet(text.length());
+        try {
+            JSONObject data = new JSONObject(text);
+            String callSid = data.optString("call_sid", null);
+            if (data.has("is_fraud")) {
+                handleVerdict(callSid, data.optBoolean("is_fraud", false), data.optString("fraud_type", ""));
+            }
+            String transcript = data.optString("transcript", null);
+            if (transcript != null) {
+                handleTranscript(callSid, transcript);
+            }
+        } catch (Exception e) {
+            decodeErrors.incrementAndGet();
+            Log.e(TAG, "Error handling fraud alert message: " + e.getMessage());
+        }
+    }
+
+    private void onSocketFrames(AlertSocket source, ByteBuffer bytes) {
+        if (source != socket) {
+            return;
+        }
+        binaryMessages.incrementAndGet();
+        receivedBytes.addAndGet(bytes.remaining());
+        try {
+            frameDecoder.decode(bytes, frameListener);
+        } catch (Exception e) {
+            decodeErrors.incrementAndGet();
+            Log.e(TAG, "Error decoding fraud alert frames: " + e.getMessage());
+        }
+    }
+
+    private void handleVerdict(String callSid, boolean isFraud, String fraudType) {
+        CallChannel channel = findChannel(callSid);
+        if (channel == null) {
+            staleAlerts.incrementAndGet();
+            return;
+        }
+        if (isFraud) {
+            boolean named = fraudType != null && !fraudType.isEmpty();
+            dispatchAlert(channel, named ? fraudType.toUpperCase() : "UNKNOWN", SOURCE_SERVER, 1.0);
+        }
+    }
+
+    /**
+     * Queue a fragment on its call; the decoder's text buffer is copied here
+     */
+    private void handleTranscript(String callSid, CharSequence text) {
+        CallChannel channel = findChannel(callSid);
+        if (channel == null) {
+            staleAlerts.incrementAndGet();
+            return;
+        }
+        transcripts.incrementAndGet();
+        if (channel.transcripts.size() >= MAX_QUEUED_TRANSCRIPTS) {
+            channel.transcripts.poll();
+            droppedTranscripts.incrementAndGet();
+        }
+        channel.transcripts.add(text.toString());
+        scheduleDrain();
+    }
+
+    private void classifyTranscript(CallChannel channel, CharSequence text) {
+        TranscriptFraudClassifier.Result result = TranscriptFraudClassifier.getInstance(context)
+                .classifyFragment(channel.callerKey, text);
+        if (result.isFraud()) {
+            String category = result.getCategory();
+            dispatchAlert(channel, category != null ? category.toUpperCase() : "UNKNOWN", SOURCE_TRANSCRIPT,
+                    result.getScore());
+        }
+    }
+
+    /**
+     * Channel a message belongs to; messages without a SID go to the latest call
+     */
+    private CallChannel findChannel(String sid) {
+        if (sid != null) {
+            return channels.get(sid);
+        }
+        CallChannel latest = null;
+        for (CallChannel channel : channels.values()) {
+            latest = channel;
+        }
+        return latest;
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled) {
+            drainScheduled = true;
+            workerHandler.post(drain);
+        }
+    }
+
+    /**
+     * Classify queued transcript fragments one call at a time, yielding after a batch
+     */
+    private void drainTranscripts() {
+        drainScheduled = false;
+        int processed = 0;
+        boolean pending = true;
+        while (pending && processed < DRAIN_BATCH) {
+            pending = false;
+            for (CallChannel channel : channels.values()) {
+                String fragment = channel.transcripts.poll();
+                if (fragment == null) {
+                    continue;
+                }
+                processed++;
+                classifyTranscript(channel, fragment);
+                pending |= !channel.transcripts.isEmpty();
+            }
+        }
+        if (pending) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Show an alert natively and forward it to JS, once per fraud type and call
+     *
+     * @param riskScore Risk between 0 and 1; server verdicts are certain
+     */
+    private void dispatchAlert(CallChannel channel, String fraudType, String source, double riskScore) {
+        if (!channel.alertedTypes.add(fraudType)) {
+            duplicateAlerts.incrementAndGet();
+            return;
+        }
+        alerts.incrementAndGet();
+        Log.d(TAG, "Fraud alert for " + channel.callSid + " (" + source + "): " + fraudType);
+
+        // The transcript classifier records its own flags
+        if (SOURCE_SERVER.equals(source) && channel.callerKey != PhoneNumberNormalizer.INVALID) {
+            NumberReputationStore.getInstance(context).recordFraudFlag(channel.callerKey);
+        }
+        CallHistoryDatabase.getInstance(context).recordVerdict(channel.callSid, channel.callerKey, fraudType,
+                riskScore, source);
+
+        Intent alertIntent = new Intent(Constants.ACTION_FRAUD_ALERT);
+        alertIntent.setPackage(context.getPackageName());
+        alertIntent.putExtra(Constants.EXTRA_FRAUD_TYPE, fraudType);
+        alertIntent.putExtra(Constants.EXTRA_CALL_SID, channel.callSid);
+        context.sendBroadcast(alertIntent);
+
+        boolean jsDelivered = CallActivityModule.emitFraudAlert(channel.callSid, fraudType, source);
+        if (!jsDelivered || !DeviceInteractionTracker.getInstance(context).isAppInForeground()) {
+            if (notificationHelper == null) {
+                notificationHelper = new NotificationHelper(context);
+            }
+            String number = channel.callerNumber;
+            if (number == null && channel.callerKey != PhoneNumberNormalizer.INVALID) {
+                number = PhoneNumberNormalizer.toE164(channel.callerKey);
+            }
+            notificationHelper.showFraudAlertNotification(fraudType, number);
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -6,8 +6,6 @@ import android.telecom.Call;
 import android.util.Log;
 import com.spamcalldetector.services.MissedCallNotificationService;
 import com.spamcalldetector.utils.NotificationHelper;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Manager class to handle missed call detection and notification coordination
@@ -18,7 +16,6 @@ public class MissedCallManager {
     private static MissedCallManager instance;
     private Context context;
     private NotificationHelper notificationHelper;
-    private Map<String, CallInfo> activeCallsMap = new HashMap<>();
     
     private MissedCallManager(Context context) {
         this.context = context.getApplicationContext();
@@ -33,60 +30,50 @@ public class MissedCallManager {
     }
     
     /**
-     * Register a call as active to track its state
+     * Start tracking a call. The returned info is owned by the caller's call session
+     * and passed back into the other methods, so calls from the same number stay separate.
+     *
+     * @return Tracking info, or null if the call has no usable number
      */
-    public void registerActiveCall(Call call) {
+    public CallInfo registerActiveCall(Call call) {
         try {
             if (call == null || call.getDetails() == null || call.getDetails().getHandle() == null) {
                 Log.w(TAG, "Cannot register call - null call or details");
-                return;
+                return null;
             }
             
             String phoneNumber = call.getDetails().getHandle().getSchemeSpecificPart();
             if (phoneNumber == null || phoneNumber.isEmpty()) {
                 Log.w(TAG, "Cannot register call - empty phone number");
-                return;
+                return null;
             }
-            
+
             CallInfo callInfo = new CallInfo(phoneNumber, System.currentTimeMillis(), call.getState());
-            activeCallsMap.put(phoneNumber, callInfo);
-            
             Log.d(TAG, "Registered active call: " + phoneNumber + " with state: " + call.getState());
+            return callInfo;
         } catch (Exception e) {
             Log.e(TAG, "Error registering active call: " + e.getMessage(), e);
+            return null;
         }
     }
     
     /**
      * Update call state for tracking
      */
-    public void updateCallState(Call call, int newState) {
+    public void updateCallState(CallInfo callInfo, int newState) {
+        if (callInfo == null) {
+            return;
+        }
+
         try {
-            if (call == null || call.getDetails() == null || call.getDetails().getHandle() == null) {
-                Log.w(TAG, "Cannot update call state - null call or details");
-                return;
-            }
+            callInfo.lastState = newState;
+            callInfo.lastUpdateTime = System.currentTimeMillis();
             
-            String phoneNumber = call.getDetails().getHandle().getSchemeSpecificPart();
-            if (phoneNumber == null || phoneNumber.isEmpty()) {
-                Log.w(TAG, "Cannot update call state - empty phone number");
-                return;
-            }
+            Log.d(TAG, "Updated call state for " + callInfo.phoneNumber + " to: " + newState);
             
-            CallInfo callInfo = activeCallsMap.get(phoneNumber);
-            
-            if (callInfo != null) {
-                callInfo.lastState = newState;
-                callInfo.lastUpdateTime = System.currentTimeMillis();
-                
-                Log.d(TAG, "Updated call state for " + phoneNumber + " to: " + newState);
-                
-                // If call is disconnected and was never answered, it might be missed
-                if (newState == Call.STATE_DISCONNECTED) {
-                    handleCallDisconnected(phoneNumber, callInfo);
-                }
-            } else {
-                Log.w(TAG, "No call info found for phone number: " + phoneNumber);
+            // If call is disconnected and was never answered, it might be missed
+            if (newState == Call.STATE_DISCONNECTED) {
+                handleCallDisconnected(callInfo);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error updating call state: " + e.getMessage(), e);
@@ -96,8 +83,10 @@ public class MissedCallManager {
     /**
      * Handle call disconnection and determine if it was missed
      */
-    private void handleCallDisconnected(String phoneNumber, CallInfo callInfo) {
+    private void handleCallDisconnected(CallInfo callInfo) {
         try {
+            String phoneNumber = callInfo.phoneNumber;
+
             // Check if the call was ever answered (went to ACTIVE state)
             boolean wasAnswered = callInfo.wasAnswered;
             
@@ -117,10 +106,6 @@ public class MissedCallManager {
                 missedCallIntent.putExtra("timestamp", callInfo.startTime);
                 context.sendBroadcast(missedCallIntent);
             }
-            
-            // Remove from active calls map
-            activeCallsMap.remove(phoneNumber);
-            
         } catch (Exception e) {
             Log.e(TAG, "Error handling call disconnection: " + e.getMessage(), e);
         }
@@ -129,58 +114,20 @@ public class MissedCallManager {
     /**
      * Mark a call as answered
      */
-    public void markCallAsAnswered(Call call) {
-        try {
-            if (call == null || call.getDetails() == null || call.getDetails().getHandle() == null) {
-                Log.w(TAG, "Cannot mark call as answered - null call or details");
-                return;
-            }
-            
-            String phoneNumber = call.getDetails().getHandle().getSchemeSpecificPart();
-            if (phoneNumber == null || phoneNumber.isEmpty()) {
-                Log.w(TAG, "Cannot mark call as answered - empty phone number");
-                return;
-            }
-            
-            CallInfo callInfo = activeCallsMap.get(phoneNumber);
-            
-            if (callInfo != null) {
-                callInfo.wasAnswered = true;
-                Log.d(TAG, "Marked call as answered: " + phoneNumber);
-            } else {
-                Log.w(TAG, "No call info found to mark as answered: " + phoneNumber);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error marking call as answered: " + e.getMessage(), e);
+    public void markCallAsAnswered(CallInfo callInfo) {
+        if (callInfo != null) {
+            callInfo.wasAnswered = true;
+            Log.d(TAG, "Marked call as answered: " + callInfo.phoneNumber);
         }
     }
     
     /**
      * Mark a call as ringing
      */
-    public void markCallAsRinging(Call call) {
-        try {
-            if (call == null || call.getDetails() == null || call.getDetails().getHandle() == null) {
-                Log.w(TAG, "Cannot mark call as ringing - null call or details");
-                return;
-            }
-            
-            String phoneNumber = call.getDetails().getHandle().getSchemeSpecificPart();
-            if (phoneNumber == null || phoneNumber.isEmpty()) {
-                Log.w(TAG, "Cannot mark call as ringing - empty phone number");
-                return;
-            }
-            
-            CallInfo callInfo = activeCallsMap.get(phoneNumber);
-            
-            if (callInfo != null) {
-                callInfo.wasRinging = true;
-                Log.d(TAG, "Marked call as ringing: " + phoneNumber);
-            } else {
-                Log.w(TAG, "No call info found to mark as ringing: " + phoneNumber);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error marking call as ringing: " + e.getMessage(), e);
+    public void markCallAsRinging(CallInfo callInfo) {
+        if (callInfo != null) {
+            callInfo.wasRinging = true;
+            Log.d(TAG, "Marked call as ringing: " + callInfo.phoneNumber);
         }
     }
     
@@ -207,9 +154,9 @@ public class MissedCallManager {
     }
     
     /**
-     * Inner class to track call information
+     * Missed call tracking state of a single call
      */
-    private static class CallInfo {
+    public static class CallInfo {
         String phoneNumber;
         long startTime;
         long lastUpdateTime;
@@ -0,0 +1,237 @@
+package com.spamcalldetector.helpers;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.spamcalldetector.utils.NumberPrefixTrie;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Allow/deny rules for whole number blocks and country codes, checked on the incoming call path.
+ * Rules are read from assets/number_rules.txt and then from number_rules.txt in the app files
+ * directory, later rules overriding earlier ones for the same prefix. One rule per line, numbers
+ * in E.164 with any formatting:
+ * <pre>
+ *   deny +1 900                            every number starting with +1 900
+ *   allow +1-800-555                       every number starting with +1 800 555
+ *   deny +1 555-0100 to +1 555-0199        an inclusive range of equal-length numbers
+ *   # comment
+ * </pre>
+ * The rules are compiled into a NumberPrefixTrie on a worker thread; the longest matching
+ * prefix decides. Until they are loaded every number matches no rule.
+ */
+public class NumberRangeRules {
+    private static final String TAG = "NumberRangeRules";
+    private static final String FILE_NAME = "number_rules.txt";
+    // Separates the ends of a range; unlike '-' it cannot appear in a written number
+    private static final Pattern RANGE_SEPARATOR = Pattern.compile("\\s+to\\s+", Pattern.CASE_INSENSITIVE);
+
+    private static NumberRangeRules instance;
+
+    private final Context context;
+    private final Handler workerHandler;
+    private boolean started = false;
+
+    private volatile NumberPrefixTrie trie;
+
+    // Counters
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+    private volatile long malformedRules = 0;
+    private volatile long lastLoadMs = -1;
+
+    private NumberRangeRules(Context context) {
+        this.context = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("number-range-rules");
+        thread.start();
+        this.workerHandler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Get the shared rules, starting the initial load if it has not run yet
+     */
+    public static synchronized NumberRangeRules getInstance(Context context) {
+        if (instance == null) {
+            instance = new NumberRangeRules(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    /**
+     * Rule for a normalized number key. Safe to call from any thread.
+     *
+     * @return NumberPrefixTrie.RULE_ALLOW, RULE_DENY or RULE_NONE
+     */
+    public byte match(long key) {
+        NumberPrefixTrie current = trie;
+        if (current == null) {
+            return NumberPrefixTrie.RULE_NONE;
+        }
+        lookups.incrementAndGet();
+        byte rule = current.match(key);
+        if (rule == NumberPrefixTrie.RULE_ALLOW) {
+            allowed.incrementAndGet();
+        } else if (rule == NumberPrefixTrie.RULE_DENY) {
+            denied.incrementAndGet();
+        }
+        return rule;
+    }
+
+    /**
+     * Re-read the rule files, e.g. after number_rules.txt was updated
+     */
+    public void reload() {
+        workerHandler.post(this::load);
+    }
+
+    /**
+     * Replace the local rules file, which overrides the bundled rules, and reload
+     *
+     * @param rules Rule lines in the bundled file's format
+     */
+    public void saveRules(String rules) throws IOException {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(rules.getBytes(StandardCharsets.UTF_8));
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + FILE_NAME);
+        }
+        reload();
+    }
+
+    /**
+     * Rule and lookup counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        NumberPrefixTrie current = trie;
+        stats.put("rules", current != null ? (long) current.getRuleCount() : 0);
+        stats.put("nodes", current != null ? (long) current.getNodeCount() : 0);
+        stats.put("bytes", current != null ? current.sizeInBytes() : 0);
+        stats.put("malformedRules", malformedRules);
+        stats.put("lastLoadMs", lastLoadMs);
+        stats.put("lookups", lookups.get());
+        stats.put("allowed", allowed.get());
+        stats.put("denied", denied.get());
+        return stats;
+    }
+
+    private synchronized void ensureStarted() {
+        if (started) {
+            return;
+        }
+        started = true;
+        workerHandler.post(this::load);
+    }
+
+    /**
+     * Compile all rule files into a new trie and publish it. Runs on the worker thread.
+     */
+    private void load() {
+        long startedAt = SystemClock.elapsedRealtime();
+        NumberPrefixTrie compiled = new NumberPrefixTrie();
+        int[] malformed = new int[1];
+
+        try (InputStream in = context.getAssets().open(FILE_NAME)) {
+            readRules(in, compiled, malformed);
+        } catch (FileNotFoundException e) {
+            // The app does not ship rules
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading bundled number rules: " + e.getMessage(), e);
+        }
+
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                readRules(in, compiled, malformed);
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading number rules: " + e.getMessage(), e);
+            }
+        }
+
+        compiled.trimToSize();
+        trie = compiled;
+        malformedRules = malformed[0];
+        lastLoadMs = SystemClock.elapsedRealtime() - startedAt;
+        Log.d(TAG, "Loaded " + compiled.getRuleCount() + " number rules (" + compiled.getNodeCount()
+                + " nodes, " + malformed[0] + " malformed) in " + lastLoadMs + "ms");
+    }
+
+    private static void readRules(InputStream in, NumberPrefixTrie target, int[] malformed) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            if (!parseRule(line, target)) {
+                malformed[0]++;
+            }
+        }
+    }
+
+    /**
+     * Add one rule line to a trie
+     *
+     * @return false if the line is malformed
+     */
+    static boolean parseRule(String line, NumberPrefixTrie target) {
+        int space = line.indexOf(' ');
+        if (space < 0) {
+            return false;
+        }
+
+        String action = line.substring(0, space);
+        byte rule;
+        if ("deny".equalsIgnoreCase(action)) {
+            rule = NumberPrefixTrie.RULE_DENY;
+        } else if ("allow".equalsIgnoreCase(action)) {
+            rule = NumberPrefixTrie.RULE_ALLOW;
+        } else {
+            return false;
+        }
+
+        String[] ends = RANGE_SEPARATOR.split(line.substring(space + 1).trim(), -1);
+        if (ends.length == 1) {
+            if (!hasDigit(ends[0])) {
+                return false;
+            }
+            target.addPrefix(ends[0], rule);
+            return true;
+        }
+        return ends.length == 2 && target.addRange(ends[0], ends[1], rule);
+    }
+
+    private static boolean hasDigit(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,521 @@
+package com.spamcalldetector.helpers;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.provider.CallLog;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.spamcalldetector.utils.LongObjectHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-number call history statistics: how often a number called, was answered, missed,
+ * rejected or blocked, how long its calls lasted, and how often it was flagged as fraud.
+ * Built from the call log and kept up to date incrementally: each of CallLogSyncTracker's change
+ * notifications triggers a read of the rows added since the last processed _ID. In-app events such as fraud
+ * flags are recorded directly.
+ * Stored in SQLite and mirrored in a map keyed by normalized number, so lookups from the call
+ * setup path are an O(1) in-memory read. All provider and database work runs on the call log
+ * pipeline's worker thread.
+ */
+public class NumberReputationStore {
+    private static final String TAG = "NumberReputationStore";
+    private static final String DATABASE_NAME = "number_reputation.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final int SYNC_BATCH_ROWS = 2000;
+    // Answered calls shorter than this count as short calls
+    private static final int SHORT_CALL_SECONDS = 10;
+
+    private static NumberReputationStore instance;
+
+    private final Context context;
+    private final Handler workerHandler;
+    private final ReputationDatabase database;
+    private boolean loaded = false;
+    private boolean listening = false;
+
+    // Guarded by this
+    private final LongObjectHashMap<Reputation> reputations = new LongObjectHashMap<>();
+    // Highest call log _ID already applied. Only touched on the worker thread.
+    private long lastCallLogId = 0;
+    private volatile boolean isReady = false;
+
+    // Counters
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong syncedRows = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private volatile long lastSyncMs = 0;
+    private volatile long loadMs = 0;
+
+    /**
+     * Statistics of one number. Instances handed out by get are copies.
+     */
+    public static class Reputation {
+        private int totalCalls;
+        private int incomingCalls;
+        private int outgoingCalls;
+        private int answeredCalls;
+        private int missedCalls;
+        private int rejectedCalls;
+        private int blockedCalls;
+        private int shortCalls;
+        private int fraudFlags;
+        private long totalDurationSeconds;
+        private long firstSeen;
+        private long lastSeen;
+
+        Reputation() {
+        }
+
+        Reputation(Reputation other) {
+            totalCalls = other.totalCalls;
+            incomingCalls = other.incomingCalls;
+            outgoingCalls = other.outgoingCalls;
+            answeredCalls = other.answeredCalls;
+            missedCalls = other.missedCalls;
+            rejectedCalls = other.rejectedCalls;
+            blockedCalls = other.blockedCalls;
+            shortCalls = other.shortCalls;
+            fraudFlags = other.fraudFlags;
+            totalDurationSeconds = other.totalDurationSeconds;
+            firstSeen = other.firstSeen;
+            lastSeen = other.lastSeen;
+        }
+
+        public int getTotalCalls() {
+            return totalCalls;
+        }
+
+        public int getIncomingCalls() {
+            return incomingCalls;
+        }
+
+        public int getOutgoingCalls() {
+            return outgoingCalls;
+        }
+
+        public int getAnsweredCalls() {
+            return answeredCalls;
+        }
+
+        public int getMissedCalls() {
+            return missedCalls;
+        }
+
+        public int getRejectedCalls() {
+            return rejectedCalls;
+        }
+
+        public int getBlockedCalls() {
+            return blockedCalls;
+        }
+
+        public int getShortCalls() {
+            return shortCalls;
+        }
+
+        public int getFraudFlags() {
+            return fraudFlags;
+        }
+
+        public long getTotalDurationSeconds() {
+            return totalDurationSeconds;
+        }
+
+        public long getFirstSeen() {
+            return firstSeen;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+
+        /**
+         * Whether the user has ever called this number or spoken to it for a while
+         */
+        public boolean hasEngaged() {
+            return outgoingCalls > 0 || answeredCalls > shortCalls;
+        }
+
+        void addCall(int type, long date, long durationSeconds) {
+            totalCalls++;
+            switch (type) {
+                case CallLog.Calls.OUTGOING_TYPE:
+                    outgoingCalls++;
+                    break;
+                case CallLog.Calls.INCOMING_TYPE:
+                case CallLog.Calls.ANSWERED_EXTERNALLY_TYPE:
+                    incomingCalls++;
+                    answeredCalls++;
+                    if (durationSeconds < SHORT_CALL_SECONDS) {
+                        shortCalls++;
+                    }
+                    break;
+                case CallLog.Calls.MISSED_TYPE:
+                case CallLog.Calls.VOICEMAIL_TYPE:
+                    incomingCalls++;
+                    missedCalls++;
+                    break;
+                case CallLog.Calls.REJECTED_TYPE:
+                    incomingCalls++;
+                    rejectedCalls++;
+                    break;
+                case CallLog.Calls.BLOCKED_TYPE:
+                    incomingCalls++;
+                    blockedCalls++;
+                    break;
+                default:
+                    break;
+            }
+            totalDurationSeconds += Math.max(durationSeconds, 0);
+            touch(date);
+        }
+
+        /**
+         * Add the counts of another reputation of the same number
+         */
+        void add(Reputation other) {
+            totalCalls += other.totalCalls;
+            incomingCalls += other.incomingCalls;
+            outgoingCalls += other.outgoingCalls;
+            answeredCalls += other.answeredCalls;
+            missedCalls += other.missedCalls;
+            rejectedCalls += other.rejectedCalls;
+            blockedCalls += other.blockedCalls;
+            shortCalls += other.shortCalls;
+            fraudFlags += other.fraudFlags;
+            totalDurationSeconds += other.totalDurationSeconds;
+            if (other.firstSeen != 0) {
+                touch(other.firstSeen);
+            }
+            lastSeen = Math.max(lastSeen, other.lastSeen);
+        }
+
+        void touch(long date) {
+            if (firstSeen == 0 || date < firstSeen) {
+                firstSeen = date;
+            }
+            lastSeen = Math.max(lastSeen, date);
+        }
+    }
+
+    private NumberReputationStore(Context context) {
+        this.context = context.getApplicationContext();
+        this.database = new ReputationDatabase(this.context);
+        this.workerHandler = CallLogSyncTracker.getInstance(this.context).getWorkerHandler();
+    }
+
+    /**
+     * Get the shared store, starting the initial load and call log sync if they have not run yet
+     */
+    public static synchronized NumberReputationStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new NumberReputationStore(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    /**
+     * Statistics of a number
+     *
+     * @return A copy, or null if the number has no history or the store is not loaded yet
+     */
+    public Reputation get(long numberKey) {
+        if (numberKey == PhoneNumberNormalizer.INVALID) {
+            return null;
+        }
+        lookups.incrementAndGet();
+        synchronized (this) {
+            Reputation reputation = reputations.get(numberKey);
+            return reputation != null ? new Reputation(reputation) : null;
+        }
+    }
+
+    public Reputation get(String phoneNumber) {
+        return get(PhoneNumberNormalizer.normalize(phoneNumber));
+    }
+
+    /**
+     * Record that a call from this number was flagged as fraud by the app
+     */
+    public void recordFraudFlag(long numberKey) {
+        if (numberKey == PhoneNumberNormalizer.INVALID) {
+            return;
+        }
+        synchronized (this) {
+            Reputation reputation = getOrCreate(reputations, numberKey);
+            reputation.fraudFlags++;
+            reputation.touch(System.currentTimeMillis());
+        }
+        workerHandler.post(() -> persist(numberKey));
+    }
+
+    public boolean isReady() {
+        return isReady;
+    }
+
+    /**
+     * Counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("lookups", lookups.get());
+        stats.put("syncs", syncs.get());
+        stats.put("syncedRows", syncedRows.get());
+        stats.put("lastSyncMs", lastSyncMs);
+        stats.put("loadMs", loadMs);
+        synchronized (this) {
+            stats.put("numbers", (long) reputations.size());
+        }
+        return stats;
+    }
+
+    private synchronized void ensureStarted() {
+        if (!loaded) {
+            loaded = true;
+            workerHandler.post(this::load);
+        }
+        if (listening || !hasCallLogPermission()) {
+            return;
+        }
+
+        listening = true;
+        CallLogSyncTracker.getInstance(context).addChangeListener(this::sync);
+        workerHandler.post(this::sync);
+    }
+
+    /**
+     * Read the stored statistics into memory. Runs on the worker thread.
+     */
+    private void load() {
+        long startedAt = SystemClock.elapsedRealtime();
+        try {
+            SQLiteDatabase db = database.getReadableDatabase();
+            LongObjectHashMap<Reputation> stored = new LongObjectHashMap<>();
+            try (Cursor cursor = db.query(ReputationDatabase.TABLE_REPUTATION, ReputationDatabase.COLUMNS,
+                    null, null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    Reputation reputation = new Reputation();
+                    reputation.totalCalls = cursor.getInt(1);
+                    reputation.incomingCalls = cursor.getInt(2);
+                    reputation.outgoingCalls = cursor.getInt(3);
+                    reputation.answeredCalls = cursor.getInt(4);
+                    reputation.missedCalls = cursor.getInt(5);
+                    reputation.rejectedCalls = cursor.getInt(6);
+                    reputation.blockedCalls = cursor.getInt(7);
+                    reputation.shortCalls = cursor.getInt(8);
+                    reputation.fraudFlags = cursor.getInt(9);
+                    reputation.totalDurationSeconds = cursor.getLong(10);
+                    reputation.firstSeen = cursor.getLong(11);
+                    reputation.lastSeen = cursor.getLong(12);
+                    stored.put(cursor.getLong(0), reputation);
+                }
+            }
+            lastCallLogId = database.getLastCallLogId(db);
+
+            synchronized (this) {
+                // Fraud flags may have been recorded while loading
+                reputations.forEach((key, reputation) -> {
+                    Reputation existing = stored.get(key);
+                    if (existing != null) {
+                        existing.fraudFlags += reputation.fraudFlags;
+                    } else {
+                        stored.put(key, reputation);
+                    }
+                });
+                reputations.clear();
+                stored.forEach(reputations::put);
+            }
+            isReady = true;
+            loadMs = SystemClock.elapsedRealtime() - startedAt;
+            Log.d(TAG, "Loaded reputation of " + stored.size() + " numbers in " + loadMs + "ms");
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading number reputation: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Apply one batch of call log rows added since the last sync. Runs on the worker thread,
+     * which the whole call log pipeline shares: a full batch posts the next one, so the first
+     * sync on a device, which reads the whole call log, lets other work run between batches.
+     */
+    private void sync() {
+        if (!hasCallLogPermission()) {
+            return;
+        }
+
+        long startedAt = SystemClock.elapsedRealtime();
+        try {
+            // The provider is read without the lock, which lookups from call setup need
+            LongObjectHashMap<Reputation> batch = new LongObjectHashMap<>();
+            long[] batchLastId = { lastCallLogId };
+            int batchRows = CallLogHelper.getCallsAfter(context, lastCallLogId, SYNC_BATCH_ROWS, row -> {
+                batchLastId[0] = row.getId();
+                long key = PhoneNumberNormalizer.normalize(row.getNumber());
+                if (key == PhoneNumberNormalizer.INVALID) {
+                    return;
+                }
+                getOrCreate(batch, key).addCall(row.getType(), row.getDate(), row.getDuration());
+            });
+
+            LongObjectHashMap<Reputation> changed = new LongObjectHashMap<>(batch.size());
+            synchronized (this) {
+                batch.forEach((key, counts) -> {
+                    Reputation reputation = getOrCreate(reputations, key);
+                    reputation.add(counts);
+                    // Copy under the lock so the writes below see consistent rows
+                    changed.put(key, new Reputation(reputation));
+                });
+            }
+
+            if (batchRows > 0) {
+                database.write(changed, batchLastId[0]);
+                lastCallLogId = batchLastId[0];
+            }
+            if (batchRows >= SYNC_BATCH_ROWS) {
+                workerHandler.post(this::sync);
+            }
+
+            syncs.incrementAndGet();
+            syncedRows.addAndGet(batchRows);
+            lastSyncMs = SystemClock.elapsedRealtime() - startedAt;
+            if (batchRows > 0) {
+                Log.d(TAG, "Applied " + batchRows + " call log rows in " + lastSyncMs + "ms");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error syncing number reputation: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the current statistics of one number. Runs on the worker thread, after the
+     * stored statistics were loaded.
+     */
+    private void persist(long numberKey) {
+        try {
+            LongObjectHashMap<Reputation> changed = new LongObjectHashMap<>(1);
+            synchronized (this) {
+                Reputation reputation = reputations.get(numberKey);
+                if (reputation == null) {
+                    return;
+                }
+                changed.put(numberKey, new Reputation(reputation));
+            }
+            database.write(changed, lastCallLogId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving number reputation: " + e.getMessage(), e);
+        }
+    }
+
+    private static Reputation getOrCreate(LongObjectHashMap<Reputation> map, long key) {
+        Reputation reputation = map.get(key);
+        if (reputation == null) {
+            reputation = new Reputation();
+            map.put(key, reputation);
+        }
+        return reputation;
+    }
+
+    private boolean hasCallLogPermission() {
+        return ContextCompat.checkSelfPermission(context,
+                Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * SQLite storage: one row per number plus the call log watermark
+     */
+    private static class ReputationDatabase extends SQLiteOpenHelper {
+        static final String TABLE_REPUTATION = "reputation";
+        static final String TABLE_META = "meta";
+        static final String META_LAST_CALL_LOG_ID = "last_call_log_id";
+        static final String[] COLUMNS = {
+                "number_key", "total_calls", "incoming_calls", "outgoing_calls", "answered_calls",
+                "missed_calls", "rejected_calls", "blocked_calls", "short_calls", "fraud_flags",
+                "total_duration_seconds", "first_seen", "last_seen"
+        };
+
+        ReputationDatabase(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_REPUTATION + " ("
+                    + "number_key INTEGER PRIMARY KEY, "
+                    + "total_calls INTEGER NOT NULL, "
+                    + "incoming_calls INTEGER NOT NULL, "
+                    + "outgoing_calls INTEGER NOT NULL, "
+                    + "answered_calls INTEGER NOT NULL, "
+                    + "missed_calls INTEGER NOT NULL, "
+                    + "rejected_calls INTEGER NOT NULL, "
+                    + "blocked_calls INTEGER NOT NULL, "
+                    + "short_calls INTEGER NOT NULL, "
+                    + "fraud_flags INTEGER NOT NULL, "
+                    + "total_duration_seconds INTEGER NOT NULL, "
+                    + "first_seen INTEGER NOT NULL, "
+                    + "last_seen INTEGER NOT NULL) WITHOUT ROWID");
+            db.execSQL("CREATE TABLE " + TABLE_META + " (name TEXT PRIMARY KEY, value INTEGER NOT NULL)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_REPUTATION);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_META);
+            onCreate(db);
+        }
+
+        long getLastCallLogId(SQLiteDatabase db) {
+            try (Cursor cursor = db.rawQuery("SELECT value FROM " + TABLE_META + " WHERE name = ?",
+                    new String[] { META_LAST_CALL_LOG_ID })) {
+                return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+            }
+        }
+
+        /**
+         * Upsert rows and advance the watermark in one transaction
+         */
+        void write(LongObjectHashMap<Reputation> changed, long lastCallLogId) {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try (SQLiteStatement upsert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_REPUTATION
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 SQLiteStatement watermark = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_META
+                    + " VALUES ('" + META_LAST_CALL_LOG_ID + "', ?)")) {
+                changed.forEach((key, reputation) -> {
+                    upsert.bindLong(1, key);
+                    upsert.bindLong(2, reputation.totalCalls);
+                    upsert.bindLong(3, reputation.incomingCalls);
+                    upsert.bindLong(4, reputation.outgoingCalls);
+                    upsert.bindLong(5, reputation.answeredCalls);
+                    upsert.bindLong(6, reputation.missedCalls);
+                    upsert.bindLong(7, reputation.rejectedCalls);
+                    upsert.bindLong(8, reputation.blockedCalls);
+                    upsert.bindLong(9, reputation.shortCalls);
+                    upsert.bindLong(10, reputation.fraudFlags);
+                    upsert.bindLong(11, reputation.totalDurationSeconds);
+                    upsert.bindLong(12, reputation.firstSeen);
+                    upsert.bindLong(13, reputation.lastSeen);
+                    upsert.executeInsert();
+                });
+                watermark.bindLong(1, lastCallLogId);
+                watermark.executeInsert();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+}
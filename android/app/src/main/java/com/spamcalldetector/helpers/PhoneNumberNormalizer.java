@@ -0,0 +1,334 @@
+package com.spamcalldetector.helpers;
+
+import java.util.Locale;
+
+/**
+ * Parses phone numbers into a canonical packed long without allocating.
+ * Different spellings of the same number ("+1 845-299-8019", "8452998019", "+18452998019",
+ * "011 1 845 299 8019") produce the same key, so call-path maps and comparisons can be
+ * keyed on a primitive instead of raw handle strings.
+ *
+ * Key layout (most significant bits first):
+ * <pre>
+ *   [63..54] country calling code (1-999)
+ *   [53..50] national significant number length in digits (1-15)
+ *   [49..0]  national significant number value
+ * </pre>
+ * The length is kept so that national numbers with leading zeros stay distinct.
+ * Short codes (emergency and carrier service numbers, SMS short codes) dialed without a
+ * country code belong to no country and are reported as INVALID rather than prefixed.
+ */
+public final class PhoneNumberNormalizer {
+
+    /** Returned for input that is not a dialable phone number */
+    public static final long INVALID = 0;
+
+    private static final int MAX_DIGITS = 18;
+    private static final int MAX_NATIONAL_DIGITS = 15;
+    private static final int MIN_NATIONAL_DIGITS = 3;
+    // Numbers dialed without a country code up to this length are short codes ("911", "112", "22395")
+    private static final int MAX_SHORT_CODE_DIGITS = 6;
+
+    private static final int NATIONAL_BITS = 50;
+    private static final int LENGTH_SHIFT = 50;
+    private static final int COUNTRY_SHIFT = 54;
+    private static final long NATIONAL_MASK = (1L << NATIONAL_BITS) - 1;
+
+    private static final int NANP_COUNTRY_CODE = 1;
+    private static final int ITALY_COUNTRY_CODE = 39;
+
+    private static final long[] POW10 = new long[MAX_DIGITS + 1];
+
+    // ISO 3166 region codes, each followed by its country calling code
+    private static final String REGION_CODES =
+            "AC247 AD376 AE971 AF93 AG1 AI1 AL355 AM374 AO244 AR54 AS1 AT43 AU61 AW297 AX358 AZ994 " +
+            "BA387 BB1 BD880 BE32 BF226 BG359 BH973 BI257 BJ229 BL590 BM1 BN673 BO591 BQ599 BR55 BS1 BT975 BW267 BY375 BZ501 " +
+            "CA1 CC61 CD243 CF236 CG242 CH41 CI225 CK682 CL56 CM237 CN86 CO57 CR506 CU53 CV238 CW599 CX61 CY357 CZ420 " +
+            "DE49 DJ253 DK45 DM1 DO1 DZ213 " +
+            "EC593 EE372 EG20 EH212 ER291 ES34 ET251 " +
+            "FI358 FJ679 FK500 FM691 FO298 FR33 " +
+            "GA241 GB44 GD1 GE995 GF594 GG44 GH233 GI350 GL299 GM220 GN224 GP590 GQ240 GR30 GT502 GU1 GW245 GY592 " +
+            "HK852 HN504 HR385 HT509 HU36 " +
+            "ID62 IE353 IL972 IM44 IN91 IO246 IQ964 IR98 IS354 IT39 " +
+            "JE44 JM1 JO962 JP81 " +
+            "KE254 KG996 KH855 KI686 KM269 KN1 KP850 KR82 KW965 KY1 KZ7 " +
+            "LA856 LB961 LC1 LI423 LK94 LR231 LS266 LT370 LU352 LV371 LY218 " +
+            "MA212 MC377 MD373 ME382 MF590 MG261 MH692 MK389 ML223 MM95 MN976 MO853 MP1 MQ596 MR222 MS1 MT356 MU230 MV960 MW265 MX52 MY60 MZ258 " +
+            "NA264 NC687 NE227 NF672 NG234 NI505 NL31 NO47 NP977 NR674 NU683 NZ64 " +
+            "OM968 " +
+            "PA507 PE51 PF689 PG675 PH63 PK92 PL48 PM508 PR1 PS970 PT351 PW680 PY595 " +
+            "QA974 " +
+            "RE262 RO40 RS381 RU7 RW250 " +
+            "SA966 SB677 SC248 SD249 SE46 SG65 SH290 SI386 SJ47 SK421 SL232 SM378 SN221 SO252 SR597 SS211 ST239 SV503 SX1 SY963 SZ268 " +
+            "TA290 TC1 TD235 TG228 TH66 TJ992 TK690 TL670 TM993 TN216 TO676 TR90 TT1 TV688 TW886 TZ255 " +
+            "UA380 UG256 US1 UY598 UZ998 " +
+            "VA39 VC1 VE58 VG1 VI1 VN84 VU678 " +
+            "WF681 WS685 " +
+            "XK383 " +
+            "YE967 YT262 " +
+            "ZA27 ZM260 ZW263";
+
+    // ITU-T E.164 two-digit country codes; codes are prefix-free so everything else
+    // starting with 2-9 that is not listed here is a three-digit code
+    private static final boolean[] TWO_DIGIT_CODES = new boolean[100];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+
+        int[] twoDigitCodes = {
+                20, 27, 30, 31, 32, 33, 34, 36, 39, 40, 41, 43, 44, 45, 46, 47, 48, 49,
+                51, 52, 53, 54, 55, 56, 57, 58, 60, 61, 62, 63, 64, 65, 66,
+                81, 82, 84, 86, 90, 91, 92, 93, 94, 95, 98
+        };
+        for (int code : twoDigitCodes) {
+            TWO_DIGIT_CODES[code] = true;
+        }
+    }
+
+    private static volatile int defaultCountryCode = Constants.DEFAULT_COUNTRY_CALLING_CODE;
+
+    private PhoneNumberNormalizer() {
+        throw new UnsupportedOperationException("PhoneNumberNormalizer cannot be instantiated");
+    }
+
+    /**
+     * Set the country assumed for numbers dialed without an international prefix
+     */
+    public static void setDefaultCountryCode(int countryCode) {
+        if (countryCode < 1 || countryCode > 999) {
+            throw new IllegalArgumentException("Invalid country calling code: " + countryCode);
+        }
+        defaultCountryCode = countryCode;
+    }
+
+    public static int getDefaultCountryCode() {
+        return defaultCountryCode;
+    }
+
+    /**
+     * Country calling code of a region, e.g. 49 for "de"
+     *
+     * @param region ISO 3166 alpha-2 region code in either case
+     * @return The calling code, or 0 if the region is not known
+     */
+    public static int countryCodeForRegion(String region) {
+        if (region == null || region.length() != 2) {
+            return 0;
+        }
+        String upper = region.toUpperCase(Locale.ROOT);
+        if (upper.charAt(0) < 'A' || upper.charAt(0) > 'Z' || upper.charAt(1) < 'A' || upper.charAt(1) > 'Z') {
+            return 0;
+        }
+        // Letters only start entries, so a two-letter match is a whole region code
+        int at = REGION_CODES.indexOf(upper);
+        if (at < 0) {
+            return 0;
+        }
+        int code = 0;
+        for (int i = at + 2; i < REGION_CODES.length() && REGION_CODES.charAt(i) != ' '; i++) {
+            code = code * 10 + (REGION_CODES.charAt(i) - '0');
+        }
+        return code;
+    }
+
+    /**
+     * Normalize using the default country for national numbers
+     */
+    public static long normalize(CharSequence number) {
+        return normalize(number, defaultCountryCode);
+    }
+
+    /**
+     * Parse a phone number into its packed key
+     *
+     * @param number             Raw number as dialed, stored or received from Telecom
+     * @param defaultCountryCode Country assumed when the number has no international prefix
+     * @return Packed key, or INVALID if the input is not a phone number or is a short code
+     */
+    public static long normalize(CharSequence number, int defaultCountryCode) {
+        if (number == null) {
+            return INVALID;
+        }
+
+        long digits = 0;
+        int count = 0;
+        boolean hasPlus = false;
+        int length = number.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++count > MAX_DIGITS) {
+                    return INVALID;
+                }
+                digits = digits * 10 + (c - '0');
+            } else if (c == '+') {
+                // Only valid before the first digit
+                if (count > 0 || hasPlus) {
+                    return INVALID;
+                }
+                hasPlus = true;
+            } else if (c == ' ' || c == '-' || c == '.' || c == '(' || c == ')' || c == '/'
+                    || c == '\u00A0' || c == '\t') {
+                // Formatting characters
+            } else if (c == ',' || c == ';' || c == 'p' || c == 'P' || c == 'w' || c == 'W'
+                    || c == 'x' || c == 'X') {
+                // Pauses, waits and extensions end the dialable part
+                break;
+            } else {
+                // Service codes (*, #), letters and anything else
+                return INVALID;
+            }
+        }
+
+        if (count == 0) {
+            return INVALID;
+        }
+
+        if (hasPlus) {
+            return fromInternational(digits, count);
+        }
+
+        // International dialing prefixes: 011 from NANP countries, 00 elsewhere
+        if (defaultCountryCode == NANP_COUNTRY_CODE) {
+            if (count > 3 && leadingDigits(digits, count, 3) == 11) {
+                return fromInternational(digits % POW10[count - 3], count - 3);
+            }
+        } else if (count > 2 && leadingDigits(digits, count, 2) == 0) {
+            return fromInternational(digits % POW10[count - 2], count - 2);
+        }
+
+        if (count <= MAX_SHORT_CODE_DIGITS) {
+            return INVALID;
+        }
+        return fromNational(digits, count, defaultCountryCode);
+    }
+
+    /**
+     * Compare two raw numbers by their normalized keys
+     */
+    public static boolean isSameNumber(CharSequence a, CharSequence b) {
+        long keyA = normalize(a);
+        return keyA != INVALID && keyA == normalize(b);
+    }
+
+    public static int countryCode(long key) {
+        return (int) (key >>> COUNTRY_SHIFT);
+    }
+
+    public static int nationalLength(long key) {
+        return (int) ((key >>> LENGTH_SHIFT) & 0xF);
+    }
+
+    public static long nationalNumber(long key) {
+        return key & NATIONAL_MASK;
+    }
+
+    /**
+     * Format a key as an E.164 string. Allocates; meant for logging and display.
+     */
+    public static String toE164(long key) {
+        if (key == INVALID) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(20);
+        builder.append('+').append(countryCode(key));
+        appendPadded(builder, nationalNumber(key), nationalLength(key));
+        return builder.toString();
+    }
+
+    /**
+     * Total number of digits in the E.164 form of a key (country code plus national number)
+     */
+    public static int digitCount(long key) {
+        int countryCode = countryCode(key);
+        int countryDigits = countryCode >= 100 ? 3 : countryCode >= 10 ? 2 : 1;
+        return countryDigits + nationalLength(key);
+    }
+
+    /**
+     * Digit at a position of the E.164 form of a key, without allocating
+     *
+     * @param index 0-based position, 0 being the first country code digit
+     */
+    public static int e164DigitAt(long key, int index) {
+        int countryCode = countryCode(key);
+        int countryDigits = countryCode >= 100 ? 3 : countryCode >= 10 ? 2 : 1;
+        if (index < countryDigits) {
+            return (int) ((countryCode / POW10[countryDigits - 1 - index]) % 10);
+        }
+        int nationalLength = nationalLength(key);
+        return (int) ((nationalNumber(key) / POW10[nationalLength - 1 - (index - countryDigits)]) % 10);
+    }
+
+    private static long fromInternational(long digits, int count) {
+        if (count < 1 + MIN_NATIONAL_DIGITS) {
+            return INVALID;
+        }
+
+        int first = digitAt(digits, count, 0);
+        int countryDigits;
+        if (first == 0) {
+            return INVALID;
+        } else if (first == 1 || first == 7) {
+            countryDigits = 1;
+        } else if (TWO_DIGIT_CODES[(int) leadingDigits(digits, count, 2)]) {
+            countryDigits = 2;
+        } else {
+            countryDigits = 3;
+        }
+
+        int countryCode = (int) leadingDigits(digits, count, countryDigits);
+        int nationalCount = count - countryDigits;
+        long national = digits % POW10[nationalCount];
+
+        // "+44 (0)20 ..." style numbers keep the trunk prefix; Italy uses the 0 as part of the number
+        if (countryCode != ITALY_COUNTRY_CODE && nationalCount > 0 && digitAt(national, nationalCount, 0) == 0) {
+            nationalCount--;
+        }
+        return pack(countryCode, national, nationalCount);
+    }
+
+    private static long fromNational(long digits, int count, int countryCode) {
+        if (countryCode == NANP_COUNTRY_CODE) {
+            // 1 + 10 digits is a NANP number written with its trunk prefix
+            if (count == 11 && digitAt(digits, count, 0) == 1) {
+                return pack(countryCode, digits % POW10[10], 10);
+            }
+        } else if (countryCode != ITALY_COUNTRY_CODE && count > 1 && digitAt(digits, count, 0) == 0) {
+            // Strip the national trunk prefix
+            return pack(countryCode, digits % POW10[count - 1], count - 1);
+        }
+        return pack(countryCode, digits, count);
+    }
+
+    private static long pack(int countryCode, long national, int nationalCount) {
+        if (nationalCount < MIN_NATIONAL_DIGITS || nationalCount > MAX_NATIONAL_DIGITS
+                || countryCode < 1 || countryCode > 999) {
+            return INVALID;
+        }
+        return ((long) countryCode << COUNTRY_SHIFT)
+                | ((long) nationalCount << LENGTH_SHIFT)
+                | (national % POW10[nationalCount]);
+    }
+
+    /**
+     * First n digits of a number with the given total digit count
+     */
+    private static long leadingDigits(long digits, int count, int n) {
+        return digits / POW10[count - n];
+    }
+
+    private static int digitAt(long digits, int count, int index) {
+        return (int) ((digits / POW10[count - 1 - index]) % 10);
+    }
+
+    private static void appendPadded(StringBuilder builder, long value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            builder.append((char) ('0' + (value / POW10[i]) % 10));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.spamcalldetector.helpers;
+
+import android.util.Log;
+
+import com.spamcalldetector.utils.CountMinSketch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spots robocall waves: many distinct numbers from the same number block calling within a few
+ * minutes. Every incoming call is fed into a ring of time buckets, each holding one count-min
+ * sketch of exact numbers and one of number blocks (the number without its last digits).
+ * A block is counted once per distinct number, and is flagged when its recent count exceeds
+ * both a floor and a multiple of its per-bucket rate over the rest of the window.
+ * Memory is fixed by the sketch dimensions, whatever the call volume.
+ */
+public class RobocallBurstDetector {
+    private static final String TAG = "RobocallBurstDetector";
+
+    public static final int RISK_NONE = 0;
+    public static final int RISK_REPEAT_CALLER = 1;
+    public static final int RISK_PREFIX_BURST = 2;
+
+    // Window of 12 buckets of 5 minutes; the latest 2 are compared against the other 10
+    private static final long BUCKET_MS = 5 * 60 * 1000;
+    private static final int BUCKETS = 12;
+    private static final int BURST_BUCKETS = 2;
+
+    // A number block is the number without its last 4 digits (e.g. a NANP NPA-NXX)
+    private static final int BLOCK_DROPPED_DIGITS = 4;
+    private static final int MIN_BURST_DISTINCT_NUMBERS = 5;
+    private static final int BURST_FACTOR = 4;
+    private static final int MIN_REPEAT_CALLS = 3;
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1024;
+
+    private static RobocallBurstDetector instance;
+
+    // Guarded by this
+    private final CountMinSketch[] numberSketches = new CountMinSketch[BUCKETS];
+    private final CountMinSketch[] blockSketches = new CountMinSketch[BUCKETS];
+    private final long[] bucketEpochs = new long[BUCKETS];
+
+    // Counters, guarded by this
+    private long recordedCalls = 0;
+    private long prefixBursts = 0;
+    private long repeatCallers = 0;
+
+    RobocallBurstDetector() {
+        for (int i = 0; i < BUCKETS; i++) {
+            numberSketches[i] = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+            blockSketches[i] = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+            bucketEpochs[i] = -1;
+        }
+    }
+
+    public static synchronized RobocallBurstDetector getInstance() {
+        if (instance == null) {
+            instance = new RobocallBurstDetector();
+        }
+        return instance;
+    }
+
+    /**
+     * Record an incoming call and classify it
+     *
+     * @param numberKey Normalized caller number
+     * @param nowMs     Wall-clock time of the call
+     * @return RISK_PREFIX_BURST, RISK_REPEAT_CALLER or RISK_NONE
+     */
+    public synchronized int recordIncomingCall(long numberKey, long nowMs) {
+        if (numberKey == PhoneNumberNormalizer.INVALID) {
+            return RISK_NONE;
+        }
+        long epoch = nowMs / BUCKET_MS;
+        int slot = slotFor(epoch);
+        long blockKey = blockKeyOf(numberKey);
+
+        // Count a block once per distinct number in the window
+        int previousCalls = sumRecent(numberSketches, numberKey, epoch, BUCKETS);
+        numberSketches[slot].add(numberKey, 1);
+        if (previousCalls == 0) {
+            blockSketches[slot].add(blockKey, 1);
+        }
+        recordedCalls++;
+
+        if (isBlockBursting(blockKey, epoch)) {
+            prefixBursts++;
+            Log.d(TAG, "Call burst from number block of " + PhoneNumberNormalizer.toE164(numberKey));
+            return RISK_PREFIX_BURST;
+        }
+        if (previousCalls + 1 >= MIN_REPEAT_CALLS) {
+            repeatCallers++;
+            return RISK_REPEAT_CALLER;
+        }
+        return RISK_NONE;
+    }
+
+    /**
+     * Classify a number without recording a call
+     */
+    public synchronized int getRisk(long numberKey, long nowMs) {
+        if (numberKey == PhoneNumberNormalizer.INVALID) {
+            return RISK_NONE;
+        }
+        long epoch = nowMs / BUCKET_MS;
+        if (isBlockBursting(blockKeyOf(numberKey), epoch)) {
+            return RISK_PREFIX_BURST;
+        }
+        if (sumRecent(numberSketches, numberKey, epoch, BUCKETS) >= MIN_REPEAT_CALLS) {
+            return RISK_REPEAT_CALLER;
+        }
+        return RISK_NONE;
+    }
+
+    /**
+     * Counters for diagnostics
+     */
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("recordedCalls", recordedCalls);
+        stats.put("prefixBursts", prefixBursts);
+        stats.put("repeatCallers", repeatCallers);
+        stats.put("sketchBytes", (long) BUCKETS * (numberSketches[0].sizeInBytes() + blockSketches[0].sizeInBytes()));
+        return stats;
+    }
+
+    private boolean isBlockBursting(long blockKey, long epoch) {
+        int recent = sumRecent(blockSketches, blockKey, epoch, BURST_BUCKETS);
+        if (recent < MIN_BURST_DISTINCT_NUMBERS) {
+            return false;
+        }
+        int baseline = sumRecent(blockSketches, blockKey, epoch, BUCKETS) - recent;
+        int baselineBuckets = BUCKETS - BURST_BUCKETS;
+        // recent / BURST_BUCKETS > BURST_FACTOR * baseline / baselineBuckets, without division
+        return (long) recent * baselineBuckets > (long) BURST_FACTOR * baseline * BURST_BUCKETS;
+    }
+
+    /**
+     * Sum of a key's estimates over the latest buckets, skipping buckets outside the window
+     */
+    private int sumRecent(CountMinSketch[] sketches, long key, long epoch, int buckets) {
+        int sum = 0;
+        for (int i = 0; i < buckets; i++) {
+            int slot = (int) ((epoch - i) % BUCKETS);
+            if (bucketEpochs[slot] == epoch - i) {
+                sum += sketches[slot].estimate(key);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Slot of the bucket for an epoch, recycling it if it still holds an older epoch
+     */
+    private int slotFor(long epoch) {
+        int slot = (int) (epoch % BUCKETS);
+        if (bucketEpochs[slot] != epoch) {
+            numberSketches[slot].clear();
+            blockSketches[slot].clear();
+            bucketEpochs[slot] = epoch;
+        }
+        return slot;
+    }
+
+    private static long blockKeyOf(long numberKey) {
+        int nationalLength = PhoneNumberNormalizer.nationalLength(numberKey);
+        int dropped = Math.min(BLOCK_DROPPED_DIGITS, nationalLength - 1);
+        long national = PhoneNumberNormalizer.nationalNumber(numberKey);
+        for (int i = 0; i < dropped; i++) {
+            national /= 10;
+        }
+        // Keep country code and length so blocks of different number plans stay apart
+        return (numberKey ^ PhoneNumberNormalizer.nationalNumber(numberKey)) | national;
+    }
+}
@@ -0,0 +1,457 @@
+package com.spamcalldetector.helpers;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.spamcalldetector.utils.BloomFilter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local list of known scam numbers, checked before an incoming call rings.
+ * Numbers are stored as PhoneNumberNormalizer keys in a sorted array that is memory-mapped from
+ * disk and binary searched, so large lists cost page cache rather than Java heap. A Bloom filter
+ * held in memory answers most lookups for numbers that are not listed without touching the file.
+ *
+ * File format (big-endian):
+ *   int magic, int version, int bloom hash count, int bloom word count, long key count,
+ *   long[bloom word count] bloom bits, long[key count] sorted unique keys
+ *
+ * Sources are text files of numbers, one per line in any format PhoneNumberNormalizer accepts,
+ * with # comments: assets/scam_blocklist.txt shipped with the app, then scam_blocklist.txt in the
+ * app files directory, where numbers confirmed as fraud on this device are appended. They are
+ * compiled into the mapped file on a worker thread when it is missing or older than the app or
+ * the local list, so normal starts only map the file. Numbers added at runtime are kept in a small
+ * sorted overlay next to the mapped file and folded into it at the next compile. Until the file
+ * is loaded every lookup answers from the overlay alone.
+ */
+public class ScamBlocklist {
+    private static final String TAG = "ScamBlocklist";
+    private static final String FILE_NAME = "scam_blocklist.bin";
+    private static final String SOURCE_FILE_NAME = "scam_blocklist.txt";
+    private static final int MAGIC = 0x53434231; // "SCB1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    private static ScamBlocklist instance;
+
+    private final Context context;
+    private final Handler workerHandler;
+    private boolean started = false;
+
+    private volatile Index index;
+    // Sorted keys added since the last compile; replaced, never modified
+    private volatile long[] added = new long[0];
+
+    // Counters
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong bloomNegatives = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong totalLookupNanos = new AtomicLong();
+    private volatile long lastLoadMs = -1;
+
+    /**
+     * A mapped list file. Immutable once loaded; lookups are safe from any thread.
+     */
+    public static class Index {
+        final BloomFilter bloom;
+        final LongBuffer keys;
+        final int count;
+        final long mappedBytes;
+
+        private Index(BloomFilter bloom, LongBuffer keys, int count, long mappedBytes) {
+            this.bloom = bloom;
+            this.keys = keys;
+            this.count = count;
+            this.mappedBytes = mappedBytes;
+        }
+
+        /**
+         * Map a list file written by ScamBlocklist.write
+         */
+        public static Index load(File file) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                long size = channel.size();
+                if (size < HEADER_BYTES) {
+                    throw new IOException("Blocklist file too short");
+                }
+                // The mapping stays valid after the channel is closed
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+                int magic = buffer.getInt();
+                int version = buffer.getInt();
+                int hashCount = buffer.getInt();
+                int wordCount = buffer.getInt();
+                long count = buffer.getLong();
+                if (magic != MAGIC || version != VERSION) {
+                    throw new IOException("Unsupported blocklist format");
+                }
+                if (wordCount <= 0 || count < 0 || count > Integer.MAX_VALUE
+                        || HEADER_BYTES + 8L * (wordCount + count) != size) {
+                    throw new IOException("Corrupt blocklist header");
+                }
+
+                long[] words = new long[wordCount];
+                LongBuffer longs = buffer.asLongBuffer();
+                longs.get(words);
+                LongBuffer keys = longs.slice();
+                return new Index(new BloomFilter(words, hashCount), keys, (int) count, size);
+            }
+        }
+
+        /**
+         * Bloom filter check, then binary search of the mapped keys
+         */
+        public boolean contains(long key) {
+            return bloom.mightContain(key) && binarySearch(keys, count, key);
+        }
+
+        public int size() {
+            return count;
+        }
+    }
+
+    private ScamBlocklist(Context context) {
+        this.context = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("scam-blocklist");
+        thread.start();
+        this.workerHandler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Get the shared blocklist, starting the initial load if it has not run yet
+     */
+    public static synchronized ScamBlocklist getInstance(Context context) {
+        if (instance == null) {
+            instance = new ScamBlocklist(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    /**
+     * Whether a number is on the list
+     */
+    public boolean isBlocked(String phoneNumber) {
+        return isBlocked(PhoneNumberNormalizer.normalize(phoneNumber));
+    }
+
+    /**
+     * Whether a normalized number key is on the list. Safe to call from any thread.
+     */
+    public boolean isBlocked(long key) {
+        if (key == PhoneNumberNormalizer.INVALID) {
+            return false;
+        }
+        // Overlay first: a compile publishes the new file before it clears the overlay
+        long[] overlay = added;
+        if (overlay.length > 0 && Arrays.binarySearch(overlay, key) >= 0) {
+            hits.incrementAndGet();
+            return true;
+        }
+        Index current = index;
+        if (current == null) {
+            return false;
+        }
+
+        long startedAt = System.nanoTime();
+        lookups.incrementAndGet();
+        boolean blocked;
+        if (!current.bloom.mightContain(key)) {
+            bloomNegatives.incrementAndGet();
+            blocked = false;
+        } else {
+            blocked = binarySearch(current.keys, current.count, key);
+            if (blocked) {
+                hits.incrementAndGet();
+            } else {
+                falsePositives.incrementAndGet();
+            }
+        }
+        totalLookupNanos.addAndGet(System.nanoTime() - startedAt);
+        return blocked;
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /**
+     * Add a number confirmed as fraud on this device. It is appended to the local list and put in
+     * the in-memory overlay, so it is blocked at once without rewriting the mapped file; the next
+     * compile folds it in.
+     */
+    public void add(final long key) {
+        if (key == PhoneNumberNormalizer.INVALID) {
+            return;
+        }
+        workerHandler.post(() -> {
+            Index current = index;
+            long[] overlay = added;
+            int position = Arrays.binarySearch(overlay, key);
+            if (position >= 0 || (current != null && current.contains(key))) {
+                return;
+            }
+            try (Writer out = new FileWriter(getSourceFile(), true)) {
+                out.write(PhoneNumberNormalizer.toE164(key));
+                out.write('\n');
+            } catch (IOException e) {
+                Log.e(TAG, "Error saving blocklisted number: " + e.getMessage(), e);
+            }
+
+            int insertAt = -position - 1;
+            long[] next = new long[overlay.length + 1];
+            System.arraycopy(overlay, 0, next, 0, insertAt);
+            next[insertAt] = key;
+            System.arraycopy(overlay, insertAt, next, insertAt + 1, overlay.length - insertAt);
+            added = next;
+        });
+    }
+
+    /**
+     * Recompile the list from its sources, e.g. after scam_blocklist.txt was updated
+     */
+    public void reload() {
+        workerHandler.post(this::compile);
+    }
+
+    /**
+     * Lookup and size counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        Index current = index;
+        long count = lookups.get();
+        stats.put("entries", current != null ? (long) current.count : 0);
+        stats.put("addedEntries", (long) added.length);
+        stats.put("bloomBytes", current != null ? (long) current.bloom.sizeInBytes() : 0);
+        stats.put("mappedBytes", current != null ? current.mappedBytes : 0);
+        stats.put("lookups", count);
+        stats.put("bloomNegatives", bloomNegatives.get());
+        stats.put("hits", hits.get());
+        stats.put("falsePositives", falsePositives.get());
+        stats.put("averageLookupNanos", count > 0 ? totalLookupNanos.get() / count : 0);
+        stats.put("lastLoadMs", lastLoadMs);
+        return stats;
+    }
+
+    /**
+     * Write a list file for a set of keys. Keys are sorted and deduplicated; INVALID is dropped.
+     */
+    public static void write(File file, long[] keys) throws IOException {
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            long key = sorted[i];
+            if (key != PhoneNumberNormalizer.INVALID && (count == 0 || sorted[count - 1] != key)) {
+                sorted[count++] = key;
+            }
+        }
+
+        BloomFilter bloom = new BloomFilter(count, BLOOM_FALSE_POSITIVE_RATE);
+        for (int i = 0; i < count; i++) {
+            bloom.put(sorted[i]);
+        }
+        long[] words = bloom.getWords();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(bloom.getHashCount());
+            out.writeInt(words.length);
+            out.writeLong(count);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeLong(sorted[i]);
+            }
+        }
+    }
+
+    private synchronized void ensureStarted() {
+        if (started) {
+            return;
+        }
+        started = true;
+        workerHandler.post(() -> {
+            try {
+                File file = getFile();
+                if (isStale(file)) {
+                    compile();
+                } else {
+                    load(file);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading blocklist: " + e.getMessage(), e);
+                compile();
+            }
+        });
+    }
+
+    /**
+     * Whether the mapped file predates the installed app (and so its bundled list) or the local list
+     */
+    private boolean isStale(File file) {
+        if (!file.exists()) {
+            return true;
+        }
+        long sourcesUpdatedAt = getSourceFile().lastModified();
+        try {
+            sourcesUpdatedAt = Math.max(sourcesUpdatedAt, context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading app update time: " + e.getMessage());
+        }
+        return file.lastModified() < sourcesUpdatedAt;
+    }
+
+    /**
+     * Parse the bundled and local lists and publish them as a new mapped file. Runs on the
+     * worker thread.
+     */
+    private void compile() {
+        long startedAt = SystemClock.elapsedRealtime();
+        KeyBuffer keys = new KeyBuffer();
+
+        try (InputStream in = context.getAssets().open(SOURCE_FILE_NAME)) {
+            readNumbers(in, keys);
+        } catch (FileNotFoundException e) {
+            // The app does not ship a list
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading bundled blocklist: " + e.getMessage(), e);
+        }
+
+        File source = getSourceFile();
+        if (source.exists()) {
+            try (InputStream in = new FileInputStream(source)) {
+                readNumbers(in, keys);
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading local blocklist: " + e.getMessage(), e);
+            }
+        }
+
+        if (publish(keys.toArray())) {
+            // The local list the overlay was appended to is now part of the mapped file
+            added = new long[0];
+        }
+        Log.d(TAG, "Compiled " + keys.size + " blocklist numbers in "
+                + (SystemClock.elapsedRealtime() - startedAt) + "ms");
+    }
+
+    /**
+     * Write keys to the mapped file and load it. Runs on the worker thread.
+     *
+     * @return Whether the new file is in use
+     */
+    private boolean publish(long[] keys) {
+        File target = getFile();
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            write(temp, keys);
+            if (!temp.renameTo(target)) {
+                throw new IOException("Could not replace " + target.getName());
+            }
+            load(target);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error writing blocklist: " + e.getMessage(), e);
+            temp.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Map a list file and publish it. Runs on the worker thread.
+     */
+    private void load(File file) throws IOException {
+        long startedAt = SystemClock.elapsedRealtime();
+        Index loaded = Index.load(file);
+        index = loaded;
+        lastLoadMs = SystemClock.elapsedRealtime() - startedAt;
+        Log.d(TAG, "Loaded " + loaded.count + " blocklisted numbers in " + lastLoadMs + "ms");
+    }
+
+    private static void readNumbers(InputStream in, KeyBuffer target) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int comment = line.indexOf('#');
+            long key = PhoneNumberNormalizer.normalize(comment >= 0 ? line.substring(0, comment) : line);
+            if (key != PhoneNumberNormalizer.INVALID) {
+                target.add(key);
+            }
+        }
+    }
+
+    /**
+     * Growable long array, so parsed lists are not boxed
+     */
+    private static class KeyBuffer {
+        long[] keys = new long[1024];
+        int size;
+
+        void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(keys, size);
+        }
+    }
+
+    private File getSourceFile() {
+        return new File(context.getFilesDir(), SOURCE_FILE_NAME);
+    }
+
+    private File getFile() {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    private static boolean binarySearch(LongBuffer keys, int count, long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = keys.get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+}
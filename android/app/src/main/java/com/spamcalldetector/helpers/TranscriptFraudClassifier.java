@@ -0,0 +1,405 @@
+package com.spamcalldetector.helpers;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.spamcalldetector.utils.PhraseAutomaton;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scores call transcripts for scam phrases on the device, one fragment at a time.
+ * Phrases are read from assets/scam_phrases.txt and then from scam_phrases.txt in the app files
+ * directory, later lines overriding the weight and category of the same phrase. One phrase per line:
+ * <pre>
+ *   0.7 gift_card   gift card
+ *   0.8 otp         read me the code
+ *   # comment
+ * </pre>
+ * The phrases are compiled into a PhraseAutomaton on a worker thread. Each caller gets a session
+ * that keeps the automaton state between fragments, so a phrase split across fragments still
+ * matches and concurrent calls do not mix. Each fragment is scored in a single pass over its
+ * characters. A session's score combines the weights of the distinct phrases heard so far as
+ * independent evidence.
+ */
+public class TranscriptFraudClassifier {
+    private static final String TAG = "TranscriptFraudClassifier";
+    private static final String FILE_NAME = "scam_phrases.txt";
+
+    /** Session score at which a call is reported as fraud */
+    public static final double FRAUD_THRESHOLD = 0.8;
+
+    // Sessions kept at once; the least recently fed is dropped beyond this
+    private static final int MAX_SESSIONS = 8;
+
+    private static TranscriptFraudClassifier instance;
+
+    private final Context context;
+    private final Handler workerHandler;
+    private boolean started = false;
+
+    private volatile PhraseSet phraseSet;
+
+    // Sessions by caller number key, least recently fed first. Guarded by this
+    private final LinkedHashMap<Long, Session> activeSessions = new LinkedHashMap<Long, Session>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Session> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    // Counters
+    private final AtomicLong fragments = new AtomicLong();
+    private final AtomicLong characters = new AtomicLong();
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong sessions = new AtomicLong();
+    private final AtomicLong fraudSessions = new AtomicLong();
+    private final AtomicLong classifyNanos = new AtomicLong();
+    private volatile long malformedPhrases = 0;
+    private volatile long lastLoadMs = -1;
+
+    /**
+     * Compiled phrases with their weights and categories, indexed by phrase id
+     */
+    private static class PhraseSet {
+        final PhraseAutomaton automaton;
+        final String[] phrases;
+        final double[] weights;
+        final String[] categories;
+
+        PhraseSet(List<String> phrases, List<Double> weights, List<String> categories) {
+            this.automaton = new PhraseAutomaton(phrases);
+            this.phrases = phrases.toArray(new String[0]);
+            this.weights = new double[weights.size()];
+            for (int i = 0; i < this.weights.length; i++) {
+                this.weights[i] = weights.get(i);
+            }
+            this.categories = categories.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Matching state and evidence for one call
+     */
+    private static class Session {
+        final long numberKey;
+        PhraseSet phraseSet;
+        int state = PhraseAutomaton.START_STATE;
+        // Start as if after a separator so the first word can match
+        boolean lastWasSeparator = true;
+        final Set<String> matchedPhrases = new HashSet<>();
+        final Map<String, Double> categoryWeights = new HashMap<>();
+        // Product of (1 - weight) over the matched phrases
+        double clearProbability = 1.0;
+        boolean flagged = false;
+
+        Session(long numberKey, PhraseSet phraseSet) {
+            this.numberKey = numberKey;
+            this.phraseSet = phraseSet;
+        }
+
+        double getScore() {
+            return 1.0 - clearProbability;
+        }
+
+        String getTopCategory() {
+            String top = null;
+            double topWeight = 0;
+            for (Map.Entry<String, Double> entry : categoryWeights.entrySet()) {
+                if (entry.getValue() > topWeight) {
+                    top = entry.getKey();
+                    topWeight = entry.getValue();
+                }
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Interim risk of a call after a fragment
+     */
+    public static class Result {
+        private final double score;
+        private final String category;
+        private final List<String> newPhrases;
+        private final boolean fraud;
+        private final long latencyNanos;
+
+        Result(double score, String category, List<String> newPhrases, boolean fraud, long latencyNanos) {
+            this.score = score;
+            this.category = category;
+            this.newPhrases = newPhrases;
+            this.fraud = fraud;
+            this.latencyNanos = latencyNanos;
+        }
+
+        /** Risk between 0 and 1 from everything heard on the call so far */
+        public double getScore() {
+            return score;
+        }
+
+        /** Category with the most evidence, or null if nothing matched */
+        public String getCategory() {
+            return category;
+        }
+
+        /** Phrases first heard in this fragment */
+        public List<String> getNewPhrases() {
+            return newPhrases;
+        }
+
+        public boolean isFraud() {
+            return fraud;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+    }
+
+    private TranscriptFraudClassifier(Context context) {
+        this.context = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("transcript-classifier");
+        thread.start();
+        this.workerHandler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Get the shared classifier, starting the initial phrase load if it has not run yet
+     */
+    public static synchronized TranscriptFraudClassifier getInstance(Context context) {
+        if (instance == null) {
+            instance = new TranscriptFraudClassifier(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    /**
+     * Feed the next transcript fragment of a call and get its interim risk.
+     * Until the phrases are loaded every fragment scores 0.
+     *
+     * @param numberKey Normalized number of the caller, or PhoneNumberNormalizer.INVALID
+     * @param fragment  Transcript text following the previous fragment
+     */
+    public synchronized Result classifyFragment(long numberKey, CharSequence fragment) {
+        long startedAt = System.nanoTime();
+        PhraseSet current = phraseSet;
+        if (current == null) {
+            return new Result(0, null, new ArrayList<>(), false, System.nanoTime() - startedAt);
+        }
+
+        Session session = activeSessions.get(numberKey);
+        if (session == null) {
+            session = new Session(numberKey, current);
+            activeSessions.put(numberKey, session);
+            sessions.incrementAndGet();
+        } else if (session.phraseSet != current) {
+            // Phrases were reloaded mid-call: keep the evidence, restart matching on the new set
+            session.phraseSet = current;
+            session.state = PhraseAutomaton.START_STATE;
+            session.lastWasSeparator = true;
+        }
+
+        final Session active = session;
+        final List<String> newPhrases = new ArrayList<>();
+        PhraseAutomaton.MatchListener listener = phraseId -> {
+            String phrase = current.phrases[phraseId];
+            if (!active.matchedPhrases.add(phrase)) {
+                return;
+            }
+            double weight = current.weights[phraseId];
+            active.clearProbability *= 1.0 - weight;
+            String category = current.categories[phraseId];
+            Double categoryWeight = active.categoryWeights.get(category);
+            active.categoryWeights.put(category, (categoryWeight != null ? categoryWeight : 0) + weight);
+            newPhrases.add(phrase);
+        };
+
+        int state = active.state;
+        boolean lastWasSeparator = active.lastWasSeparator;
+        int length = fragment.length();
+        for (int i = 0; i < length; i++) {
+            char c = fragment.charAt(i);
+            state = current.automaton.step(state, c, lastWasSeparator, listener);
+            lastWasSeparator = PhraseAutomaton.isSeparator(c);
+        }
+        // Fragments are separate utterances: end the last word so it can complete a phrase
+        state = current.automaton.step(state, ' ', lastWasSeparator, listener);
+        active.state = state;
+        active.lastWasSeparator = true;
+
+        double score = active.getScore();
+        boolean fraud = score >= FRAUD_THRESHOLD;
+        if (fraud && !active.flagged) {
+            active.flagged = true;
+            fraudSessions.incrementAndGet();
+            if (numberKey != PhoneNumberNormalizer.INVALID) {
+                NumberReputationStore.getInstance(context).recordFraudFlag(numberKey);
+            }
+            Log.d(TAG, "Transcript flagged as " + active.getTopCategory() + " (score " + score + ")");
+        }
+
+        long latencyNanos = System.nanoTime() - startedAt;
+        fragments.incrementAndGet();
+        characters.addAndGet(length);
+        matches.addAndGet(newPhrases.size());
+        classifyNanos.addAndGet(latencyNanos);
+        return new Result(score, active.getTopCategory(), newPhrases, fraud, latencyNanos);
+    }
+
+    /**
+     * Drop a caller's session, e.g. when the call ends
+     */
+    public synchronized void endSession(long numberKey) {
+        activeSessions.remove(numberKey);
+    }
+
+    /**
+     * Drop all sessions, e.g. when the last call ends
+     */
+    public synchronized void endAllSessions() {
+        activeSessions.clear();
+    }
+
+    /**
+     * Re-read the phrase files, e.g. after scam_phrases.txt was updated
+     */
+    public void reload() {
+        workerHandler.post(this::load);
+    }
+
+    /**
+     * Phrase and throughput counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        PhraseSet current = phraseSet;
+        stats.put("phrases", current != null ? (long) current.automaton.getPhraseCount() : 0);
+        stats.put("states", current != null ? (long) current.automaton.getStateCount() : 0);
+        stats.put("bytes", current != null ? current.automaton.sizeInBytes() : 0);
+        stats.put("malformedPhrases", malformedPhrases);
+        stats.put("lastLoadMs", lastLoadMs);
+        stats.put("fragments", fragments.get());
+        stats.put("characters", characters.get());
+        stats.put("matches", matches.get());
+        stats.put("sessions", sessions.get());
+        stats.put("fraudSessions", fraudSessions.get());
+        stats.put("classifyNanos", classifyNanos.get());
+        return stats;
+    }
+
+    private synchronized void ensureStarted() {
+        if (started) {
+            return;
+        }
+        started = true;
+        workerHandler.post(this::load);
+    }
+
+    /**
+     * Compile all phrase files into a new automaton and publish it. Runs on the worker thread.
+     */
+    private void load() {
+        long startedAt = SystemClock.elapsedRealtime();
+        // Keyed by lowercase phrase so later files override earlier ones
+        Map<String, String[]> entries = new LinkedHashMap<>();
+        int[] malformed = new int[1];
+
+        try (InputStream in = context.getAssets().open(FILE_NAME)) {
+            readPhrases(in, entries, malformed);
+        } catch (FileNotFoundException e) {
+            // The app does not ship phrases
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading bundled scam phrases: " + e.getMessage(), e);
+        }
+
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                readPhrases(in, entries, malformed);
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading scam phrases: " + e.getMessage(), e);
+            }
+        }
+
+        List<String> phrases = new ArrayList<>(entries.size());
+        List<Double> weights = new ArrayList<>(entries.size());
+        List<String> categories = new ArrayList<>(entries.size());
+        for (Map.Entry<String, String[]> entry : entries.entrySet()) {
+            double weight = Double.parseDouble(entry.getValue()[0]);
+            if (weight <= 0) {
+                // A zero weight in the override file disables a bundled phrase
+                continue;
+            }
+            phrases.add(entry.getKey());
+            weights.add(weight);
+            categories.add(entry.getValue()[1]);
+        }
+
+        PhraseSet compiled = new PhraseSet(phrases, weights, categories);
+        phraseSet = compiled;
+        malformedPhrases = malformed[0];
+        lastLoadMs = SystemClock.elapsedRealtime() - startedAt;
+        Log.d(TAG, "Loaded " + phrases.size() + " scam phrases (" + compiled.automaton.getStateCount()
+                + " states, " + malformed[0] + " malformed) in " + lastLoadMs + "ms");
+    }
+
+    static void readPhrases(InputStream in, Map<String, String[]> target, int[] malformed) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            if (!parsePhrase(line, target)) {
+                malformed[0]++;
+            }
+        }
+    }
+
+    private static boolean parsePhrase(String line, Map<String, String[]> target) {
+        String[] parts = line.split("\\s+", 3);
+        if (parts.length < 3) {
+            return false;
+        }
+
+        double weight;
+        try {
+            weight = Double.parseDouble(parts[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        // A weight of 1 would pin the score at 1 for the rest of the call
+        if (weight < 0 || weight >= 1) {
+            return false;
+        }
+
+        String phrase = parts[2].trim().toLowerCase();
+        if (phrase.isEmpty()) {
+            return false;
+        }
+        target.remove(phrase);
+        target.put(phrase, new String[]{String.valueOf(weight), parts[1]});
+        return true;
+    }
+}
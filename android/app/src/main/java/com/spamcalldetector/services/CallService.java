@@ -4,60 +4,76 @@ import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.telecom.Call;
 import android.telecom.InCallService;
 import android.util.Log;
-import com.spamcalldetector.utils.CallStateHelper;
 import com.spamcalldetector.MainActivity;
 import com.spamcalldetector.activities.call.IncomingCallActivity;
 import com.spamcalldetector.activities.call.OutgoingCallActivity;
+import com.spamcalldetector.helpers.CallHistoryDatabase;
 import com.spamcalldetector.helpers.CallManager;
+import com.spamcalldetector.helpers.CallScreeningPolicy;
+import com.spamcalldetector.helpers.CallerIdResolver;
+import com.spamcalldetector.helpers.ContactsIndex;
+import com.spamcalldetector.helpers.FraudAlertClient;
+import com.spamcalldetector.helpers.TranscriptFraudClassifier;
+import com.spamcalldetector.utils.CallSetupTracer;
 import com.spamcalldetector.utils.CallStateManager;
+import com.spamcalldetector.utils.DeviceInteractionTracker;
 import com.spamcalldetector.activities.call.CallActivityModule;
 import com.spamcalldetector.services.MissedCallNotificationService;
 import com.spamcalldetector.helpers.MissedCallManager;
 import com.spamcalldetector.helpers.Constants;
 import com.spamcalldetector.utils.NotificationHelper;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class CallService extends InCallService {
 
     private static final String TAG = "CallService";
+    // How long a decision of SpamCallScreeningService is reused for the same number
+    private static final long SCREENING_DECISION_MAX_AGE_MS = 10000;
 
     // Ringtone removed - handled by notification channel
-    private Handler handler;
-    private Runnable updateCallTimeRunnable;
-    private long startTime;
-    private long elapsedTime;
-    private String callStatus;
 
     // Helper classes
-    private CallStateHelper callStateHelper;
     private MissedCallManager missedCallManager;
     private NotificationHelper notificationHelper;
 
-    // Call metadata
-    private String callerNumber = "Unknown";
-    private String callerName = "Unknown Caller";
-
-    // For call state detection
-    private boolean isOutgoingCall = false;
+    // One session per call, so concurrent and waiting calls do not share state
+    private final Map<Call, CallSession> sessions = new HashMap<>();
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "📞 InCallService Started");
 
-        // Initialize handlers and call state tracking
+        // Initialize call state tracking
         CallManager.inCallService = this;
-        handler = new Handler();
         CallStateManager.setCallOngoing(true);
-        callStatus = "Connecting...";
 
         // Initialize helper classes
         try {
-            callStateHelper = new CallStateHelper(this);
             missedCallManager = MissedCallManager.getInstance(this);
             notificationHelper = new NotificationHelper(this);
+
+            // Warm up the contacts index so caller lookups do not hit the provider
+            ContactsIndex.getInstance(this);
+
+            // Load the blocklist and number range rules so incoming calls can be screened
+            // without disk reads
+            CallScreeningPolicy.getInstance(this);
+
+            // Start tracking screen and keyguard state before the first call rings
+            DeviceInteractionTracker.getInstance(this);
+
+            // Compile the scam phrases before the first transcript fragment arrives
+            TranscriptFraudClassifier.getInstance(this);
+
+            // Start mirroring the call log so verdicts can be linked to the calls they flagged
+            CallHistoryDatabase.getInstance(this);
             
             // Start missed call notification service
             startMissedCallNotificationService();
@@ -79,7 +95,8 @@ public class CallService extends InCallService {
     @Override
     public void onCallAdded(Call call) {
         super.onCallAdded(call);
-        
+
+        final long traceId = CallSetupTracer.getInstance().begin();
         try {
             if (call == null) {
                 Log.e(TAG, "Call is null in onCallAdded");
@@ -89,112 +106,157 @@ public class CallService extends InCallService {
             CallManager.inCallService = this;
             CallManager.registerCall(call);
 
-        int state = call.getState();
-        Log.d(TAG, "Call Added. State: " + state);
-        
-        // Register call with missed call manager
-        if (missedCallManager != null) {
-            missedCallManager.registerActiveCall(call);
-        }
+            int state = call.getState();
+            Log.d(TAG, "Call Added. State: " + state);
 
-        // Extract caller information
-        try {
-            if (call.getDetails() != null && call.getDetails().getHandle() != null) {
-                callerNumber = call.getDetails().getHandle().getSchemeSpecificPart();
-                if (callerNumber != null && !callerNumber.isEmpty()) {
-                    // Try to get contact name from phone number
-                    callerName = getContactName(callerNumber);
-                    if (callerName == null || callerName.isEmpty()) {
-                        callerName = callerNumber; // Fallback to number if no contact name
-                    }
-                } else {
-                    callerNumber = "Unknown";
-                    callerName = "Unknown Caller";
+            // Known scam numbers are turned away before they ring; suspected ones ring silently
+            CallScreeningPolicy.Decision screening = state == Call.STATE_RINGING ? screenIncomingCall(call) : null;
+            if (screening != null && screening.getAction() == CallScreeningPolicy.ACTION_REJECT) {
+                Log.d(TAG, "Rejecting call from " + CallManager.getCallerIdFromCall(call) + ": "
+                        + screening.getReason());
+                call.reject(false, null);
+                return;
+            }
+
+            // Register call with missed call manager; the session owns the tracking info
+            MissedCallManager.CallInfo missedCallInfo = missedCallManager != null
+                    ? missedCallManager.registerActiveCall(call)
+                    : null;
+
+            // The contact name is resolved asynchronously once the UI is up, so the session
+            // starts with the raw number as the display name
+            final CallSession session = new CallSession(this, call, CallManager.getCallRecord(call),
+                    missedCallInfo, traceId);
+            sessions.put(call, session);
+            CallSetupTracer.getInstance().mark(traceId, CallSetupTracer.STAGE_SESSION_CREATED);
+            // Open the fraud alert connection once the call has passed screening, while it rings
+            // or dials, and hold it for as long as any call is live
+            boolean settingUp = state == Call.STATE_RINGING || state == Call.STATE_DIALING
+                    || state == Call.STATE_CONNECTING;
+            if (settingUp && !CallManager.isMonitoringCall(call)) {
+                FraudAlertClient fraudAlertClient = FraudAlertClient.getInstance(this);
+                fraudAlertClient.start();
+                fraudAlertClient.associateCall(session.getCallSid(), session.getCallerNumber());
+            }
+            Log.d(TAG, "Caller info - Name: " + session.getCallerName() + ", Number: " + session.getCallerNumber()
+                    + " (" + sessions.size() + " sessions)");
+
+            // Register for call state changes of this call only
+            session.attachCallback(new Call.Callback() {
+                @Override
+                public void onStateChanged(Call call, int newState) {
+                    onSessionStateChanged(session, newState);
                 }
+            });
+
+            if (state == Call.STATE_RINGING) {
+                handleIncomingCall(session, screening.getAction() == CallScreeningPolicy.ACTION_SILENCE);
+            } else if (state == Call.STATE_DIALING || state == Call.STATE_CONNECTING) {
+                handleOutgoingCall(session);
             }
-            Log.d(TAG, "Caller info - Name: " + callerName + ", Number: " + callerNumber);
+            session.markUiShown();
+            CallSetupTracer.getInstance().mark(traceId, CallSetupTracer.STAGE_SERVICE_DONE);
+            CallActivityModule.emitCallTiming();
+
+            resolveCallerName(session);
         } catch (Exception e) {
-            Log.e(TAG, "Error extracting caller info: " + e.getMessage(), e);
-            callerNumber = "Unknown";
-            callerName = "Unknown Caller";
+            Log.e(TAG, "Error in onCallAdded: " + e.getMessage(), e);
         }
+    }
 
-        // Track if this is an outgoing call
-        isOutgoingCall = (state == Call.STATE_DIALING || state == Call.STATE_CONNECTING);
-        callStateHelper.setIsOutgoingCall(isOutgoingCall);
-
-        // Foreground service notifications removed
-
-        // Register for call state changes to update notification
-        call.registerCallback(new Call.Callback() {
-            @Override
-            public void onStateChanged(Call call, int newState) {
-                Log.d(TAG, "Call state changed to: " + newState);
-
-                // Update missed call manager with state change
-                if (missedCallManager != null) {
-                    missedCallManager.updateCallState(call, newState);
-                    
-                    // Mark specific states for missed call tracking
-                    if (newState == Call.STATE_RINGING) {
-                        missedCallManager.markCallAsRinging(call);
-                    } else if (newState == Call.STATE_ACTIVE) {
-                        missedCallManager.markCallAsAnswered(call);
-                    }
-                }
+    /**
+     * Screen an incoming call with CallScreeningPolicy. Calls already screened by
+     * SpamCallScreeningService reuse that decision. The app rings calls itself, so the screening
+     * service's silence request has no effect and the caller acts on the decision.
+     */
+    private CallScreeningPolicy.Decision screenIncomingCall(Call call) {
+        CallScreeningPolicy policy = CallScreeningPolicy.getInstance(this);
+        CallScreeningPolicy.Decision decision = policy.findRecentDecision(CallManager.getCallerKey(call),
+                SCREENING_DECISION_MAX_AGE_MS);
+        if (decision == null) {
+            decision = policy.decide(CallManager.getCallerIdFromCall(call),
+                    CallScreeningPolicy.VERIFICATION_NOT_VERIFIED);
+        }
+        return decision;
+    }
+
+    /**
+     * Look up the session of a call in O(1)
+     *
+     * @return The session, or null if the call is not handled by this service
+     */
+    public CallSession getSession(Call call) {
+        return call != null ? sessions.get(call) : null;
+    }
 
-                // Notification updates removed
+    /**
+     * Session of the call currently shown to the user: the latest live call
+     */
+    public CallSession getPrimarySession() {
+        return getSession(CallManager.getLatestActiveOrRingingCall());
+    }
 
-                if (newState == Call.STATE_ACTIVE) {
-                    // Ringtone stop is handled by notification system
-                    onCallAnswered(call);
-                } else if (newState == Call.STATE_DIALING || newState == Call.STATE_CONNECTING) {
-                    // If call state changes to dialing/connecting again, update call waiting
-                    // detection
-                    if (isOutgoingCall) {
-                        callStateHelper.startCallWaitingDetection(call);
-                    }
-                } else if (newState == Call.STATE_DISCONNECTED) {
-                    // Handle call disconnection
-                    if (CallManager.getActiveCalls().isEmpty()) {
-                        stopCallTimer();
-                        CallStateManager.setCallOngoing(false);
-
-                        // Foreground service and notifications removed
-
-                        // Broadcast to close any open call activities
-                        Intent closeActivityIntent = new Intent("ACTION_CALL_ENDED");
-                        sendBroadcast(closeActivityIntent);
-                        Log.d(TAG, "Call ended broadcast sent");
-
-                        // Stop service after a delay
-                        new Handler().postDelayed(() -> {
-                            stopSelf();
-                        }, 3000);
-                    }
-                }
+    private void onSessionStateChanged(CallSession session, int newState) {
+        Call call = session.getCall();
+        Log.d(TAG, "Call state changed to: " + newState + " for " + session.getCallerNumber());
+
+        // Update missed call manager with state change
+        if (missedCallManager != null) {
+            MissedCallManager.CallInfo missedCallInfo = session.getMissedCallInfo();
+            missedCallManager.updateCallState(missedCallInfo, newState);
+
+            // Mark specific states for missed call tracking
+            if (newState == Call.STATE_RINGING) {
+                missedCallManager.markCallAsRinging(missedCallInfo);
+            } else if (newState == Call.STATE_ACTIVE) {
+                missedCallManager.markCallAsAnswered(missedCallInfo);
             }
-        });
+        }
 
-            if (state == Call.STATE_RINGING) {
-                handleIncomingCall(call);
-            } else if (state == Call.STATE_DIALING || state == Call.STATE_CONNECTING) {
-                handleOutgoingCall(call);
+        if (newState == Call.STATE_ACTIVE) {
+            // Ringtone stop is handled by notification system
+            onCallAnswered(call);
+        } else if (newState == Call.STATE_DIALING || newState == Call.STATE_CONNECTING) {
+            // If call state changes to dialing/connecting again, update call waiting
+            // detection
+            if (session.isOutgoing()) {
+                session.getStateHelper().startCallWaitingDetection(call);
+            }
+        } else if (newState == Call.STATE_DISCONNECTED) {
+            // Handle call disconnection
+            if (CallManager.getRegistry().isEmpty()) {
+                CallStateManager.setCallOngoing(false);
+
+                // Foreground service and notifications removed
+
+                // Broadcast to close any open call activities
+                Intent closeActivityIntent = new Intent("ACTION_CALL_ENDED");
+                sendBroadcast(closeActivityIntent);
+                Log.d(TAG, "Call ended broadcast sent");
+
+                // Stop service after a delay
+                new Handler().postDelayed(() -> {
+                    stopSelf();
+                }, 3000);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error in onCallAdded: " + e.getMessage(), e);
         }
+
+        // The call screen ticks locally; it only hears about state transitions
+        CallActivityModule.emitCallTiming();
     }
 
-    private void handleIncomingCall(Call call) {
+    /**
+     * @param silenced Whether call screening silenced the call: it is shown as a quiet
+     *                 notification, without ringtone or full-screen UI
+     */
+    private void handleIncomingCall(CallSession session, boolean silenced) {
+        String callerName = session.getCallerName();
+        String callerNumber = session.getCallerNumber();
+        CallSetupTracer.getInstance().mark(session.getTraceId(), CallSetupTracer.STAGE_INCOMING_HANDLED);
         Log.d(TAG, "=== INCOMING CALL DEBUG START ===");
         Log.d(TAG, "Incoming Call from: " + callerName + " (" + callerNumber + ")");
-        Log.d(TAG, "Call state: " + call.getState());
+        Log.d(TAG, "Call state: " + session.getCall().getState());
         Log.d(TAG, "NotificationHelper initialized: " + (notificationHelper != null));
-
-        // Update CallStateHelper with caller information
-        callStateHelper.setCallerName(callerName);
-        callStateHelper.setIsOutgoingCall(false);
         
         // Notify MissedCallNotificationService that a call is ringing
         Intent callRingingIntent = new Intent("ACTION_CALL_RINGING");
@@ -203,51 +265,94 @@ public class CallService extends InCallService {
         Log.d(TAG, "Broadcast sent: Call ringing from " + callerNumber);
 
         // Smart incoming call handling based on phone state
-        boolean shouldLaunchActivity = isPhoneLockedOrIdle();
+        boolean shouldLaunchActivity = !silenced && isPhoneLockedOrIdle();
         
-        if (shouldLaunchActivity) {
+        boolean uiRequested;
+        if (silenced) {
+            Log.d(TAG, "Call silenced by screening - showing silent notification only");
+            uiRequested = showSilencedCallNotification(session);
+        } else if (shouldLaunchActivity) {
             // Phone is locked or idle - launch full-screen incoming call activity
             Log.d(TAG, "Phone is locked/idle - launching IncomingCallActivity");
-            try {
-                launchIncomingCallActivityDirectly();
-                Log.d(TAG, "IncomingCallActivity launched successfully");
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to launch IncomingCallActivity: " + e.getMessage(), e);
+            uiRequested = launchIncomingCallActivityDirectly(session);
+            if (!uiRequested) {
                 // Fallback to notification if activity launch fails
-                if (notificationHelper != null) {
-                    Log.d(TAG, "Fallback: showing notification instead");
-                    notificationHelper.showIncomingCallNotification(callerName, callerNumber);
-                }
+                Log.d(TAG, "Fallback: showing notification instead");
+                uiRequested = showIncomingCallNotification(session);
             }
         } else {
             // Phone is in use - show heads-up notification only
             Log.d(TAG, "Phone is in use - showing heads-up notification only");
-            if (notificationHelper != null) {
-                try {
-                    notificationHelper.showIncomingCallNotification(callerName, callerNumber);
-                    Log.d(TAG, "Heads-up notification shown for: " + callerName);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error showing notification: " + e.getMessage(), e);
-                    // Last resort: launch activity anyway
-                    Log.d(TAG, "Notification failed, launching activity as last resort");
-                    launchIncomingCallActivityDirectly();
-                }
-            } else {
-                Log.w(TAG, "NotificationHelper is null, launching activity directly");
-                launchIncomingCallActivityDirectly();
+            uiRequested = showIncomingCallNotification(session);
+            if (!uiRequested) {
+                // Last resort: launch activity anyway
+                Log.d(TAG, "Notification failed, launching activity as last resort");
+                uiRequested = launchIncomingCallActivityDirectly(session);
             }
         }
+
+        // Marked once per call, whichever path put the call on screen
+        if (uiRequested) {
+            CallSetupTracer.getInstance().mark(session.getTraceId(), CallSetupTracer.STAGE_UI_REQUESTED);
+        }
         
         // Update call status
-        callStatus = "Incoming...";
+        session.setCallStatus("Incoming...");
         Log.d(TAG, "=== INCOMING CALL DEBUG END ===");
     }
 
+    /**
+     * Show the heads-up incoming call notification
+     *
+     * @return Whether the notification was posted
+     */
+    private boolean showIncomingCallNotification(CallSession session) {
+        if (notificationHelper == null) {
+            Log.w(TAG, "NotificationHelper is null, cannot show incoming call notification");
+            return false;
+        }
+        try {
+            notificationHelper.showIncomingCallNotification(session.getCallerName(), session.getCallerNumber(),
+                    session.getTraceId());
+            session.setIncomingNotificationShown(true);
+            Log.d(TAG, "Heads-up notification shown for: " + session.getCallerName());
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing notification: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Show a call silenced by screening as a quiet notification
+     *
+     * @return Whether the notification was posted
+     */
+    private boolean showSilencedCallNotification(CallSession session) {
+        if (notificationHelper == null) {
+            Log.w(TAG, "NotificationHelper is null, cannot show silenced call notification");
+            return false;
+        }
+        try {
+            notificationHelper.showSilencedCallNotification(session.getCallerName(), session.getCallerNumber(),
+                    session.getTraceId());
+            session.setIncomingNotificationShown(true);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing silenced call notification: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * Fallback method to launch IncomingCallActivity directly
      * Used when notification system fails or is not available
+     *
+     * @return Whether the activity was started
      */
-    private void launchIncomingCallActivityDirectly() {
+    private boolean launchIncomingCallActivityDirectly(CallSession session) {
+        String callerName = session.getCallerName();
+        String callerNumber = session.getCallerNumber();
         try {
             Log.d(TAG, "=== DIRECT ACTIVITY LAUNCH DEBUG START ===");
             Log.d(TAG, "Launching IncomingCallActivity directly with caller: " + callerName);
@@ -262,6 +367,8 @@ public class CallService extends InCallService {
             // Pass caller information to the activity
             incomingCallIntent.putExtra("caller_name", callerName);
             incomingCallIntent.putExtra("caller_number", callerNumber);
+            incomingCallIntent.putExtra(Constants.EXTRA_LAUNCHED_AT, SystemClock.elapsedRealtime());
+            incomingCallIntent.putExtra(Constants.EXTRA_TRACE_ID, session.getTraceId());
             
             Log.d(TAG, "Intent created with flags: " + incomingCallIntent.getFlags());
             Log.d(TAG, "Intent extras - caller_name: " + incomingCallIntent.getStringExtra("caller_name"));
@@ -270,124 +377,119 @@ public class CallService extends InCallService {
             startActivity(incomingCallIntent);
             Log.d(TAG, "IncomingCallActivity launched successfully");
             Log.d(TAG, "=== DIRECT ACTIVITY LAUNCH DEBUG END ===");
+            return true;
         } catch (Exception e) {
             Log.e(TAG, "Failed to launch IncomingCallActivity: " + e.getMessage(), e);
             e.printStackTrace();
+            return false;
         }
     }
 
-    private void handleOutgoingCall(Call call) {
+    private void handleOutgoingCall(CallSession session) {
         Log.d(TAG, "Outgoing Call");
-
-        // Update CallStateHelper with caller information
-        callStateHelper.setCallerName(callerName);
-        callStateHelper.setIsOutgoingCall(true);
+        Call call = session.getCall();
 
         // Start call waiting detection for outgoing calls
-        callStateHelper.startCallWaitingDetection(call);
+        session.getStateHelper().startCallWaitingDetection(call);
 
-        String number = call.getDetails().getHandle().getSchemeSpecificPart();
-        if (!Constants.TWILIO_NUMBER.equals(number)) {
+        if (!CallManager.isMonitoringCall(call)) {
             Intent intent = new Intent(this, OutgoingCallActivity.class);
             intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
             intent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
 
             // Add call information to the intent
             intent.putExtra("CALL_STATE", call.getState());
-            intent.putExtra("CALLER_NAME", callerName);
-            intent.putExtra("CALLER_NUMBER", callerNumber);
+            intent.putExtra("CALLER_NAME", session.getCallerName());
+            intent.putExtra("CALLER_NUMBER", session.getCallerNumber());
 
             startActivity(intent);
         }
 
-        callStatus = "Calling...";
+        session.setCallStatus("Calling...");
     }
 
     public void onCallAnswered(Call call) {
-        Log.d(TAG, "Call Answered");
+        CallSession session = getSession(call);
+        if (session == null || !session.markConnected()) {
+            // Unknown call, or already handled (CallManager and the session callback both report it)
+            return;
+        }
+        Log.d(TAG, "Call Answered: " + session.getCallerNumber());
         
-        // Cancel incoming call notification since call is now answered
-        if (notificationHelper != null) {
+        // Cancel incoming call notification since this call is now answered
+        if (notificationHelper != null && session.isIncomingNotificationShown()) {
             notificationHelper.cancelIncomingCallNotification();
+            session.setIncomingNotificationShown(false);
         }
         
         // Cancel any call waiting detection since the call was answered
-        callStateHelper.cancelCallWaitingDetection();
+        session.getStateHelper().cancelCallWaitingDetection();
 
-        if (CallManager.getActiveCalls().size() == 1) {
-            startCallTimer();
+        if (!CallManager.isMonitoringCall(call)) {
+            FraudAlertClient.getInstance(this).markAnswered(session.getCallSid());
         }
 
-        callStatus = formatElapsedTime(elapsedTime);
+        // Publish the answer time once; the call screen counts from it
+        CallActivityModule.emitCallTiming();
 
         // Broadcast to notify incoming call activity to close and transition to active
         // call view
         Intent callAnsweredIntent = new Intent(Constants.ACTION_CALL_ANSWERED);
-        callAnsweredIntent.putExtra("phoneNumber", callerNumber);
+        callAnsweredIntent.putExtra("phoneNumber", session.getCallerNumber());
         sendBroadcast(callAnsweredIntent);
-        Log.d(TAG, "Call answered broadcast sent for: " + callerNumber);
+        Log.d(TAG, "Call answered broadcast sent for: " + session.getCallerNumber());
     }
 
     // Ringtone is now handled by notification channel as per Android documentation
     // Manual ringtone playing removed to prevent conflicts
 
-    private void startCallTimer() {
-        startTime = System.currentTimeMillis();
-        elapsedTime = 0;
-
-        updateCallTimeRunnable = new Runnable() {
-            @Override
-            public void run() {
-                elapsedTime = (System.currentTimeMillis() - startTime) / 1000;
-                callStatus = formatElapsedTime(elapsedTime);
-                Log.d(TAG, "Call Duration: " + callStatus);
-                CallActivityModule.emitCallTiming();
-
-                handler.postDelayed(this, 1000);
-            }
-        };
-
-        handler.post(updateCallTimeRunnable);
-    }
-
-    private void stopCallTimer() {
-        if (updateCallTimeRunnable != null) {
-            handler.removeCallbacks(updateCallTimeRunnable);
-        }
-    }
-
-    private String formatElapsedTime(long seconds) {
-        long min = seconds / 60;
-        long sec = seconds % 60;
-        return String.format("%02d:%02d", min, sec);
-    }
-
+    /**
+     * Duration in seconds of the call currently shown to the user
+     */
     public long getCallDuration() {
-        return elapsedTime;
+        CallSession session = getPrimarySession();
+        return session != null ? session.getCallDuration() : 0;
     }
 
+    /**
+     * Status of the call currently shown to the user
+     */
     public String getCallStatus() {
-        return callStatus;
+        CallSession session = getPrimarySession();
+        return session != null ? session.getCallStatus() : "Connecting...";
     }
 
     @Override
     public void onCallRemoved(Call call) {
         super.onCallRemoved(call);
-        Log.d(TAG, "Call Removed from: " + callerNumber);
 
-        // Cancel incoming call notification if it's still showing
-        if (notificationHelper != null) {
-            notificationHelper.cancelIncomingCallNotification();
-        }
+        CallSession session = sessions.remove(call);
+        String callerNumber = session != null ? session.getCallerNumber() : CallManager.getCallerIdFromCall(call);
+        Log.d(TAG, "Call Removed from: " + callerNumber + " (" + sessions.size() + " sessions left)");
+
+        if (session != null) {
+            // Cancel incoming call notification if it was shown for this call
+            if (notificationHelper != null && session.isIncomingNotificationShown()) {
+                notificationHelper.cancelIncomingCallNotification();
+            }
+
+            // Stop this call's detectors and timers
+            session.release();
 
-        // Clean up call state helper resources
-        callStateHelper.cleanup();
+            // Stop routing fraud alerts and transcripts to this call
+            FraudAlertClient.getInstance(this).releaseCall(session.getCallSid());
+            TranscriptFraudClassifier.getInstance(this).endSession(CallManager.getCallerKey(call));
+        }
 
         CallManager.unregisterCall(call);
 
-        if (CallManager.getActiveCalls().isEmpty()) {
-            stopCallTimer();
+        // The call shown to the user may have changed
+        CallActivityModule.emitCallTiming();
+
+        if (CallManager.getRegistry().isEmpty()) {
             CallStateManager.setCallOngoing(false);
+            TranscriptFraudClassifier.getInstance(this).endAllSessions();
+            FraudAlertClient.getInstance(this).stop();
 
             // Foreground service and notifications removed
 
@@ -408,10 +510,12 @@ public class CallService extends InCallService {
     public void onDestroy() {
         super.onDestroy();
 
-        // Clean up call state helper resources
-        if (callStateHelper != null) {
-            callStateHelper.cleanup();
+        // Clean up per-call detectors and timers
+        for (CallSession session : sessions.values()) {
+            session.release();
         }
+        sessions.clear();
+        FraudAlertClient.getInstance(this).stop();
         
         // Notify MissedCallNotificationService that CallService is stopping
         Intent callServiceStoppedIntent = new Intent("ACTION_CALL_SERVICE_STOPPED");
@@ -419,7 +523,7 @@ public class CallService extends InCallService {
         Log.d(TAG, "Broadcast sent: CallService stopped");
 
         // Check if we have active calls when service is being destroyed
-        if (!CallManager.getActiveCalls().isEmpty()) {
+        if (!CallManager.getRegistry().isEmpty()) {
             Log.w(TAG, "CallService being destroyed while calls are active, attempting to restart");
 
             // If we have active calls, restart the service to prevent termination
@@ -439,22 +543,68 @@ public class CallService extends InCallService {
      * Method for activities to notify about user interactions with the call UI
      */
     public void notifyUserInteraction(String interactionType) {
-        if (callStateHelper != null) {
-            callStateHelper.onHumanInteractionDetected(interactionType);
+        CallSession session = getPrimarySession();
+        if (session != null) {
+            session.getStateHelper().onHumanInteractionDetected(interactionType);
         }
     }
 
     /**
-     * Get contact name from phone number
+     * Resolve the contact name off the main thread and push it to the incoming call UI
+     * and notification when it arrives within the lookup deadline
      */
-    private String getContactName(String phoneNumber) {
-        try {
-            // Use ContactsHelper if available, otherwise return the phone number
-            return com.spamcalldetector.helpers.ContactsHelper.getContactNameByPhoneNumber(phoneNumber, this);
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting contact name: " + e.getMessage(), e);
-            return phoneNumber; // Fallback to phone number
+    private void resolveCallerName(final CallSession session) {
+        if (!session.hasKnownNumber()) {
+            return;
         }
+
+        final long resolveStartedAt = SystemClock.elapsedRealtime();
+        CallerIdResolver.getInstance(this).resolve(session.getCallerNumber(), Constants.CALLER_ID_LOOKUP_DEADLINE,
+                new CallerIdResolver.Callback() {
+                    @Override
+                    public void onCallerIdentified(String number, String name, long lookupMs) {
+                        // Ignore results for calls that ended while the lookup was running
+                        if (name != null && sessions.get(session.getCall()) == session) {
+                            session.setCallerName(name);
+                            pushCallerName(session, name);
+                            CallSetupTracer.getInstance().mark(session.getTraceId(),
+                                    CallSetupTracer.STAGE_CALLER_IDENTIFIED);
+                        }
+                        logCallSetupTimings(session, resolveStartedAt, lookupMs, name != null);
+                    }
+
+                    @Override
+                    public void onDeadlineExceeded(String number, long deadlineMs) {
+                        logCallSetupTimings(session, resolveStartedAt, deadlineMs, false);
+                    }
+                });
+    }
+
+    /**
+     * Update the incoming call screen and notification with the resolved caller name
+     */
+    private void pushCallerName(CallSession session, String name) {
+        String number = session.getCallerNumber();
+        Intent identifiedIntent = new Intent(Constants.ACTION_CALLER_IDENTIFIED);
+        identifiedIntent.setPackage(getPackageName());
+        identifiedIntent.putExtra("phoneNumber", number);
+        identifiedIntent.putExtra("callerName", name);
+        sendBroadcast(identifiedIntent);
+
+        if (notificationHelper != null && session.isIncomingNotificationShown()) {
+            notificationHelper.updateIncomingCallNotification(name, number);
+        }
+        Log.d(TAG, "Caller identified: " + name + " (" + number + ")");
+    }
+
+    private void logCallSetupTimings(CallSession session, long resolveStartedAt, long lookupMs, boolean resolved) {
+        long now = SystemClock.elapsedRealtime();
+        long callAddedAt = session.getAddedAt();
+        Log.d(TAG, "Call setup timings for " + session.getCallerNumber()
+                + " - ui: " + (session.getUiShownAt() - callAddedAt) + "ms"
+                + ", lookup: " + lookupMs + "ms" + (resolved ? "" : " (unresolved)")
+                + ", name pushed: " + (now - callAddedAt) + "ms"
+                + ", lookup queued after: " + (resolveStartedAt - callAddedAt) + "ms");
     }
 
     /**
@@ -463,46 +613,8 @@ public class CallService extends InCallService {
      */
     private boolean isPhoneLockedOrIdle() {
         try {
-            // Check if screen is locked
-            android.app.KeyguardManager keyguardManager = (android.app.KeyguardManager) getSystemService(KEYGUARD_SERVICE);
-            boolean isLocked = keyguardManager != null && keyguardManager.isKeyguardLocked();
-            
-            // Check if screen is on
-            android.os.PowerManager powerManager = (android.os.PowerManager) getSystemService(POWER_SERVICE);
-            boolean isScreenOn = powerManager != null && powerManager.isInteractive();
-            
-            // Check if phone app is in foreground (indicating phone is in use)
-            android.app.ActivityManager activityManager = (android.app.ActivityManager) getSystemService(ACTIVITY_SERVICE);
-            boolean isPhoneAppInForeground = false;
-            
-            if (activityManager != null) {
-                java.util.List<android.app.ActivityManager.RunningAppProcessInfo> runningProcesses = activityManager.getRunningAppProcesses();
-                if (runningProcesses != null) {
-                    for (android.app.ActivityManager.RunningAppProcessInfo processInfo : runningProcesses) {
-                        if (processInfo.importance == android.app.ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND) {
-                            // Check if it's a phone/dialer app
-                            String packageName = processInfo.processName;
-                            if (packageName.contains("dialer") || packageName.contains("phone") || 
-                                packageName.contains("telecom") || packageName.contains("call")) {
-                                isPhoneAppInForeground = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-            
-            // Launch activity if:
-            // 1. Phone is locked, OR
-            // 2. Screen is off, OR  
-            // 3. No phone app is currently in foreground
-            boolean shouldLaunchActivity = isLocked || !isScreenOn || !isPhoneAppInForeground;
-            
-            Log.d(TAG, "Phone state check - Locked: " + isLocked + ", ScreenOn: " + isScreenOn + 
-                      ", PhoneAppInForeground: " + isPhoneAppInForeground + ", ShouldLaunchActivity: " + shouldLaunchActivity);
-            
-            return shouldLaunchActivity;
-            
+            // Cached from screen/keyguard broadcasts and activity callbacks; no binder calls here
+            return DeviceInteractionTracker.getInstance(this).shouldLaunchFullScreenCall();
         } catch (Exception e) {
             Log.e(TAG, "Error checking phone state: " + e.getMessage(), e);
             // Default to launching activity if we can't determine state
@@ -0,0 +1,209 @@
+package com.spamcalldetector.services;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.telecom.Call;
+
+import com.spamcalldetector.helpers.CallRegistry;
+import com.spamcalldetector.helpers.MissedCallManager;
+import com.spamcalldetector.utils.CallStateHelper;
+
+import java.util.UUID;
+
+/**
+ * State of a single call handled by CallService.
+ * Created in onCallAdded and released in onCallRemoved. It owns the call's caller identity,
+ * timers, call-waiting and voicemail detection and missed call bookkeeping, so a waiting call
+ * or the monitoring leg never overwrites the data of another call.
+ * Only touched on the main thread.
+ */
+public class CallSession {
+
+    private final Call call;
+    private final CallRegistry.CallRecord record;
+    private final CallStateHelper stateHelper;
+    private final MissedCallManager.CallInfo missedCallInfo;
+    private final long traceId;
+    private final String callSid;
+    private final String callerNumber;
+    private final boolean isOutgoing;
+    private String callerName;
+    private String callStatus;
+    private Call.Callback callback;
+
+    // Time the call was answered (elapsedRealtime, so clock changes do not skew the duration),
+    // 0 until then
+    private long connectedAt;
+    private boolean incomingNotificationShown;
+
+    // Call setup stage timings (elapsedRealtime)
+    private final long addedAt;
+    private long uiShownAt;
+
+    CallSession(Context context, Call call, CallRegistry.CallRecord record,
+            MissedCallManager.CallInfo missedCallInfo, long traceId) {
+        this.call = call;
+        this.record = record;
+        this.missedCallInfo = missedCallInfo;
+        this.traceId = traceId;
+        // Same shape as a Twilio call SID: "CA" and 32 hex digits
+        this.callSid = "CA" + UUID.randomUUID().toString().replace("-", "");
+        this.addedAt = SystemClock.elapsedRealtime();
+
+        String number = record != null ? record.getNumber() : null;
+        if (number != null && !number.isEmpty()) {
+            callerNumber = number;
+            callerName = number;
+        } else {
+            callerNumber = "Unknown";
+            callerName = "Unknown Caller";
+        }
+
+        int state = call.getState();
+        isOutgoing = state == Call.STATE_DIALING || state == Call.STATE_CONNECTING;
+        callStatus = isOutgoing ? "Calling..." : "Connecting...";
+
+        stateHelper = new CallStateHelper(context);
+        stateHelper.setCallerName(callerName);
+        stateHelper.setIsOutgoingCall(isOutgoing);
+    }
+
+    public Call getCall() {
+        return call;
+    }
+
+    /**
+     * Registry record of the call, or null if it was not registered
+     */
+    public CallRegistry.CallRecord getRecord() {
+        return record;
+    }
+
+    public CallStateHelper getStateHelper() {
+        return stateHelper;
+    }
+
+    public MissedCallManager.CallInfo getMissedCallInfo() {
+        return missedCallInfo;
+    }
+
+    /**
+     * CallSetupTracer trace of this call
+     */
+    public long getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Id the fraud alert server knows this call by
+     */
+    public String getCallSid() {
+        return callSid;
+    }
+
+    public String getCallerNumber() {
+        return callerNumber;
+    }
+
+    public String getCallerName() {
+        return callerName;
+    }
+
+    public void setCallerName(String callerName) {
+        this.callerName = callerName;
+        stateHelper.setCallerName(callerName);
+    }
+
+    public boolean isOutgoing() {
+        return isOutgoing;
+    }
+
+    public boolean hasKnownNumber() {
+        return !"Unknown".equals(callerNumber);
+    }
+
+    public void setCallStatus(String callStatus) {
+        this.callStatus = callStatus;
+    }
+
+    /**
+     * "Calling...", "Incoming...", or the elapsed time once connected
+     */
+    public String getCallStatus() {
+        if (connectedAt == 0) {
+            return callStatus;
+        }
+        long seconds = getCallDuration();
+        return String.format("%02d:%02d", seconds / 60, seconds % 60);
+    }
+
+    /**
+     * Mark the call as answered
+     *
+     * @return false if it was already connected before
+     */
+    boolean markConnected() {
+        if (connectedAt != 0) {
+            return false;
+        }
+        connectedAt = SystemClock.elapsedRealtime();
+        return true;
+    }
+
+    public boolean isConnected() {
+        return connectedAt != 0;
+    }
+
+    /**
+     * Seconds since the call was answered, 0 if it has not been
+     */
+    public long getCallDuration() {
+        return getCallDurationMs() / 1000;
+    }
+
+    /**
+     * Milliseconds since the call was answered, 0 if it has not been
+     */
+    public long getCallDurationMs() {
+        return connectedAt == 0 ? 0 : SystemClock.elapsedRealtime() - connectedAt;
+    }
+
+    public boolean isIncomingNotificationShown() {
+        return incomingNotificationShown;
+    }
+
+    void setIncomingNotificationShown(boolean incomingNotificationShown) {
+        this.incomingNotificationShown = incomingNotificationShown;
+    }
+
+    long getAddedAt() {
+        return addedAt;
+    }
+
+    long getUiShownAt() {
+        return uiShownAt;
+    }
+
+    void markUiShown() {
+        uiShownAt = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Register the session's own state callback on the call
+     */
+    void attachCallback(Call.Callback callback) {
+        this.callback = callback;
+        call.registerCallback(callback);
+    }
+
+    /**
+     * Stop the session's timers and detach it from the call
+     */
+    void release() {
+        stateHelper.cleanup();
+        if (callback != null) {
+            call.unregisterCallback(callback);
+            callback = null;
+        }
+    }
+}
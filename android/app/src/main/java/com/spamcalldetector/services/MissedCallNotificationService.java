@@ -21,6 +21,8 @@ import androidx.core.app.NotificationCompat;
 import com.spamcalldetector.MainActivity;
 import com.spamcalldetector.helpers.ContactsHelper;
 import com.spamcalldetector.helpers.Constants;
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+import com.spamcalldetector.utils.LongObjectHashMap;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -41,8 +43,9 @@ public class MissedCallNotificationService extends Service {
     private BroadcastReceiver resetReceiver;
     private BroadcastReceiver callStateReceiver;
     
-    // Track active/ringing calls to prevent missed call notifications during active calls
-    private Set<String> activeOrRingingCalls = new HashSet<>();
+    // Track active/ringing calls to prevent missed call notifications during active calls.
+    // Keyed by normalized number so call log spellings match Telecom handles.
+    private final LongObjectHashMap<Boolean> activeOrRingingCalls = new LongObjectHashMap<>();
     private boolean isCallServiceActive = false;
     
     @Override
@@ -237,7 +240,7 @@ public class MissedCallNotificationService extends Service {
                         Log.d(TAG, "Found new missed call: " + phoneNumber + " (ID: " + callId + ") at " + timestamp);
                         
                         // Check if this call is currently active/ringing or if CallService is active
-                        if (isCallServiceActive || activeOrRingingCalls.contains(phoneNumber)) {
+                        if (isCallServiceActive || activeOrRingingCalls.containsKey(PhoneNumberNormalizer.normalize(phoneNumber))) {
                             Log.d(TAG, "Skipping missed call notification for " + phoneNumber + " - call is currently active/ringing or CallService is active");
                             processedCallIds.add(callId); // Mark as processed to avoid future checks
                             continue;
@@ -466,8 +469,9 @@ public class MissedCallNotificationService extends Service {
                             
                         case "ACTION_CALL_RINGING":
                             String ringingNumber = intent.getStringExtra("phoneNumber");
-                            if (ringingNumber != null) {
-                                activeOrRingingCalls.add(ringingNumber);
+                            long ringingKey = PhoneNumberNormalizer.normalize(ringingNumber);
+                            if (ringingKey != PhoneNumberNormalizer.INVALID) {
+                                activeOrRingingCalls.put(ringingKey, Boolean.TRUE);
                                 Log.d(TAG, "Call ringing from: " + ringingNumber + " - suppressing missed call notifications");
                             }
                             break;
@@ -475,8 +479,9 @@ public class MissedCallNotificationService extends Service {
                         case "ACTION_CALL_ANSWERED":
                         case "ACTION_CALL_ENDED":
                             String endedNumber = intent.getStringExtra("phoneNumber");
-                            if (endedNumber != null) {
-                                activeOrRingingCalls.remove(endedNumber);
+                            long endedKey = PhoneNumberNormalizer.normalize(endedNumber);
+                            if (endedKey != PhoneNumberNormalizer.INVALID) {
+                                activeOrRingingCalls.remove(endedKey);
                                 Log.d(TAG, "Call ended/answered for: " + endedNumber + " - removed from active calls");
                             }
                             break;
@@ -0,0 +1,114 @@
+package com.spamcalldetector.services;
+
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.telecom.Call;
+import android.telecom.CallScreeningService;
+import android.telecom.Connection;
+import android.util.Log;
+
+import com.spamcalldetector.helpers.CallScreeningPolicy;
+import com.spamcalldetector.helpers.Constants;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Screens incoming calls before they ring, using CallScreeningPolicy.
+ * The decision runs off the main thread against a fixed internal deadline; if it has not
+ * finished by then the call is allowed, so screening can never delay or lose a call.
+ */
+public class SpamCallScreeningService extends CallScreeningService {
+    private static final String TAG = "SpamCallScreeningService";
+
+    private static final ExecutorService screeningExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "call-screening");
+        thread.setPriority(Thread.MAX_PRIORITY);
+        return thread;
+    });
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Start loading the contacts index, blocklist and number rules
+        CallScreeningPolicy.getInstance(this);
+    }
+
+    @Override
+    public void onScreenCall(final Call.Details callDetails) {
+        final long startedAt = System.nanoTime();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                && callDetails.getCallDirection() != Call.Details.DIRECTION_INCOMING) {
+            respond(callDetails, CallScreeningPolicy.ACTION_ALLOW);
+            return;
+        }
+
+        Uri handle = callDetails.getHandle();
+        final String phoneNumber = handle != null ? handle.getSchemeSpecificPart() : null;
+        final int verificationStatus = getVerificationStatus(callDetails);
+        final CallScreeningPolicy policy = CallScreeningPolicy.getInstance(this);
+        final AtomicBoolean responded = new AtomicBoolean(false);
+
+        final Runnable deadline = () -> {
+            if (responded.compareAndSet(false, true)) {
+                Log.w(TAG, "Screening missed the " + Constants.CALL_SCREENING_DEADLINE + "ms deadline, allowing call");
+                policy.recordFallback(phoneNumber, CallScreeningPolicy.REASON_DEADLINE, System.nanoTime() - startedAt);
+                respond(callDetails, CallScreeningPolicy.ACTION_ALLOW);
+            }
+        };
+        mainHandler.postDelayed(deadline, Constants.CALL_SCREENING_DEADLINE);
+
+        try {
+            screeningExecutor.execute(() -> {
+                CallScreeningPolicy.Decision decision = policy.decide(phoneNumber, verificationStatus);
+                if (responded.compareAndSet(false, true)) {
+                    mainHandler.removeCallbacks(deadline);
+                    respond(callDetails, decision.getAction());
+                    Log.d(TAG, "Screened call in " + (System.nanoTime() - startedAt) / 1000 + "us: "
+                            + CallScreeningPolicy.actionName(decision.getAction()) + " (" + decision.getReason() + ")");
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error scheduling call screening: " + e.getMessage(), e);
+            mainHandler.removeCallbacks(deadline);
+            deadline.run();
+        }
+    }
+
+    private void respond(Call.Details callDetails, int action) {
+        CallResponse.Builder response = new CallResponse.Builder();
+        if (action == CallScreeningPolicy.ACTION_REJECT) {
+            response.setDisallowCall(true)
+                    .setRejectCall(true)
+                    .setSkipNotification(true);
+        } else if (action == CallScreeningPolicy.ACTION_SILENCE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            response.setSilenceCall(true);
+        }
+
+        try {
+            respondToCall(callDetails, response.build());
+        } catch (Exception e) {
+            Log.e(TAG, "Error responding to screened call: " + e.getMessage(), e);
+        }
+    }
+
+    private static int getVerificationStatus(Call.Details callDetails) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return CallScreeningPolicy.VERIFICATION_NOT_VERIFIED;
+        }
+        switch (callDetails.getCallerNumberVerificationStatus()) {
+            case Connection.VERIFICATION_STATUS_PASSED:
+                return CallScreeningPolicy.VERIFICATION_PASSED;
+            case Connection.VERIFICATION_STATUS_FAILED:
+                return CallScreeningPolicy.VERIFICATION_FAILED;
+            default:
+                return CallScreeningPolicy.VERIFICATION_NOT_VERIFIED;
+        }
+    }
+}
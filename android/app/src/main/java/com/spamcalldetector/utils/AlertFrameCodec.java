@@ -0,0 +1,268 @@
+package com.spamcalldetector.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary framing of fraud alert messages, negotiated as the "fraud-alerts.bin.v1" WebSocket
+ * subprotocol. A binary message holds one or more frames:
+ * <pre>
+ *   frame      = varint length, byte version, byte type, body
+ *   verdict    = string callSid, varint fraudCode, [string fraudType if fraudCode == 0], byte isFraud
+ *   transcript = string callSid, varint sequence, string text
+ *   string     = varint byteLength, UTF-8 bytes
+ * </pre>
+ * Varints are unsigned LEB128. Fraud types in FRAUD_TYPES travel as their index; others are
+ * sent as code 0 followed by the name. Frames of an unknown version or type are skipped using
+ * their length, so the server can add fields and types without breaking older clients.
+ * Decoding reuses the decoder's buffers: fraud types come from the interned table, recent call
+ * SIDs are cached and transcript text is decoded into a reused buffer, so a steady stream of
+ * frames allocates nothing. Not thread-safe; one decoder per connection.
+ */
+public class AlertFrameCodec {
+
+    public static final String PROTOCOL = "fraud-alerts.bin.v1";
+    public static final int VERSION = 1;
+
+    public static final int TYPE_VERDICT = 1;
+    public static final int TYPE_TRANSCRIPT = 2;
+
+    /** Interned fraud types, indexed by wire code; code 0 means the name follows */
+    public static final String[] FRAUD_TYPES = {
+            null, "UNKNOWN", "GIFT_CARD", "PAYMENT", "GOVERNMENT", "IRS", "ACCOUNT", "OTP",
+            "REMOTE_ACCESS", "TECH_SUPPORT", "BANK_IMPERSONATION", "PRESSURE"
+    };
+
+    private static final int SID_CACHE_SIZE = 8;
+
+    /**
+     * Receives decoded frames. The transcript text is only valid during the call.
+     */
+    public interface FrameListener {
+        void onVerdict(String callSid, boolean isFraud, String fraudType);
+
+        void onTranscript(String callSid, long sequence, CharSequence text);
+    }
+
+    private final StringBuilder text = new StringBuilder(256);
+    private final byte[][] sidBytes = new byte[SID_CACHE_SIZE][];
+    private final String[] sidStrings = new String[SID_CACHE_SIZE];
+    private int nextSidSlot = 0;
+
+    /**
+     * Decode all frames in a binary message
+     *
+     * @return Number of frames delivered to the listener
+     * @throws IllegalArgumentException If the message is truncated or malformed
+     */
+    public int decode(ByteBuffer buffer, FrameListener listener) {
+        int frames = 0;
+        int limit = buffer.limit();
+        try {
+            while (buffer.hasRemaining()) {
+                long length = readVarint(buffer);
+                if (length < 2 || length > buffer.remaining()) {
+                    throw new IllegalArgumentException("Bad frame length " + length);
+                }
+                int end = buffer.position() + (int) length;
+                // Fields are read within the frame: one running past it is malformed
+                buffer.limit(end);
+                int version = buffer.get() & 0xff;
+                int type = buffer.get() & 0xff;
+
+                if (version == VERSION && type == TYPE_VERDICT) {
+                    String callSid = readCallSid(buffer);
+                    long code = readVarint(buffer);
+                    String fraudType;
+                    if (code == 0) {
+                        readText(buffer);
+                        fraudType = text.toString();
+                    } else {
+                        fraudType = code > 0 && code < FRAUD_TYPES.length ? FRAUD_TYPES[(int) code] : FRAUD_TYPES[1];
+                    }
+                    boolean isFraud = buffer.get() != 0;
+                    listener.onVerdict(callSid, isFraud, fraudType);
+                    frames++;
+                } else if (version == VERSION && type == TYPE_TRANSCRIPT) {
+                    String callSid = readCallSid(buffer);
+                    long sequence = readVarint(buffer);
+                    readText(buffer);
+                    listener.onTranscript(callSid, sequence, text);
+                    frames++;
+                }
+                // Skip unknown frames and any trailing fields
+                buffer.limit(limit);
+                buffer.position(end);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated frame");
+        } finally {
+            buffer.limit(limit);
+        }
+        return frames;
+    }
+
+    /**
+     * Encode a verdict frame
+     */
+    public static byte[] encodeVerdict(String callSid, boolean isFraud, String fraudType) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        body.write(VERSION);
+        body.write(TYPE_VERDICT);
+        writeString(body, callSid);
+        int code = fraudTypeCode(fraudType);
+        writeVarint(body, code);
+        if (code == 0) {
+            writeString(body, fraudType);
+        }
+        body.write(isFraud ? 1 : 0);
+        return frame(body);
+    }
+
+    /**
+     * Encode a transcript frame
+     */
+    public static byte[] encodeTranscript(String callSid, long sequence, String text) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 + text.length());
+        body.write(VERSION);
+        body.write(TYPE_TRANSCRIPT);
+        writeString(body, callSid);
+        writeVarint(body, sequence);
+        writeString(body, text);
+        return frame(body);
+    }
+
+    /**
+     * Wire code of a fraud type, or 0 if it is not interned
+     */
+    public static int fraudTypeCode(String fraudType) {
+        if (fraudType == null) {
+            return 1;
+        }
+        for (int code = 1; code < FRAUD_TYPES.length; code++) {
+            if (FRAUD_TYPES[code].equalsIgnoreCase(fraudType)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Call SID as a String, reusing the instance of a recently seen SID
+     */
+    private String readCallSid(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        if (length == 0) {
+            return null;
+        }
+        int start = buffer.position();
+        for (int slot = 0; slot < SID_CACHE_SIZE; slot++) {
+            byte[] cached = sidBytes[slot];
+            if (cached != null && cached.length == length && matches(buffer, start, cached)) {
+                buffer.position(start + length);
+                return sidStrings[slot];
+            }
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        String sid = new String(bytes, StandardCharsets.UTF_8);
+        sidBytes[nextSidSlot] = bytes;
+        sidStrings[nextSidSlot] = sid;
+        nextSidSlot = (nextSidSlot + 1) % SID_CACHE_SIZE;
+        return sid;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode a UTF-8 string into the reused text buffer
+     */
+    private void readText(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        text.setLength(0);
+        int end = buffer.position() + length;
+        while (buffer.position() < end) {
+            int b = buffer.get() & 0xff;
+            int codePoint;
+            int extra;
+            if (b < 0x80) {
+                text.append((char) b);
+                continue;
+            } else if (b >= 0xf0) {
+                codePoint = b & 0x07;
+                extra = 3;
+            } else if (b >= 0xe0) {
+                codePoint = b & 0x0f;
+                extra = 2;
+            } else {
+                codePoint = b & 0x1f;
+                extra = 1;
+            }
+            if (buffer.position() + extra > end) {
+                throw new IllegalArgumentException("Truncated UTF-8 sequence");
+            }
+            for (int i = 0; i < extra; i++) {
+                codePoint = (codePoint << 6) | (buffer.get() & 0x3f);
+            }
+            if (codePoint >= 0x10000) {
+                text.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+            } else {
+                text.append((char) codePoint);
+            }
+        }
+    }
+
+    /**
+     * Byte length of a string, which must fit in the rest of the frame
+     */
+    private static int readLength(ByteBuffer buffer) {
+        long length = readVarint(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Bad string length " + length);
+        }
+        return (int) length;
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] frame(ByteArrayOutputStream body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 5);
+        writeVarint(out, body.size());
+        byte[] bytes = body.toByteArray();
+        out.write(bytes, 0, bytes.length);
+        return out.toByteArray();
+    }
+}
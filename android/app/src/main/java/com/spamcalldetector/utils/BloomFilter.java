@@ -0,0 +1,88 @@
+package com.spamcalldetector.utils;
+
+/**
+ * Bloom filter over primitive long keys.
+ * Answers "definitely absent" or "possibly present" with a fixed false-positive rate and no
+ * per-key objects. Bits are stored in a long[] so a filter can be saved and restored as words.
+ * Not thread-safe for writes; concurrent reads of a filter that is no longer written are safe.
+ */
+public class BloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Create an empty filter sized for the expected number of keys
+     *
+     * @param falsePositiveRate Target probability of mightContain returning true for an absent key
+     */
+    public BloomFilter(int expectedKeys, double falsePositiveRate) {
+        int keys = Math.max(expectedKeys, 1);
+        double rate = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long bits = (long) Math.ceil(-keys * Math.log(rate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max((bits + 63) >>> 6, 1);
+        this.words = new long[wordCount];
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+    }
+
+    /**
+     * Wrap previously saved bits
+     */
+    public BloomFilter(long[] words, int hashCount) {
+        if (words.length == 0 || hashCount < 1) {
+            throw new IllegalArgumentException("Invalid bloom filter parameters");
+        }
+        this.words = words;
+        this.bitCount = (long) words.length << 6;
+        this.hashCount = hashCount;
+    }
+
+    public void put(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false if the key was never added, true if it may have been
+     */
+    public boolean mightContain(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Backing words, for saving the filter. Not copied.
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    public int sizeInBytes() {
+        return words.length * 8;
+    }
+
+    // SplitMix64 finalizer, so neighbouring phone numbers land far apart
+    private static long mix(long key) {
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
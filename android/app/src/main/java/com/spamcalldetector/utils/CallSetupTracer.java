@@ -0,0 +1,199 @@
+package com.spamcalldetector.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how long each stage of call setup takes, from Telecom adding the call to the call
+ * screen being visible. A trace is started in CallService.onCallAdded and its id travels with
+ * the call session and the launch intent, so later stages can be stamped from the activity.
+ * Timestamps go into a fixed ring of slots and per-stage histograms, all preallocated atomic
+ * arrays: marking a stage is a nanoTime read and a few atomic writes, with no locks or allocation.
+ */
+public class CallSetupTracer {
+
+    public static final long NO_TRACE = -1;
+
+    // Stages, in the order they normally happen
+    public static final int STAGE_CALL_ADDED = 0;
+    public static final int STAGE_SESSION_CREATED = 1;
+    public static final int STAGE_INCOMING_HANDLED = 2;
+    public static final int STAGE_UI_REQUESTED = 3;
+    public static final int STAGE_SERVICE_DONE = 4;
+    public static final int STAGE_ACTIVITY_CREATED = 5;
+    public static final int STAGE_NATIVE_FRAME = 6;
+    public static final int STAGE_REACT_FRAME = 7;
+    public static final int STAGE_CALLER_IDENTIFIED = 8;
+
+    private static final String[] STAGE_NAMES = {
+            "callAdded",
+            "sessionCreated",
+            "incomingHandled",
+            "uiRequested",
+            "serviceDone",
+            "activityCreated",
+            "nativeFrame",
+            "reactFrame",
+            "callerIdentified"
+    };
+    private static final int STAGE_COUNT = STAGE_NAMES.length;
+
+    // Must be a power of two
+    private static final int CAPACITY = 32;
+    private static final int SLOT_MASK = CAPACITY - 1;
+
+    // Bucket b holds offsets below 2^b microseconds
+    private static final int BUCKETS = 32;
+
+    private static CallSetupTracer instance;
+
+    private final AtomicLong nextTraceId = new AtomicLong();
+    // Trace id currently owning each slot, -1 when empty
+    private final AtomicLongArray slotTraceIds = new AtomicLongArray(CAPACITY);
+    // nanoTime of each stage per slot, 0 when not reached
+    private final AtomicLongArray timestamps = new AtomicLongArray(CAPACITY * STAGE_COUNT);
+    // Offset from STAGE_CALL_ADDED, per stage
+    private final AtomicLongArray histograms = new AtomicLongArray(STAGE_COUNT * BUCKETS);
+
+    private CallSetupTracer() {
+        for (int i = 0; i < CAPACITY; i++) {
+            slotTraceIds.set(i, NO_TRACE);
+        }
+    }
+
+    public static synchronized CallSetupTracer getInstance() {
+        if (instance == null) {
+            instance = new CallSetupTracer();
+        }
+        return instance;
+    }
+
+    /**
+     * Start a trace for a new call, stamping STAGE_CALL_ADDED
+     *
+     * @return Id to pass to mark
+     */
+    public long begin() {
+        long startedAt = System.nanoTime();
+        long traceId = nextTraceId.getAndIncrement();
+        int slot = (int) (traceId & SLOT_MASK);
+        int base = slot * STAGE_COUNT;
+
+        // Detach the slot from the trace it held before reusing it
+        slotTraceIds.set(slot, NO_TRACE);
+        for (int stage = 0; stage < STAGE_COUNT; stage++) {
+            timestamps.set(base + stage, 0);
+        }
+        timestamps.set(base + STAGE_CALL_ADDED, startedAt);
+        slotTraceIds.set(slot, traceId);
+        return traceId;
+    }
+
+    /**
+     * Stamp a stage of a trace. Only the first stamp of a stage counts; stamps for unknown or
+     * already recycled traces are ignored. Safe to call from any thread.
+     */
+    public void mark(long traceId, int stage) {
+        if (traceId < 0 || stage <= STAGE_CALL_ADDED || stage >= STAGE_COUNT) {
+            return;
+        }
+        long now = System.nanoTime();
+        int slot = (int) (traceId & SLOT_MASK);
+        if (slotTraceIds.get(slot) != traceId) {
+            return;
+        }
+
+        int base = slot * STAGE_COUNT;
+        if (!timestamps.compareAndSet(base + stage, 0, now)) {
+            return;
+        }
+        long startedAt = timestamps.get(base + STAGE_CALL_ADDED);
+        if (startedAt != 0 && slotTraceIds.get(slot) == traceId) {
+            histograms.incrementAndGet(stage * BUCKETS + bucketOf((now - startedAt) / 1000));
+        }
+    }
+
+    /**
+     * Stage offsets of the most recent traces, newest first
+     *
+     * @return One map per trace: "traceId" and the offset in microseconds of every stage reached
+     */
+    public List<Map<String, Long>> getRecentTraces(int count) {
+        List<Map<String, Long>> traces = new ArrayList<>();
+        long latest = nextTraceId.get() - 1;
+        int limit = Math.min(Math.max(count, 0), CAPACITY);
+
+        for (long traceId = latest; traceId >= 0 && traceId > latest - limit; traceId--) {
+            int slot = (int) (traceId & SLOT_MASK);
+            int base = slot * STAGE_COUNT;
+            if (slotTraceIds.get(slot) != traceId) {
+                continue;
+            }
+
+            Map<String, Long> trace = new HashMap<>();
+            trace.put("traceId", traceId);
+            long startedAt = timestamps.get(base + STAGE_CALL_ADDED);
+            for (int stage = STAGE_CALL_ADDED; stage < STAGE_COUNT; stage++) {
+                long stampedAt = timestamps.get(base + stage);
+                if (stampedAt != 0 && startedAt != 0) {
+                    trace.put(STAGE_NAMES[stage], (stampedAt - startedAt) / 1000);
+                }
+            }
+
+            // Drop the trace if the slot was recycled while it was being read
+            if (slotTraceIds.get(slot) == traceId) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * Per-stage count and p50/p90/p99 offsets from STAGE_CALL_ADDED in microseconds.
+     * Percentiles are the upper bound of their power-of-two histogram bucket.
+     */
+    public Map<String, Long> getStagePercentiles() {
+        Map<String, Long> stats = new HashMap<>();
+        long[] buckets = new long[BUCKETS];
+        for (int stage = STAGE_CALL_ADDED + 1; stage < STAGE_COUNT; stage++) {
+            long total = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                buckets[b] = histograms.get(stage * BUCKETS + b);
+                total += buckets[b];
+            }
+
+            String name = STAGE_NAMES[stage];
+            stats.put(name + ".count", total);
+            stats.put(name + ".p50Micros", percentile(buckets, total, 50));
+            stats.put(name + ".p90Micros", percentile(buckets, total, 90));
+            stats.put(name + ".p99Micros", percentile(buckets, total, 99));
+        }
+        return stats;
+    }
+
+    private static long percentile(long[] buckets, long total, int percent) {
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (total * percent + 99) / 100;
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets[b];
+            if (seen >= rank) {
+                return 1L << b;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros <= 0) {
+            return 0;
+        }
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+}
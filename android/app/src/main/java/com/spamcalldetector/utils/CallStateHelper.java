@@ -65,7 +65,7 @@ public class CallStateHelper {
             // For outgoing calls, set a timer to detect call waiting
             callWaitingHandler.postDelayed(() -> {
                 // Make sure call is still valid
-                if (call == null || !CallManager.getActiveCalls().contains(call)) {
+                if (call == null || !CallManager.isCallActive(call)) {
                     Log.d(TAG, "Call no longer valid during waiting detection, aborting");
                     return;
                 }
@@ -86,7 +86,7 @@ public class CallStateHelper {
 
                         // Schedule auto-disconnect if still in call waiting state
                         callWaitingHandler.postDelayed(() -> {
-                            if (call == null || !CallManager.getActiveCalls().contains(call)) {
+                            if (call == null || !CallManager.isCallActive(call)) {
                                 Log.d(TAG, "Call no longer valid during waiting timeout, aborting");
                                 return;
                             }
@@ -98,7 +98,7 @@ public class CallStateHelper {
                                         + " seconds");
 
                                 if ((finalState == Call.STATE_DIALING || finalState == Call.STATE_CONNECTING) &&
-                                        CallManager.getActiveCalls().contains(call)) {
+                                        CallManager.isCallActive(call)) {
                                     Log.d(TAG, "Auto hanging up after call waiting timeout of " +
                                             ((Constants.CALL_WAITING_DETECTION_DELAY + Constants.CALL_WAITING_TIMEOUT) / 1000)
                                             + " total seconds");
@@ -166,9 +166,9 @@ public class CallStateHelper {
                             Log.d(TAG, "Voicemail timeout check for " + callerName +
                                     " - isPotentialVoicemail: " + isPotentialVoicemail +
                                     ", call still active: "
-                                    + (call != null && CallManager.getActiveCalls().contains(call)));
+                                    + (call != null && CallManager.isCallActive(call)));
 
-                            if (isPotentialVoicemail && call != null && CallManager.getActiveCalls().contains(call)) {
+                            if (isPotentialVoicemail && call != null && CallManager.isCallActive(call)) {
                                 Log.d(TAG, "Auto hanging up after voicemail recording timeout of " +
                                         (Constants.VOICEMAIL_AUTO_HANGUP_DELAY / 1000) + " seconds");
                                 call.disconnect();
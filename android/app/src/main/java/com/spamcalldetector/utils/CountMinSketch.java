@@ -0,0 +1,76 @@
+package com.spamcalldetector.utils;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over primitive long keys.
+ * Estimates how often a key was added using fixed memory (depth x width counters), never
+ * underestimating; overestimates are bounded by the total count divided by the width.
+ * Not thread-safe; callers synchronize externally.
+ */
+public class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9e3779b97f4a7c15L, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L, 0xd6e8feb86659fd93L,
+            0xff51afd7ed558ccdL, 0xc4ceb9fe1a85ec53L, 0x27d4eb2f165667c5L, 0x94d049bb133111ebL
+    };
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final int[] counts;
+    private long total;
+
+    /**
+     * @param depth Number of hash rows, at most 8
+     * @param width Counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length || width < 1) {
+            throw new IllegalArgumentException("Invalid sketch dimensions");
+        }
+        this.depth = depth;
+        this.width = Integer.bitCount(width) == 1 ? width : Integer.highestOneBit(width) << 1;
+        this.mask = this.width - 1;
+        this.counts = new int[depth * this.width];
+    }
+
+    public void add(long key, int count) {
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + (mix(key, row) & mask);
+            counts[index] += count;
+        }
+        total += count;
+    }
+
+    public int estimate(long key) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + (mix(key, row) & mask)]);
+        }
+        return min;
+    }
+
+    /**
+     * Sum of all counts added since the last clear
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    public int sizeInBytes() {
+        return counts.length * 4;
+    }
+
+    private static int mix(long key, int row) {
+        long h = key ^ SEEDS[row];
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (h ^ (h >>> 33));
+    }
+}
@@ -0,0 +1,244 @@
+package com.spamcalldetector.utils;
+
+import android.app.Activity;
+import android.app.Application;
+import android.app.KeyguardManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.PowerManager;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps screen, keyguard and foreground-app state up to date from system broadcasts and
+ * activity lifecycle callbacks, so deciding how to present an incoming call is a volatile read
+ * instead of KeyguardManager, PowerManager and running-process binder calls on the ringing path.
+ * Each decision's screen and keyguard state is re-checked against the system services on a
+ * background thread to measure accuracy; a mismatch resynchronizes the cached state.
+ */
+public class DeviceInteractionTracker {
+    private static final String TAG = "DeviceInteractionTracker";
+    private static DeviceInteractionTracker instance;
+
+    private final Context context;
+    private final ExecutorService verifier;
+
+    private volatile boolean screenOn = true;
+    private volatile boolean keyguardLocked = false;
+    private final AtomicInteger startedActivities = new AtomicInteger();
+    private boolean started = false;
+
+    // Counters
+    private final AtomicLong decisions = new AtomicLong();
+    private final AtomicLong totalDecisionNanos = new AtomicLong();
+    private final AtomicLong maxDecisionNanos = new AtomicLong();
+    private final AtomicLong verifiedDecisions = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    private DeviceInteractionTracker(Context context) {
+        this.context = context.getApplicationContext();
+        this.verifier = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "device-state-verify");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    public static synchronized DeviceInteractionTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new DeviceInteractionTracker(context);
+        }
+        instance.ensureStarted();
+        return instance;
+    }
+
+    /**
+     * Track activity visibility. Called once from Application.onCreate.
+     */
+    public void registerActivityCallbacks(Application application) {
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStarted(Activity activity) {
+                startedActivities.incrementAndGet();
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+                if (startedActivities.decrementAndGet() < 0) {
+                    startedActivities.set(0);
+                }
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+            }
+
+            @Override
+            public void onActivityPaused(Activity activity) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+            }
+        });
+    }
+
+    /**
+     * Whether an incoming call should launch the full-screen activity rather than a heads-up
+     * notification: the phone is locked, the screen is off, or this app is not in front.
+     */
+    public boolean shouldLaunchFullScreenCall() {
+        long startedAt = System.nanoTime();
+        final boolean locked = keyguardLocked;
+        final boolean interactive = screenOn;
+        final boolean inForeground = startedActivities.get() > 0;
+        final boolean decision = locked || !interactive || !inForeground;
+        recordDecisionLatency(System.nanoTime() - startedAt);
+
+        Log.d(TAG, "Phone state - Locked: " + locked + ", ScreenOn: " + interactive
+                + ", AppInForeground: " + inForeground + ", ShouldLaunchActivity: " + decision);
+
+        verifier.execute(() -> verifyDecision(decision));
+        return decision;
+    }
+
+    public boolean isScreenOn() {
+        return screenOn;
+    }
+
+    public boolean isKeyguardLocked() {
+        return keyguardLocked;
+    }
+
+    public boolean isAppInForeground() {
+        return startedActivities.get() > 0;
+    }
+
+    /**
+     * Decision latency and accuracy counters for diagnostics
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        long count = decisions.get();
+        long verified = verifiedDecisions.get();
+        long mismatched = mismatches.get();
+        stats.put("decisions", count);
+        stats.put("averageDecisionNanos", count > 0 ? totalDecisionNanos.get() / count : 0);
+        stats.put("maxDecisionNanos", maxDecisionNanos.get());
+        stats.put("verifiedDecisions", verified);
+        stats.put("mismatches", mismatched);
+        // Per mille, to stay integral
+        stats.put("accuracyPerMille", verified > 0 ? (verified - mismatched) * 1000 / verified : 1000);
+        return stats;
+    }
+
+    private synchronized void ensureStarted() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        refreshFromSystem();
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_USER_PRESENT);
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+                context.registerReceiver(screenReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+            } else {
+                context.registerReceiver(screenReceiver, filter);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error registering screen state receiver: " + e.getMessage(), e);
+        }
+    }
+
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                screenOn = true;
+                // The keyguard may or may not be showing when the screen turns back on
+                keyguardLocked = queryKeyguardLocked();
+            } else if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                screenOn = false;
+                keyguardLocked = queryKeyguardLocked();
+            } else if (Intent.ACTION_USER_PRESENT.equals(action)) {
+                keyguardLocked = false;
+            }
+        }
+    };
+
+    /**
+     * Seed the cached state from the system services. Off the ringing path.
+     */
+    private void refreshFromSystem() {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        screenOn = powerManager == null || powerManager.isInteractive();
+        keyguardLocked = queryKeyguardLocked();
+    }
+
+    private boolean queryKeyguardLocked() {
+        KeyguardManager keyguardManager = (KeyguardManager) context.getSystemService(Context.KEYGUARD_SERVICE);
+        return keyguardManager != null && keyguardManager.isKeyguardLocked();
+    }
+
+    /**
+     * Recompute the decision the slow way and compare. Runs on the verifier thread. Foreground
+     * stays the started-activity count: the process importance also counts the bound
+     * InCallService, which is not an activity the user can see.
+     */
+    private void verifyDecision(boolean decision) {
+        try {
+            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            boolean interactive = powerManager == null || powerManager.isInteractive();
+            boolean locked = queryKeyguardLocked();
+            boolean inForeground = startedActivities.get() > 0;
+            boolean expected = locked || !interactive || !inForeground;
+
+            verifiedDecisions.incrementAndGet();
+            if (expected != decision) {
+                mismatches.incrementAndGet();
+                Log.w(TAG, "Cached device state disagreed with system state - Locked: " + locked
+                        + ", ScreenOn: " + interactive + ", AppInForeground: " + inForeground
+                        + "; resynchronizing");
+                screenOn = interactive;
+                keyguardLocked = locked;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error verifying device state: " + e.getMessage(), e);
+        }
+    }
+
+    private void recordDecisionLatency(long nanos) {
+        decisions.incrementAndGet();
+        totalDecisionNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxDecisionNanos.get())) {
+            if (maxDecisionNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+}
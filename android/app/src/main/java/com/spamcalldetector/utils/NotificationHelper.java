@@ -10,6 +10,7 @@ import android.media.AudioAttributes;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.spamcalldetector.R;
@@ -25,6 +26,12 @@ public class NotificationHelper {
 
     private final Context context;
     private final NotificationManager notificationManager;
+    private boolean isIncomingCallNotificationShown = false;
+    // Whether the incoming call being shown was silenced by call screening
+    private boolean isIncomingCallSilenced = false;
+    // Call setup trace and request time of the incoming call being shown
+    private long incomingTraceId = CallSetupTracer.NO_TRACE;
+    private long incomingRequestedAt = 0;
 
     public NotificationHelper(Context context) {
         this.context = context;
@@ -75,6 +82,52 @@ public class NotificationHelper {
      * Creates a heads-up notification with full-screen intent for incoming calls
      */
     public void showIncomingCallNotification(String callerName, String callerNumber) {
+        showIncomingCallNotification(callerName, callerNumber, CallSetupTracer.NO_TRACE);
+    }
+
+    /**
+     * Show incoming call notification, carrying the call setup trace to IncomingCallActivity
+     */
+    public void showIncomingCallNotification(String callerName, String callerNumber, long traceId) {
+        incomingTraceId = traceId;
+        incomingRequestedAt = SystemClock.elapsedRealtime();
+        isIncomingCallSilenced = false;
+        postIncomingCallNotification(callerName, callerNumber);
+    }
+
+    /**
+     * Show a call silenced by call screening: a quiet notification on its own low-importance
+     * channel, without ringtone, heads-up or full-screen UI. Tapping it still opens the incoming
+     * call screen and its actions answer or decline the call.
+     */
+    public void showSilencedCallNotification(String callerName, String callerNumber, long traceId) {
+        incomingTraceId = traceId;
+        incomingRequestedAt = SystemClock.elapsedRealtime();
+        isIncomingCallSilenced = true;
+        createSilencedCallNotificationChannel();
+        postIncomingCallNotification(callerName, callerNumber);
+    }
+
+    private void createSilencedCallNotificationChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            try {
+                NotificationChannel channel = new NotificationChannel(
+                    Constants.SILENCED_CALL_CHANNEL_ID,
+                    "Silenced Calls",
+                    NotificationManager.IMPORTANCE_LOW
+                );
+                channel.setDescription("Incoming calls silenced as likely spam");
+                channel.setSound(null, null);
+                channel.enableVibration(false);
+                channel.setLockscreenVisibility(Notification.VISIBILITY_PUBLIC);
+                notificationManager.createNotificationChannel(channel);
+            } catch (Exception e) {
+                Log.e(TAG, "Error creating silenced call notification channel: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void postIncomingCallNotification(String callerName, String callerNumber) {
         try {
             Log.d(TAG, "Creating incoming call notification for: " + callerName + " (" + callerNumber + ")");
             
@@ -88,6 +141,8 @@ public class NotificationHelper {
             // Add caller information to the intent
             intent.putExtra("caller_name", callerName);
             intent.putExtra("caller_number", callerNumber);
+            intent.putExtra(Constants.EXTRA_LAUNCHED_AT, incomingRequestedAt);
+            intent.putExtra(Constants.EXTRA_TRACE_ID, incomingTraceId);
             
             PendingIntent pendingIntent = PendingIntent.getActivity(
                 context, 
@@ -99,24 +154,29 @@ public class NotificationHelper {
             // Build the notification as an ongoing high priority item
             Notification.Builder builder;
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                builder = new Notification.Builder(context, Constants.INCOMING_CALL_CHANNEL_ID);
+                builder = new Notification.Builder(context, isIncomingCallSilenced
+                        ? Constants.SILENCED_CALL_CHANNEL_ID : Constants.INCOMING_CALL_CHANNEL_ID);
             } else {
                 builder = new Notification.Builder(context);
-                builder.setPriority(Notification.PRIORITY_HIGH);
+                builder.setPriority(isIncomingCallSilenced ? Notification.PRIORITY_LOW : Notification.PRIORITY_HIGH);
             }
             
             builder.setOngoing(true)
+                // Re-posting with a resolved caller name must not restart the ringtone
+                .setOnlyAlertOnce(true)
                 .setCategory(Notification.CATEGORY_CALL)
                 .setSmallIcon(R.drawable.ic_notification) // Using existing phone icon
-                .setContentTitle("Incoming call")
+                .setContentTitle(isIncomingCallSilenced ? "Silenced call" : "Incoming call")
                 .setContentText(callerName != null && !callerName.isEmpty() ? callerName : callerNumber)
                 .setLargeIcon((android.graphics.Bitmap) null) // You can add a contact photo here if available
                 // Set notification content intent to take user to the fullscreen UI if user taps on the notification body
                 .setContentIntent(pendingIntent)
-                // Set full screen intent to trigger display of the fullscreen UI when the notification manager deems it appropriate
-                .setFullScreenIntent(pendingIntent, true)
                 .setAutoCancel(false)
                 .setVisibility(Notification.VISIBILITY_PUBLIC);
+            if (!isIncomingCallSilenced) {
+                // Set full screen intent to trigger display of the fullscreen UI when the notification manager deems it appropriate
+                builder.setFullScreenIntent(pendingIntent, true);
+            }
             
             // Add action buttons for answer and decline
             addIncomingCallActions(builder);
@@ -128,6 +188,7 @@ public class NotificationHelper {
                 builder.build()
             );
             
+            isIncomingCallNotificationShown = true;
             Log.d(TAG, "Incoming call notification successfully shown for: " + callerName);
             Log.d(TAG, "Full-screen intent should trigger IncomingCallActivity");
         } catch (Exception e) {
@@ -135,6 +196,18 @@ public class NotificationHelper {
         }
     }
     
+    /**
+     * Update the content of an incoming call notification that is already showing,
+     * e.g. once the caller name has been resolved
+     */
+    public void updateIncomingCallNotification(String callerName, String callerNumber) {
+        if (!isIncomingCallNotificationShown) {
+            return;
+        }
+        Log.d(TAG, "Updating incoming call notification for: " + callerName);
+        postIncomingCallNotification(callerName, callerNumber);
+    }
+
     /**
      * Add action buttons to the incoming call notification
      */
@@ -180,12 +253,63 @@ public class NotificationHelper {
         try {
             // Cancel the notification using just the notification ID (not channel ID as tag)
             notificationManager.cancel(Constants.INCOMING_CALL_NOTIFICATION_ID);
+            isIncomingCallNotificationShown = false;
             Log.d(TAG, "Incoming call notification cancelled with ID: " + Constants.INCOMING_CALL_NOTIFICATION_ID);
         } catch (Exception e) {
             Log.e(TAG, "Error cancelling incoming call notification: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Warn about a fraud alert for the current call, e.g. while the app is in the background
+     */
+    public void showFraudAlertNotification(String fraudType, String callerNumber) {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                NotificationChannel channel = new NotificationChannel(
+                    Constants.FRAUD_ALERT_CHANNEL_ID,
+                    "Fraud Alerts",
+                    NotificationManager.IMPORTANCE_HIGH
+                );
+                channel.setDescription("Warnings about suspected fraud during a call");
+                channel.enableVibration(true);
+                channel.setLockscreenVisibility(Notification.VISIBILITY_PUBLIC);
+                notificationManager.createNotificationChannel(channel);
+            }
+
+            Intent intent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+            PendingIntent pendingIntent = intent != null ? PendingIntent.getActivity(
+                context,
+                Constants.FRAUD_ALERT_NOTIFICATION_ID,
+                intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
+            ) : null;
+
+            Notification.Builder builder;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                builder = new Notification.Builder(context, Constants.FRAUD_ALERT_CHANNEL_ID);
+            } else {
+                builder = new Notification.Builder(context);
+                builder.setPriority(Notification.PRIORITY_HIGH);
+            }
+
+            builder.setCategory(Notification.CATEGORY_ALARM)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle("Possible fraud: " + fraudType)
+                .setContentText(callerNumber != null
+                    ? "The call with " + callerNumber + " may be a scam"
+                    : "This call may be a scam")
+                .setContentIntent(pendingIntent)
+                .setAutoCancel(true)
+                .setVisibility(Notification.VISIBILITY_PUBLIC);
+
+            notificationManager.notify(Constants.FRAUD_ALERT_NOTIFICATION_ID, builder.build());
+            Log.d(TAG, "Fraud alert notification shown: " + fraudType);
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing fraud alert notification: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Cancel system missed call notifications
      * This helps prevent duplicate notifications from the system
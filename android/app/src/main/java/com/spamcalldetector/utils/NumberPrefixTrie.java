@@ -0,0 +1,219 @@
+package com.spamcalldetector.utils;
+
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+
+import java.util.Arrays;
+
+/**
+ * Digit trie mapping E.164 number prefixes to allow/deny rules.
+ * Nodes live in parallel primitive arrays (first child, next sibling, digit, rule) instead of
+ * node objects, about 10 bytes per node. A lookup walks the digits of a PhoneNumberNormalizer
+ * key and returns the rule of the longest matching prefix.
+ * Not thread-safe for writes; a trie that is no longer written can be read from any thread.
+ */
+public class NumberPrefixTrie {
+
+    public static final byte RULE_NONE = 0;
+    public static final byte RULE_ALLOW = 1;
+    public static final byte RULE_DENY = 2;
+
+    private static final int NO_NODE = -1;
+    private static final int ROOT = 0;
+
+    private int[] firstChild;
+    private int[] nextSibling;
+    private byte[] digits;
+    private byte[] rules;
+    private int nodeCount;
+    private int ruleCount;
+
+    public NumberPrefixTrie() {
+        this(1024);
+    }
+
+    public NumberPrefixTrie(int expectedNodes) {
+        int capacity = Math.max(expectedNodes, 16);
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        digits = new byte[capacity];
+        rules = new byte[capacity];
+        nodeCount = 1;
+        firstChild[ROOT] = NO_NODE;
+        nextSibling[ROOT] = NO_NODE;
+    }
+
+    /**
+     * Set the rule for every number starting with a prefix
+     *
+     * @param prefix E.164 digits without '+'; other characters are ignored
+     */
+    public void addPrefix(CharSequence prefix, byte rule) {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c >= '0' && c <= '9') {
+                node = getOrCreateChild(node, c - '0');
+            }
+        }
+        if (node != ROOT) {
+            if (rules[node] == RULE_NONE) {
+                ruleCount++;
+            }
+            rules[node] = rule;
+        }
+    }
+
+    /**
+     * Set the rule for every number from first to last inclusive. Both ends must have the
+     * same number of digits; the range is stored as the smallest set of covering prefixes.
+     *
+     * @return false if the range is malformed
+     */
+    public boolean addRange(CharSequence first, CharSequence last, byte rule) {
+        char[] low = digitsOf(first);
+        char[] high = digitsOf(last);
+        if (low.length == 0 || low.length != high.length || compare(low, high) > 0) {
+            return false;
+        }
+        addRange(low, high, 0, rule);
+        return true;
+    }
+
+    /**
+     * Rule of the longest prefix of a number that has one
+     *
+     * @return RULE_ALLOW, RULE_DENY or RULE_NONE
+     */
+    public byte match(long key) {
+        if (key == PhoneNumberNormalizer.INVALID) {
+            return RULE_NONE;
+        }
+        byte best = RULE_NONE;
+        int node = ROOT;
+        int count = PhoneNumberNormalizer.digitCount(key);
+        for (int i = 0; i < count; i++) {
+            node = findChild(node, PhoneNumberNormalizer.e164DigitAt(key, i));
+            if (node == NO_NODE) {
+                break;
+            }
+            if (rules[node] != RULE_NONE) {
+                best = rules[node];
+            }
+        }
+        return best;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public long sizeInBytes() {
+        return (long) firstChild.length * 10;
+    }
+
+    /**
+     * Release unused capacity once all rules are added
+     */
+    public void trimToSize() {
+        resize(nodeCount);
+    }
+
+    // Covers [low, high], which agree on every digit before position
+    private void addRange(char[] low, char[] high, int position, byte rule) {
+        while (position < low.length && low[position] == high[position]) {
+            position++;
+        }
+        if (position == low.length) {
+            addPrefix(new String(low), rule);
+            return;
+        }
+
+        boolean lowFull = isAll(low, position + 1, '0');
+        boolean highFull = isAll(high, position + 1, '9');
+        int fromDigit = lowFull ? low[position] : low[position] + 1;
+        int toDigit = highFull ? high[position] : high[position] - 1;
+
+        if (!lowFull) {
+            char[] lowEnd = low.clone();
+            Arrays.fill(lowEnd, position + 1, lowEnd.length, '9');
+            addRange(low, lowEnd, position + 1, rule);
+        }
+        for (int d = fromDigit; d <= toDigit; d++) {
+            StringBuilder prefix = new StringBuilder(position + 1);
+            prefix.append(low, 0, position).append((char) d);
+            addPrefix(prefix, rule);
+        }
+        if (!highFull) {
+            char[] highStart = high.clone();
+            Arrays.fill(highStart, position + 1, highStart.length, '0');
+            addRange(highStart, high, position + 1, rule);
+        }
+    }
+
+    private int findChild(int node, int digit) {
+        int child = firstChild[node];
+        while (child != NO_NODE && digits[child] != digit) {
+            child = nextSibling[child];
+        }
+        return child;
+    }
+
+    private int getOrCreateChild(int node, int digit) {
+        int child = findChild(node, digit);
+        if (child != NO_NODE) {
+            return child;
+        }
+        if (nodeCount == firstChild.length) {
+            resize(nodeCount + (nodeCount >> 1));
+        }
+        child = nodeCount++;
+        digits[child] = (byte) digit;
+        rules[child] = RULE_NONE;
+        firstChild[child] = NO_NODE;
+        nextSibling[child] = firstChild[node];
+        firstChild[node] = child;
+        return child;
+    }
+
+    private void resize(int capacity) {
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        digits = Arrays.copyOf(digits, capacity);
+        rules = Arrays.copyOf(rules, capacity);
+    }
+
+    private static char[] digitsOf(CharSequence value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                builder.append(c);
+            }
+        }
+        char[] result = new char[builder.length()];
+        builder.getChars(0, builder.length(), result, 0);
+        return result;
+    }
+
+    private static boolean isAll(char[] value, int from, char c) {
+        for (int i = from; i < value.length; i++) {
+            if (value[i] != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(char[] a, char[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] - b[i];
+            }
+        }
+        return 0;
+    }
+}
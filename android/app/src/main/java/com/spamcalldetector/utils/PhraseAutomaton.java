@@ -0,0 +1,188 @@
+package com.spamcalldetector.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton matching a fixed set of phrases against streamed text in one pass.
+ * Text is folded to lowercase letters, digits and single spaces, so "Gift-Card!" and
+ * "gift card" are the same; phrases only match on whole words. Transitions are compiled into a
+ * dense table, so each input character costs one array read and the matching state can be
+ * carried across text fragments.
+ * Immutable once built and safe to share between threads.
+ */
+public class PhraseAutomaton {
+
+    /** State to start matching from */
+    public static final int START_STATE = 0;
+
+    // a-z, 0-9 and the word separator
+    private static final int ALPHABET = 37;
+    private static final int SEPARATOR = 36;
+
+    private final int[] transitions;
+    // Phrase ids matched on entering each state: outputIds[outputStart[s] .. outputStart[s + 1])
+    private final int[] outputStart;
+    private final int[] outputIds;
+    private final int phraseCount;
+
+    /**
+     * Receives phrase matches
+     */
+    public interface MatchListener {
+        void onMatch(int phraseId);
+    }
+
+    /**
+     * @param phrases Phrases to match; a phrase's id is its index in the list
+     */
+    public PhraseAutomaton(List<String> phrases) {
+        phraseCount = phrases.size();
+
+        // Build the trie over separator-padded phrases so matches land on word boundaries
+        List<int[]> children = new ArrayList<>();
+        List<List<Integer>> outputs = new ArrayList<>();
+        children.add(new int[ALPHABET]);
+        outputs.add(new ArrayList<>());
+
+        for (int id = 0; id < phrases.size(); id++) {
+            String folded = fold(phrases.get(id));
+            if (folded.trim().isEmpty()) {
+                continue;
+            }
+            int state = START_STATE;
+            for (int i = 0; i < folded.length(); i++) {
+                int symbol = symbolOf(folded.charAt(i));
+                int next = children.get(state)[symbol];
+                if (next == 0) {
+                    next = children.size();
+                    children.add(new int[ALPHABET]);
+                    outputs.add(new ArrayList<>());
+                    children.get(state)[symbol] = next;
+                }
+                state = next;
+            }
+            outputs.get(state).add(id);
+        }
+
+        // Breadth-first: compute failure links and fill in missing transitions
+        int stateCount = children.size();
+        transitions = new int[stateCount * ALPHABET];
+        int[] failure = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int child = children.get(START_STATE)[symbol];
+            transitions[symbol] = child;
+            if (child != 0) {
+                failure[child] = START_STATE;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            // Inherit the matches of the longest proper suffix
+            outputs.get(state).addAll(outputs.get(failure[state]));
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = children.get(state)[symbol];
+                if (child != 0) {
+                    failure[child] = transitions[failure[state] * ALPHABET + symbol];
+                    transitions[state * ALPHABET + symbol] = child;
+                    queue[tail++] = child;
+                } else {
+                    transitions[state * ALPHABET + symbol] = transitions[failure[state] * ALPHABET + symbol];
+                }
+            }
+        }
+
+        outputStart = new int[stateCount + 1];
+        int total = 0;
+        for (int state = 0; state < stateCount; state++) {
+            outputStart[state] = total;
+            total += outputs.get(state).size();
+        }
+        outputStart[stateCount] = total;
+        outputIds = new int[total];
+        for (int state = 0; state < stateCount; state++) {
+            int offset = outputStart[state];
+            for (int id : outputs.get(state)) {
+                outputIds[offset++] = id;
+            }
+        }
+    }
+
+    /**
+     * Advance over one raw character
+     *
+     * @param state State after the previous character
+     * @param c     Raw character; case and punctuation are folded
+     * @param previousWasSeparator Whether the previous folded character was a separator,
+     *                             so runs of separators collapse into one
+     * @return The new state, or the same state for a collapsed separator
+     */
+    public int step(int state, char c, boolean previousWasSeparator, MatchListener listener) {
+        int symbol = symbolOf(c);
+        if (symbol == SEPARATOR && previousWasSeparator) {
+            return state;
+        }
+        if (state == START_STATE && previousWasSeparator) {
+            // Start of text: take the word break as read so a phrase can match on the first word
+            state = transitions[SEPARATOR];
+        }
+        int next = transitions[state * ALPHABET + symbol];
+        for (int i = outputStart[next]; i < outputStart[next + 1]; i++) {
+            listener.onMatch(outputIds[i]);
+        }
+        return next;
+    }
+
+    public static boolean isSeparator(char c) {
+        return symbolOf(c) == SEPARATOR;
+    }
+
+    public int getPhraseCount() {
+        return phraseCount;
+    }
+
+    public int getStateCount() {
+        return outputStart.length - 1;
+    }
+
+    public long sizeInBytes() {
+        return 4L * (transitions.length + outputStart.length + outputIds.length);
+    }
+
+    /**
+     * Fold a phrase the way streamed text is folded, with a separator on each side
+     */
+    private static String fold(String phrase) {
+        StringBuilder builder = new StringBuilder(phrase.length() + 2).append(' ');
+        for (int i = 0; i < phrase.length(); i++) {
+            char c = phrase.charAt(i);
+            if (symbolOf(c) != SEPARATOR) {
+                builder.append(Character.toLowerCase(c));
+            } else if (builder.charAt(builder.length() - 1) != ' ') {
+                builder.append(' ');
+            }
+        }
+        if (builder.charAt(builder.length() - 1) != ' ') {
+            builder.append(' ');
+        }
+        return builder.toString();
+    }
+
+    private static int symbolOf(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + (c - '0');
+        }
+        return SEPARATOR;
+    }
+}
@@ -0,0 +1,228 @@
+package com.spamcalldetector.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single path for native events to JS.
+ * Events are queued and delivered once per display frame. An event posted with a coalesce key
+ * replaces the queued event with the same name and key, so only the latest timing or state
+ * crosses to JS. Once the JS side has installed its dispatcher (nativeEventBus.ts) a frame's
+ * events cross the bridge as one "NativeEventBatch" event; until then they are emitted one by one.
+ * While no JS runtime is attached events wait in a bounded queue, the oldest dropped first;
+ * an attached runtime gets every event, however many are posted in one frame, up to a much larger
+ * hard bound that keeps a stalled runtime from growing the queue without limit.
+ * Safe to post from any thread.
+ */
+public class ReactEventBus {
+    private static final String TAG = "ReactEventBus";
+
+    public static final String BATCH_EVENT = "NativeEventBatch";
+    // Events kept while no JS runtime is attached
+    private static final int MAX_QUEUED_EVENTS = 64;
+    // Events kept in any case, e.g. while the main thread or the JS runtime is stalled
+    private static final int MAX_PENDING_EVENTS = 4096;
+
+    private static ReactEventBus instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> flush();
+
+    // Guarded by this
+    private final LinkedHashMap<String, PendingEvent> queue = new LinkedHashMap<>();
+    private long sequence = 0;
+    private boolean frameScheduled = false;
+    private ReactContext reactContext;
+    private boolean batching = false;
+
+    // Counters, guarded by this
+    private long posted = 0;
+    private long coalesced = 0;
+    private long dropped = 0;
+    private long overflowDropped = 0;
+    private long delivered = 0;
+    private long bridgeCrossings = 0;
+    private long frames = 0;
+    private long maxQueueDepth = 0;
+
+    private static class PendingEvent {
+        final String name;
+        final WritableMap params;
+
+        PendingEvent(String name, WritableMap params) {
+            this.name = name;
+            this.params = params;
+        }
+    }
+
+    private ReactEventBus() {
+    }
+
+    public static synchronized ReactEventBus getInstance() {
+        if (instance == null) {
+            instance = new ReactEventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Deliver events to this React context. A new context (e.g. after a reload) starts
+     * without batching until its dispatcher is installed again.
+     */
+    public synchronized void attach(ReactContext context) {
+        if (context == null || context == reactContext) {
+            return;
+        }
+        reactContext = context;
+        batching = false;
+        if (!queue.isEmpty()) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Called by the JS dispatcher once it listens for batches
+     */
+    public synchronized void enableBatching() {
+        batching = true;
+    }
+
+    /**
+     * Whether a JS runtime is attached and running, so events will be delivered
+     */
+    public synchronized boolean isJsListening() {
+        return reactContext != null && reactContext.hasActiveCatalystInstance();
+    }
+
+    /**
+     * Queue an event for the next frame
+     */
+    public void post(String name, WritableMap params) {
+        post(name, null, params);
+    }
+
+    /**
+     * Queue an event for the next frame, replacing a queued event with the same name and key
+     *
+     * @param coalesceKey Identity of the state the event describes, e.g. a call; null never coalesces
+     */
+    public synchronized void post(String name, String coalesceKey, WritableMap params) {
+        posted++;
+        String key = coalesceKey != null ? name + '\u0000' + coalesceKey : "#" + (sequence++);
+        // Re-insert so a replaced event keeps its place after earlier, different events
+        if (queue.remove(key) != null) {
+            coalesced++;
+        }
+        queue.put(key, new PendingEvent(name, params != null ? params : Arguments.createMap()));
+        // An attached runtime drains the queue every frame, so only the hard bound applies to it
+        if (queue.size() > MAX_QUEUED_EVENTS && !isJsListening()) {
+            Iterator<PendingEvent> oldest = queue.values().iterator();
+            while (queue.size() > MAX_QUEUED_EVENTS) {
+                oldest.next();
+                oldest.remove();
+                dropped++;
+            }
+        } else if (queue.size() > MAX_PENDING_EVENTS) {
+            Iterator<PendingEvent> oldest = queue.values().iterator();
+            while (queue.size() > MAX_PENDING_EVENTS) {
+                oldest.next();
+                oldest.remove();
+                dropped++;
+                overflowDropped++;
+            }
+        }
+        maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+        scheduleFrame();
+    }
+
+    /**
+     * Event and bridge crossing counters for diagnostics
+     */
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("posted", posted);
+        stats.put("coalesced", coalesced);
+        stats.put("dropped", dropped);
+        stats.put("overflowDropped", overflowDropped);
+        stats.put("delivered", delivered);
+        stats.put("bridgeCrossings", bridgeCrossings);
+        stats.put("frames", frames);
+        stats.put("queueDepth", (long) queue.size());
+        stats.put("maxQueueDepth", maxQueueDepth);
+        stats.put("batching", batching ? 1L : 0L);
+        return stats;
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) {
+            return;
+        }
+        frameScheduled = true;
+        // Choreographer callbacks must be registered on the main looper
+        mainHandler.post(() -> Choreographer.getInstance().postFrameCallback(frameCallback));
+    }
+
+    /**
+     * Deliver everything queued. Runs on the main thread once per frame.
+     */
+    private void flush() {
+        List<PendingEvent> events;
+        ReactContext context;
+        boolean batch;
+        synchronized (this) {
+            frameScheduled = false;
+            context = reactContext;
+            if (context == null || !context.hasActiveCatalystInstance()) {
+                // Keep the bounded queue until a runtime attaches
+                return;
+            }
+            events = new ArrayList<>(queue.values());
+            queue.clear();
+            batch = batching;
+            frames++;
+        }
+
+        try {
+            DeviceEventManagerModule.RCTDeviceEventEmitter emitter =
+                    context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class);
+            int crossings;
+            if (batch) {
+                WritableArray batchEvents = Arguments.createArray();
+                for (PendingEvent event : events) {
+                    WritableMap item = Arguments.createMap();
+                    item.putString("name", event.name);
+                    item.putMap("params", event.params);
+                    batchEvents.pushMap(item);
+                }
+                emitter.emit(BATCH_EVENT, batchEvents);
+                crossings = 1;
+            } else {
+                for (PendingEvent event : events) {
+                    emitter.emit(event.name, event.params);
+                }
+                crossings = events.size();
+            }
+            synchronized (this) {
+                delivered += events.size();
+                bridgeCrossings += crossings;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error delivering events to JS: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.spamcalldetector.benchmarks;
+
+import com.spamcalldetector.utils.AlertFrameCodec;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding cost of fraud alert messages as binary frames against the JSON the client parses
+ * otherwise, reading the same fields as FraudAlertClient. main() prints the wire size of each
+ * and adds the gc profiler for allocations per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertFrameCodecBenchmark {
+    private static final String CALL_SID = "CA5f0c1e7d2b9a4c8e6f3d1b0a9c8e7f6d";
+    private static final String TRANSCRIPT = "Hello, this is the fraud department of your bank. We noticed "
+            + "a suspicious charge, so to keep your account safe please read me the code we just texted you.";
+
+    private final AlertFrameCodec decoder = new AlertFrameCodec();
+    private ByteBuffer verdictFrame;
+    private ByteBuffer transcriptFrame;
+    private String verdictJson;
+    private String transcriptJson;
+    // Folds in every decoded field so none can be optimized away
+    private long sink;
+    private final AlertFrameCodec.FrameListener listener = new AlertFrameCodec.FrameListener() {
+        @Override
+        public void onVerdict(String callSid, boolean isFraud, String fraudType) {
+            sink += callSid.length() + (isFraud ? 1 : 0) + fraudType.length();
+        }
+
+        @Override
+        public void onTranscript(String callSid, long sequence, CharSequence text) {
+            sink += callSid.length() + sequence + text.length();
+        }
+    };
+
+    @Setup
+    public void setUp() throws Exception {
+
+        verdictFrame = ByteBuffer.wrap(AlertFrameCodec.encodeVerdict(CALL_SID, true, "BANK_IMPERSONATION"));
+        transcriptFrame = ByteBuffer.wrap(AlertFrameCodec.encodeTranscript(CALL_SID, 42, TRANSCRIPT));
+        verdictJson = new JSONObject()
+                .put("call_sid", CALL_SID)
+                .put("is_fraud", true)
+                .put("fraud_type", "bank_impersonation")
+                .toString();
+        transcriptJson = new JSONObject()
+                .put("call_sid", CALL_SID)
+                .put("sequence", 42)
+                .put("transcript", TRANSCRIPT)
+                .toString();
+    }
+
+    @Benchmark
+    public long verdictFrame() {
+        verdictFrame.rewind();
+        decoder.decode(verdictFrame, listener);
+        return sink;
+    }
+
+    @Benchmark
+    public long transcriptFrame() {
+        transcriptFrame.rewind();
+        decoder.decode(transcriptFrame, listener);
+        return sink;
+    }
+
+    /** Baseline: the JSON verdict, as FraudAlertClient.onSocketMessage reads it */
+    @Benchmark
+    public long verdictJson() throws Exception {
+        JSONObject data = new JSONObject(verdictJson);
+        listener.onVerdict(data.optString("call_sid", null), data.optBoolean("is_fraud", false),
+                data.optString("fraud_type", "").toUpperCase());
+        return sink;
+    }
+
+    /** Baseline: the JSON transcript, as FraudAlertClient.onSocketMessage reads it */
+    @Benchmark
+    public long transcriptJson() throws Exception {
+        JSONObject data = new JSONObject(transcriptJson);
+        listener.onTranscript(data.optString("call_sid", null), data.optLong("sequence", 0),
+                data.optString("transcript", null));
+        return sink;
+    }
+
+    public static void main(String[] args) throws Exception {
+        AlertFrameCodecBenchmark sizes = new AlertFrameCodecBenchmark();
+        sizes.setUp();
+        System.out.println("verdict: " + sizes.verdictFrame.capacity() + " bytes binary, "
+                + sizes.verdictJson.getBytes(StandardCharsets.UTF_8).length + " bytes JSON");
+        System.out.println("transcript: " + sizes.transcriptFrame.capacity() + " bytes binary, "
+                + sizes.transcriptJson.getBytes(StandardCharsets.UTF_8).length + " bytes JSON");
+
+        new Runner(new OptionsBuilder()
+                .include(AlertFrameCodecBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
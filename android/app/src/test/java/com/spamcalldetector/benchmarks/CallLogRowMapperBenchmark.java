@@ -0,0 +1,114 @@
+package com.spamcalldetector.benchmarks;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.spamcalldetector.helpers.CallLogRowMapper;
+import com.spamcalldetector.helpers.FakeCallLogCursor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting a whole call log cursor into the array sent to JS: rows streamed through
+ * CallLogRowMapper into the array, writing the fields CallHistoryModule's CallArrayWriter
+ * writes, against the boxed map per row copied into the array afterwards that it replaced.
+ * JavaOnlyMap and JavaOnlyArray stand in for the native-backed maps. Divide the time and the
+ * gc profiler's bytes per operation by the row count for the cost per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallLogRowMapperBenchmark {
+
+    @Param({ "100000" })
+    public int rows;
+
+    private FakeCallLogCursor cursor;
+
+    @Setup
+    public void setUp() {
+        cursor = FakeCallLogCursor.generate(rows, 42);
+    }
+
+    @Benchmark
+    public WritableArray streamRows() {
+        cursor.moveToPosition(-1);
+        WritableArray calls = new JavaOnlyArray();
+        CallLogRowMapper row = new CallLogRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            WritableMap call = new JavaOnlyMap();
+            call.putString("id", row.getIdString());
+            call.putString("phoneNumber", row.getNumber());
+            call.putString("contactName", row.getCachedName());
+            call.putDouble("timestamp", row.getDate());
+            call.putInt("duration", row.getDuration());
+            call.putString("type", row.getTypeName());
+            call.putBoolean("isNew", row.isNew());
+            calls.pushMap(call);
+        }
+        return calls;
+    }
+
+    /** Baseline: column lookups per row, a boxed map per row, then a copy into the array */
+    @Benchmark
+    public WritableArray boxedMapsThenCopy() {
+        cursor.moveToPosition(-1);
+        List<Map<String, Object>> list = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            Map<String, Object> call = new HashMap<>();
+            call.put("id", cursor.getString(cursor.getColumnIndex(android.provider.CallLog.Calls._ID)));
+            call.put("phoneNumber", cursor.getString(cursor.getColumnIndex(android.provider.CallLog.Calls.NUMBER)));
+            String name = cursor.getString(cursor.getColumnIndex(android.provider.CallLog.Calls.CACHED_NAME));
+            call.put("contactName", name == null ? "" : name);
+            call.put("timestamp", cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls.DATE)));
+            call.put("duration", cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.DURATION)));
+            call.put("type", CallLogRowMapper.typeName(
+                    cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.TYPE))));
+            call.put("isNew", cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.NEW)) == 1);
+            list.add(call);
+        }
+
+        WritableArray calls = new JavaOnlyArray();
+        for (Map<String, Object> call : list) {
+            WritableMap map = new JavaOnlyMap();
+            map.putString("id", (String) call.get("id"));
+            map.putString("phoneNumber", (String) call.get("phoneNumber"));
+            map.putString("contactName", (String) call.get("contactName"));
+            map.putDouble("timestamp", (Long) call.get("timestamp"));
+            map.putInt("duration", (Integer) call.get("duration"));
+            map.putString("type", (String) call.get("type"));
+            map.putBoolean("isNew", (Boolean) call.get("isNew"));
+            calls.pushMap(map);
+        }
+        return calls;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CallLogRowMapperBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
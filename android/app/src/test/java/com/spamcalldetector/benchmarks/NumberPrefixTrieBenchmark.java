@@ -0,0 +1,104 @@
+package com.spamcalldetector.benchmarks;
+
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+import com.spamcalldetector.utils.NumberPrefixTrie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compile time of a large rule set and lookup latency against the compiled trie. Rules are a mix
+ * of NANP block prefixes and ranges, like number_rules.txt; main() prints the compiled size.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class NumberPrefixTrieBenchmark {
+    private static final int PROBES = 4096;
+
+    @Param({ "300000" })
+    public int rules;
+
+    private String[] prefixes;
+    private String[][] ranges;
+    private NumberPrefixTrie trie;
+    private long[] numbers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int rangeCount = rules / 10;
+        prefixes = new String[rules - rangeCount];
+        ranges = new String[rangeCount][];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = "+1" + (2_000_000 + random.nextInt(8_000_000));
+        }
+        for (int i = 0; i < rangeCount; i++) {
+            int first = 2_000_000 + random.nextInt(7_990_000);
+            ranges[i] = new String[] { "+1" + first + "000", "+1" + (first + random.nextInt(10_000)) + "999" };
+        }
+        trie = compile();
+
+        numbers = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            numbers[i] = PhoneNumberNormalizer.normalize("+1" + (2_000_000_000L + random.nextInt(1_000_000_000)), 1);
+        }
+    }
+
+    private NumberPrefixTrie compile() {
+        NumberPrefixTrie compiled = new NumberPrefixTrie();
+        for (String prefix : prefixes) {
+            compiled.addPrefix(prefix, NumberPrefixTrie.RULE_DENY);
+        }
+        for (String[] range : ranges) {
+            compiled.addRange(range[0], range[1], NumberPrefixTrie.RULE_DENY);
+        }
+        compiled.trimToSize();
+        return compiled;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public NumberPrefixTrie compileRules() {
+        return compile();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public byte match() {
+        next = (next + 1) & (PROBES - 1);
+        return trie.match(numbers[next]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        NumberPrefixTrieBenchmark sizing = new NumberPrefixTrieBenchmark();
+        sizing.rules = 300_000;
+        sizing.setUp();
+        System.out.println(sizing.trie.getRuleCount() + " rules, " + sizing.trie.getNodeCount() + " nodes, "
+                + sizing.trie.sizeInBytes() / 1024 + " KB");
+
+        new Runner(new OptionsBuilder()
+                .include(NumberPrefixTrieBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
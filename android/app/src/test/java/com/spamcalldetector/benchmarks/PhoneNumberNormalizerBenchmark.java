@@ -0,0 +1,78 @@
+package com.spamcalldetector.benchmarks;
+
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization latency over the spellings seen on call paths, against the string clean-up it
+ * replaced. main() adds the gc profiler, which shows that normalize does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneNumberNormalizerBenchmark {
+    private static final String[] NUMBERS = {
+            "+18452998019",
+            "+1 845-299-8019",
+            "8452998019",
+            "(845) 299-8019",
+            "011 44 20 7946 0958",
+            "+44 (0)20 7946 0958",
+            "845-299-8019 x123",
+            "911"
+    };
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        next = 0;
+    }
+
+    private String nextNumber() {
+        String number = NUMBERS[next];
+        next = (next + 1) % NUMBERS.length;
+        return number;
+    }
+
+    @Benchmark
+    public long normalize() {
+        return PhoneNumberNormalizer.normalize(nextNumber(), 1);
+    }
+
+    @Benchmark
+    public boolean isSameNumber() {
+        return PhoneNumberNormalizer.isSameNumber(nextNumber(), "+18452998019");
+    }
+
+    /** Baseline: strip formatting into a new string, as the call paths used to compare numbers */
+    @Benchmark
+    public void stringCleanup(Blackhole blackhole) {
+        blackhole.consume(nextNumber().replaceAll("[^0-9+]", ""));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PhoneNumberNormalizerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package com.spamcalldetector.benchmarks;
+
+import com.spamcalldetector.utils.PhraseAutomaton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transcript classifier throughput: one pass of the phrase automaton over a synthetic
+ * transcript, as TranscriptFraudClassifier feeds it, against lowercasing the transcript and
+ * searching it for every phrase. Phrases and transcript words come from the same vocabulary,
+ * and one phrase is spoken about every 200 words. Divide the transcript length by the
+ * average time for characters per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhraseAutomatonBenchmark {
+    private static final String[] WORDS = {
+            "you", "your", "account", "has", "been", "suspended", "please", "call", "back", "the", "number",
+            "gift", "card", "bank", "security", "social", "code", "read", "me", "verify", "payment", "today",
+            "warrant", "arrest", "refund", "irs", "bitcoin", "atm", "press", "one", "hello", "thanks", "ok",
+            "yes", "no", "what", "is", "this", "about", "sorry", "i", "can", "not", "hear", "wire", "transfer"
+    };
+
+    @Param({ "60", "10000" })
+    public int phraseCount;
+
+    @Param({ "1000", "100000" })
+    public int transcriptChars;
+
+    private PhraseAutomaton automaton;
+    private String[] phrases;
+    private String transcript;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> phraseList = new ArrayList<>(phraseCount);
+        for (int i = 0; i < phraseCount; i++) {
+            int words = 2 + random.nextInt(3);
+            StringBuilder phrase = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+            for (int w = 1; w < words; w++) {
+                phrase.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            phraseList.add(phrase.toString());
+        }
+        automaton = new PhraseAutomaton(phraseList);
+        phrases = phraseList.toArray(new String[0]);
+
+        StringBuilder text = new StringBuilder(transcriptChars + 64);
+        while (text.length() < transcriptChars) {
+            if (random.nextInt(200) == 0) {
+                text.append(phrases[random.nextInt(phrases.length)].toUpperCase());
+            } else {
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            text.append(random.nextInt(10) == 0 ? ". " : " ");
+        }
+        transcript = text.substring(0, transcriptChars);
+    }
+
+    @Benchmark
+    public int automaton() {
+        int[] matched = new int[1];
+        PhraseAutomaton.MatchListener listener = phraseId -> matched[0]++;
+        int state = PhraseAutomaton.START_STATE;
+        boolean lastWasSeparator = true;
+        for (int i = 0; i < transcript.length(); i++) {
+            char c = transcript.charAt(i);
+            state = automaton.step(state, c, lastWasSeparator, listener);
+            lastWasSeparator = PhraseAutomaton.isSeparator(c);
+        }
+        automaton.step(state, ' ', lastWasSeparator, listener);
+        return matched[0];
+    }
+
+    /** Baseline: lowercase the transcript and look for each phrase in turn */
+    @Benchmark
+    public int indexOfEachPhrase() {
+        String folded = transcript.toLowerCase();
+        int matched = 0;
+        for (String phrase : phrases) {
+            if (folded.contains(phrase)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PhraseAutomatonBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
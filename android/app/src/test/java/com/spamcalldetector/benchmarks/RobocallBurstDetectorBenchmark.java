@@ -0,0 +1,98 @@
+package com.spamcalldetector.benchmarks;
+
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+import com.spamcalldetector.helpers.RobocallBurstDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic call load through the burst detector: random NANP callers, one call per
+ * callSpacingMs, with a wave of 8 numbers from one block every 10,000 calls. replay() runs
+ * millions of calls per shot and returns the calls flagged as bursts. main() adds the gc profiler,
+ * which shows that recording a call does not allocate.
+ */
+@State(Scope.Thread)
+@Fork(1)
+public class RobocallBurstDetectorBenchmark {
+    private static final int CALLS = 1 << 20;
+    private static final int WAVE_EVERY = 10_000;
+    private static final int WAVE_SIZE = 8;
+
+    @Param({ "2000000" })
+    public int replayedCalls;
+
+    @Param({ "1000" })
+    public long callSpacingMs;
+
+    private RobocallBurstDetector detector;
+    private long[] callers;
+    private long[] wave;
+    private int next;
+    // Synthetic clock, only moving forward so every shot starts on a window of its own
+    private long nowMs;
+
+    @Setup
+    public void setUp() {
+        detector = RobocallBurstDetector.getInstance();
+        Random random = new Random(42);
+        callers = new long[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            callers[i] = PhoneNumberNormalizer.normalize("+1" + (2_000_000_000L + random.nextInt(1_000_000_000)));
+        }
+        wave = new long[WAVE_SIZE];
+        for (int i = 0; i < WAVE_SIZE; i++) {
+            wave[i] = PhoneNumberNormalizer.normalize("+1845299" + (1000 + i * 37));
+        }
+        nowMs = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int recordCall() {
+        next = (next + 1) & (CALLS - 1);
+        nowMs += callSpacingMs;
+        return detector.recordIncomingCall(callers[next], nowMs);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int replay() {
+        int flagged = 0;
+        for (int i = 0; i < replayedCalls; i++) {
+            nowMs += callSpacingMs;
+            long caller = i % WAVE_EVERY < WAVE_SIZE ? wave[i % WAVE_EVERY] : callers[i & (CALLS - 1)];
+            if (detector.recordIncomingCall(caller, nowMs) == RobocallBurstDetector.RISK_PREFIX_BURST) {
+                flagged++;
+            }
+        }
+        return flagged;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(RobocallBurstDetectorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
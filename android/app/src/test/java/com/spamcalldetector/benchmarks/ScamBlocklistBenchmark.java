@@ -0,0 +1,120 @@
+package com.spamcalldetector.benchmarks;
+
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+import com.spamcalldetector.helpers.ScamBlocklist;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency of the mapped blocklist for listed numbers (Bloom filter, then binary search)
+ * and unlisted ones (mostly rejected by the Bloom filter), against a boxed HashSet of the same
+ * keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScamBlocklistBenchmark {
+    private static final int PROBES = 4096;
+
+    @Param({ "100000", "1000000", "5000000" })
+    public int entries;
+
+    private File file;
+    private ScamBlocklist.Index index;
+    private Set<Long> hashSet;
+    private long[] listed;
+    private long[] unlisted;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        long[] keys = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = randomNumber(random);
+        }
+
+        file = File.createTempFile("scam_blocklist", ".bin");
+        ScamBlocklist.write(file, keys);
+        index = ScamBlocklist.Index.load(file);
+
+        hashSet = new HashSet<>(entries * 2);
+        for (long key : keys) {
+            hashSet.add(key);
+        }
+
+        listed = new long[PROBES];
+        unlisted = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            listed[i] = keys[random.nextInt(entries)];
+            long key;
+            do {
+                key = randomNumber(random);
+            } while (hashSet.contains(key));
+            unlisted[i] = key;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static long randomNumber(Random random) {
+        return PhoneNumberNormalizer.normalize("+1" + (2_000_000_000L + random.nextInt(1_000_000_000)));
+    }
+
+    private int nextProbe() {
+        next = (next + 1) & (PROBES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean listedNumber() {
+        return index.contains(listed[nextProbe()]);
+    }
+
+    @Benchmark
+    public boolean unlistedNumber() {
+        return index.contains(unlisted[nextProbe()]);
+    }
+
+    /** Baseline: the same keys boxed in a heap HashSet */
+    @Benchmark
+    public boolean hashSetListedNumber() {
+        return hashSet.contains(listed[nextProbe()]);
+    }
+
+    @Benchmark
+    public boolean hashSetUnlistedNumber() {
+        return hashSet.contains(unlisted[nextProbe()]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ScamBlocklistBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
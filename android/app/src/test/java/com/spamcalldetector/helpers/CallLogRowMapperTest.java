@@ -0,0 +1,68 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.provider.CallLog;
+
+import org.junit.Test;
+
+public class CallLogRowMapperTest {
+
+    @Test
+    public void rowsAreReadWithTypedGetters() {
+        FakeCallLogCursor cursor = new FakeCallLogCursor(2);
+        cursor.addRow(42, "+18452998019", "Alice", 1_700_000_000_123L, 75, CallLog.Calls.INCOMING_TYPE, false);
+        cursor.addRow(41, "+12125550123", null, 1_699_999_000_000L, 0, CallLog.Calls.MISSED_TYPE, true);
+        CallLogRowMapper row = new CallLogRowMapper(cursor);
+
+        assertTrue(cursor.moveToNext());
+        assertEquals(42, row.getId());
+        assertEquals("42", row.getIdString());
+        assertEquals("+18452998019", row.getNumber());
+        assertEquals("Alice", row.getCachedName());
+        assertEquals(1_700_000_000_123L, row.getDate());
+        assertEquals(75, row.getDuration());
+        assertEquals("incoming", row.getTypeName());
+        assertFalse(row.isNew());
+
+        // The same mapper follows the cursor
+        assertTrue(cursor.moveToNext());
+        assertEquals(41, row.getId());
+        assertEquals("", row.getCachedName());
+        assertEquals("missed", row.getTypeName());
+        assertTrue(row.isNew());
+        assertFalse(cursor.moveToNext());
+    }
+
+    @Test
+    public void typeNamesRoundTrip() {
+        int[] types = {
+                CallLog.Calls.INCOMING_TYPE, CallLog.Calls.OUTGOING_TYPE, CallLog.Calls.MISSED_TYPE,
+                CallLog.Calls.REJECTED_TYPE
+        };
+        for (int type : types) {
+            assertEquals(type, CallLogRowMapper.typeCode(CallLogRowMapper.typeName(type)));
+        }
+        assertEquals("unknown", CallLogRowMapper.typeName(CallLog.Calls.VOICEMAIL_TYPE));
+        assertEquals(0, CallLogRowMapper.typeCode("unknown"));
+        assertEquals(0, CallLogRowMapper.typeCode(null));
+    }
+
+    @Test
+    public void everyGeneratedRowMaps() {
+        FakeCallLogCursor cursor = FakeCallLogCursor.generate(10_000, 42);
+        CallLogRowMapper row = new CallLogRowMapper(cursor);
+        int rows = 0;
+        long previousDate = Long.MAX_VALUE;
+        while (cursor.moveToNext()) {
+            assertTrue(row.getDate() < previousDate);
+            assertFalse(row.getTypeName().equals("unknown"));
+            assertTrue(row.getNumber().startsWith("+1"));
+            previousDate = row.getDate();
+            rows++;
+        }
+        assertEquals(10_000, rows);
+    }
+}
@@ -0,0 +1,322 @@
+package com.spamcalldetector.helpers;
+
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.net.Uri;
+import android.os.Bundle;
+import android.provider.CallLog;
+
+import java.util.Random;
+
+/**
+ * In-memory cursor over CallLogHelper's projection, so call log code runs on the JVM without a
+ * content provider. Values are kept in columns of primitives, like a provider's cursor window.
+ */
+public class FakeCallLogCursor implements Cursor {
+    private static final String[] COLUMNS = {
+            CallLog.Calls._ID,
+            CallLog.Calls.NUMBER,
+            CallLog.Calls.CACHED_NAME,
+            CallLog.Calls.DATE,
+            CallLog.Calls.DURATION,
+            CallLog.Calls.TYPE,
+            CallLog.Calls.NEW
+    };
+    private static final int ID = 0;
+    private static final int NUMBER = 1;
+    private static final int NAME = 2;
+    private static final int DATE = 3;
+    private static final int DURATION = 4;
+    private static final int TYPE = 5;
+    private static final int NEW = 6;
+
+    private final long[] ids;
+    private final String[] numbers;
+    private final String[] names;
+    private final long[] dates;
+    private final int[] durations;
+    private final int[] types;
+    private final int[] isNew;
+    private int size = 0;
+    private int position = -1;
+    private boolean closed = false;
+
+    public FakeCallLogCursor(int capacity) {
+        ids = new long[capacity];
+        numbers = new String[capacity];
+        names = new String[capacity];
+        dates = new long[capacity];
+        durations = new int[capacity];
+        types = new int[capacity];
+        isNew = new int[capacity];
+    }
+
+    /**
+     * A call log of the given size, newest first, with a mix of call types and unnamed numbers
+     */
+    public static FakeCallLogCursor generate(int rows, long seed) {
+        Random random = new Random(seed);
+        int[] callTypes = {
+                CallLog.Calls.INCOMING_TYPE, CallLog.Calls.OUTGOING_TYPE, CallLog.Calls.MISSED_TYPE,
+                CallLog.Calls.REJECTED_TYPE
+        };
+        FakeCallLogCursor cursor = new FakeCallLogCursor(rows);
+        long date = 1_700_000_000_000L;
+        for (int i = 0; i < rows; i++) {
+            date -= 1 + random.nextInt(3_600_000);
+            int type = callTypes[random.nextInt(callTypes.length)];
+            cursor.addRow(rows - i, "+1" + (2_000_000_000L + random.nextInt(1_000_000_000)),
+                    random.nextInt(3) == 0 ? "Contact " + random.nextInt(500) : null, date,
+                    type == CallLog.Calls.MISSED_TYPE ? 0 : random.nextInt(1200), type,
+                    type == CallLog.Calls.MISSED_TYPE && random.nextBoolean());
+        }
+        return cursor;
+    }
+
+    public void addRow(long id, String number, String name, long date, int duration, int type, boolean unseen) {
+        ids[size] = id;
+        numbers[size] = number;
+        names[size] = name;
+        dates[size] = date;
+        durations[size] = duration;
+        types[size] = type;
+        isNew[size] = unseen ? 1 : 0;
+        size++;
+    }
+
+    @Override
+    public int getCount() {
+        return size;
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return moveToPosition(position + offset);
+    }
+
+    @Override
+    public boolean moveToPosition(int newPosition) {
+        position = Math.max(-1, Math.min(size, newPosition));
+        return position >= 0 && position < size;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(size - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return moveToPosition(position + 1);
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        return moveToPosition(position - 1);
+    }
+
+    @Override
+    public boolean isFirst() {
+        return size > 0 && position == 0;
+    }
+
+    @Override
+    public boolean isLast() {
+        return size > 0 && position == size - 1;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return size == 0 || position == -1;
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        return size == 0 || position == size;
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (COLUMNS[i].equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getColumnIndexOrThrow(String columnName) {
+        int index = getColumnIndex(columnName);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column " + columnName);
+        }
+        return index;
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return COLUMNS[columnIndex];
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return COLUMNS.clone();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        switch (columnIndex) {
+            case NUMBER:
+                return numbers[position];
+            case NAME:
+                return names[position];
+            default:
+                // SQLite returns integers as their text
+                return String.valueOf(getLong(columnIndex));
+        }
+    }
+
+    @Override
+    public void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        switch (columnIndex) {
+            case ID:
+                return ids[position];
+            case DATE:
+                return dates[position];
+            case DURATION:
+                return durations[position];
+            case TYPE:
+                return types[position];
+            case NEW:
+                return isNew[position];
+            default:
+                String value = getString(columnIndex);
+                return value != null ? Long.parseLong(value) : 0;
+        }
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    @Override
+    public int getType(int columnIndex) {
+        if (columnIndex == NUMBER || columnIndex == NAME) {
+            return getString(columnIndex) == null ? FIELD_TYPE_NULL : FIELD_TYPE_STRING;
+        }
+        return FIELD_TYPE_INTEGER;
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return getType(columnIndex) == FIELD_TYPE_NULL;
+    }
+
+    @Override
+    public void deactivate() {
+    }
+
+    @Override
+    public boolean requery() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void registerContentObserver(ContentObserver observer) {
+    }
+
+    @Override
+    public void unregisterContentObserver(ContentObserver observer) {
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+    }
+
+    @Override
+    public void setNotificationUri(ContentResolver cr, Uri uri) {
+    }
+
+    @Override
+    public Uri getNotificationUri() {
+        return null;
+    }
+
+    @Override
+    public boolean getWantsAllOnMoveCalls() {
+        return false;
+    }
+
+    @Override
+    public void setExtras(Bundle extras) {
+    }
+
+    @Override
+    public Bundle getExtras() {
+        return null;
+    }
+
+    @Override
+    public Bundle respond(Bundle extras) {
+        return null;
+    }
+}
@@ -0,0 +1,252 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Intent;
+
+import com.spamcalldetector.shadows.ShadowArguments;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drives FraudAlertClient against a local stand-in for the fraud alert server
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class FraudAlertClientTest {
+    private static final long TIMEOUT_MS = 10_000;
+
+    private Application application;
+    private AlertServer server;
+    private FraudAlertClient client;
+
+    /**
+     * Records what the client sends and answers nothing on its own
+     */
+    private static class AlertServer extends WebSocketServer {
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger pongs = new AtomicInteger();
+        volatile String resource;
+
+        AlertServer() {
+            super(new InetSocketAddress("127.0.0.1", 0));
+            setReuseAddr(true);
+        }
+
+        @Override
+        public void onOpen(WebSocket conn, ClientHandshake handshake) {
+            resource = handshake.getResourceDescriptor();
+            opened.incrementAndGet();
+        }
+
+        @Override
+        public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onMessage(WebSocket conn, String message) {
+            received.add(message);
+        }
+
+        @Override
+        public void onError(WebSocket conn, Exception ex) {
+        }
+
+        @Override
+        public void onStart() {
+            started.countDown();
+        }
+
+        @Override
+        public void onWebsocketPong(WebSocket conn, Framedata f) {
+            super.onWebsocketPong(conn, f);
+            pongs.incrementAndGet();
+        }
+
+        void closeConnections() {
+            for (WebSocket conn : getConnections()) {
+                conn.close();
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AlertServer();
+        server.start();
+        assertTrue(server.started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        application = RuntimeEnvironment.getApplication();
+        client = new FraudAlertClient(application);
+        client.configure("ws://127.0.0.1:" + server.getPort() + "/alerts", "user-1", "+18005550100");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        server.stop(1000);
+    }
+
+    private static void waitFor(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private long stat(String name) {
+        return client.getStats().get(name);
+    }
+
+    private JSONObject nextMessage() throws Exception {
+        String message = server.received.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull("No message from the client", message);
+        return new JSONObject(message);
+    }
+
+    private void expectAssociation(String callSid) throws Exception {
+        JSONObject message = nextMessage();
+        assertEquals("associate_call", message.getString("type"));
+        assertEquals(callSid, message.getString("call_sid"));
+        assertEquals("user-1", message.getString("user_id"));
+    }
+
+    private void sendVerdict(String callSid, String fraudType) throws Exception {
+        JSONObject verdict = new JSONObject();
+        if (callSid != null) {
+            verdict.put("call_sid", callSid);
+        }
+        verdict.put("is_fraud", true);
+        verdict.put("fraud_type", fraudType);
+        server.broadcast(verdict.toString());
+    }
+
+    /**
+     * Call SID and fraud type of every alert broadcast to the call screens
+     */
+    private List<String> broadcastAlerts() {
+        List<String> alerts = new ArrayList<>();
+        for (Intent intent : shadowOf(application).getBroadcastIntents()) {
+            if (Constants.ACTION_FRAUD_ALERT.equals(intent.getAction())) {
+                alerts.add(intent.getStringExtra(Constants.EXTRA_CALL_SID) + " "
+                        + intent.getStringExtra(Constants.EXTRA_FRAUD_TYPE));
+            }
+        }
+        return alerts;
+    }
+
+    @Test
+    public void connectsAndAssociatesLiveCalls() throws Exception {
+        client.associateCall("CA1", "+18452998019");
+        client.start();
+
+        waitFor("connection", client::isConnected);
+        assertTrue(server.resource.startsWith("/alerts?user_id=user-1&phone_number="));
+        expectAssociation("CA1");
+
+        client.associateCall("CA2", "+12125550123");
+        expectAssociation("CA2");
+        assertEquals(1, server.opened.get());
+    }
+
+    @Test
+    public void verdictsAreRoutedToTheirCall() throws Exception {
+        client.start();
+        client.associateCall("CA1", "+18452998019");
+        client.associateCall("CA2", "+12125550123");
+        expectAssociation("CA1");
+        expectAssociation("CA2");
+
+        sendVerdict("CA2", "irs");
+        // Same type on the same call
+        sendVerdict("CA2", "irs");
+        // Unknown call
+        sendVerdict("CA9", "irs");
+        // No SID: the latest call
+        sendVerdict(null, "gift_card");
+        // Same type on another call
+        sendVerdict("CA1", "irs");
+
+        waitFor("alerts", () -> stat("alerts") == 3 && stat("duplicateAlerts") == 1 && stat("staleAlerts") == 1);
+        List<String> alerts = broadcastAlerts();
+        assertEquals(3, alerts.size());
+        assertTrue(alerts.contains("CA2 IRS"));
+        assertTrue(alerts.contains("CA2 GIFT_CARD"));
+        assertTrue(alerts.contains("CA1 IRS"));
+
+        client.releaseCall("CA1");
+        JSONObject release = nextMessage();
+        assertEquals("release_call", release.getString("type"));
+        assertEquals("CA1", release.getString("call_sid"));
+
+        sendVerdict("CA1", "otp");
+        waitFor("stale alert", () -> stat("staleAlerts") == 2);
+        assertEquals(3, stat("alerts"));
+    }
+
+    @Test
+    public void reconnectsAndReassociatesAfterTheServerDrops() throws Exception {
+        client.start();
+        client.associateCall("CA1", "+18452998019");
+        expectAssociation("CA1");
+
+        server.closeConnections();
+        waitFor("disconnect", () -> stat("disconnects") == 1);
+        waitFor("reconnect", () -> stat("connects") == 2);
+        expectAssociation("CA1");
+
+        assertEquals(2, server.opened.get());
+        assertTrue(stat("reconnectsScheduled") >= 1);
+
+        // Alerts still reach the call on the new connection
+        sendVerdict("CA1", "irs");
+        waitFor("alert", () -> stat("alerts") == 1);
+    }
+
+    @Test
+    public void answersServerPings() throws Exception {
+        // The server pings every second and drops connections silent for 1.5 seconds
+        server.setConnectionLostTimeout(1);
+        client.start();
+        waitFor("connection", client::isConnected);
+
+        Thread.sleep(3500);
+
+        assertTrue(server.pongs.get() >= 2);
+        assertTrue(client.isConnected());
+        assertEquals(1, stat("connects"));
+        assertEquals(0, stat("disconnects"));
+        assertEquals(1, server.opened.get());
+    }
+}
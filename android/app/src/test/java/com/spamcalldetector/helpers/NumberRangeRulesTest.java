@@ -0,0 +1,51 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.spamcalldetector.utils.NumberPrefixTrie;
+
+import org.junit.Test;
+
+public class NumberRangeRulesTest {
+
+    private static byte match(NumberPrefixTrie trie, String number) {
+        return trie.match(PhoneNumberNormalizer.normalize(number, 1));
+    }
+
+    @Test
+    public void prefixRulesAcceptWrittenForms() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        assertTrue(NumberRangeRules.parseRule("deny +1-900", trie));
+        assertTrue(NumberRangeRules.parseRule("allow +1 (800) 555", trie));
+
+        assertEquals(NumberPrefixTrie.RULE_DENY, match(trie, "+1 900 123 4567"));
+        assertEquals(NumberPrefixTrie.RULE_ALLOW, match(trie, "+1 800 555 1234"));
+        assertEquals(NumberPrefixTrie.RULE_NONE, match(trie, "+1 800 556 1234"));
+    }
+
+    @Test
+    public void rangesUseTheToSeparator() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        assertTrue(NumberRangeRules.parseRule("deny +1 555-0100 to +1 555-0199", trie));
+        assertTrue(NumberRangeRules.parseRule("DENY +1-556-0100 TO +1-556-0109", trie));
+
+        assertEquals(NumberPrefixTrie.RULE_DENY, match(trie, "+1 555 0150 000"));
+        assertEquals(NumberPrefixTrie.RULE_NONE, match(trie, "+1 555 0200 000"));
+        assertEquals(NumberPrefixTrie.RULE_DENY, match(trie, "+1 556 0109 000"));
+        assertEquals(NumberPrefixTrie.RULE_NONE, match(trie, "+1 556 0110 000"));
+    }
+
+    @Test
+    public void malformedRulesAreReported() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        assertFalse(NumberRangeRules.parseRule("deny", trie));
+        assertFalse(NumberRangeRules.parseRule("block +1900", trie));
+        assertFalse(NumberRangeRules.parseRule("deny unknown", trie));
+        assertFalse(NumberRangeRules.parseRule("deny +1 555 0199 to +1 555 0100", trie));
+        assertFalse(NumberRangeRules.parseRule("deny +1 555 0100 to +1 555 01", trie));
+        assertFalse(NumberRangeRules.parseRule("deny +1 555 to +1 556 to +1 557", trie));
+        assertEquals(0, trie.getRuleCount());
+    }
+}
@@ -0,0 +1,186 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PhoneNumberNormalizerTest {
+
+    // { input, default country calling code, expected E.164 or null for INVALID }
+    private static final Object[][] CASES = {
+            // Spellings of one NANP number
+            { "+18452998019", 1, "+18452998019" },
+            { "+1 845-299-8019", 1, "+18452998019" },
+            { "8452998019", 1, "+18452998019" },
+            { "(845) 299-8019", 1, "+18452998019" },
+            { "845.299.8019", 1, "+18452998019" },
+            { "845/299/8019", 1, "+18452998019" },
+            { "845\u00A0299\u00A08019", 1, "+18452998019" },
+            { "1 845 299 8019", 1, "+18452998019" },
+            { "1-845-299-8019", 1, "+18452998019" },
+            { "011 1 845 299 8019", 1, "+18452998019" },
+            { "00 1 845 299 8019", 44, "+18452998019" },
+            { "+1 (845) 299-8019", 44, "+18452998019" },
+
+            // NANP local number without area code
+            { "299-8019", 1, "+12998019" },
+
+            // Pauses, waits and extensions end the dialable part
+            { "845-299-8019 x123", 1, "+18452998019" },
+            { "845-299-8019 X 9", 1, "+18452998019" },
+            { "8452998019,,1234", 1, "+18452998019" },
+            { "8452998019;5", 1, "+18452998019" },
+            { "8452998019p123", 1, "+18452998019" },
+            { "8452998019w42", 1, "+18452998019" },
+
+            // International numbers and trunk prefixes
+            { "+44 20 7946 0958", 1, "+442079460958" },
+            { "+44 (0)20 7946 0958", 1, "+442079460958" },
+            { "011 44 20 7946 0958", 1, "+442079460958" },
+            { "020 7946 0958", 44, "+442079460958" },
+            { "07911 123456", 44, "+447911123456" },
+            { "+49 30 123456", 1, "+4930123456" },
+            { "0049 30 123456", 44, "+4930123456" },
+            { "+33 1 42 68 53 00", 1, "+33142685300" },
+            { "+91 98765 43210", 1, "+919876543210" },
+            { "+86 10 1234 5678", 1, "+861012345678" },
+            { "+7 495 123 4567", 1, "+74951234567" },
+            { "+353 1 234 5678", 1, "+35312345678" },
+            { "+971 4 123 4567", 1, "+97141234567" },
+            { "+880 2 1234 5678", 1, "+880212345678" },
+
+            // Italy keeps the leading 0 as part of the number
+            { "+39 06 6988 3000", 1, "+390669883000" },
+            { "06 6988 3000", 39, "+390669883000" },
+            { "+39 347 123 4567", 1, "+393471234567" },
+
+            // National numbers keep leading zeros distinct through the length
+            { "+39 0123 456", 1, "+390123456" },
+
+            // Longest and too long national numbers
+            { "+49 123456789012345", 1, "+49123456789012345" },
+            { "+49 1234567890123456", 1, null },
+            { "1234567890123456789", 1, null },
+
+            // Short codes are not tied to a country
+            { "911", 1, null },
+            { "112", 1, null },
+            { "611", 1, null },
+            { "411", 1, null },
+            { "1911", 1, null },
+            { "22395", 1, null },
+            { "123456", 1, null },
+            { "999", 44, null },
+            { "112", 49, null },
+            { "116 123", 44, null },
+
+            // Service codes and malformed input
+            { null, 1, null },
+            { "", 1, null },
+            { "   ", 1, null },
+            { "+", 1, null },
+            { "abc", 1, null },
+            { "1-800-FLOWERS", 1, null },
+            { "*67 845 299 8019", 1, null },
+            { "#31#", 1, null },
+            { "++18452998019", 1, null },
+            { "845+2998019", 1, null },
+            { "+0 123 4567", 1, null },
+            { "+1 84", 1, null },
+            { "x8452998019", 1, null },
+    };
+
+    @Test
+    public void normalizesTable() {
+        for (Object[] testCase : CASES) {
+            String input = (String) testCase[0];
+            int defaultCountry = (Integer) testCase[1];
+            String expected = (String) testCase[2];
+
+            long key = PhoneNumberNormalizer.normalize(input, defaultCountry);
+            String message = "\"" + input + "\" with default +" + defaultCountry;
+            if (expected == null) {
+                assertEquals(message, PhoneNumberNormalizer.INVALID, key);
+            } else {
+                assertEquals(message, expected, PhoneNumberNormalizer.toE164(key));
+            }
+        }
+    }
+
+    @Test
+    public void digitAccessorsMatchE164() {
+        for (Object[] testCase : CASES) {
+            if (testCase[2] == null) {
+                continue;
+            }
+            long key = PhoneNumberNormalizer.normalize((String) testCase[0], (Integer) testCase[1]);
+            String e164 = PhoneNumberNormalizer.toE164(key);
+
+            assertEquals(e164, e164.length() - 1, PhoneNumberNormalizer.digitCount(key));
+            for (int i = 0; i < PhoneNumberNormalizer.digitCount(key); i++) {
+                assertEquals(e164 + " digit " + i, e164.charAt(i + 1) - '0',
+                        PhoneNumberNormalizer.e164DigitAt(key, i));
+            }
+        }
+    }
+
+    @Test
+    public void keysRoundTripThroughE164() {
+        for (Object[] testCase : CASES) {
+            long key = PhoneNumberNormalizer.normalize((String) testCase[0], (Integer) testCase[1]);
+            if (key != PhoneNumberNormalizer.INVALID) {
+                assertEquals(key, PhoneNumberNormalizer.normalize(PhoneNumberNormalizer.toE164(key), 44));
+            }
+        }
+    }
+
+    @Test
+    public void sameNumberAcrossSpellings() {
+        assertTrue(PhoneNumberNormalizer.isSameNumber("+1 845-299-8019", "8452998019"));
+        assertTrue(PhoneNumberNormalizer.isSameNumber("(845) 299-8019", "+18452998019"));
+        assertFalse(PhoneNumberNormalizer.isSameNumber("8452998019", "8452998018"));
+        assertFalse(PhoneNumberNormalizer.isSameNumber("911", "911"));
+        assertFalse(PhoneNumberNormalizer.isSameNumber(null, null));
+    }
+
+    @Test
+    public void keyFieldsAreUnpacked() {
+        long key = PhoneNumberNormalizer.normalize("+44 20 7946 0958", 1);
+        assertEquals(44, PhoneNumberNormalizer.countryCode(key));
+        assertEquals(10, PhoneNumberNormalizer.nationalLength(key));
+        assertEquals(2079460958L, PhoneNumberNormalizer.nationalNumber(key));
+    }
+
+    @Test
+    public void regionsMapToCallingCodes() {
+        assertEquals(1, PhoneNumberNormalizer.countryCodeForRegion("us"));
+        assertEquals(49, PhoneNumberNormalizer.countryCodeForRegion("DE"));
+        assertEquals(44, PhoneNumberNormalizer.countryCodeForRegion("gb"));
+        assertEquals(91, PhoneNumberNormalizer.countryCodeForRegion("IN"));
+        assertEquals(263, PhoneNumberNormalizer.countryCodeForRegion("zw"));
+        assertEquals(0, PhoneNumberNormalizer.countryCodeForRegion("zz"));
+        assertEquals(0, PhoneNumberNormalizer.countryCodeForRegion("21"));
+        assertEquals(0, PhoneNumberNormalizer.countryCodeForRegion(""));
+        assertEquals(0, PhoneNumberNormalizer.countryCodeForRegion(null));
+    }
+
+    @Test
+    public void nationalNumbersFollowTheDefaultCountry() {
+        int previous = PhoneNumberNormalizer.getDefaultCountryCode();
+        try {
+            PhoneNumberNormalizer.setDefaultCountryCode(PhoneNumberNormalizer.countryCodeForRegion("de"));
+            assertTrue(PhoneNumberNormalizer.isSameNumber("0987 654321", "+49 987 654321"));
+            assertTrue(PhoneNumberNormalizer.isSameNumber("0049 987 654321", "+49 987 654321"));
+            assertFalse(PhoneNumberNormalizer.isSameNumber("0987 654321", "+1 987 654321"));
+        } finally {
+            PhoneNumberNormalizer.setDefaultCountryCode(previous);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidDefaultCountry() {
+        PhoneNumberNormalizer.setDefaultCountryCode(1000);
+    }
+}
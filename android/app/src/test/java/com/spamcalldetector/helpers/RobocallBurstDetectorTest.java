@@ -0,0 +1,103 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class RobocallBurstDetectorTest {
+    private static final long MINUTE_MS = 60 * 1000;
+    // Aligned to the 5 minute buckets
+    private static final long START_MS = 1_700_000_100_000L;
+
+    private RobocallBurstDetector detector;
+
+    @Before
+    public void setUp() {
+        detector = new RobocallBurstDetector();
+    }
+
+    private static long number(String e164) {
+        return PhoneNumberNormalizer.normalize(e164);
+    }
+
+    @Test
+    public void waveFromOneBlockIsFlagged() {
+        int[] risks = new int[8];
+        for (int i = 0; i < risks.length; i++) {
+            risks[i] = detector.recordIncomingCall(number("+1845299" + (1000 + i * 37)), START_MS + i * MINUTE_MS);
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("call " + i, RobocallBurstDetector.RISK_NONE, risks[i]);
+        }
+        for (int i = 4; i < risks.length; i++) {
+            assertEquals("call " + i, RobocallBurstDetector.RISK_PREFIX_BURST, risks[i]);
+        }
+        // Another number from the block, and only from the block
+        assertEquals(RobocallBurstDetector.RISK_PREFIX_BURST,
+                detector.getRisk(number("+18452999999"), START_MS + 8 * MINUTE_MS));
+        assertEquals(RobocallBurstDetector.RISK_NONE,
+                detector.getRisk(number("+18452989999"), START_MS + 8 * MINUTE_MS));
+    }
+
+    @Test
+    public void repeatedCallsFromOneNumberAreNotABurst() {
+        long key = number("+18452998019");
+        assertEquals(RobocallBurstDetector.RISK_NONE, detector.recordIncomingCall(key, START_MS));
+        assertEquals(RobocallBurstDetector.RISK_NONE, detector.recordIncomingCall(key, START_MS + MINUTE_MS));
+        for (int i = 2; i < 10; i++) {
+            assertEquals(RobocallBurstDetector.RISK_REPEAT_CALLER,
+                    detector.recordIncomingCall(key, START_MS + i * MINUTE_MS));
+        }
+    }
+
+    @Test
+    public void steadyTrafficFromOneBlockIsNotABurst() {
+        // Three new numbers from a call center block every 5 minutes. Once the first hour has
+        // set its baseline, the block is never flagged.
+        int next = 0;
+        for (long t = START_MS; t < START_MS + 180 * MINUTE_MS; t += 5 * MINUTE_MS) {
+            for (int i = 0; i < 3; i++) {
+                int risk = detector.recordIncomingCall(number("+1212555" + (1000 + next++)), t + i * MINUTE_MS);
+                if (t >= START_MS + 60 * MINUTE_MS) {
+                    assertEquals("call " + next, RobocallBurstDetector.RISK_NONE, risk);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void burstsExpireWithTheWindow() {
+        for (int i = 0; i < 8; i++) {
+            detector.recordIncomingCall(number("+1845299" + (1000 + i)), START_MS + i * MINUTE_MS);
+        }
+        long later = START_MS + 2 * 60 * MINUTE_MS;
+        assertEquals(RobocallBurstDetector.RISK_NONE, detector.getRisk(number("+18452991000"), later));
+        assertEquals(RobocallBurstDetector.RISK_NONE, detector.recordIncomingCall(number("+18452992000"), later));
+    }
+
+    @Test
+    public void randomTrafficRaisesNoBursts() {
+        // A day of one call per second from random NANP numbers
+        Random random = new Random(42);
+        for (int i = 0; i < 86_400; i++) {
+            detector.recordIncomingCall(number("+1" + (2_000_000_000L + random.nextInt(1_000_000_000))),
+                    START_MS + i * 1000L);
+        }
+
+        assertEquals(86_400L, (long) detector.getStats().get("recordedCalls"));
+        assertEquals(0L, (long) detector.getStats().get("prefixBursts"));
+    }
+
+    @Test
+    public void invalidNumbersAreIgnored() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(RobocallBurstDetector.RISK_NONE,
+                    detector.recordIncomingCall(PhoneNumberNormalizer.INVALID, START_MS + i));
+        }
+        assertEquals(0L, (long) detector.getStats().get("recordedCalls"));
+    }
+}
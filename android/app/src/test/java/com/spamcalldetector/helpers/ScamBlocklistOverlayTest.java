@@ -0,0 +1,55 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Numbers added at runtime: blocked at once from the overlay, folded into the file by a compile
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ScamBlocklistOverlayTest {
+    private static final long TIMEOUT_MS = 10_000;
+
+    private static void waitFor(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void addedNumbersAreBlockedAndFoldedIntoTheNextCompile() throws Exception {
+        ScamBlocklist blocklist = ScamBlocklist.getInstance(RuntimeEnvironment.getApplication());
+        waitFor("initial load", blocklist::isLoaded);
+        long bundled = blocklist.getStats().get("entries");
+
+        long key = PhoneNumberNormalizer.normalize("+1 (555) 010-0199");
+        assertFalse(blocklist.isBlocked(key));
+
+        blocklist.add(key);
+        waitFor("overlay", () -> blocklist.isBlocked(key));
+        assertEquals(1L, (long) blocklist.getStats().get("addedEntries"));
+        // The mapped file is not rewritten per number
+        assertEquals(bundled, (long) blocklist.getStats().get("entries"));
+
+        // Adding it again changes nothing
+        blocklist.add(key);
+        blocklist.reload();
+        waitFor("compile", () -> blocklist.getStats().get("entries") == bundled + 1);
+        assertEquals(0L, (long) blocklist.getStats().get("addedEntries"));
+        assertTrue(blocklist.isBlocked(key));
+        assertTrue(blocklist.isBlocked("+15550100199"));
+    }
+}
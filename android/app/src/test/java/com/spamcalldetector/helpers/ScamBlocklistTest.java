@@ -0,0 +1,109 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+public class ScamBlocklistTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("scam_blocklist", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void listedNumbersAreFound() throws IOException {
+        long[] keys = {
+                PhoneNumberNormalizer.normalize("+1 845-299-8019"),
+                PhoneNumberNormalizer.normalize("+44 20 7946 0958"),
+                PhoneNumberNormalizer.normalize("+91 98765 43210")
+        };
+        ScamBlocklist.write(file, keys);
+        ScamBlocklist.Index index = ScamBlocklist.Index.load(file);
+
+        assertEquals(3, index.size());
+        for (long key : keys) {
+            assertTrue(index.contains(key));
+        }
+        assertFalse(index.contains(PhoneNumberNormalizer.normalize("+1 845-299-8018")));
+    }
+
+    @Test
+    public void keysAreDeduplicatedAndInvalidDropped() throws IOException {
+        long key = PhoneNumberNormalizer.normalize("8452998019");
+        ScamBlocklist.write(file, new long[] { key, PhoneNumberNormalizer.INVALID, key, key });
+        ScamBlocklist.Index index = ScamBlocklist.Index.load(file);
+
+        assertEquals(1, index.size());
+        assertTrue(index.contains(key));
+        assertFalse(index.contains(PhoneNumberNormalizer.INVALID));
+    }
+
+    @Test
+    public void emptyListContainsNothing() throws IOException {
+        ScamBlocklist.write(file, new long[0]);
+        ScamBlocklist.Index index = ScamBlocklist.Index.load(file);
+
+        assertEquals(0, index.size());
+        assertFalse(index.contains(PhoneNumberNormalizer.normalize("8452998019")));
+    }
+
+    @Test
+    public void largeListHasNoFalseNegatives() throws IOException {
+        Random random = new Random(42);
+        long[] keys = new long[100_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = PhoneNumberNormalizer.normalize("+1" + (2_000_000_000L + random.nextInt(1_000_000_000)));
+        }
+        ScamBlocklist.write(file, keys);
+        ScamBlocklist.Index index = ScamBlocklist.Index.load(file);
+
+        for (long key : keys) {
+            assertTrue(index.contains(key));
+        }
+    }
+
+    @Test
+    public void corruptFilesAreRejected() throws IOException {
+        ScamBlocklist.write(file, new long[] { PhoneNumberNormalizer.normalize("8452998019") });
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        try {
+            ScamBlocklist.Index.load(file);
+            fail("Truncated file was loaded");
+        } catch (IOException expected) {
+            // Header and size disagree
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.writeInt(0);
+            raf.writeLong(0);
+            raf.writeLong(0);
+            raf.writeInt(0);
+        }
+        try {
+            ScamBlocklist.Index.load(file);
+            fail("File with a bad magic was loaded");
+        } catch (IOException expected) {
+            // Not a blocklist file
+        }
+    }
+}
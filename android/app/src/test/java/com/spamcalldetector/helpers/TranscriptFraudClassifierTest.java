@@ -0,0 +1,78 @@
+package com.spamcalldetector.helpers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TranscriptFraudClassifierTest {
+
+    private static int read(String text, Map<String, String[]> target) throws IOException {
+        int[] malformed = new int[1];
+        TranscriptFraudClassifier.readPhrases(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), target, malformed);
+        return malformed[0];
+    }
+
+    @Test
+    public void phrasesAreParsed() throws IOException {
+        Map<String, String[]> phrases = new LinkedHashMap<>();
+        int malformed = read("# comment\n"
+                + "\n"
+                + "0.7 gift_card   Gift Card\n"
+                + "  0.8\totp read me the code  \n", phrases);
+
+        assertEquals(0, malformed);
+        assertEquals(Arrays.asList("gift card", "read me the code"), new ArrayList<>(phrases.keySet()));
+        assertArrayEquals(new String[] { "0.7", "gift_card" }, phrases.get("gift card"));
+        assertArrayEquals(new String[] { "0.8", "otp" }, phrases.get("read me the code"));
+    }
+
+    @Test
+    public void malformedLinesAreCounted() throws IOException {
+        Map<String, String[]> phrases = new LinkedHashMap<>();
+        int malformed = read("1 certain always scam\n"
+                + "-0.1 negative weight\n"
+                + "high payment wire transfer\n"
+                + "0.5 payment\n"
+                + "0.5 payment bitcoin\n", phrases);
+
+        assertEquals(4, malformed);
+        assertEquals(1, phrases.size());
+        assertTrue(phrases.containsKey("bitcoin"));
+    }
+
+    @Test
+    public void laterLinesOverrideAndReorder() throws IOException {
+        Map<String, String[]> phrases = new LinkedHashMap<>();
+        read("0.5 payment bitcoin\n0.6 gift_card gift card\n", phrases);
+        read("0 payment BITCOIN\n", phrases);
+
+        assertEquals(Arrays.asList("gift card", "bitcoin"), new ArrayList<>(phrases.keySet()));
+        assertArrayEquals(new String[] { "0.0", "payment" }, phrases.get("bitcoin"));
+    }
+
+    @Test
+    public void shippedPhrasesAreWellFormed() throws IOException {
+        Map<String, String[]> phrases = new LinkedHashMap<>();
+        int[] malformed = new int[1];
+        try (InputStream in = new FileInputStream(new File("src/main/assets/scam_phrases.txt"))) {
+            TranscriptFraudClassifier.readPhrases(in, phrases, malformed);
+        }
+
+        assertEquals(0, malformed[0]);
+        assertTrue(phrases.size() > 0);
+    }
+}
@@ -0,0 +1,153 @@
+package com.spamcalldetector.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AlertFrameCodecTest {
+    private final AlertFrameCodec decoder = new AlertFrameCodec();
+
+    /**
+     * Records decoded frames as text, copying the reused transcript buffer
+     */
+    private static class Recorder implements AlertFrameCodec.FrameListener {
+        final List<String> frames = new ArrayList<>();
+        final List<String> sids = new ArrayList<>();
+
+        @Override
+        public void onVerdict(String callSid, boolean isFraud, String fraudType) {
+            frames.add("verdict " + callSid + " " + isFraud + " " + fraudType);
+            sids.add(callSid);
+        }
+
+        @Override
+        public void onTranscript(String callSid, long sequence, CharSequence text) {
+            frames.add("transcript " + callSid + " " + sequence + " " + text);
+            sids.add(callSid);
+        }
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private Recorder decode(byte[] message) {
+        Recorder recorder = new Recorder();
+        decoder.decode(ByteBuffer.wrap(message), recorder);
+        return recorder;
+    }
+
+    private void assertRejected(byte[] message) {
+        try {
+            decode(message);
+            fail("Malformed message was decoded");
+        } catch (IllegalArgumentException expected) {
+            // Reported as malformed rather than crashing the decoder
+        }
+    }
+
+    @Test
+    public void framesRoundTrip() {
+        Recorder recorder = decode(concat(
+                AlertFrameCodec.encodeVerdict("CA1", true, "irs"),
+                AlertFrameCodec.encodeVerdict("CA1", false, "romance"),
+                AlertFrameCodec.encodeTranscript("CA2", 300, "Read me the code, s'il vous pla\u00eet \ud83d\udcde"),
+                AlertFrameCodec.encodeVerdict(null, true, null)));
+
+        assertEquals(4, recorder.frames.size());
+        assertEquals("verdict CA1 true IRS", recorder.frames.get(0));
+        assertEquals("verdict CA1 false romance", recorder.frames.get(1));
+        assertEquals("transcript CA2 300 Read me the code, s'il vous pla\u00eet \ud83d\udcde", recorder.frames.get(2));
+        assertEquals("verdict null true UNKNOWN", recorder.frames.get(3));
+    }
+
+    @Test
+    public void recentCallSidsAreReused() {
+        Recorder recorder = decode(concat(
+                AlertFrameCodec.encodeTranscript("CA1", 1, "hello"),
+                AlertFrameCodec.encodeTranscript("CA1", 2, "again")));
+        assertSame(recorder.sids.get(0), recorder.sids.get(1));
+    }
+
+    @Test
+    public void unknownFramesAndFraudCodesAreSkipped() {
+        byte[] futureFrame = bytes(4, 2, 9, 0x55, 0x66);
+        byte[] futureVersion = bytes(3, 2, AlertFrameCodec.TYPE_VERDICT, 0);
+        // Verdict with a fraud code beyond the table and a trailing field
+        byte[] newCode = bytes(8, 1, AlertFrameCodec.TYPE_VERDICT, 1, 'S', 0x7f, 1, 0x11, 0x22);
+
+        Recorder recorder = decode(concat(futureFrame, futureVersion, newCode,
+                AlertFrameCodec.encodeVerdict("CA1", true, "otp")));
+        assertEquals(2, recorder.frames.size());
+        assertEquals("verdict S true UNKNOWN", recorder.frames.get(0));
+        assertEquals("verdict CA1 true OTP", recorder.frames.get(1));
+    }
+
+    @Test
+    public void negativeAndHugeLengthsAreRejected() {
+        // Call SID length of 2^32 - 1, which truncates to -1 as an int
+        assertRejected(bytes(8, 1, AlertFrameCodec.TYPE_VERDICT, 0xff, 0xff, 0xff, 0xff, 0x0f));
+        // Call SID length of 2^63, negative as a long
+        assertRejected(bytes(13, 1, AlertFrameCodec.TYPE_VERDICT,
+                0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01));
+        // Frame length of 2^32 + 3, which truncates to a plausible 3 as an int
+        assertRejected(concat(bytes(0x83, 0x80, 0x80, 0x80, 0x10), bytes(1, 9, 0)));
+        // Fraud code of 2^63 is just an unknown type
+        Recorder recorder = decode(bytes(14, 1, AlertFrameCodec.TYPE_VERDICT, 0,
+                0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01, 1));
+        assertEquals("verdict null true UNKNOWN", recorder.frames.get(0));
+    }
+
+    @Test
+    public void fieldsMayNotRunPastTheirFrame() {
+        byte[] next = AlertFrameCodec.encodeTranscript("CA1", 1, "abcdefghijklmnop");
+        // Call SID of 6 bytes in a frame that only holds 3 of them, followed by a valid frame
+        assertRejected(concat(bytes(6, 1, AlertFrameCodec.TYPE_VERDICT, 6, 'C', 'A', '1'), next));
+        // Transcript text running into the next frame
+        assertRejected(concat(bytes(7, 1, AlertFrameCodec.TYPE_TRANSCRIPT, 1, 'S', 1, 10, 'a'), next));
+        // Verdict missing its isFraud byte
+        assertRejected(concat(bytes(5, 1, AlertFrameCodec.TYPE_VERDICT, 1, 'S', 5), next));
+        // UTF-8 sequence cut by the end of its string
+        assertRejected(bytes(7, 1, AlertFrameCodec.TYPE_TRANSCRIPT, 0, 1, 2, 0xe2, 0x82));
+    }
+
+    @Test
+    public void truncatedMessagesAreRejected() {
+        byte[] frame = AlertFrameCodec.encodeTranscript("CA1", 1, "read me the code");
+        for (int length = 1; length < frame.length; length++) {
+            byte[] truncated = new byte[length];
+            System.arraycopy(frame, 0, truncated, 0, length);
+            assertRejected(truncated);
+        }
+    }
+
+    @Test
+    public void decoderRecoversAfterAMalformedMessage() {
+        assertRejected(bytes(8, 1, AlertFrameCodec.TYPE_VERDICT, 0xff, 0xff, 0xff, 0xff, 0x0f));
+
+        ByteBuffer buffer = ByteBuffer.wrap(AlertFrameCodec.encodeVerdict("CA1", true, "irs"));
+        Recorder recorder = new Recorder();
+        assertEquals(1, decoder.decode(buffer, recorder));
+        assertEquals(buffer.capacity(), buffer.limit());
+        assertEquals("verdict CA1 true IRS", recorder.frames.get(0));
+    }
+}
@@ -0,0 +1,82 @@
+package com.spamcalldetector.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.spamcalldetector.helpers.PhoneNumberNormalizer;
+
+import org.junit.Test;
+
+public class NumberPrefixTrieTest {
+
+    private static long key(String number) {
+        return PhoneNumberNormalizer.normalize(number, 1);
+    }
+
+    @Test
+    public void longestPrefixDecides() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        trie.addPrefix("+1 800", NumberPrefixTrie.RULE_DENY);
+        trie.addPrefix("+1 800 555", NumberPrefixTrie.RULE_ALLOW);
+
+        assertEquals(NumberPrefixTrie.RULE_DENY, trie.match(key("+1 800 123 4567")));
+        assertEquals(NumberPrefixTrie.RULE_ALLOW, trie.match(key("+1 800 555 4567")));
+        assertEquals(NumberPrefixTrie.RULE_NONE, trie.match(key("+1 845 299 8019")));
+        assertEquals(NumberPrefixTrie.RULE_NONE, trie.match(PhoneNumberNormalizer.INVALID));
+    }
+
+    @Test
+    public void countryCodeRules() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        trie.addPrefix("+882", NumberPrefixTrie.RULE_DENY);
+
+        assertEquals(NumberPrefixTrie.RULE_DENY, trie.match(key("+882 1234 5678")));
+        assertEquals(NumberPrefixTrie.RULE_NONE, trie.match(key("+88 1234 5678")));
+        assertEquals(NumberPrefixTrie.RULE_NONE, trie.match(key("+44 20 7946 0958")));
+    }
+
+    @Test
+    public void laterRulesOverrideTheSamePrefix() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        trie.addPrefix("+1900", NumberPrefixTrie.RULE_DENY);
+        trie.addPrefix("+1-900", NumberPrefixTrie.RULE_ALLOW);
+
+        assertEquals(1, trie.getRuleCount());
+        assertEquals(NumberPrefixTrie.RULE_ALLOW, trie.match(key("+1 900 555 0100")));
+    }
+
+    @Test
+    public void rangeMatchesExactlyItsNumbers() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        assertTrue(trie.addRange("+1 555 0123", "+1 555 4567", NumberPrefixTrie.RULE_DENY));
+
+        // Compare the covering prefixes against every block of the surrounding prefix
+        for (int block = 0; block < 10000; block++) {
+            byte expected = block >= 123 && block <= 4567 ? NumberPrefixTrie.RULE_DENY : NumberPrefixTrie.RULE_NONE;
+            long number = key(String.format("+1 555 %04d 000", block));
+            assertEquals("+1 555 " + block, expected, trie.match(number));
+        }
+    }
+
+    @Test
+    public void malformedRangesAreRejected() {
+        NumberPrefixTrie trie = new NumberPrefixTrie();
+        assertFalse(trie.addRange("+1 555 0199", "+1 555 0100", NumberPrefixTrie.RULE_DENY));
+        assertFalse(trie.addRange("+1 555 01", "+1 555 0199", NumberPrefixTrie.RULE_DENY));
+        assertFalse(trie.addRange("", "", NumberPrefixTrie.RULE_DENY));
+        assertEquals(0, trie.getRuleCount());
+    }
+
+    @Test
+    public void trimKeepsRules() {
+        NumberPrefixTrie trie = new NumberPrefixTrie(16);
+        for (int i = 0; i < 1000; i++) {
+            trie.addPrefix("+1 555 " + i, NumberPrefixTrie.RULE_DENY);
+        }
+        trie.trimToSize();
+
+        assertEquals(trie.getNodeCount() * 10L, trie.sizeInBytes());
+        assertEquals(NumberPrefixTrie.RULE_DENY, trie.match(key("+1 555 999 1234")));
+    }
+}
@@ -0,0 +1,91 @@
+package com.spamcalldetector.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PhraseAutomatonTest {
+    private static final PhraseAutomaton AUTOMATON = new PhraseAutomaton(Arrays.asList(
+            "gift card",
+            "bitcoin",
+            "bitcoin atm",
+            "social security number",
+            "",
+            "IRS"));
+
+    /**
+     * Feed fragments in order, the way TranscriptFraudClassifier does
+     */
+    private static List<Integer> matches(String... fragments) {
+        List<Integer> matched = new ArrayList<>();
+        int state = PhraseAutomaton.START_STATE;
+        boolean lastWasSeparator = true;
+        for (String fragment : fragments) {
+            for (int i = 0; i < fragment.length(); i++) {
+                char c = fragment.charAt(i);
+                state = AUTOMATON.step(state, c, lastWasSeparator, matched::add);
+                lastWasSeparator = PhraseAutomaton.isSeparator(c);
+            }
+            state = AUTOMATON.step(state, ' ', lastWasSeparator, matched::add);
+            lastWasSeparator = true;
+        }
+        return matched;
+    }
+
+    @Test
+    public void matchesIgnoringCaseAndPunctuation() {
+        assertEquals(Arrays.asList(0), matches("Buy a Gift-Card now!"));
+        assertEquals(Arrays.asList(0), matches("gift   --  card"));
+        assertEquals(Arrays.asList(5), matches("This is the IRS, calling"));
+        assertEquals(Arrays.asList(5), matches("the irs"));
+    }
+
+    @Test
+    public void matchesAtTheStartOfText() {
+        assertEquals(Arrays.asList(0), matches("gift card"));
+        assertEquals(Arrays.asList(0), matches("  Gift card please"));
+        assertEquals(Arrays.asList(5), matches("IRS"));
+    }
+
+    @Test
+    public void matchesWholeWordsOnly() {
+        assertTrue(matches("giftcard").isEmpty());
+        assertTrue(matches("a gift cardboard box").isEmpty());
+        assertTrue(matches("regift card").isEmpty());
+        assertTrue(matches("first").isEmpty());
+        // Punctuation splits words
+        assertTrue(matches("the I.R.S.").isEmpty());
+    }
+
+    @Test
+    public void overlappingPhrasesAllMatch() {
+        List<Integer> matched = matches("go to the bitcoin atm");
+        assertEquals(Arrays.asList(1, 2), matched);
+    }
+
+    @Test
+    public void phrasesSplitAcrossFragmentsMatch() {
+        assertEquals(Arrays.asList(3), matches("verify your social", "security number"));
+        // A fragment ends a word, so a word split across fragments does not rejoin
+        assertTrue(matches("bit", "coin").isEmpty());
+    }
+
+    @Test
+    public void emptyPhrasesAreSkipped() {
+        assertEquals(6, AUTOMATON.getPhraseCount());
+        assertTrue(matches(" ", "", "  ").isEmpty());
+    }
+
+    @Test
+    public void sizeGrowsWithStates() {
+        PhraseAutomaton empty = new PhraseAutomaton(new ArrayList<>());
+        assertEquals(1, empty.getStateCount());
+        assertTrue(AUTOMATON.getStateCount() > empty.getStateCount());
+        assertTrue(AUTOMATON.sizeInBytes() >= 4L * 37 * AUTOMATON.getStateCount());
+    }
+}
@@ -10,6 +10,7 @@ import {
   Text,
   StyleSheet,
   TouchableOpacity,
+  DeviceEventEmitter,
 } from 'react-native';
 
 const CallIcon = require('../assets/images/call-icon.png');
@@ -66,6 +67,28 @@ function IncomingCall(): React.JSX.Element {
 
   useEffect(() => {
     getCallerDetails();
+
+    // A native screen covers this one until it has drawn its first frame
+    const frame = requestAnimationFrame(() => {
+      CallActivityModule.onIncomingCallUiReady?.();
+    });
+
+    // The caller name is resolved natively after the screen is shown
+    const subscription = DeviceEventEmitter.addListener(
+      'CallerIdentified',
+      (event: {phoneNumber: string; callerName: string}) => {
+        setCallerInfo(prev =>
+          !prev.phoneNumber || prev.phoneNumber === event.phoneNumber
+            ? {phoneNumber: event.phoneNumber, callerName: event.callerName}
+            : prev,
+        );
+      },
+    );
+
+    return () => {
+      cancelAnimationFrame(frame);
+      subscription.remove();
+    };
   }, []);
 
   return (
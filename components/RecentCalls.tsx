@@ -1,4 +1,4 @@
-import React, {useState, useEffect} from 'react';
+import React, {useState, useEffect, useRef} from 'react';
 import {
   StyleSheet,
   View,
@@ -14,16 +14,67 @@ import AsyncStorage from '@react-native-async-storage/async-storage';
 import Icon from 'react-native-vector-icons/MaterialIcons';
 import {CallRecord, CallType} from '../utils/helpers/callHistory';
 import {
-  getRecentCalls,
+  CallLogChanges,
+  CallLogEntry,
+  getCallLogChanges,
+  getCallsPage,
   markCallAsRead,
+  onCallLogChanged,
 } from '../utils/native_modules/call_history';
 import {NativeModules} from 'react-native';
 
 const {MissedCallModule} = NativeModules;
 
+const PAGE_SIZE = 50;
+
+// Convert native call entries to our app's format
+const toCallRecord = (call: CallLogEntry): CallRecord => ({
+  id: call.id,
+  phoneNumber: call.phoneNumber,
+  contactName: call.contactName || undefined,
+  timestamp: call.timestamp,
+  duration: call.duration,
+  type: call.type as CallType,
+});
+
+// Changes that touch the loaded list: updates to calls it shows and calls newer than its head.
+// Older calls reach the list through its next page, so they are left to loadMoreCalls.
+const changesForList = (list: CallRecord[], changes: CallLogChanges) => {
+  const loadedIds = new Set(list.map(call => call.id));
+  const head = list.length > 0 ? list[0].timestamp : -Infinity;
+  return {
+    inserted: changes.inserted.filter(
+      call => !loadedIds.has(call.id) && call.timestamp >= head,
+    ),
+    updated: changes.updated.filter(call => loadedIds.has(call.id)),
+  };
+};
+
+// Mark any new missed calls as read
+const markNewMissedCallsAsRead = async (calls: CallLogEntry[]) => {
+  for (const call of calls) {
+    if (call.isNew && (call.type === 'missed' || call.type === 'rejected')) {
+      await markCallAsRead(call.id);
+    }
+  }
+};
+
 const RecentCallsScreen: React.FC = () => {
   const [callHistory, setCallHistory] = useState<CallRecord[]>([]);
   const [loading, setLoading] = useState<boolean>(true);
+  // Continuation token of the next, older page; null when all calls are shown
+  const [nextToken, setNextToken] = useState<string | null>(null);
+  const [loadingMore, setLoadingMore] = useState<boolean>(false);
+  // Token of the last call log sync; changes are applied as deltas after it
+  const syncTokenRef = useRef<string | null>(null);
+  // Only one change pull runs at a time; a change during a pull is pulled after it
+  const syncingRef = useRef<boolean>(false);
+  const syncPendingRef = useRef<boolean>(false);
+  const callHistoryRef = useRef<CallRecord[]>([]);
+
+  useEffect(() => {
+    callHistoryRef.current = callHistory;
+  }, [callHistory]);
 
   // Load call history when screen comes into focus
   useFocusEffect(
@@ -38,6 +89,16 @@ const RecentCallsScreen: React.FC = () => {
   useEffect(() => {
     loadCallHistory();
   }, []);
+
+  // Apply call log changes as they happen instead of reloading the list
+  useEffect(() => {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+    return onCallLogChanged(() => {
+      applyCallLogChanges();
+    });
+  }, []);
   
   // Reset missed call count
   const resetMissedCallCount = async () => {
@@ -82,32 +143,22 @@ const RecentCallsScreen: React.FC = () => {
         try {
           console.log('Attempting to get call history from native module');
           // On Android, get call history from the native module
-          const nativeCalls = await getRecentCalls(100);
+          const page = await getCallsPage(null, PAGE_SIZE);
+          const nativeCalls = page.calls;
           console.log('Native call history entries:', nativeCalls?.length || 0);
 
           if (nativeCalls && nativeCalls.length > 0) {
-            // Convert native call entries to our app's format
-            const convertedCalls: CallRecord[] = nativeCalls.map(call => ({
-              id: call.id,
-              phoneNumber: call.phoneNumber,
-              contactName: call.contactName || undefined,
-              timestamp: call.timestamp,
-              duration: call.duration,
-              type: call.type as CallType,
-            }));
-
-            // Mark any new missed calls as read
-            for (const call of nativeCalls) {
-              if (
-                call.isNew &&
-                (call.type === 'missed' || call.type === 'rejected')
-              ) {
-                await markCallAsRead(call.id);
-              }
-            }
+            const convertedCalls: CallRecord[] = nativeCalls.map(toCallRecord);
+
+            await markNewMissedCallsAsRead(nativeCalls);
 
             // Update the state with native call history
             setCallHistory(convertedCalls);
+            setNextToken(page.nextToken);
+
+            // Start the change feed from the list just loaded
+            const changes = await getCallLogChanges(null);
+            syncTokenRef.current = changes?.nextToken ?? null;
 
             // Also save to AsyncStorage for consistency
             await AsyncStorage.setItem(
@@ -142,6 +193,77 @@ const RecentCallsScreen: React.FC = () => {
     }
   };
 
+  const applyCallLogChanges = async () => {
+    if (syncingRef.current) {
+      syncPendingRef.current = true;
+      return;
+    }
+    syncingRef.current = true;
+    try {
+      do {
+        syncPendingRef.current = false;
+        await pullCallLogChanges();
+      } while (syncPendingRef.current);
+    } catch (error) {
+      console.error('Error applying call log changes:', error);
+    } finally {
+      syncingRef.current = false;
+    }
+  };
+
+  const pullCallLogChanges = async () => {
+    const changes = await getCallLogChanges(syncTokenRef.current);
+    if (!changes) {
+      return;
+    }
+    syncTokenRef.current = changes.nextToken;
+    if (changes.reset) {
+      await loadCallHistory();
+      return;
+    }
+
+    const {inserted, updated} = changesForList(callHistoryRef.current, changes);
+    if (inserted.length === 0 && updated.length === 0 && changes.deleted.length === 0) {
+      return;
+    }
+    await markNewMissedCallsAsRead([...inserted, ...updated]);
+
+    setCallHistory(prev => {
+      const applied = changesForList(prev, changes);
+      const changed = [...applied.inserted, ...applied.updated];
+      const removedIds = new Set([...changes.deleted, ...changed.map(call => call.id)]);
+      return [
+        ...prev.filter(call => !removedIds.has(call.id)),
+        ...changed.map(toCallRecord),
+      ].sort((a, b) => b.timestamp - a.timestamp);
+    });
+  };
+
+  // Load the next, older page when the list is scrolled to its end
+  const loadMoreCalls = async () => {
+    if (!nextToken || loadingMore) {
+      return;
+    }
+    try {
+      setLoadingMore(true);
+      const page = await getCallsPage(nextToken, PAGE_SIZE);
+      await markNewMissedCallsAsRead(page.calls);
+      setCallHistory(prev => {
+        // A call already applied from the change feed is not added twice
+        const loadedIds = new Set(prev.map(call => call.id));
+        return [
+          ...prev,
+          ...page.calls.filter(call => !loadedIds.has(call.id)).map(toCallRecord),
+        ];
+      });
+      setNextToken(page.nextToken);
+    } catch (error) {
+      console.error('Error loading more call history:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const formatDate = (timestamp: number): string => {
     const date = new Date(timestamp);
     const today = new Date();
@@ -260,6 +382,11 @@ const RecentCallsScreen: React.FC = () => {
           renderItem={renderCallItem}
           keyExtractor={item => item.id}
           contentContainerStyle={styles.listContainer}
+          onEndReached={loadMoreCalls}
+          onEndReachedThreshold={0.5}
+          ListFooterComponent={
+            loadingMore ? <ActivityIndicator color="#007BFF" /> : null
+          }
         />
       )}
     </View>
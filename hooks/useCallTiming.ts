@@ -1,29 +1,95 @@
-import {useEffect, useState} from 'react';
-import {NativeModules, NativeEventEmitter} from 'react-native';
+import {useEffect, useRef, useState} from 'react';
+import {AppState, NativeModules, NativeEventEmitter} from 'react-native';
 
 const {CallActivityModule} = NativeModules;
 const emitter = new NativeEventEmitter(CallActivityModule);
 
+type CallTiming = {
+  callSid: string | null;
+  connected: boolean;
+  durationMs: number;
+  callTime: string | null;
+};
+
+const formatDuration = (durationMs: number) => {
+  const seconds = Math.floor(durationMs / 1000);
+  const min = Math.floor(seconds / 60);
+  const sec = seconds % 60;
+  return `${String(min).padStart(2, '0')}:${String(sec).padStart(2, '0')}`;
+};
+
+// Native only publishes call state transitions; while the call is connected
+// the duration is ticked here from the answer-time offset it sent, and
+// re-read from native whenever the app returns to the foreground.
 export function useCallTiming() {
   const [recordDisabled, setRecordDisabled] = useState<boolean>(true);
 
   const [callTime, setCallTime] = useState('Connecting...');
 
+  // Local monotonic time at which the call was answered, null until then
+  const connectedAtRef = useRef<number | null>(null);
+
   useEffect(() => {
-    const subscription = emitter.addListener('CallTimingUpdate', data => {
-      if (data?.callTime) {
-        setCallTime(data.callTime);
-        if (
-          data.callTime !== 'Connecting...' &&
-          data.callTime !== 'Calling...'
-        ) {
-          setRecordDisabled(false);
+    let interval: ReturnType<typeof setInterval> | null = null;
+
+    const stopTicking = () => {
+      if (interval) {
+        clearInterval(interval);
+        interval = null;
+      }
+    };
+
+    const tick = () => {
+      if (connectedAtRef.current !== null) {
+        setCallTime(formatDuration(performance.now() - connectedAtRef.current));
+      }
+    };
+
+    const startTicking = () => {
+      if (!interval && AppState.currentState === 'active') {
+        tick();
+        interval = setInterval(tick, 1000);
+      }
+    };
+
+    const apply = (data: CallTiming | null) => {
+      if (data?.connected) {
+        connectedAtRef.current = performance.now() - (data.durationMs || 0);
+        setRecordDisabled(false);
+        startTicking();
+      } else {
+        // Not connected (yet, or any more): there is no duration to tick
+        connectedAtRef.current = null;
+        stopTicking();
+        if (data?.callTime) {
+          setCallTime(data.callTime);
         }
       }
+    };
+
+    const sync = () => {
+      CallActivityModule.getCallTiming?.()
+        .then(apply)
+        .catch(() => {});
+    };
+
+    const subscription = emitter.addListener('CallTimingUpdate', apply);
+
+    // Nothing to draw while backgrounded; resync from native on return
+    const appStateSubscription = AppState.addEventListener('change', state => {
+      if (state === 'active') {
+        sync();
+      } else {
+        stopTicking();
+      }
     });
 
+    sync();
+
     return () => {
+      stopTicking();
       subscription.remove();
+      appStateSubscription.remove();
     };
   }, []);
 
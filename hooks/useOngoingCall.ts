@@ -1,5 +1,5 @@
 import {useState, useEffect} from 'react';
-import {NativeModules} from 'react-native';
+import {NativeModules, NativeEventEmitter} from 'react-native';
 import useWebSocket from './useWebSocket';
 import {usePhoneNumber} from './usePhoneNumber';
 const {CallActivityModule} = NativeModules;
@@ -14,46 +14,62 @@ const useOngoingCall = () => {
   const wsUrl = 'wss://ab7bd2f4e77c.ngrok-free.app/api/ws';
   // const wsUrl = 'wss://d2l9rjxlp3sze3.cloudfront.net/api/ws';
   const userPhoneNumber = phoneNumber; // Replace with actual user phone number
-  const {ws, isFraud, setIsFraud, userId, isConnected} = useWebSocket({
+  const {isFraud, setIsFraud, userId, isConnected} = useWebSocket({
     url: wsUrl,
     userPhoneNumber: userPhoneNumber,
+    callSid,
   });
 
   console.log('userPhoneNumber>>>>>>>>>>>>>>>>>>>>>>>>', userPhoneNumber);
 
-  // Get call SID when recording starts
+  // Get the call SID when recording starts. Only the native SID is used: CallService has
+  // already associated the call under it, and a second SID would open a second alert channel.
   useEffect(() => {
     if (isRecording && !callSid) {
-      // Try to get call SID from native module or generate one
-      const generateCallSid = async () => {
+      const loadCallSid = async () => {
         try {
-          // Try to get actual call SID from native module if available
           const actualCallSid = await CallActivityModule.getCallSid?.();
           if (actualCallSid) {
             setCallSid(actualCallSid);
-            return actualCallSid;
           }
         } catch (error) {
-          // Could not get actual call SID, will generate one
+          console.warn('Could not get call SID:', error);
         }
-
-        // Generate a call SID if we can't get the real one
-        const generatedSid = `CA${Date.now()}${Math.random()
-          .toString(36)
-          .substr(2, 9)}`;
-        setCallSid(generatedSid);
-        return generatedSid;
       };
 
-      generateCallSid();
+      loadCallSid();
     }
   }, [isRecording, callSid, isConnected]);
 
+  // Let the native fraud alert client drop alerts meant for other calls
+  useEffect(() => {
+    if (callSid) {
+      CallActivityModule.setFraudAlertCallSid?.(callSid);
+    }
+  }, [callSid]);
+
+  // Native side reports when the monitoring conference forms or gives up
+  useEffect(() => {
+    const emitter = new NativeEventEmitter(CallActivityModule);
+    const subscription = emitter.addListener('MonitoringStatus', data => {
+      if (data?.status === 'failed') {
+        console.warn('Monitoring conference failed:', data.reason);
+        setIsRecording(false);
+        setCallSid(null);
+      } else if (data?.status === 'conferenced') {
+        console.log('Monitoring conference formed in', data.setupMs, 'ms');
+      }
+    });
+
+    return () => {
+      subscription.remove();
+    };
+  }, []);
+
   const endCall = async () => {
     CallActivityModule.endCall()
       .then((response: any) => {
         console.log('Call ended successfully:', response);
-        ws?.close();
       })
       .catch((error: any) => {
         console.error('Failed to end call:', error);
@@ -1,20 +1,26 @@
 import {useEffect, useState, useCallback} from 'react';
+import {NativeModules, NativeEventEmitter} from 'react-native';
 import AsyncStorage from '@react-native-async-storage/async-storage';
 
+const {CallActivityModule} = NativeModules;
+
 interface UseWebSocketProps {
   url: string;
   userPhoneNumber: string | null;
+  // Only show alerts for this call; all calls when not set
+  callSid?: string | null;
 }
 
-const useWebSocket = ({ url, userPhoneNumber }: UseWebSocketProps) => {
+// The fraud alert socket is owned by the native call service so alerts keep
+// arriving while JS is backgrounded. It is shared by all calls and screens;
+// this hook configures it and mirrors its alerts and connection state.
+const useWebSocket = ({ url, userPhoneNumber, callSid }: UseWebSocketProps) => {
   const [isFraud, setIsFraud] = useState<{ status: boolean; type: string }>({
     status: false,
     type: '',
   });
-  const [ws, setWs] = useState<WebSocket | null>(null);
   const [userId, setUserId] = useState<string | null>(null);
   const [isConnected, setIsConnected] = useState<boolean>(false);
-  const [reconnectAttempt, setReconnectAttempt] = useState<number>(0);
 
   // Generate or retrieve user ID
   const getUserId = useCallback(async (): Promise<string> => {
@@ -41,112 +47,66 @@ const useWebSocket = ({ url, userPhoneNumber }: UseWebSocketProps) => {
       return;
     }
 
-    let websocket: WebSocket | null = null;
-    let reconnectTimeout: NodeJS.Timeout | null = null;
-    let shouldReconnect = true;
-
-    const initializeConnection = async () => {
-      try {
-        const currentUserId = await getUserId();
-        setUserId(currentUserId);
-
-        // Create WebSocket URL with user identification
-        const wsUrl = `${url}?user_id=${encodeURIComponent(currentUserId)}&phone_number=${encodeURIComponent(userPhoneNumber)}`;
-        console.log(`[WebSocket] Connecting to: ${wsUrl}`);
-        websocket = new WebSocket(wsUrl);
-
-        websocket.onopen = () => {
-          setIsConnected(true);
-          setReconnectAttempt(0);
-          console.log('[WebSocket] Connected');
-        };
-
-        websocket.onmessage = event => {
-          try {
-            const data = JSON.parse(event.data);
-            console.log('[WebSocket] Message received:', data);
-            if (data.is_fraud) {
-              console.log(`[WebSocket] Fraud detected: ${data.fraud_type}`);
-              setIsFraud({
-                status: data.is_fraud,
-                type: data.fraud_type?.toUpperCase() || 'UNKNOWN',
-              });
-            }
-          } catch (parseError) {
-            console.error('[WebSocket] Error parsing message:', parseError);
-          }
-        };
-
-        websocket.onclose = (event) => {
-          setIsConnected(false);
-          setWs(null);
-          console.warn('[WebSocket] Connection closed:', event.reason || event.code);
-          if (shouldReconnect) {
-            // Exponential backoff: min 2s, max 30s
-            const nextAttempt = Math.min(30000, Math.pow(2, reconnectAttempt + 1) * 1000);
-            console.log(`[WebSocket] Reconnecting in ${nextAttempt / 1000}s...`);
-            reconnectTimeout = setTimeout(() => {
-              setReconnectAttempt((prev) => prev + 1);
-            }, nextAttempt);
-          }
-        };
-
-        websocket.onerror = error => {
-          setIsConnected(false);
-          setWs(null);
-          console.error('[WebSocket] Error:', error);
-        };
-
-        setWs(websocket);
-      } catch (error) {
-        console.error('[WebSocket] Initialization error:', error);
+    let cancelled = false;
+    getUserId().then(currentUserId => {
+      if (cancelled) {
+        return;
       }
+      setUserId(currentUserId);
+      console.log(`[WebSocket] Configuring native fraud alerts for: ${url}`);
+      CallActivityModule.configureFraudAlerts(url, currentUserId, userPhoneNumber);
+    });
+
+    return () => {
+      cancelled = true;
     };
+  }, [url, userPhoneNumber, getUserId]);
 
-    initializeConnection();
+  useEffect(() => {
+    const emitter = new NativeEventEmitter(CallActivityModule);
+    const alertSubscription = emitter.addListener('FraudAlert', data => {
+      if (callSid && data?.callSid && data.callSid !== callSid) {
+        return;
+      }
+      console.log(`[WebSocket] Fraud detected (${data?.source}): ${data?.fraudType}`);
+      setIsFraud(prev =>
+        prev.status ? prev : {status: true, type: data?.fraudType || 'UNKNOWN'},
+      );
+    });
+    const connectionSubscription = emitter.addListener('FraudAlertConnection', data => {
+      setIsConnected(!!data?.connected);
+    });
+
+    CallActivityModule.getFraudAlertStats?.()
+      .then((stats: {connected: number}) => setIsConnected(stats.connected === 1))
+      .catch(() => {});
 
     return () => {
-      shouldReconnect = false;
-      if (reconnectTimeout) clearTimeout(reconnectTimeout);
-      if (websocket) {
-        websocket.onopen = null;
-        websocket.onmessage = null;
-        websocket.onclose = null;
-        websocket.onerror = null;
-        websocket.close();
-        setIsConnected(false);
-        setWs(null);
-        console.log('[WebSocket] Cleaned up connection');
-      }
+      alertSubscription.remove();
+      connectionSubscription.remove();
     };
-    // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [url, userPhoneNumber, getUserId, reconnectAttempt]);
+  }, [callSid]);
 
   // Utility to send a message (for debugging or feature use)
-  const sendMessage = useCallback(
-    (msg: any) => {
-      if (ws && isConnected) {
-        try {
-          ws.send(JSON.stringify(msg));
-          console.log('[WebSocket] Sent message:', msg);
-        } catch (err) {
-          console.error('[WebSocket] Send error:', err);
-        }
+  const sendMessage = useCallback(async (msg: any) => {
+    try {
+      const sent = await CallActivityModule.sendFraudAlertMessage(JSON.stringify(msg));
+      if (sent) {
+        console.log('[WebSocket] Sent message:', msg);
       } else {
         console.warn('[WebSocket] Cannot send, not connected.');
       }
-    },
-    [ws, isConnected]
-  );
+    } catch (err) {
+      console.error('[WebSocket] Send error:', err);
+    }
+  }, []);
 
   return {
     isFraud,
     setIsFraud,
-    ws,
     userId,
     isConnected,
     sendMessage,
-    reconnectAttempt,
   };
 };
 
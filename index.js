@@ -7,6 +7,9 @@ import App from './App';
 import IncomingCall from './components/IncomingCall';
 import OutgoingCall from './components/OutgoingCall';
 import {name as appName} from './app.json';
+import {installNativeEventBus} from './utils/native_modules/native_event_bus';
+
+installNativeEventBus();
 
 AppRegistry.registerComponent(appName, () => App);
 AppRegistry.registerComponent('IncomingCall', () => IncomingCall);
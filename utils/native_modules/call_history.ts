@@ -1,4 +1,4 @@
-import {NativeModules, Platform} from 'react-native';
+import {DeviceEventEmitter, NativeModules, Platform} from 'react-native';
 // Add console log to see what modules are available
 console.log('Available Native Modules:', Object.keys(NativeModules));
 const {CallHistoryModule} = NativeModules;
@@ -47,6 +47,168 @@ export const getRecentCalls = async (limit = 50): Promise<CallLogEntry[]> => {
   }
 };
 
+export interface CallLogPage {
+  calls: CallLogEntry[];
+  // Pass back to get the next (older) page; null after the last page
+  nextToken: string | null;
+}
+
+/**
+ * Get one page of the device's call log, newest first. Each page continues
+ * after the last row of the previous one, so deep pages cost the same as the
+ * first.
+ * @param continuationToken nextToken of the previous page, or null for the first page
+ * @param pageSize Maximum number of entries on the page
+ * @param typeFilter Only calls of this type; all calls when not set
+ * @returns Promise with the page's entries and the token of the next page
+ */
+export const getCallsPage = async (
+  continuationToken: string | null = null,
+  pageSize = 50,
+  typeFilter: CallLogEntry['type'] | null = null,
+): Promise<CallLogPage> => {
+  if (Platform.OS !== 'android') {
+    console.log('Call history is only available on Android');
+    return {calls: [], nextToken: null};
+  }
+
+  try {
+    if (!CallHistoryModule) {
+      console.error('CallHistoryModule is not available');
+      return {calls: [], nextToken: null};
+    }
+
+    const page = await CallHistoryModule.getCallsPage(
+      continuationToken,
+      pageSize,
+      typeFilter,
+    );
+    return {calls: page?.calls || [], nextToken: page?.nextToken ?? null};
+  } catch (error) {
+    console.error('Error getting call page:', error);
+    return {calls: [], nextToken: null};
+  }
+};
+
+export interface CallLogChanges {
+  // The token was unknown: inserted holds the newest calls and replaces the list
+  reset: boolean;
+  inserted: CallLogEntry[];
+  updated: CallLogEntry[];
+  deleted: string[];
+  // Pass back to the next getCallLogChanges call
+  nextToken: string | null;
+}
+
+/**
+ * Get the calls inserted, updated or deleted among the newest calls since
+ * the previous sync
+ * @param syncToken nextToken of the previous sync, or null to start over
+ * @returns Promise with the changes, or null if they could not be read
+ */
+export const getCallLogChanges = async (
+  syncToken: string | null,
+): Promise<CallLogChanges | null> => {
+  if (Platform.OS !== 'android' || !CallHistoryModule) {
+    return null;
+  }
+
+  try {
+    return await CallHistoryModule.getCallLogChanges(syncToken);
+  } catch (error) {
+    console.error('Error getting call log changes:', error);
+    return null;
+  }
+};
+
+/**
+ * Listen for changes of the device's call log; fetch them with getCallLogChanges
+ * @returns Function that removes the listener
+ */
+export const onCallLogChanged = (listener: () => void): (() => void) => {
+  const subscription = DeviceEventEmitter.addListener(
+    'CallLogChanged',
+    listener,
+  );
+  return () => subscription.remove();
+};
+
+export interface CallHistoryEntry extends CallLogEntry {
+  // Fraud type of the call's verdict, null if it was not flagged
+  fraudType: string | null;
+  // Highest risk between 0 and 1 seen during the call
+  riskScore: number;
+  fraudSource: 'server' | 'transcript' | null;
+  // Whether the call was conferenced with the monitoring line
+  monitored: boolean;
+  callSid: string | null;
+}
+
+const queryHistory = async (
+  name: string,
+  query: () => Promise<CallHistoryEntry[]>,
+): Promise<CallHistoryEntry[]> => {
+  if (Platform.OS !== 'android' || !CallHistoryModule) {
+    return [];
+  }
+
+  try {
+    return (await query()) || [];
+  } catch (error) {
+    console.error(`Error getting ${name}:`, error);
+    return [];
+  }
+};
+
+/**
+ * Get the app's stored calls with a number, newest first. The app keeps calls
+ * after the device's call log drops them.
+ * @param phoneNumber Number in any format
+ * @param beforeTimestamp Only calls before this time; 0 for the newest
+ * @param limit Maximum number of entries to return
+ */
+export const getNumberHistory = (
+  phoneNumber: string,
+  beforeTimestamp = 0,
+  limit = 50,
+): Promise<CallHistoryEntry[]> =>
+  queryHistory('number history', () =>
+    CallHistoryModule.getNumberHistory(phoneNumber, beforeTimestamp, limit),
+  );
+
+/**
+ * Get the app's stored calls flagged as fraud, newest first
+ * @param beforeTimestamp Only calls before this time; 0 for the newest
+ * @param limit Maximum number of entries to return
+ */
+export const getFlaggedCalls = (
+  beforeTimestamp = 0,
+  limit = 50,
+): Promise<CallHistoryEntry[]> =>
+  queryHistory('flagged calls', () =>
+    CallHistoryModule.getFlaggedCalls(beforeTimestamp, limit),
+  );
+
+/**
+ * Get the app's stored calls from fromTimestamp up to toTimestamp, newest first
+ * @param typeFilter Only calls of this type; all calls when not set
+ * @param limit Maximum number of entries to return
+ */
+export const getCallsBetween = (
+  fromTimestamp: number,
+  toTimestamp: number,
+  typeFilter: CallLogEntry['type'] | null = null,
+  limit = 50,
+): Promise<CallHistoryEntry[]> =>
+  queryHistory('calls between dates', () =>
+    CallHistoryModule.getCallsBetween(
+      fromTimestamp,
+      toTimestamp,
+      typeFilter,
+      limit,
+    ),
+  );
+
 /**
  * Mark a call as read in the device's call log
  * @param callId The ID of the call to mark as read
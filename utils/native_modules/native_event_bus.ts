@@ -0,0 +1,35 @@
+import { DeviceEventEmitter, NativeModules } from 'react-native';
+
+const { CallActivityModule } = NativeModules;
+
+type NativeEvent = { name: string; params: any };
+
+let installed = false;
+
+// Native events arrive once per frame as a single NativeEventBatch; fan them
+// back out so existing DeviceEventEmitter/NativeEventEmitter listeners keep
+// receiving the original event names.
+export const installNativeEventBus = () => {
+  if (installed) {
+    return;
+  }
+  installed = true;
+
+  DeviceEventEmitter.addListener('NativeEventBatch', (events: NativeEvent[]) => {
+    if (!Array.isArray(events)) {
+      return;
+    }
+    for (const event of events) {
+      try {
+        DeviceEventEmitter.emit(event.name, event.params);
+      } catch (error) {
+        console.error(`[NativeEventBus] Listener for ${event.name} failed:`, error);
+      }
+    }
+  });
+
+  // Until this runs native keeps emitting events one by one
+  CallActivityModule?.enableEventBatching?.();
+};
+
+export const getEventBusStats = () => CallActivityModule.getEventBusStats();